@@ -0,0 +1,77 @@
+#!/usr/bin/env bash
+# Startup Benchmark: time from launching the JVM until the first request is answered
+# (GET /api/products/browse?size=1 returns 200), for
+#   default      java -jar (schema update + data.sql replay on every boot)
+#   prod         java -jar with the 'prod' profile (no schema changes, no seed replay)
+#   prod+aot+cds the fast-startup build: AOT-processed context and the CDS archive
+#
+# Usage (from SourceCode/backend):
+#   mvn -Pfast-startup -DskipTests package
+#   scripts/startup-benchmark.sh [runs per variant, default 3]
+# The configured database must be reachable; the first 'default' start creates the schema the prod variants
+# validate against. Extra application arguments (e.g. another datasource) can be passed in BENCH_ARGS. The prod
+# variants share the catalog snapshot file CATALOG_SNAPSHOT_FILE (default: target/startup-benchmark.snapshot).
+set -euo pipefail
+
+RUNS=${1:-3}
+PORT=${BENCH_PORT:-18080}
+TIMEOUT_SECONDS=${BENCH_TIMEOUT:-180}
+read -r -a EXTRA_ARGS <<< "${BENCH_ARGS:-}"
+
+cd "$(dirname "$0")/.."
+export CATALOG_SNAPSHOT_FILE=${CATALOG_SNAPSHOT_FILE:-$PWD/target/startup-benchmark.snapshot}
+JAR=target/api-0.0.1-SNAPSHOT.jar
+CDS_DIR=target/cds
+CDS_JAR=api-0.0.1-SNAPSHOT-cds.jar
+LOG=$PWD/target/startup-benchmark.log
+if [[ ! -f $JAR || ! -f $CDS_DIR/$CDS_JAR || ! -f $CDS_DIR/app.jsa ]]; then
+    echo "Build first: mvn -Pfast-startup -DskipTests package" >&2
+    exit 1
+fi
+
+# Runs the given command in the background and prints the milliseconds until the first 200.
+time_to_first_request() {
+    local start end pid
+    start=$(date +%s%N)
+    "$@" --server.port="$PORT" "${EXTRA_ARGS[@]}" > "$LOG" 2>&1 &
+    pid=$!
+    until [[ $(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/api/products/browse?size=1") == 200 ]]; do
+        if ! kill -0 "$pid" 2> /dev/null || (( ($(date +%s%N) - start) / 1000000000 > TIMEOUT_SECONDS )); then
+            kill "$pid" 2> /dev/null || true
+            echo "Application did not answer, see $LOG" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    end=$(date +%s%N)
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo $(( (end - start) / 1000000 ))
+}
+
+default_start() {
+    exec java -jar "$JAR" "$@"
+}
+
+prod_start() {
+    exec java -jar "$JAR" --spring.profiles.active=prod "$@"
+}
+
+fast_start() {
+    # Runs in the background subshell, so the directory change stays local
+    cd "$CDS_DIR"
+    exec java -XX:SharedArchiveFile=app.jsa -Xshare:auto -Dspring.aot.enabled=true \
+        -jar "$CDS_JAR" --spring.profiles.active=prod "$@"
+}
+
+printf '%-14s %8s %8s %8s   (ms to first request, %d runs)\n' variant min median max "$RUNS"
+for variant in default prod fast; do
+    samples=()
+    for ((i = 0; i < RUNS; i++)); do
+        samples+=("$(time_to_first_request "${variant}_start")")
+    done
+    sorted=($(printf '%s\n' "${samples[@]}" | sort -n))
+    label=$variant
+    [[ $variant == fast ]] && label=prod+aot+cds
+    printf '%-14s %8d %8d %8d\n' "$label" "${sorted[0]}" "${sorted[$((RUNS / 2))]}" "${sorted[$((RUNS - 1))]}"
+done
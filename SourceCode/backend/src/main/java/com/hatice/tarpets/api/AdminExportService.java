@@ -0,0 +1,214 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+// Admin Export Service.
+// Streams the 'users' and 'orders' tables to an OutputStream while reading them through a fetch-size limited
+// cursor. Rows are written as soon as they are read, so memory use stays constant regardless of table size
+// (unlike findAll(), which builds the full entity graph before serializing it).
+@Service
+public class AdminExportService {
+
+    // Rows fetched per round trip (requires useCursorFetch=true on MySQL, see application.properties).
+    static final int FETCH_SIZE = 1000;
+
+    // Password hashes are never exported.
+    private static final String USERS_SQL =
+            "SELECT id, full_name, email, phone_number, role FROM users ORDER BY id";
+
+    // Orders joined with their line items, ordered so all items of an order arrive consecutively.
+    private static final String ORDERS_SQL =
+            "SELECT o.id AS order_id, o.user_id, o.total_price, o.created_at, "
+                    + "i.id AS item_id, i.product_id, i.quantity, i.price "
+                    + "FROM orders o LEFT JOIN order_items i ON i.order_id = o.id "
+                    + "ORDER BY o.id, i.id";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public AdminExportService(DataSource dataSource, ObjectMapper objectMapper) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.objectMapper = objectMapper;
+    }
+
+    // Streams all users: one CSV row or one JSON object per user.
+    public void exportUsers(ExportFormat format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        if (format == ExportFormat.CSV) {
+            writer.write("id,name,email,phone,role\n");
+            streamingJdbcTemplate.query(USERS_SQL, rs -> {
+                try {
+                    writer.write(Long.toString(rs.getLong("id")));
+                    writer.write(',');
+                    writer.write(CsvReader.escape(rs.getString("full_name")));
+                    writer.write(',');
+                    writer.write(CsvReader.escape(rs.getString("email")));
+                    writer.write(',');
+                    writer.write(CsvReader.escape(rs.getString("phone_number")));
+                    writer.write(',');
+                    writer.write(CsvReader.escape(rs.getString("role")));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } else {
+            JsonGenerator generator = createGenerator(writer);
+            streamingJdbcTemplate.query(USERS_SQL, rs -> {
+                try {
+                    // Same field names as the User JSON returned by the API ("name", "phone")
+                    generator.writeStartObject();
+                    generator.writeNumberField("id", rs.getLong("id"));
+                    generator.writeStringField("name", rs.getString("full_name"));
+                    generator.writeStringField("email", rs.getString("email"));
+                    generator.writeStringField("phone", rs.getString("phone_number"));
+                    generator.writeStringField("role", rs.getString("role"));
+                    generator.writeEndObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            finish(generator);
+        }
+        writer.flush();
+    }
+
+    // Streams all orders.
+    // CSV: one row per order line (order columns repeated). NDJSON: one object per order with an "items" array.
+    public void exportOrders(ExportFormat format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        if (format == ExportFormat.CSV) {
+            writer.write("orderId,userId,totalPrice,createdAt,itemId,productId,quantity,price\n");
+            streamingJdbcTemplate.query(ORDERS_SQL, rs -> {
+                try {
+                    writer.write(Long.toString(rs.getLong("order_id")));
+                    writer.write(',');
+                    writer.write(nullableText(rs, "user_id"));
+                    writer.write(',');
+                    writer.write(nullableText(rs, "total_price"));
+                    writer.write(',');
+                    writer.write(timestampText(rs.getTimestamp("created_at")));
+                    writer.write(',');
+                    writer.write(nullableText(rs, "item_id"));
+                    writer.write(',');
+                    writer.write(nullableText(rs, "product_id"));
+                    writer.write(',');
+                    writer.write(nullableText(rs, "quantity"));
+                    writer.write(',');
+                    writer.write(nullableText(rs, "price"));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } else {
+            JsonGenerator generator = createGenerator(writer);
+            // Only the id of the order currently being written is kept; items are written as they arrive.
+            long[] currentOrder = {-1L};
+            streamingJdbcTemplate.query(ORDERS_SQL, rs -> {
+                try {
+                    long orderId = rs.getLong("order_id");
+                    if (orderId != currentOrder[0]) {
+                        if (currentOrder[0] != -1L) {
+                            generator.writeEndArray();
+                            generator.writeEndObject();
+                        }
+                        currentOrder[0] = orderId;
+                        writeOrderHeader(generator, rs, orderId);
+                    }
+                    long itemId = rs.getLong("item_id");
+                    if (!rs.wasNull()) {
+                        generator.writeStartObject();
+                        generator.writeNumberField("id", itemId);
+                        writeNullableLong(generator, "productId", rs, "product_id");
+                        writeNullableLong(generator, "quantity", rs, "quantity");
+                        writeNullableDouble(generator, "price", rs, "price");
+                        generator.writeEndObject();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (currentOrder[0] != -1L) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            finish(generator);
+        }
+        writer.flush();
+    }
+
+    private void writeOrderHeader(JsonGenerator generator, ResultSet rs, long orderId) throws IOException, SQLException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", orderId);
+        writeNullableLong(generator, "userId", rs, "user_id");
+        writeNullableDouble(generator, "totalPrice", rs, "total_price");
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        if (createdAt == null) {
+            generator.writeNullField("createdAt");
+        } else {
+            generator.writeStringField("createdAt", createdAt.toLocalDateTime().toString());
+        }
+        generator.writeArrayFieldStart("items");
+    }
+
+    // One JSON document per line (NDJSON).
+    private JsonGenerator createGenerator(Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+        return generator;
+    }
+
+    private static void finish(JsonGenerator generator) throws IOException {
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
+    private static void writeNullableLong(JsonGenerator generator, String field, ResultSet rs, String column)
+            throws IOException, SQLException {
+        long value = rs.getLong(column);
+        if (rs.wasNull()) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, value);
+        }
+    }
+
+    private static void writeNullableDouble(JsonGenerator generator, String field, ResultSet rs, String column)
+            throws IOException, SQLException {
+        double value = rs.getDouble(column);
+        if (rs.wasNull()) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, value);
+        }
+    }
+
+    private static String nullableText(ResultSet rs, String column) throws SQLException {
+        Object value = rs.getObject(column);
+        return value == null ? "" : value.toString();
+    }
+
+    private static String timestampText(Timestamp timestamp) {
+        return timestamp == null ? "" : timestamp.toLocalDateTime().toString();
+    }
+}
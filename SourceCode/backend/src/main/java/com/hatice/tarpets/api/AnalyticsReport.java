@@ -0,0 +1,145 @@
+package com.hatice.tarpets.api;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+// Data Transfer Object (DTO) for the Sales Analytics Report (GET /api/admin/analytics).
+// Amounts are rounded to cents.
+public class AnalyticsReport {
+
+    // First and last day of the report (inclusive)
+    private LocalDate from;
+    private LocalDate to;
+
+    // Sum of quantity * unit price over all order lines
+    private double revenue;
+    private long orders;
+
+    // Items sold (sum of quantities)
+    private long units;
+
+    // Average basket: items and revenue per order
+    private double averageBasketUnits;
+    private double averageBasketValue;
+
+    // Revenue per day, every day of the range (0 when there were no orders)
+    private Map<LocalDate, Double> revenueByDay;
+
+    // Revenue per product category / subcategory, highest first ("unknown": deleted products)
+    private Map<String, Double> revenueByCategory;
+    private Map<String, Double> revenueBySubcategory;
+
+    // Spend per pet type of the ordering customer, highest first. A customer's order is split evenly
+    // over the types of pets they own ("none": customers without pets), so the values add up to the revenue.
+    private Map<String, Double> spendByPetType;
+
+    // Days answered from the closed-day cache / read from the database for this report
+    private int cachedDays;
+    private int scannedDays;
+
+    // --- Getters and Setters ---
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public double getAverageBasketUnits() {
+        return averageBasketUnits;
+    }
+
+    public void setAverageBasketUnits(double averageBasketUnits) {
+        this.averageBasketUnits = averageBasketUnits;
+    }
+
+    public double getAverageBasketValue() {
+        return averageBasketValue;
+    }
+
+    public void setAverageBasketValue(double averageBasketValue) {
+        this.averageBasketValue = averageBasketValue;
+    }
+
+    public Map<LocalDate, Double> getRevenueByDay() {
+        return revenueByDay;
+    }
+
+    public void setRevenueByDay(Map<LocalDate, Double> revenueByDay) {
+        this.revenueByDay = revenueByDay;
+    }
+
+    public Map<String, Double> getRevenueByCategory() {
+        return revenueByCategory;
+    }
+
+    public void setRevenueByCategory(Map<String, Double> revenueByCategory) {
+        this.revenueByCategory = revenueByCategory;
+    }
+
+    public Map<String, Double> getRevenueBySubcategory() {
+        return revenueBySubcategory;
+    }
+
+    public void setRevenueBySubcategory(Map<String, Double> revenueBySubcategory) {
+        this.revenueBySubcategory = revenueBySubcategory;
+    }
+
+    public Map<String, Double> getSpendByPetType() {
+        return spendByPetType;
+    }
+
+    public void setSpendByPetType(Map<String, Double> spendByPetType) {
+        this.spendByPetType = spendByPetType;
+    }
+
+    public int getCachedDays() {
+        return cachedDays;
+    }
+
+    public void setCachedDays(int cachedDays) {
+        this.cachedDays = cachedDays;
+    }
+
+    public int getScannedDays() {
+        return scannedDays;
+    }
+
+    public void setScannedDays(int scannedDays) {
+        this.scannedDays = scannedDays;
+    }
+}
@@ -3,10 +3,12 @@ package com.hatice.tarpets.api;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @SpringBootApplication
+@EnableScheduling // Background jobs (e.g. RecommendationService refresh)
 public class ApiApplication {
 
     public static void main(String[] args) {
@@ -26,7 +28,7 @@ public class ApiApplication {
             public void addCorsMappings(CorsRegistry registry) {
                 registry.addMapping("/**") // Apply to all API endpoints
                         .allowedOrigins("http://localhost:3000") // Allow requests from React App
-                        .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS") // Allowed HTTP methods
+                        .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS") // Allowed HTTP methods
                         .allowedHeaders("*"); // Allow all headers
             }
         };
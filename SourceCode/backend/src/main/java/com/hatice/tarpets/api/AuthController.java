@@ -1,7 +1,10 @@
 package com.hatice.tarpets.api;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import io.jsonwebtoken.Claims;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import java.util.*;
@@ -21,6 +24,15 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     // --- REGISTER ENDPOINT ---
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@RequestBody User user) {
@@ -76,6 +88,38 @@ public class AuthController {
         return ResponseEntity.status(401).body(Map.of("message", "Invalid credentials"));
     }
 
+    // --- REFRESH ENDPOINT ---
+    // Short-lived access token expired: exchange the refresh token for a new pair (the old one stops working).
+    @PostMapping("/refresh")
+    public TokenResponse refresh(@Valid @RequestBody RefreshRequest request) {
+        return refreshTokenService.refresh(request.getRefreshToken());
+    }
+
+    // --- LOGOUT ENDPOINT ---
+    // Revokes the access token at once and, if sent, the refresh token (with the tokens rotated from it).
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@AuthenticationPrincipal Long userId,
+                                    @RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                    @RequestBody(required = false) RefreshRequest request) {
+        Claims claims = jwtUtil.parseClaims(authorization.substring("Bearer ".length()));
+        if (claims != null) {
+            tokenRevocationService.revokeToken(claims.getId(), userId, claims.getExpiration());
+        }
+        if (request != null && request.getRefreshToken() != null) {
+            refreshTokenService.revoke(request.getRefreshToken(), userId);
+        }
+        return ResponseEntity.ok(Map.of("message", "Logged out"));
+    }
+
+    // --- LOGOUT EVERYWHERE ENDPOINT ---
+    // Every access and refresh token of the user, on all devices.
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(@AuthenticationPrincipal Long userId) {
+        tokenRevocationService.revokeUser(userId);
+        refreshTokenService.revokeAll(userId);
+        return ResponseEntity.ok(Map.of("message", "Logged out on all devices"));
+    }
+
     /**
      * Helper method to build the Authentication Response DTO.
      * Centralizes logic to avoid code duplication in Login and Register.
@@ -85,6 +129,7 @@ public class AuthController {
 
         AuthResponse response = new AuthResponse();
         response.setToken(token);
+        response.setRefreshToken(refreshTokenService.issue(user.getId()));
         response.setId(user.getId());
         response.setName(user.getFullName());
         response.setEmail(user.getEmail());
@@ -104,16 +149,10 @@ public class AuthController {
         }
         response.setPets(petDtos);
 
-        // Calculate counts per pet type (e.g., "Cat": 2, "Dog": 1)
-        Map<String, Integer> petTypeCounts = new HashMap<>();
-        for (Map<String, Object> pd : petDtos) {
-            String type = pd.get("type") == null ? "Unknown" : pd.get("type").toString();
-            type = type.trim();
-            if (type.isEmpty()) type = "Unknown";
-            petTypeCounts.put(type, petTypeCounts.getOrDefault(type, 0) + 1);
-        }
-        response.setPetTypeCounts(petTypeCounts);
-        response.setPetCount(petDtos.size());
+        // Counts per pet type (e.g., "Cat": 2, "Dog": 1), computed by the database
+        PetStats stats = new PetStats(petService.countByType(user.getId()));
+        response.setPetTypeCounts(stats.getPetTypeCounts());
+        response.setPetCount(stats.getPetCount());
 
         return response;
     }
@@ -9,6 +9,10 @@ import java.util.Map;
 
 public class AuthResponse {
     private String token;
+
+    // Exchanged for a new token when it expires (POST /api/refresh)
+    private String refreshToken;
+
     private Long id;
     private String name;
     private String email;
@@ -34,6 +38,14 @@ public class AuthResponse {
         this.token = token;
     }
 
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,102 @@
+package com.hatice.tarpets.api;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bloom Filter.
+// Answers "definitely not added" or "maybe added" from a fixed bit array, without storing the keys: each key
+// sets k bits chosen by two 64-bit hashes (bit i = h1 + i * h2). No false negatives; the false-positive rate
+// stays near the configured one while no more than 'expectedEntries' keys were added. Keys cannot be removed,
+// the owner rebuilds a new filter instead (TokenRevocationService).
+// Thread-safe: bits are set with compare-and-set, reads never lock and never allocate.
+public class BloomFilter {
+
+    // Seed for numeric keys, so they do not map to the same bits as a string with the same hash
+    private static final long LONG_SEED = 0x9E3779B97F4A7C15L;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final int expectedEntries;
+
+    public BloomFilter(int expectedEntries, double falsePositiveRate) {
+        if (expectedEntries <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedEntries must be positive and falsePositiveRate in (0, 1)");
+        }
+        // Optimal sizes: m = -n ln(p) / ln(2)^2 bits, k = m/n ln(2) hash functions
+        long bits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * Math.log(2)));
+        this.expectedEntries = expectedEntries;
+    }
+
+    public int getExpectedEntries() {
+        return expectedEntries;
+    }
+
+    public void add(String key) {
+        long h = hash(key);
+        set(mix(h), mix(h + LONG_SEED));
+    }
+
+    public boolean mightContain(String key) {
+        long h = hash(key);
+        return test(mix(h), mix(h + LONG_SEED));
+    }
+
+    public void add(long key) {
+        long h = mix(key ^ LONG_SEED);
+        set(h, mix(h));
+    }
+
+    public boolean mightContain(long key) {
+        long h = mix(key ^ LONG_SEED);
+        return test(h, mix(h));
+    }
+
+    private void set(long h1, long h2) {
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    private boolean test(long h1, long h2) {
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a over the characters (no byte[] copy of the string)
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // MurmurHash3 finalizer: spreads every input bit over the whole word
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe53a2a6bL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
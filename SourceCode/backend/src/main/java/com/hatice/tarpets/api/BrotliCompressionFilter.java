@@ -0,0 +1,402 @@
+package com.hatice.tarpets.api;
+
+import com.aayushatharva.brotli4j.encoder.BrotliOutputStream;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+// Brotli Response Compression Filter.
+// Tomcat only implements gzip (server.compression.*). For clients that send "Accept-Encoding: br" this filter
+// compresses eligible responses with Brotli instead, which is noticeably smaller on repetitive JSON such as
+// the product catalog. Same rules as Tomcat's gzip: MIME type filter + minimum size threshold.
+// Responses that already carry a Content-Encoding are left alone, so Tomcat gzip never double-compresses.
+// NOTE: Created by CompressionConfig (not a @Component) so it is only active when enabled and the native library loads.
+public class BrotliCompressionFilter extends OncePerRequestFilter {
+
+    private final List<String> mimeTypes;
+    private final int minResponseSize;
+    private final Encoder.Parameters parameters;
+
+    public BrotliCompressionFilter(List<String> mimeTypes, int minResponseSize, int quality) {
+        this.mimeTypes = mimeTypes;
+        this.minResponseSize = minResponseSize;
+        this.parameters = new Encoder.Parameters().setQuality(quality).setMode(Encoder.Mode.TEXT);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null || !acceptsBrotli(acceptEncoding) || "HEAD".equals(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        BrotliResponseWrapper wrapper = new BrotliResponseWrapper(request, response);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            wrapper.finish();
+        }
+    }
+
+    // Matches "br" as a token (e.g. "gzip, deflate, br" or "br;q=0.8"). The q-value is compared as a number:
+    // "br;q=0", "br;q=0.0" and "br;q=0.000" all mean "not acceptable" (RFC 9110, 12.4.2), and so does a malformed one.
+    static boolean acceptsBrotli(String acceptEncoding) {
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            if (!params[0].trim().equalsIgnoreCase("br")) {
+                continue;
+            }
+            double q = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            return q > 0 && q <= 1;
+        }
+        return false;
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String mime = contentType.split(";", 2)[0].trim().toLowerCase();
+        return mimeTypes.contains(mime);
+    }
+
+    // Response wrapper that buffers output until the size threshold is reached, then decides once whether to
+    // stream the rest through a Brotli encoder or pass it through unchanged.
+    private class BrotliResponseWrapper extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private DeferredOutputStream stream;
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        // Set when the request went async (e.g. StreamingResponseBody): output written later bypasses Brotli.
+        private boolean passThrough;
+
+        BrotliResponseWrapper(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (passThrough && stream == null) {
+                return super.getOutputStream();
+            }
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (stream == null) {
+                stream = new DeferredOutputStream();
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (passThrough && stream == null) {
+                return super.getWriter();
+            }
+            if (writer == null) {
+                if (stream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                stream = new DeferredOutputStream();
+                writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        // The final length is unknown until we decide; remember it and apply it only when passing through.
+        @Override
+        public void setContentLength(int len) {
+            setContentLengthLong(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (passThrough) {
+                super.setContentLengthLong(len);
+            } else {
+                this.contentLength = len;
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) && !passThrough) {
+                this.contentLength = value == null ? -1 : Long.parseLong(value);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setHeader(name, value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.flush();
+                if (!stream.isDecided()) {
+                    // Committing now would send headers before Content-Encoding is known.
+                    return;
+                }
+            }
+            super.flushBuffer();
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (request.isAsyncStarted()) {
+                // The body will be written by another thread after this filter returns: stop deferring.
+                passThrough = true;
+                if (stream != null) {
+                    stream.passThrough();
+                } else if (contentLength >= 0) {
+                    getResponse().setContentLengthLong(contentLength);
+                }
+                return;
+            }
+            if (stream != null) {
+                stream.finish();
+            } else if (contentLength >= 0) {
+                getResponse().setContentLengthLong(contentLength);
+            }
+        }
+
+        private class DeferredOutputStream extends ServletOutputStream {
+
+            private ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(256, minResponseSize));
+            private OutputStream target;
+            private EncoderSink sink;
+            private boolean compressing;
+            private boolean finished;
+            private boolean nonBlocking;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (target != null) {
+                    target.write(b);
+                    drain();
+                    return;
+                }
+                buffer.write(b);
+                if (buffer.size() >= minResponseSize) {
+                    decide(true);
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (target != null) {
+                    target.write(b, off, len);
+                    drain();
+                    return;
+                }
+                buffer.write(b, off, len);
+                if (buffer.size() >= minResponseSize) {
+                    decide(true);
+                }
+            }
+
+            // Picks the output path once. Below the threshold (or ineligible) the bytes go out unchanged.
+            private void decide(boolean largeEnough) throws IOException {
+                HttpServletResponse response = (HttpServletResponse) getResponse();
+                compressing = largeEnough
+                        && !request.isAsyncStarted()
+                        && response.getStatus() == HttpServletResponse.SC_OK
+                        && response.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+                        && isCompressible(response.getContentType());
+
+                if (compressing) {
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, "br");
+                    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                    sink = new EncoderSink(response.getOutputStream());
+                    target = new BrotliOutputStream(sink, parameters);
+                } else {
+                    if (contentLength >= 0) {
+                        response.setContentLengthLong(contentLength);
+                    }
+                    target = response.getOutputStream();
+                }
+                buffer.writeTo(target);
+                buffer = null;
+            }
+
+            boolean isDecided() {
+                return target != null;
+            }
+
+            void passThrough() throws IOException {
+                if (target == null) {
+                    decide(false);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                // Flushing before the decision would force it early; small responses are flushed in finish().
+                if (target != null) {
+                    target.flush();
+                    drain();
+                }
+            }
+
+            private void drain() throws IOException {
+                if (sink != null) {
+                    sink.drain();
+                }
+            }
+
+            void finish() throws IOException {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                if (target == null) {
+                    decide(false);
+                }
+                if (compressing) {
+                    // Writes the final Brotli block (and closes the servlet stream, the response is complete).
+                    target.close();
+                } else {
+                    target.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                finish();
+            }
+
+            @Override
+            public boolean isReady() {
+                if (!nonBlocking) {
+                    return true;
+                }
+                try {
+                    return getResponse().getOutputStream().isReady();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            // Non-blocking writes (only possible once the request went async). Undecided output is passed
+            // through uncompressed, as for any other async response; a Brotli stream that has already started
+            // carries on, with the encoder output handed over in one write per application write.
+            // Either way the listener and isReady() are those of the container's stream.
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                try {
+                    if (target == null) {
+                        passThrough = true;
+                        decide(false);
+                    } else {
+                        target.flush();
+                    }
+                    if (sink != null) {
+                        sink.collect();
+                    }
+                    nonBlocking = true;
+                    getResponse().getOutputStream().setWriteListener(writeListener);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    // Output side of the Brotli encoder. Writes straight to the container's stream, until the response switches
+    // to non-blocking writes: a non-blocking stream only takes one write after each isReady() == true, while the
+    // encoder may emit several pieces per call, so from then on they are collected and drained as one write.
+    private static class EncoderSink extends OutputStream {
+
+        private final ServletOutputStream out;
+        private ByteArrayOutputStream pending;
+
+        EncoderSink(ServletOutputStream out) {
+            this.out = out;
+        }
+
+        void collect() {
+            pending = new ByteArrayOutputStream();
+        }
+
+        void drain() throws IOException {
+            if (pending != null && pending.size() > 0) {
+                out.write(pending.toByteArray());
+                pending.reset();
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (pending != null) {
+                pending.write(b);
+            } else {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (pending != null) {
+                pending.write(b, off, len);
+            } else {
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // In non-blocking mode the container flushes what it was given by itself
+            if (pending == null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            drain();
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.hatice.tarpets.api;
+
+import java.util.List;
+import java.util.Map;
+
+// Data Transfer Object (DTO) for the Faceted Browse Response.
+// One page of matching products plus the facet counts for the current filter combination.
+public class BrowseResponse {
+
+    // Products on the requested page
+    private List<Product> products;
+
+    // Total number of matching products (all pages)
+    private long total;
+
+    private int page;
+    private int size;
+
+    // Facet name -> (value -> product count), e.g. "category": {"Cat": 42, "Dog": 17}
+    // Facets: category, subcategory, price, discounted, inStock
+    private Map<String, Map<String, Integer>> facets;
+
+    // --- Getters and Setters ---
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<Product> products) {
+        this.products = products;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public Map<String, Map<String, Integer>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Integer>> facets) {
+        this.facets = facets;
+    }
+}
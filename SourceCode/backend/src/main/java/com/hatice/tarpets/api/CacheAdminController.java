@@ -0,0 +1,36 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+// Application Cache Controller (REST API, Admin).
+// Access is limited to ADMIN by SecurityConfig ("/api/admin/**").
+@RestController
+@RequestMapping("/api/admin/caches")
+@CrossOrigin(origins = "http://localhost:3000")
+public class CacheAdminController {
+
+    @Autowired
+    private TieredCacheManager cacheManager;
+
+    // 1. Hit Rates, Sizes and Eviction Policy of Every Cache Region (this instance)
+    @GetMapping
+    public List<CacheRegionStats> getCaches() {
+        return cacheManager.stats();
+    }
+
+    // 2. Clear a Region, here, in the remote tier and on the other instances
+    @DeleteMapping("/{name}")
+    public CacheRegionStats clearCache(@PathVariable String name) {
+        TieredCache region = cacheManager.getRegion(name);
+        if (region == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cache not found: " + name);
+        }
+        region.clear();
+        return region.stats();
+    }
+}
@@ -0,0 +1,84 @@
+package com.hatice.tarpets.api;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Cache Invalidation Message.
+// "Entity X (or all of its rows) changed on node N": sent over the CacheInvalidationBus so that other
+// instances evict their second-level cache entries. Stored in 'cache_invalidations' by the JDBC bus.
+@Entity
+@Table(name = "cache_invalidations")
+public class CacheInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Instance that made the change (receivers skip their own messages)
+    @Column(length = 64)
+    private String nodeId;
+
+    // Entity class name, e.g. "com.hatice.tarpets.api.Product"
+    private String entityName;
+
+    // Changed row, or null when every row of the entity may have changed (bulk JDBC writes)
+    private Long entityId;
+
+    private LocalDateTime createdAt;
+
+    public CacheInvalidation() {}
+
+    public CacheInvalidation(String nodeId, String entityName, Long entityId) {
+        this.nodeId = nodeId;
+        this.entityName = entityName;
+        this.entityId = entityId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public boolean isAllEntries() {
+        return entityId == null;
+    }
+
+    // ---- GETTERS & SETTERS ----
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public void setEntityName(String entityName) {
+        this.entityName = entityName;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,21 @@
+package com.hatice.tarpets.api;
+
+import java.util.function.Consumer;
+
+// Cache Invalidation Bus.
+// Carries "this entity changed" messages between application instances, so a write on one node evicts the
+// stale second-level cache entries on the others. Selected with "cache.invalidation.mode":
+//   local - instances in the same JVM only (single-node deployments, tests)  -> LocalCacheInvalidationBus
+//   jdbc  - instances sharing the database, by polling 'cache_invalidations' -> JdbcCacheInvalidationBus
+// Other transports (e.g. Redis pub/sub) only need to implement this interface.
+public interface CacheInvalidationBus {
+
+    // Id of this instance; messages are stamped with it and never delivered back to their sender.
+    String getNodeId();
+
+    // Sends the message to every other instance (asynchronously for remote transports).
+    void publish(CacheInvalidation message);
+
+    // Registers a handler for messages from other instances.
+    void subscribe(Consumer<CacheInvalidation> handler);
+}
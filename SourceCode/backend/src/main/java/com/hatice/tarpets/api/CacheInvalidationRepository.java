@@ -0,0 +1,25 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Data Access Object (DAO) for cache invalidation messages (JdbcCacheInvalidationBus).
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidation, Long> {
+
+    // Messages after the last one seen, oldest first
+    List<CacheInvalidation> findByIdGreaterThanOrderByIdAsc(Long id);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CacheInvalidation c")
+    Long findMaxId();
+
+    // Retention: every node has polled these long ago
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CacheInvalidation c WHERE c.createdAt < :cutoff")
+    int deleteOlderThan(LocalDateTime cutoff);
+}
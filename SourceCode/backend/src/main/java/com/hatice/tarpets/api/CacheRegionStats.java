@@ -0,0 +1,155 @@
+package com.hatice.tarpets.api;
+
+// Data Transfer Object (DTO) for one region of the application cache (GET /api/admin/caches).
+// Counts are since startup.
+public class CacheRegionStats {
+
+    // Region name and its eviction policy (cache.regions.<name>.*)
+    private String name;
+    private long maxEntries;
+    private long ttlSeconds;
+    private boolean remote;
+
+    // Entries currently held by this instance (approximate)
+    private long size;
+
+    // Reads, and how they were answered: in-process tier, remote tier, or neither (the value had to be loaded)
+    private long requests;
+    private long localHits;
+    private long remoteHits;
+    private long misses;
+    private double hitRate;
+
+    // Loads from the database (concurrent misses of one key share a single load), failed ones, average duration
+    private long loads;
+    private long loadFailures;
+    private double averageLoadMillis;
+
+    // Entries dropped by the size limit or the TTL
+    private long evictions;
+
+    // Failed remote tier calls (answered from the database instead)
+    private long remoteErrors;
+
+    // --- Getters and Setters ---
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(long maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public boolean isRemote() {
+        return remote;
+    }
+
+    public void setRemote(boolean remote) {
+        this.remote = remote;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public void setRequests(long requests) {
+        this.requests = requests;
+    }
+
+    public long getLocalHits() {
+        return localHits;
+    }
+
+    public void setLocalHits(long localHits) {
+        this.localHits = localHits;
+    }
+
+    public long getRemoteHits() {
+        return remoteHits;
+    }
+
+    public void setRemoteHits(long remoteHits) {
+        this.remoteHits = remoteHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    public long getLoads() {
+        return loads;
+    }
+
+    public void setLoads(long loads) {
+        this.loads = loads;
+    }
+
+    public long getLoadFailures() {
+        return loadFailures;
+    }
+
+    public void setLoadFailures(long loadFailures) {
+        this.loadFailures = loadFailures;
+    }
+
+    public double getAverageLoadMillis() {
+        return averageLoadMillis;
+    }
+
+    public void setAverageLoadMillis(double averageLoadMillis) {
+        this.averageLoadMillis = averageLoadMillis;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public long getRemoteErrors() {
+        return remoteErrors;
+    }
+
+    public void setRemoteErrors(long remoteErrors) {
+        this.remoteErrors = remoteErrors;
+    }
+}
@@ -0,0 +1,134 @@
+package com.hatice.tarpets.api;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Discount Campaign Entity.
+// A percentage discount on a category or on a list of products for a time window. CampaignService applies
+// it when 'startsAt' is reached and returns the products to their regular price at 'endsAt'.
+@Entity
+@Table(name = "campaigns")
+public class Campaign {
+
+    public static final String STATUS_SCHEDULED = "SCHEDULED";
+    public static final String STATUS_ACTIVE = "ACTIVE";
+    public static final String STATUS_ENDED = "ENDED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String name;
+
+    // e.g. 20.0 = 20% off the regular price
+    private Double discountPercent;
+
+    // Target: every product of this category...
+    private String category;
+
+    // ...and/or these products
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "campaign_products", joinColumns = @JoinColumn(name = "campaign_id"))
+    @Column(name = "product_id")
+    private List<Long> productIds = new ArrayList<>();
+
+    private LocalDateTime startsAt;
+    private LocalDateTime endsAt;
+
+    // SCHEDULED -> ACTIVE -> ENDED, or CANCELLED
+    @Column(length = 16)
+    private String status;
+
+    // Number of products discounted when the campaign started
+    private Integer affectedProducts;
+
+    private LocalDateTime createdAt;
+
+    public Campaign() {}
+
+    // ---- GETTERS & SETTERS ----
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Double getDiscountPercent() {
+        return discountPercent;
+    }
+
+    public void setDiscountPercent(Double discountPercent) {
+        this.discountPercent = discountPercent;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    public void setProductIds(List<Long> productIds) {
+        this.productIds = productIds;
+    }
+
+    public LocalDateTime getStartsAt() {
+        return startsAt;
+    }
+
+    public void setStartsAt(LocalDateTime startsAt) {
+        this.startsAt = startsAt;
+    }
+
+    public LocalDateTime getEndsAt() {
+        return endsAt;
+    }
+
+    public void setEndsAt(LocalDateTime endsAt) {
+        this.endsAt = endsAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getAffectedProducts() {
+        return affectedProducts;
+    }
+
+    public void setAffectedProducts(Integer affectedProducts) {
+        this.affectedProducts = affectedProducts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,37 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Discount Campaign Controller (REST API, Admin).
+// Access is limited to ADMIN by SecurityConfig ("/api/admin/**").
+@RestController
+@RequestMapping("/api/admin/campaigns")
+@CrossOrigin(origins = "http://localhost:3000")
+public class CampaignController {
+
+    @Autowired
+    private CampaignService campaignService;
+
+    // 1. List Campaigns (newest start first)
+    @GetMapping
+    public List<Campaign> getCampaigns() {
+        return campaignService.getCampaigns();
+    }
+
+    // 2. Schedule Campaign.
+    // e.g. {"name": "Cat Week", "discountPercent": 20, "category": "cat",
+    //       "startsAt": "2024-05-01T00:00:00", "endsAt": "2024-05-08T00:00:00"}
+    @PostMapping
+    public Campaign createCampaign(@RequestBody Campaign campaign) {
+        return campaignService.create(campaign);
+    }
+
+    // 3. Cancel Campaign (an active campaign first returns its products to their regular price)
+    @DeleteMapping("/{id}")
+    public Campaign cancelCampaign(@PathVariable Long id) {
+        return campaignService.cancel(id);
+    }
+}
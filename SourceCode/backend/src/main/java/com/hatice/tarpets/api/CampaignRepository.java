@@ -0,0 +1,15 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+// Data Access Object (DAO) for discount campaigns.
+public interface CampaignRepository extends JpaRepository<Campaign, Long> {
+
+    // Campaigns whose start or end still has to fire (re-scheduled at startup)
+    List<Campaign> findByStatusIn(Collection<String> statuses);
+
+    List<Campaign> findAllByOrderByStartsAtDesc();
+}
@@ -0,0 +1,381 @@
+package com.hatice.tarpets.api;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Scheduled Discount Campaigns.
+// Start and end of every campaign are registered in a HashedTimerWheel (no polling). When a transition fires,
+// all affected products are repriced with one batched UPDATE in a single transaction, together with their
+// price history rows and the campaign status; then a CatalogReloadEvent swaps the in-memory catalog (and the
+// discounted listing) in one step and evicts cached products on every instance.
+// Products that are already discounted are left alone, so ending a campaign simply returns its products to
+// their regular price (unless an admin changed the price in the meantime).
+// Several instances: each runs the timers, and the status compare-and-set lets one of them apply a transition.
+// Creations and applied transitions are announced on the CacheInvalidationBus; the others then follow the stored
+// status (schedule or drop their timers) and reload their catalog after a price change, which their own timer,
+// finding the status already changed, would not do.
+@Service
+public class CampaignService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CampaignService.class);
+
+    // Largest discount accepted
+    static final double MAX_DISCOUNT_PERCENT = 90.0;
+
+    // Conditional updates: a product changed since it was selected is skipped instead of overwritten
+    private static final String START_SQL = "UPDATE products SET price = ?, old_price = ?, is_discounted = TRUE, "
+            + "version = version + 1 WHERE id = ? AND price = ? AND (is_discounted IS NULL OR is_discounted = FALSE)";
+    private static final String END_SQL = "UPDATE products SET price = ?, old_price = NULL, is_discounted = FALSE, "
+            + "version = version + 1 WHERE id = ? AND price = ? AND is_discounted = TRUE";
+    // Status changes are compare-and-set, so with several instances each transition is applied once
+    private static final String STATUS_SQL = "UPDATE campaigns SET status = ?, affected_products = ? WHERE id = ? AND status = ?";
+
+    // Bus messages name a campaign that was created or changed status: entity id = campaign id
+    private static final String ENTITY_NAME = Campaign.class.getName();
+
+    private final CampaignRepository campaignRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final PriceHistoryService priceHistoryService;
+    private final CatalogIndex catalogIndex;
+    private final ProductWriteBuffer productWriteBuffer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheInvalidationBus bus;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Transitions run one at a time, off the wheel's thread
+    private final ExecutorService transitions = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "campaign-transitions");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final HashedTimerWheel timerWheel;
+
+    // Campaign id -> its pending start/end timers
+    private final Map<Long, List<HashedTimerWheel.Timeout>> timers = new ConcurrentHashMap<>();
+
+    public CampaignService(CampaignRepository campaignRepository, PriceHistoryRepository priceHistoryRepository,
+                           PriceHistoryService priceHistoryService, CatalogIndex catalogIndex,
+                           ProductWriteBuffer productWriteBuffer, ApplicationEventPublisher eventPublisher,
+                           CacheInvalidationBus bus, DataSource dataSource, PlatformTransactionManager transactionManager,
+                           @Value("${campaigns.timer.tick-ms:1000}") long tickMs,
+                           @Value("${campaigns.timer.wheel-size:512}") int wheelSize) {
+        this.campaignRepository = campaignRepository;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.priceHistoryService = priceHistoryService;
+        this.catalogIndex = catalogIndex;
+        this.productWriteBuffer = productWriteBuffer;
+        this.eventPublisher = eventPublisher;
+        this.bus = bus;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.timerWheel = new HashedTimerWheel("campaign-timer", tickMs, wheelSize, transitions);
+        bus.subscribe(this::onRemoteChange);
+    }
+
+    // Re-registers the timers of all open campaigns; transitions missed while down fire right away.
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        for (Campaign campaign : campaignRepository.findByStatusIn(List.of(Campaign.STATUS_SCHEDULED, Campaign.STATUS_ACTIVE))) {
+            schedule(campaign);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timerWheel.close();
+        transitions.shutdownNow();
+    }
+
+    // =====================================================================
+    // ADMIN OPERATIONS
+    // =====================================================================
+
+    public Campaign create(Campaign request) {
+        validate(request);
+        request.setId(null);
+        request.setStatus(Campaign.STATUS_SCHEDULED);
+        request.setAffectedProducts(null);
+        request.setCreatedAt(LocalDateTime.now());
+        Campaign saved = campaignRepository.save(request);
+        schedule(saved);
+        announce(saved.getId());
+        return saved;
+    }
+
+    public List<Campaign> getCampaigns() {
+        return campaignRepository.findAllByOrderByStartsAtDesc();
+    }
+
+    // Scheduled: just cancelled. Active: products go back to their regular price first.
+    public Campaign cancel(Long campaignId) {
+        Campaign campaign = campaignRepository.findById(campaignId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Campaign not found: " + campaignId));
+        String status = campaign.getStatus();
+        boolean cancelled = false;
+        if (Campaign.STATUS_ACTIVE.equals(status) || Campaign.STATUS_SCHEDULED.equals(status)) {
+            cancelTimers(campaignId);
+            cancelled = runTransition(() -> Campaign.STATUS_ACTIVE.equals(status)
+                    ? end(campaignId, Campaign.STATUS_CANCELLED)
+                    : announced(campaignId, jdbcTemplate.update(STATUS_SQL, Campaign.STATUS_CANCELLED, null, campaignId, status) > 0));
+        }
+        if (!cancelled) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Campaign already ended or cancelled");
+        }
+        // The status was changed with JDBC; the loaded entity is not re-read (same persistence context)
+        campaign.setStatus(Campaign.STATUS_CANCELLED);
+        return campaign;
+    }
+
+    private void validate(Campaign campaign) {
+        if (campaign.getName() == null || campaign.getName().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "name is required");
+        }
+        Double percent = campaign.getDiscountPercent();
+        if (percent == null || percent <= 0 || percent > MAX_DISCOUNT_PERCENT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "discountPercent must be greater than 0 and at most " + MAX_DISCOUNT_PERCENT);
+        }
+        if (campaign.getStartsAt() == null || campaign.getEndsAt() == null
+                || !campaign.getEndsAt().isAfter(campaign.getStartsAt())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "startsAt and a later endsAt are required");
+        }
+        if (!campaign.getEndsAt().isAfter(LocalDateTime.now())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "endsAt must be in the future");
+        }
+        boolean hasCategory = campaign.getCategory() != null && !campaign.getCategory().isBlank();
+        boolean hasProducts = campaign.getProductIds() != null && !campaign.getProductIds().isEmpty();
+        if (!hasCategory && !hasProducts) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "category or productIds is required");
+        }
+    }
+
+    // =====================================================================
+    // TIMERS
+    // =====================================================================
+
+    private void schedule(Campaign campaign) {
+        Long id = campaign.getId();
+        List<HashedTimerWheel.Timeout> campaignTimers = new ArrayList<>(2);
+        // A window that passed entirely while the application was down is closed without discounting
+        if (Campaign.STATUS_SCHEDULED.equals(campaign.getStatus()) && campaign.getEndsAt().isAfter(LocalDateTime.now())) {
+            campaignTimers.add(timerWheel.schedule(() -> safely(id, () -> start(id)), epochMillis(campaign.getStartsAt())));
+        }
+        campaignTimers.add(timerWheel.schedule(() -> safely(id, () -> end(id, Campaign.STATUS_ENDED)), epochMillis(campaign.getEndsAt())));
+        timers.put(id, campaignTimers);
+    }
+
+    private void cancelTimers(Long campaignId) {
+        List<HashedTimerWheel.Timeout> campaignTimers = timers.remove(campaignId);
+        if (campaignTimers != null) {
+            campaignTimers.forEach(HashedTimerWheel.Timeout::cancel);
+        }
+    }
+
+    // Runs on the transitions thread (serialized with timer transitions) and waits for the result.
+    private boolean runTransition(Callable<Boolean> transition) {
+        try {
+            return transitions.submit(transition).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void safely(Long campaignId, Callable<Boolean> transition) {
+        try {
+            transition.call();
+        } catch (Exception e) {
+            logger.error("Campaign {} transition failed", campaignId, e);
+        }
+    }
+
+    // =====================================================================
+    // OTHER INSTANCES
+    // =====================================================================
+
+    // Tells the other instances that the campaign was created or changed status here.
+    private void announce(Long campaignId) {
+        try {
+            bus.publish(new CacheInvalidation(bus.getNodeId(), ENTITY_NAME, campaignId));
+        } catch (RuntimeException e) {
+            logger.warn("Announcing campaign {} failed: {}", campaignId, e.getMessage());
+        }
+    }
+
+    private boolean announced(Long campaignId, boolean applied) {
+        if (applied) {
+            announce(campaignId);
+        }
+        return applied;
+    }
+
+    // Handled on the transitions thread, in order with this instance's own transitions.
+    private void onRemoteChange(CacheInvalidation message) {
+        if (ENTITY_NAME.equals(message.getEntityName()) && message.getEntityId() != null) {
+            Long campaignId = message.getEntityId();
+            transitions.execute(() -> safely(campaignId, () -> followRemote(campaignId)));
+        }
+    }
+
+    // Timers follow the stored status; a transition that changed prices reloads the catalog. Returns whether it did.
+    boolean followRemote(Long campaignId) {
+        Campaign campaign = campaignRepository.findById(campaignId).orElse(null);
+        if (campaign == null) {
+            return false;
+        }
+        String status = campaign.getStatus();
+        if (Campaign.STATUS_SCHEDULED.equals(status) || Campaign.STATUS_ACTIVE.equals(status)) {
+            if (!timers.containsKey(campaignId)) {
+                schedule(campaign); // Created elsewhere
+            }
+        } else {
+            cancelTimers(campaignId);
+        }
+        if (Campaign.STATUS_SCHEDULED.equals(status) || campaign.getAffectedProducts() == null
+                || campaign.getAffectedProducts() == 0) {
+            return false; // No price was changed
+        }
+        eventPublisher.publishEvent(new CatalogReloadEvent("campaign " + campaignId + " " + status.toLowerCase() + " elsewhere"));
+        return true;
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // =====================================================================
+    // TRANSITIONS
+    // =====================================================================
+
+    // Discounts every target product that is not already on sale. Returns whether this call started it.
+    boolean start(Long campaignId) {
+        Campaign campaign = campaignRepository.findById(campaignId).orElse(null);
+        if (campaign == null || !Campaign.STATUS_SCHEDULED.equals(campaign.getStatus())) {
+            return false;
+        }
+        productWriteBuffer.flush(); // Buffered PATCHes must not overwrite campaign prices later
+
+        double factor = 1 - campaign.getDiscountPercent() / 100.0;
+        List<Object[]> updates = new ArrayList<>();
+        List<PriceHistory> planned = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Product product : targets(campaign)) {
+            if (product.getPrice() == null || Boolean.TRUE.equals(product.getIsDiscounted())) {
+                continue;
+            }
+            double regular = product.getPrice();
+            double discounted = Math.round(regular * factor * 100) / 100.0;
+            updates.add(new Object[]{discounted, regular, product.getId(), regular});
+            planned.add(new PriceHistory(product.getId(), discounted, regular, true, campaignId, now));
+        }
+
+        boolean applied = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            List<PriceHistory> changed = applyBatch(START_SQL, updates, planned);
+            if (jdbcTemplate.update(STATUS_SQL, Campaign.STATUS_ACTIVE, changed.size(), campaignId, Campaign.STATUS_SCHEDULED) == 0) {
+                status.setRollbackOnly(); // Started by another instance meanwhile
+                return false;
+            }
+            priceHistoryService.recordInTransaction(changed);
+            return true;
+        }));
+        logger.info("Campaign {} '{}' {}", campaignId, campaign.getName(), applied ? "started" : "was started elsewhere");
+        eventPublisher.publishEvent(new CatalogReloadEvent("campaign " + campaignId + " started"));
+        return announced(campaignId, applied);
+    }
+
+    // Returns the campaign's products to their regular price. Returns whether this call ended it.
+    boolean end(Long campaignId, String finalStatus) {
+        Campaign campaign = campaignRepository.findById(campaignId).orElse(null);
+        if (campaign == null) {
+            return false;
+        }
+        if (Campaign.STATUS_SCHEDULED.equals(campaign.getStatus())) {
+            // Never started (see schedule): nothing to restore
+            timers.remove(campaignId);
+            return announced(campaignId, jdbcTemplate.update(STATUS_SQL, finalStatus, 0, campaignId, Campaign.STATUS_SCHEDULED) > 0);
+        }
+        if (!Campaign.STATUS_ACTIVE.equals(campaign.getStatus())) {
+            return false;
+        }
+        productWriteBuffer.flush();
+
+        List<Object[]> updates = new ArrayList<>();
+        List<PriceHistory> planned = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (PriceHistory started : priceHistoryRepository.findByCampaignIdAndIsDiscountedTrue(campaignId)) {
+            updates.add(new Object[]{started.getOldPrice(), started.getProductId(), started.getPrice()});
+            planned.add(new PriceHistory(started.getProductId(), started.getOldPrice(), null, false, campaignId, now));
+        }
+
+        boolean applied = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            List<PriceHistory> changed = applyBatch(END_SQL, updates, planned);
+            if (jdbcTemplate.update(STATUS_SQL, finalStatus, campaign.getAffectedProducts(), campaignId, Campaign.STATUS_ACTIVE) == 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            priceHistoryService.recordInTransaction(changed);
+            return true;
+        }));
+        timers.remove(campaignId);
+        logger.info("Campaign {} '{}' {}", campaignId, campaign.getName(), applied ? "ended" : "was ended elsewhere");
+        eventPublisher.publishEvent(new CatalogReloadEvent("campaign " + campaignId + " ended"));
+        return announced(campaignId, applied);
+    }
+
+    // One batched UPDATE; returns the history rows of the products that were actually changed.
+    private List<PriceHistory> applyBatch(String sql, List<Object[]> updates, List<PriceHistory> planned) {
+        List<PriceHistory> changed = new ArrayList<>(planned.size());
+        for (int from = 0; from < updates.size(); from += ProductBulkService.CHUNK_SIZE) {
+            int to = Math.min(updates.size(), from + ProductBulkService.CHUNK_SIZE);
+            int[] counts = jdbcTemplate.batchUpdate(sql, updates.subList(from, to));
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) { // > 0, or SUCCESS_NO_INFO from drivers that do not report counts
+                    changed.add(planned.get(from + i));
+                }
+            }
+        }
+        return changed;
+    }
+
+    private List<Product> targets(Campaign campaign) {
+        Set<Long> ids = new HashSet<>(campaign.getProductIds() == null ? List.of() : campaign.getProductIds());
+        String category = campaign.getCategory() == null || campaign.getCategory().isBlank()
+                ? null : CatalogIndex.key(campaign.getCategory());
+        List<Product> result = new ArrayList<>();
+        for (Product product : catalogIndex.getProducts()) {
+            if (ids.contains(product.getId())
+                    || (category != null && product.getCategory() != null && category.equals(CatalogIndex.key(product.getCategory())))) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,56 @@
+package com.hatice.tarpets.api;
+
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Shopping Cart Controller (REST API).
+// The signed-in user's cart (user taken from the Bearer token, never from a request parameter).
+// Every response is the whole cart, priced with current catalog prices and checked against stock.
+@RestController
+@RequestMapping("/api/cart")
+@CrossOrigin(origins = "http://localhost:3000")
+public class CartController {
+
+    @Autowired
+    private CartService cartService;
+
+    // 1. Get Cart
+    @GetMapping
+    public CartResponse getCart(@AuthenticationPrincipal Long userId) {
+        return cartService.getCart(userId);
+    }
+
+    // 2. Add Product (increases the quantity if already in the cart)
+    @PostMapping("/items")
+    public CartResponse addItem(@AuthenticationPrincipal Long userId, @Valid @RequestBody CartItemRequest item) {
+        return cartService.addItem(userId, item);
+    }
+
+    // 3. Set Quantities of Several Products (0 removes). Applied only if every line is valid.
+    @PutMapping("/items")
+    public CartResponse updateItems(@AuthenticationPrincipal Long userId, @Valid @RequestBody List<CartItemRequest> items) {
+        return cartService.updateItems(userId, items);
+    }
+
+    // 4. Remove Product
+    @DeleteMapping("/items/{productId}")
+    public CartResponse removeItem(@AuthenticationPrincipal Long userId, @PathVariable Long productId) {
+        return cartService.removeItem(userId, productId);
+    }
+
+    // 5. Empty Cart
+    @DeleteMapping
+    public CartResponse clear(@AuthenticationPrincipal Long userId) {
+        return cartService.clear(userId);
+    }
+
+    // 6. Checkout: places the order at current prices (409 if a line became unavailable) and empties the cart.
+    @PostMapping("/checkout")
+    public Order checkout(@AuthenticationPrincipal Long userId) {
+        return cartService.checkout(userId);
+    }
+}
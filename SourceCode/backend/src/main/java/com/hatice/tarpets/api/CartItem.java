@@ -0,0 +1,68 @@
+package com.hatice.tarpets.api;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Cart Item Entity Class.
+// Persistent copy of one line of a user's cart. Carts are edited in memory (CartService) and written
+// here in the background, so a restart or another device still finds the cart.
+@Entity
+@Table(name = "cart_items", indexes = @Index(name = "idx_cart_items_user", columnList = "user_id"))
+public class CartItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain ids instead of relationships: rows are written in bulk with JDBC, never loaded as a graph
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    private Integer quantity;
+
+    private LocalDateTime updatedAt;
+
+    public CartItem() {}
+
+    // ---- GETTERS & SETTERS ----
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
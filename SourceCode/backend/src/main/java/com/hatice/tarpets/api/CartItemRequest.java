@@ -0,0 +1,42 @@
+package com.hatice.tarpets.api;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+// Data Transfer Object (DTO) for Cart Changes.
+// One product and a quantity: added to the cart (POST /api/cart/items) or set as the new
+// quantity (PUT /api/cart/items, where 0 removes the line).
+public class CartItemRequest {
+
+    @NotNull
+    private Long productId;
+
+    @NotNull
+    @Min(0)
+    private Integer quantity;
+
+    public CartItemRequest() {}
+
+    public CartItemRequest(Long productId, Integer quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    // ---------- GETTERS & SETTERS ----------
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
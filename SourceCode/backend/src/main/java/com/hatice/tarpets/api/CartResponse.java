@@ -0,0 +1,128 @@
+package com.hatice.tarpets.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Data Transfer Object (DTO) for the Shopping Cart.
+// Lines are priced with the current catalog prices and checked against current stock on every
+// response, so the frontend always shows what checkout will actually charge.
+public class CartResponse {
+
+    private List<Line> lines = new ArrayList<>();
+
+    // Sum of the line totals
+    private Double totalPrice;
+
+    // Number of units over all lines
+    private Integer itemCount;
+
+    // False when at least one line has a problem; checkout is refused until it is fixed
+    private Boolean valid;
+
+    // ---------- GETTERS & SETTERS ----------
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<Line> lines) {
+        this.lines = lines;
+    }
+
+    public Double getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(Double totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public Integer getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(Integer itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public Boolean getValid() {
+        return valid;
+    }
+
+    public void setValid(Boolean valid) {
+        this.valid = valid;
+    }
+
+    // One product in the cart.
+    public static class Line {
+
+        private Long productId;
+        private String name;
+        private String imageUrl;
+
+        // Current catalog price (null when the product no longer exists)
+        private Double unitPrice;
+
+        private Integer quantity;
+        private Double lineTotal;
+
+        // null, "unavailable" (product removed) or "insufficient_stock"
+        private String problem;
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getImageUrl() {
+            return imageUrl;
+        }
+
+        public void setImageUrl(String imageUrl) {
+            this.imageUrl = imageUrl;
+        }
+
+        public Double getUnitPrice() {
+            return unitPrice;
+        }
+
+        public void setUnitPrice(Double unitPrice) {
+            this.unitPrice = unitPrice;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public Double getLineTotal() {
+            return lineTotal;
+        }
+
+        public void setLineTotal(Double lineTotal) {
+            this.lineTotal = lineTotal;
+        }
+
+        public String getProblem() {
+            return problem;
+        }
+
+        public void setProblem(String problem) {
+            this.problem = problem;
+        }
+    }
+}
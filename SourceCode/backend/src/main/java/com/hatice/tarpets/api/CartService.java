@@ -0,0 +1,552 @@
+package com.hatice.tarpets.api;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Server-Side Shopping Cart Service.
+// Carts live in memory as two small parallel arrays per user (product ids, quantities) and are written to
+// 'cart_items' in the background (write-behind): a mutation only marks the cart dirty, and the flush job
+// replaces the rows of all dirty carts in one transaction. Carts are loaded lazily and dropped from memory
+// once they are clean and idle.
+// Several instances: every written cart is announced on the CacheInvalidationBus, and the other instances drop
+// their copy and read it again, so a cart changed on one instance is seen on the others once it is written
+// (cart.flush-ms) and the message arrives (cache.invalidation.poll-ms). Should two instances change the same cart
+// before either is written, the later write wins.
+// Checkout does not go through the flush: it places the order and deletes the cart rows in one transaction, under
+// a lock on the user row, so a cart is ordered once even if it is checked out on two instances at the same time.
+// Every mutation is checked in one pass against the in-memory catalog (CatalogIndex: current price and
+// stock), so checkout only re-reads the already validated lines and places the order.
+@Service
+public class CartService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartService.class);
+
+    // Limits per cart, to keep a single cart (and the flush) small
+    static final int MAX_LINES = 100;
+    static final int MAX_QUANTITY = 99;
+
+    static final String PROBLEM_UNAVAILABLE = "unavailable";
+    static final String PROBLEM_INSUFFICIENT_STOCK = "insufficient_stock";
+
+    private static final String LOAD_SQL = "SELECT product_id, quantity FROM cart_items WHERE user_id = ? ORDER BY id";
+    private static final String DELETE_SQL = "DELETE FROM cart_items WHERE user_id = ?";
+    // Serializes the checkouts of one user across instances
+    private static final String LOCK_USER_SQL = "SELECT id FROM users WHERE id = ? FOR UPDATE";
+    private static final String INSERT_SQL =
+            "INSERT INTO cart_items (user_id, product_id, quantity, updated_at) VALUES (?, ?, ?, ?)";
+
+    // Bus messages name the cart rows of one user: entity id = user id
+    private static final String ENTITY_NAME = CartItem.class.getName();
+
+    private final CatalogIndex catalogIndex;
+    private final OrderService orderService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheInvalidationBus bus;
+    private final long idleMs;
+
+    private final Map<Long, Cart> carts = new ConcurrentHashMap<>();
+
+    // Users whose cart changed since the last flush
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    // Users whose cart is being written right now (no longer dirty, not yet committed)
+    private final Set<Long> writing = ConcurrentHashMap.newKeySet();
+
+    // Carts written by other instances so far; a load that overlapped such a message reads again
+    private final AtomicLong remoteWrites = new AtomicLong();
+
+    public CartService(CatalogIndex catalogIndex, OrderService orderService, DataSource dataSource,
+                       PlatformTransactionManager transactionManager, CacheInvalidationBus bus,
+                       @Value("${cart.idle-minutes:30}") long idleMinutes) {
+        this.catalogIndex = catalogIndex;
+        this.orderService = orderService;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bus = bus;
+        this.idleMs = idleMinutes * 60_000;
+        bus.subscribe(this::onRemoteWrite);
+    }
+
+    // =====================================================================
+    // CART OPERATIONS
+    // =====================================================================
+
+    public CartResponse getCart(Long userId) {
+        return mutate(userId, List.of(), false);
+    }
+
+    // Adds the quantity to the line (creates it if needed).
+    public CartResponse addItem(Long userId, CartItemRequest item) {
+        return mutate(userId, List.of(item), true);
+    }
+
+    // Sets the quantities of several lines at once (0 removes a line). All or nothing.
+    public CartResponse updateItems(Long userId, List<CartItemRequest> items) {
+        return mutate(userId, items, false);
+    }
+
+    public CartResponse removeItem(Long userId, Long productId) {
+        return mutate(userId, List.of(new CartItemRequest(productId, 0)), false);
+    }
+
+    public CartResponse clear(Long userId) {
+        while (true) {
+            Cart cart = load(userId);
+            synchronized (cart) {
+                awaitCheckout(userId, cart, false);
+                if (cart.evicted) {
+                    continue;
+                }
+                cart.size = 0;
+                cart.touch();
+                dirty.add(userId);
+                return view(cart);
+            }
+        }
+    }
+
+    // Places an order for the cart at current catalog prices and empties the cart.
+    // Changes not written yet are ordered as they are here; otherwise the written cart is read (it may have been
+    // changed on another instance). The cart lock is held only to start and to finish: mutations of this cart wait
+    // for the checkout, and the flush leaves the cart to it.
+    public Order checkout(Long userId) {
+        Cart cart;
+        Cart unwritten;
+        while (true) {
+            cart = load(userId);
+            synchronized (cart) {
+                awaitCheckout(userId, cart, true);
+                if (cart.evicted) {
+                    continue;
+                }
+                cart.checkingOut = true;
+                unwritten = dirty.contains(userId) ? cart.copy() : null;
+                break;
+            }
+        }
+
+        Order order = null;
+        try {
+            Cart pending = unwritten;
+            order = transactionTemplate.execute(status -> {
+                jdbcTemplate.query(LOCK_USER_SQL, rs -> {
+                }, userId);
+                Cart ordered = pending;
+                if (ordered == null) {
+                    ordered = new Cart();
+                    read(userId, ordered);
+                }
+                CreateOrderRequest request = orderRequest(userId, ordered);
+                jdbcTemplate.update(DELETE_SQL, userId);
+                return orderService.placeOrder(request);
+            });
+            return order;
+        } finally {
+            synchronized (cart) {
+                if (order != null) {
+                    cart.size = 0;
+                    dirty.remove(userId); // Already deleted with the order
+                }
+                cart.checkingOut = false;
+                cart.touch();
+                cart.notifyAll();
+            }
+            if (order != null) {
+                announce(List.of(userId));
+            }
+        }
+    }
+
+    // The order for the cart lines, if every line is still available (the cart is not shared, no lock needed).
+    private CreateOrderRequest orderRequest(Long userId, Cart cart) {
+        CartResponse view = view(cart);
+        if (view.getLines().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart is empty");
+        }
+        if (!view.getValid()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Some cart items are no longer available in the requested quantity");
+        }
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(userId);
+        request.setTotalPrice(view.getTotalPrice());
+        List<CreateOrderRequest.Item> items = new ArrayList<>(view.getLines().size());
+        for (CartResponse.Line line : view.getLines()) {
+            CreateOrderRequest.Item item = new CreateOrderRequest.Item();
+            item.setProductId(line.getProductId());
+            item.setQuantity(line.getQuantity());
+            item.setPrice(line.getUnitPrice());
+            items.add(item);
+        }
+        request.setItems(items);
+        return request;
+    }
+
+    // Waits (giving up the cart lock) while the cart is being checked out, and for a checkout also while the
+    // flush is writing it (its rows would be written back after the checkout deleted them).
+    private void awaitCheckout(Long userId, Cart cart, boolean untilWritten) {
+        try {
+            while (cart.checkingOut || (untilWritten && writing.contains(userId))) {
+                cart.wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        }
+    }
+
+    // Applies the changes (after validating all of them) and returns the priced cart.
+    private CartResponse mutate(Long userId, List<CartItemRequest> changes, boolean increment) {
+        while (true) {
+            Cart cart = load(userId);
+            synchronized (cart) {
+                awaitCheckout(userId, cart, false);
+                if (cart.evicted) {
+                    continue; // Dropped from memory meanwhile: load again
+                }
+                if (!changes.isEmpty()) {
+                    Map<Long, Integer> targets = targetQuantities(cart, changes, increment);
+                    validate(cart, targets);
+                    targets.forEach(cart::set);
+                    dirty.add(userId);
+                }
+                cart.touch();
+                return view(cart);
+            }
+        }
+    }
+
+    // New quantity per changed product (later entries for the same product win).
+    private static Map<Long, Integer> targetQuantities(Cart cart, List<CartItemRequest> changes, boolean increment) {
+        Map<Long, Integer> targets = new LinkedHashMap<>();
+        for (CartItemRequest change : changes) {
+            if (change.getProductId() == null || change.getQuantity() == null || change.getQuantity() < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "productId and a quantity >= 0 are required");
+            }
+            long productId = change.getProductId();
+            int quantity = change.getQuantity();
+            if (increment) {
+                quantity += targets.getOrDefault(productId, cart.quantityOf(productId));
+            }
+            targets.put(productId, quantity);
+        }
+        return targets;
+    }
+
+    // One pass over the changed lines against the in-memory catalog; nothing is applied if any line fails.
+    // Lowering or removing a line is always allowed, even for products that have since disappeared.
+    private void validate(Cart cart, Map<Long, Integer> targets) {
+        int lines = cart.size;
+        for (Map.Entry<Long, Integer> target : targets.entrySet()) {
+            long productId = target.getKey();
+            int quantity = target.getValue();
+            int current = cart.quantityOf(productId);
+            if (current == 0 && quantity > 0) {
+                lines++;
+            } else if (current > 0 && quantity == 0) {
+                lines--;
+            }
+            if (quantity <= current) {
+                continue;
+            }
+            if (quantity > MAX_QUANTITY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "At most " + MAX_QUANTITY + " units per product");
+            }
+            Product product = catalogIndex.getProduct(productId);
+            if (product == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + productId);
+            }
+            int stock = product.getStock() == null ? 0 : product.getStock();
+            if (quantity > stock) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Only " + stock + " in stock for product " + productId);
+            }
+        }
+        if (lines > MAX_LINES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_LINES + " products per cart");
+        }
+    }
+
+    // Prices every line with the current catalog (caller holds the cart lock, or owns the cart).
+    private CartResponse view(Cart cart) {
+        CartResponse response = new CartResponse();
+        double total = 0;
+        int units = 0;
+        boolean valid = true;
+        for (int i = 0; i < cart.size; i++) {
+            CartResponse.Line line = new CartResponse.Line();
+            line.setProductId(cart.productIds[i]);
+            line.setQuantity(cart.quantities[i]);
+            units += cart.quantities[i];
+
+            Product product = catalogIndex.getProduct(cart.productIds[i]);
+            if (product == null || product.getPrice() == null) {
+                line.setProblem(PROBLEM_UNAVAILABLE);
+                valid = false;
+            } else {
+                line.setName(product.getName());
+                line.setImageUrl(product.getImageUrl());
+                line.setUnitPrice(product.getPrice());
+                line.setLineTotal(product.getPrice() * cart.quantities[i]);
+                total += line.getLineTotal();
+                if (product.getStock() == null || product.getStock() < cart.quantities[i]) {
+                    line.setProblem(PROBLEM_INSUFFICIENT_STOCK);
+                    valid = false;
+                }
+            }
+            response.getLines().add(line);
+        }
+        response.setTotalPrice(Math.round(total * 100) / 100.0);
+        response.setItemCount(units);
+        response.setValid(valid);
+        return response;
+    }
+
+    // =====================================================================
+    // PERSISTENCE (lazy load, write-behind)
+    // =====================================================================
+
+    // The cached cart, or the written one. Read outside the map (no query while holding a map bin lock), so two
+    // threads may read the same cart; the first to publish it wins.
+    private Cart load(Long userId) {
+        if (userId == null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Sign in to use the cart");
+        }
+        while (true) {
+            Cart cached = carts.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+            long seen = remoteWrites.get();
+            Cart cart = new Cart();
+            read(userId, cart);
+            Cart existing = carts.putIfAbsent(userId, cart);
+            if (existing != null) {
+                return existing;
+            }
+            if (remoteWrites.get() == seen) {
+                return cart;
+            }
+            // Another instance wrote a cart meanwhile, possibly this one after it was read
+            synchronized (cart) {
+                cart.evicted = true;
+                carts.remove(userId, cart);
+            }
+        }
+    }
+
+    private void read(Long userId, Cart cart) {
+        cart.size = 0;
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            cart.set(rs.getLong("product_id"), rs.getInt("quantity"));
+        }, userId);
+    }
+
+    // Writes all dirty carts in one transaction, then drops idle clean carts from memory.
+    @Scheduled(initialDelayString = "${cart.flush-ms:2000}", fixedDelayString = "${cart.flush-ms:2000}")
+    public synchronized void flush() {
+        List<Long> users = new ArrayList<>(dirty);
+        if (!users.isEmpty()) {
+            List<Object[]> deletes = new ArrayList<>(users.size());
+            List<Object[]> inserts = new ArrayList<>();
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            writing.addAll(users);
+            for (Long userId : users) {
+                dirty.remove(userId); // A mutation from here on marks it again for the next flush
+                Cart cart = carts.get(userId);
+                if (cart == null) {
+                    continue;
+                }
+                synchronized (cart) {
+                    if (cart.checkingOut) {
+                        dirty.add(userId); // The checkout deletes the rows, or leaves the cart dirty if it fails
+                        continue;
+                    }
+                    deletes.add(new Object[]{userId});
+                    for (int i = 0; i < cart.size; i++) {
+                        inserts.add(new Object[]{userId, cart.productIds[i], cart.quantities[i], now});
+                    }
+                }
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+                    for (int from = 0; from < inserts.size(); from += ProductBulkService.CHUNK_SIZE) {
+                        jdbcTemplate.batchUpdate(INSERT_SQL, inserts.subList(from, Math.min(inserts.size(), from + ProductBulkService.CHUNK_SIZE)));
+                    }
+                });
+            } catch (RuntimeException e) {
+                dirty.addAll(users);
+                logger.warn("Writing {} carts failed, retrying on the next flush: {}", users.size(), e.getMessage());
+                return;
+            } finally {
+                writing.removeAll(users);
+                wakeCheckouts(users);
+            }
+            announce(users);
+        }
+        evictIdle();
+    }
+
+    // Checkouts waiting for the written carts may go on.
+    private void wakeCheckouts(List<Long> users) {
+        for (Long userId : users) {
+            Cart cart = carts.get(userId);
+            if (cart != null) {
+                synchronized (cart) {
+                    cart.notifyAll();
+                }
+            }
+        }
+    }
+
+    // Tells the other instances to drop their copies of the written carts.
+    private void announce(List<Long> users) {
+        try {
+            for (Long userId : users) {
+                bus.publish(new CacheInvalidation(bus.getNodeId(), ENTITY_NAME, userId));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Announcing {} written carts failed: {}", users.size(), e.getMessage());
+        }
+    }
+
+    // A cart written by another instance: drop the copy here unless it has changes of its own still to be written
+    // (those are written later and win).
+    private void onRemoteWrite(CacheInvalidation message) {
+        if (!ENTITY_NAME.equals(message.getEntityName())) {
+            return;
+        }
+        remoteWrites.incrementAndGet();
+        if (message.isAllEntries()) {
+            carts.keySet().forEach(this::drop);
+        } else {
+            drop(message.getEntityId());
+        }
+    }
+
+    private void drop(Long userId) {
+        Cart cart = carts.get(userId);
+        if (cart == null) {
+            return;
+        }
+        synchronized (cart) {
+            if (cart.checkingOut) {
+                return; // The checkout announces the emptied cart itself
+            }
+            if (dirty.contains(userId) || writing.contains(userId)) {
+                logger.info("Cart of user {} was changed here and on another instance; the change made here is kept", userId);
+                return;
+            }
+            cart.evicted = true;
+            carts.remove(userId, cart);
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMs;
+        for (Map.Entry<Long, Cart> entry : carts.entrySet()) {
+            Cart cart = entry.getValue();
+            synchronized (cart) {
+                if (cart.lastAccess < cutoff && !dirty.contains(entry.getKey()) && !cart.checkingOut) {
+                    cart.evicted = true;
+                    carts.remove(entry.getKey(), cart);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Writing carts on shutdown failed: {}", e.getMessage());
+        }
+    }
+
+    // One user's cart: parallel arrays in insertion order (a cart holds a handful of lines).
+    private static final class Cart {
+        private long[] productIds = new long[4];
+        private int[] quantities = new int[4];
+        private int size;
+        private long lastAccess = System.currentTimeMillis();
+
+        // Set when dropped from the map; holders of a stale reference must load the cart again
+        private boolean evicted;
+
+        // Set while the cart is being checked out (the order is placed without holding the cart lock)
+        private boolean checkingOut;
+
+        int quantityOf(long productId) {
+            int index = indexOf(productId);
+            return index < 0 ? 0 : quantities[index];
+        }
+
+        void set(long productId, int quantity) {
+            int index = indexOf(productId);
+            if (index >= 0) {
+                if (quantity > 0) {
+                    quantities[index] = quantity;
+                } else {
+                    // Keep the order of the remaining lines
+                    System.arraycopy(productIds, index + 1, productIds, index, size - index - 1);
+                    System.arraycopy(quantities, index + 1, quantities, index, size - index - 1);
+                    size--;
+                }
+            } else if (quantity > 0) {
+                if (size == productIds.length) {
+                    productIds = Arrays.copyOf(productIds, size * 2);
+                    quantities = Arrays.copyOf(quantities, size * 2);
+                }
+                productIds[size] = productId;
+                quantities[size] = quantity;
+                size++;
+            }
+        }
+
+        Cart copy() {
+            Cart copy = new Cart();
+            copy.productIds = Arrays.copyOf(productIds, productIds.length);
+            copy.quantities = Arrays.copyOf(quantities, quantities.length);
+            copy.size = size;
+            return copy;
+        }
+
+        void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+
+        private int indexOf(long productId) {
+            for (int i = 0; i < size; i++) {
+                if (productIds[i] == productId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
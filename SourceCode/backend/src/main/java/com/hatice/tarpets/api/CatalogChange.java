@@ -0,0 +1,59 @@
+package com.hatice.tarpets.api;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Catalog Change Log Entry.
+// "Product X changed" (productId null: possibly every product, e.g. bulk import or campaign start), written by
+// the instance that made the change. A node that starts from a catalog snapshot file re-reads only the products
+// logged after the file was written (CatalogSnapshotService). Rows are pruned after the retention period.
+@Entity
+@Table(name = "catalog_changes", indexes = @Index(name = "idx_catalog_changes_changed_at", columnList = "changed_at"))
+public class CatalogChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long productId;
+
+    private LocalDateTime changedAt;
+
+    public CatalogChange() {}
+
+    public CatalogChange(Long productId) {
+        this.productId = productId;
+        this.changedAt = LocalDateTime.now();
+    }
+
+    public boolean isAllProducts() {
+        return productId == null;
+    }
+
+    // ---- GETTERS & SETTERS ----
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
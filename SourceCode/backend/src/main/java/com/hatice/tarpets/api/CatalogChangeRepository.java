@@ -0,0 +1,25 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Data Access Object (DAO) for the catalog change log (CatalogSnapshotService).
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    // Changes after the given log position, plus everything logged since 'since' (see CatalogSnapshotService)
+    List<CatalogChange> findByIdGreaterThanOrChangedAtGreaterThanEqual(Long id, LocalDateTime since);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CatalogChange c")
+    Long findMaxId();
+
+    // Retention: older snapshot files are not caught up from the log but rebuilt from the database
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CatalogChange c WHERE c.changedAt < :cutoff")
+    int deleteOlderThan(LocalDateTime cutoff);
+}
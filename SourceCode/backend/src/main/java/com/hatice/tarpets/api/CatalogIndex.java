@@ -0,0 +1,502 @@
+package com.hatice.tarpets.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-Memory Catalog Index (faceted browse).
+// Every product gets a slot number; each facet value (category, subcategory, price bucket, discounted, in stock)
+// keeps a BitSet of the slots that have it. Filtering is a handful of BitSet AND/OR operations and facet counts
+// are intersection cardinalities, so the storefront gets results and counts without extra queries.
+// Loaded once at startup and then kept current by ProductChangedEvent / ProductPatchedEvent / CatalogReloadEvent.
+@Component
+public class CatalogIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogIndex.class);
+
+    // Lower bounds of the price facet buckets; the last bucket is open ended ("2500+").
+    static final double[] PRICE_BUCKETS = {0, 50, 100, 250, 500, 1000, 2500};
+
+    static final String SORT_PRICE_ASC = "price_asc";
+    static final String SORT_PRICE_DESC = "price_desc";
+    static final String SORT_NAME = "name";
+
+    private final ProductRepository productRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // One reload at a time; it reads the database without holding 'lock'
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    // ---- Guarded by 'lock' ----
+    private Index index = new Index(0);
+    // Changes seen while a reload reads the database, replayed on the new index before it is swapped in
+    private List<ProductChangedEvent> changesDuringReload;
+
+    private volatile boolean loaded;
+
+    public CatalogIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    // =====================================================================
+    // MAINTENANCE
+    // =====================================================================
+
+    // Unless a reader (e.g. WarmUpService) already triggered the first load.
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ensureLoaded();
+    }
+
+    @EventListener
+    public void onCatalogReload(CatalogReloadEvent event) {
+        logger.info("Reloading catalog index ({})", event.getReason());
+        reload();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringReload != null) {
+                changesDuringReload.add(event);
+            }
+            // Before the initial load there is nothing to update; the load reads (or replays) the change
+            if (loaded) {
+                index.apply(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // An accepted PATCH whose write is still buffered: browse shows it now (the ProductChangedEvent follows once it
+    // is written, or restores the written product if the patch is dropped).
+    @EventListener
+    public void onProductPatched(ProductPatchedEvent event) {
+        onProductChanged(ProductChangedEvent.saved(event.getProduct()));
+    }
+
+    // Rebuilds the whole index from the database into a new Index and swaps it in. Browse requests keep reading
+    // the current index meanwhile; change events published during the read are recorded and applied on top of the
+    // fresh state before the swap, so they are not overwritten by it.
+    public void reload() {
+        reloadLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                changesDuringReload = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Index fresh;
+            int size;
+            try {
+                List<Product> products = productRepository.findAll();
+                size = products.size();
+                fresh = new Index(size);
+                for (Product product : products) {
+                    fresh.add(product);
+                }
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    changesDuringReload = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (ProductChangedEvent change : changesDuringReload) {
+                    fresh.apply(change);
+                }
+                changesDuringReload = null;
+                index = fresh;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Catalog index loaded with {} products", size);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        reloadLock.lock();
+        try {
+            if (!loaded) {
+                reload();
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    // Facet values match case-insensitively ("Cat" == "cat"); missing values share the "" key.
+    static String key(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static int priceBucket(double price) {
+        if (Double.isNaN(price) || price < 0) {
+            return -1;
+        }
+        int bucket = 0;
+        while (bucket + 1 < PRICE_BUCKETS.length && price >= PRICE_BUCKETS[bucket + 1]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    static String priceBucketLabel(int bucket) {
+        String lower = formatPrice(PRICE_BUCKETS[bucket]);
+        return bucket + 1 < PRICE_BUCKETS.length
+                ? lower + "-" + formatPrice(PRICE_BUCKETS[bucket + 1])
+                : lower + "+";
+    }
+
+    private static String formatPrice(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    // =====================================================================
+    // QUERY
+    // =====================================================================
+
+    // Filters the catalog and computes facet counts. Within one facet the selected values are OR-ed, across
+    // facets they are AND-ed. Counts are disjunctive: a facet's counts ignore that facet's own selection, so
+    // the storefront can show how many results each alternative value would give.
+    public BrowseResponse browse(List<String> categories, List<String> subcategories, Double minPrice, Double maxPrice,
+                                 Boolean discountedOnly, Boolean inStockOnly, String sort, int page, int size) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Index index = this.index;
+            BitSet categoryFilter = index.category.union(categories);
+            BitSet subcategoryFilter = index.subcategory.union(subcategories);
+            BitSet priceFilter = index.priceRange(minPrice, maxPrice);
+            BitSet discountedFilter = index.flagFilter(index.discounted, discountedOnly);
+            BitSet inStockFilter = index.flagFilter(index.inStock, inStockOnly);
+
+            BitSet matches = index.intersect(categoryFilter, subcategoryFilter, priceFilter, discountedFilter, inStockFilter);
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            BitSet scratch = new BitSet(index.slots.size());
+            facets.put("category", index.category.valueCounts(
+                    index.intersect(null, subcategoryFilter, priceFilter, discountedFilter, inStockFilter), scratch));
+            facets.put("subcategory", index.subcategory.valueCounts(
+                    index.intersect(categoryFilter, null, priceFilter, discountedFilter, inStockFilter), scratch));
+            facets.put("price", index.priceCounts(
+                    index.intersect(categoryFilter, subcategoryFilter, null, discountedFilter, inStockFilter), scratch));
+            facets.put("discounted", flagCounts(index.discounted,
+                    index.intersect(categoryFilter, subcategoryFilter, priceFilter, null, inStockFilter), scratch));
+            facets.put("inStock", flagCounts(index.inStock,
+                    index.intersect(categoryFilter, subcategoryFilter, priceFilter, discountedFilter, null), scratch));
+
+            List<Product> products = new ArrayList<>(matches.cardinality());
+            for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+                products.add(index.slots.get(slot));
+            }
+            products.sort(comparator(sort));
+
+            int from = (int) Math.min((long) page * size, products.size());
+            int to = Math.min(from + size, products.size());
+
+            BrowseResponse response = new BrowseResponse();
+            response.setProducts(new ArrayList<>(products.subList(from, to)));
+            response.setTotal(products.size());
+            response.setPage(page);
+            response.setSize(size);
+            response.setFacets(facets);
+            return response;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Current state of a single product, or null when it is not in the catalog.
+    public Product getProduct(Long productId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = index.slotById.get(productId);
+            return slot == null ? null : index.slots.get(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Copy of all indexed products (slot order).
+    public List<Product> getProducts() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Index index = this.index;
+            List<Product> products = new ArrayList<>(index.slotById.size());
+            for (int slot = index.live.nextSetBit(0); slot >= 0; slot = index.live.nextSetBit(slot + 1)) {
+                products.add(index.slots.get(slot));
+            }
+            return products;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int intersectionCount(BitSet base, BitSet posting, BitSet scratch) {
+        scratch.clear();
+        scratch.or(base);
+        scratch.and(posting);
+        return scratch.cardinality();
+    }
+
+    private static Map<String, Integer> flagCounts(BitSet flag, BitSet base, BitSet scratch) {
+        int yes = intersectionCount(base, flag, scratch);
+        Map<String, Integer> result = new LinkedHashMap<>();
+        result.put("true", yes);
+        result.put("false", base.cardinality() - yes);
+        return result;
+    }
+
+    private static Comparator<Product> comparator(String sort) {
+        Comparator<Product> byId = Comparator.comparing(Product::getId);
+        if (SORT_PRICE_ASC.equals(sort)) {
+            return Comparator.comparing(Product::getPrice, Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(byId);
+        }
+        if (SORT_PRICE_DESC.equals(sort)) {
+            return Comparator.comparing(Product::getPrice, Comparator.nullsLast(Comparator.reverseOrder())).thenComparing(byId);
+        }
+        if (SORT_NAME.equals(sort)) {
+            return Comparator.comparing(Product::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)).thenComparing(byId);
+        }
+        return byId;
+    }
+
+    // =====================================================================
+    // INDEX STATE
+    // =====================================================================
+
+    // Slots, postings and prices of one catalog version. Built privately by reload() and then only used
+    // under CatalogIndex.lock.
+    private static final class Index {
+
+        private final List<Product> slots = new ArrayList<>();
+        private final Map<Long, Integer> slotById = new HashMap<>();
+        private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+        private double[] prices;
+
+        private final BitSet live = new BitSet();
+        private final Facet category = new Facet();
+        private final Facet subcategory = new Facet();
+        private final BitSet discounted = new BitSet();
+        private final BitSet inStock = new BitSet();
+        private final BitSet[] byPriceBucket = new BitSet[PRICE_BUCKETS.length];
+
+        Index(int expectedProducts) {
+            prices = new double[Math.max(16, expectedProducts)];
+            for (int i = 0; i < byPriceBucket.length; i++) {
+                byPriceBucket[i] = new BitSet();
+            }
+        }
+
+        void apply(ProductChangedEvent event) {
+            remove(event.getProductId());
+            if (!event.isDeleted()) {
+                add(event.getProduct());
+            }
+        }
+
+        void add(Product product) {
+            Integer reused = freeSlots.poll();
+            int slot;
+            if (reused != null) {
+                slot = reused;
+                slots.set(slot, product);
+            } else {
+                slot = slots.size();
+                slots.add(product);
+                if (slot >= prices.length) {
+                    prices = Arrays.copyOf(prices, Math.max(16, prices.length * 2));
+                }
+            }
+            slotById.put(product.getId(), slot);
+            prices[slot] = product.getPrice() == null ? Double.NaN : product.getPrice();
+
+            live.set(slot);
+            category.add(product.getCategory(), slot);
+            subcategory.add(product.getSubcategory(), slot);
+            if (Boolean.TRUE.equals(product.getIsDiscounted())) {
+                discounted.set(slot);
+            }
+            if (product.getStock() != null && product.getStock() > 0) {
+                inStock.set(slot);
+            }
+            int bucket = priceBucket(prices[slot]);
+            if (bucket >= 0) {
+                byPriceBucket[bucket].set(slot);
+            }
+        }
+
+        void remove(Long productId) {
+            Integer slot = slotById.remove(productId);
+            if (slot == null) {
+                return;
+            }
+            Product old = slots.get(slot);
+            slots.set(slot, null);
+            freeSlots.push(slot);
+
+            live.clear(slot);
+            category.remove(old.getCategory(), slot);
+            subcategory.remove(old.getSubcategory(), slot);
+            discounted.clear(slot);
+            inStock.clear(slot);
+            for (BitSet bucket : byPriceBucket) {
+                bucket.clear(slot);
+            }
+        }
+
+        // Exact range check on the price array, limited to the buckets that overlap the range.
+        BitSet priceRange(Double min, Double max) {
+            if (min == null && max == null) {
+                return null;
+            }
+            double low = min == null ? Double.NEGATIVE_INFINITY : min;
+            double high = max == null ? Double.POSITIVE_INFINITY : max;
+            BitSet result = new BitSet();
+            for (int bucket = 0; bucket < byPriceBucket.length; bucket++) {
+                double bucketLow = PRICE_BUCKETS[bucket];
+                double bucketHigh = bucket + 1 < PRICE_BUCKETS.length ? PRICE_BUCKETS[bucket + 1] : Double.POSITIVE_INFINITY;
+                if (bucketHigh <= low || bucketLow > high) {
+                    continue;
+                }
+                BitSet posting = byPriceBucket[bucket];
+                if (bucketLow >= low && bucketHigh <= high) {
+                    result.or(posting); // Bucket fully inside the range
+                    continue;
+                }
+                for (int slot = posting.nextSetBit(0); slot >= 0; slot = posting.nextSetBit(slot + 1)) {
+                    if (prices[slot] >= low && prices[slot] <= high) {
+                        result.set(slot);
+                    }
+                }
+            }
+            return result;
+        }
+
+        BitSet flagFilter(BitSet flag, Boolean wanted) {
+            if (wanted == null) {
+                return null;
+            }
+            if (wanted) {
+                return flag;
+            }
+            BitSet result = (BitSet) live.clone();
+            result.andNot(flag);
+            return result;
+        }
+
+        BitSet intersect(BitSet... filters) {
+            BitSet result = (BitSet) live.clone();
+            for (BitSet filter : filters) {
+                if (filter != null) {
+                    result.and(filter);
+                }
+            }
+            return result;
+        }
+
+        // Price buckets in ascending order (empty buckets included, so the UI can render a stable list).
+        Map<String, Integer> priceCounts(BitSet base, BitSet scratch) {
+            Map<String, Integer> result = new LinkedHashMap<>();
+            for (int bucket = 0; bucket < byPriceBucket.length; bucket++) {
+                result.put(priceBucketLabel(bucket), intersectionCount(base, byPriceBucket[bucket], scratch));
+            }
+            return result;
+        }
+    }
+
+    // One value facet (category or subcategory): a posting per normalized value and the label shown for it
+    // (the first spelling seen). Both are dropped when the last product with that value goes.
+    private static final class Facet {
+
+        private final Map<String, BitSet> postings = new HashMap<>();
+        private final Map<String, String> labels = new HashMap<>();
+
+        void add(String value, int slot) {
+            String key = key(value);
+            if (value != null) {
+                labels.putIfAbsent(key, value.trim());
+            }
+            postings.computeIfAbsent(key, k -> new BitSet()).set(slot);
+        }
+
+        void remove(String value, int slot) {
+            String key = key(value);
+            BitSet posting = postings.get(key);
+            if (posting != null) {
+                posting.clear(slot);
+                if (posting.isEmpty()) {
+                    postings.remove(key);
+                    labels.remove(key);
+                }
+            }
+        }
+
+        // OR of the postings for the selected values; null when nothing is selected (no filter).
+        BitSet union(List<String> values) {
+            if (values == null || values.isEmpty()) {
+                return null;
+            }
+            BitSet result = new BitSet();
+            for (String value : values) {
+                BitSet posting = postings.get(key(value));
+                if (posting != null) {
+                    result.or(posting);
+                }
+            }
+            return result;
+        }
+
+        // Facet values that have at least one match, most frequent first.
+        Map<String, Integer> valueCounts(BitSet base, BitSet scratch) {
+            List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+            for (Map.Entry<String, BitSet> entry : postings.entrySet()) {
+                if (entry.getKey().isEmpty()) {
+                    continue;
+                }
+                int count = intersectionCount(base, entry.getValue(), scratch);
+                if (count > 0) {
+                    counts.add(Map.entry(labels.getOrDefault(entry.getKey(), entry.getKey()), count));
+                }
+            }
+            counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+            Map<String, Integer> result = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> entry : counts) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+            return result;
+        }
+    }
+}
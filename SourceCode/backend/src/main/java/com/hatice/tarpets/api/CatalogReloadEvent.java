@@ -0,0 +1,17 @@
+package com.hatice.tarpets.api;
+
+// Application Event: many products changed at once (e.g. bulk import), outside of JPA.
+// Listeners should rebuild their view from the database instead of applying single-product updates.
+public class CatalogReloadEvent {
+
+    // Short description of what triggered the reload (for logging).
+    private final String reason;
+
+    public CatalogReloadEvent(String reason) {
+        this.reason = reason;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
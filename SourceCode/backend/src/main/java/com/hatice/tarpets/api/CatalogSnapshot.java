@@ -0,0 +1,661 @@
+package com.hatice.tarpets.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.SortedMap;
+
+// Compact, Immutable Catalog Snapshot.
+// Column layout instead of one Product object per row: ids, prices, stock and versions live in primitive
+// arrays, category/subcategory are dictionary codes (each distinct value stored once), and the long text
+// (name, description, imageUrl) is UTF-8 in one off-heap buffer addressed by offset/length. A million products
+// cost a few dozen MB of heap and a handful of objects for the GC to trace, instead of millions of entities.
+// Listings are Rows views: JSON is written straight from the columns (ProductJsonSerializer.writeRows) without
+// creating Product objects; get(i) materializes one on demand for other callers.
+// Never modified after build(); CatalogSnapshotService swaps in a new snapshot on refresh.
+// writeTo()/map() store a snapshot as a versioned binary file: the columns are read back in bulk and the text stays
+// in the memory-mapped file (paged in by the OS on first access), so a new instance has the catalog in milliseconds.
+public final class CatalogSnapshot {
+
+    // Null markers in the primitive columns
+    static final int NULL_INT = Integer.MIN_VALUE;
+    static final long NULL_LONG = Long.MIN_VALUE;
+    static final int NO_CODE = -1;
+    static final byte FLAG_NULL = 0;
+    static final byte FLAG_FALSE = 1;
+    static final byte FLAG_TRUE = 2;
+
+    // Text fields per row, in this order
+    static final int TEXT_NAME = 0;
+    static final int TEXT_DESCRIPTION = 1;
+    static final int TEXT_IMAGE_URL = 2;
+    static final int TEXT_FIELDS = 3;
+
+    // File layout: magic, format, then the fields in constructor order (see writeTo)
+    private static final int FILE_MAGIC = 0x54504353; // "TPCS"
+    private static final int FILE_FORMAT = 1;
+
+    private final long builtAt;
+    // Position in the catalog change log this snapshot includes (CatalogSnapshotService); 0 if unknown
+    private final long version;
+    private final int size;
+
+    // Sorted ascending (lookup by binary search)
+    private final long[] ids;
+    private final double[] prices;
+    private final double[] oldPrices;
+    private final byte[] discounted;
+    private final int[] stock;
+    private final long[] versions;
+
+    private final int[] categoryCodes;
+    private final int[] subcategoryCodes;
+    private final String[] categories;
+    private final String[] subcategories;
+
+    // Row i, field f: bytes [textOffsets[i * 3 + f], + textLengths[i * 3 + f]) of 'text'; length -1 = null
+    private final int[] textOffsets;
+    private final int[] textLengths;
+    private final ByteBuffer text;
+
+    // Rows per lower-cased category, and rows of discounted products (ascending)
+    private final Map<String, int[]> rowsByCategory;
+    private final int[] discountedRows;
+
+    CatalogSnapshot(long builtAt, long version, int size, long[] ids, double[] prices, double[] oldPrices, byte[] discounted,
+                    int[] stock, long[] versions, int[] categoryCodes, int[] subcategoryCodes, String[] categories,
+                    String[] subcategories, int[] textOffsets, int[] textLengths, ByteBuffer text) {
+        this.builtAt = builtAt;
+        this.version = version;
+        this.size = size;
+        this.ids = ids;
+        this.prices = prices;
+        this.oldPrices = oldPrices;
+        this.discounted = discounted;
+        this.stock = stock;
+        this.versions = versions;
+        this.categoryCodes = categoryCodes;
+        this.subcategoryCodes = subcategoryCodes;
+        this.categories = categories;
+        this.subcategories = subcategories;
+        this.textOffsets = textOffsets;
+        this.textLengths = textLengths;
+        this.text = text.asReadOnlyBuffer();
+
+        // Posting lists: count rows per category code first, then fill exactly sized arrays
+        int[] rowsPerCode = new int[categories.length];
+        int discountedCount = 0;
+        for (int row = 0; row < size; row++) {
+            if (categoryCodes[row] != NO_CODE) {
+                rowsPerCode[categoryCodes[row]]++;
+            }
+            if (discounted[row] == FLAG_TRUE) {
+                discountedCount++;
+            }
+        }
+        // Codes differing only in case ("Cat", "cat") share one list
+        String[] codeKeys = new String[categories.length];
+        Map<String, Integer> listSizes = new HashMap<>();
+        for (int code = 0; code < categories.length; code++) {
+            codeKeys[code] = key(categories[code]);
+            listSizes.merge(codeKeys[code], rowsPerCode[code], Integer::sum);
+        }
+        Map<String, int[]> byCategory = new HashMap<>();
+        listSizes.forEach((key, count) -> byCategory.put(key, new int[count]));
+        Map<String, Integer> filled = new HashMap<>();
+        int[] onSale = new int[discountedCount];
+        int onSaleFilled = 0;
+        for (int row = 0; row < size; row++) {
+            if (categoryCodes[row] != NO_CODE) {
+                String key = codeKeys[categoryCodes[row]];
+                byCategory.get(key)[filled.merge(key, 1, Integer::sum) - 1] = row;
+            }
+            if (discounted[row] == FLAG_TRUE) {
+                onSale[onSaleFilled++] = row;
+            }
+        }
+        this.rowsByCategory = byCategory;
+        this.discountedRows = onSale;
+    }
+
+    // =====================================================================
+    // LISTINGS
+    // =====================================================================
+
+    // All products, ordered by id
+    public Rows all() {
+        return new Rows(this, null);
+    }
+
+    // Products of one category (case-insensitive, like the database collation), ordered by id
+    public Rows byCategory(String category) {
+        int[] rows = category == null ? null : rowsByCategory.get(key(category));
+        return new Rows(this, rows == null ? new int[0] : rows);
+    }
+
+    public Rows discounted() {
+        return new Rows(this, discountedRows);
+    }
+
+    // Row of the product, or -1
+    public int rowOf(long productId) {
+        int row = Arrays.binarySearch(ids, 0, size, productId);
+        return row < 0 ? -1 : row;
+    }
+
+    // A read-only list of snapshot rows. Writing it as JSON reads the columns directly.
+    public static final class Rows extends AbstractList<Product> implements RandomAccess {
+
+        private final CatalogSnapshot snapshot;
+        // null: every row of the snapshot
+        private final int[] rows;
+
+        Rows(CatalogSnapshot snapshot, int[] rows) {
+            this.snapshot = snapshot;
+            this.rows = rows;
+        }
+
+        CatalogSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        int row(int index) {
+            return rows == null ? index : rows[index];
+        }
+
+        @Override
+        public Product get(int index) {
+            return snapshot.toProduct(row(index));
+        }
+
+        @Override
+        public int size() {
+            return rows == null ? snapshot.size : rows.length;
+        }
+    }
+
+    // =====================================================================
+    // COLUMN ACCESS (by row)
+    // =====================================================================
+
+    long id(int row) {
+        return ids[row];
+    }
+
+    double price(int row) {
+        return prices[row];
+    }
+
+    double oldPrice(int row) {
+        return oldPrices[row];
+    }
+
+    byte discountedFlag(int row) {
+        return discounted[row];
+    }
+
+    int stock(int row) {
+        return stock[row];
+    }
+
+    long version(int row) {
+        return versions[row];
+    }
+
+    String category(int row) {
+        return categoryCodes[row] == NO_CODE ? null : categories[categoryCodes[row]];
+    }
+
+    String subcategory(int row) {
+        return subcategoryCodes[row] == NO_CODE ? null : subcategories[subcategoryCodes[row]];
+    }
+
+    // Byte length of a text field, -1 for null
+    int textLength(int row, int field) {
+        return textLengths[row * TEXT_FIELDS + field];
+    }
+
+    // Copies the UTF-8 bytes of a text field into 'target' (at least textLength bytes long)
+    void copyText(int row, int field, byte[] target) {
+        text.get(textOffsets[row * TEXT_FIELDS + field], target, 0, textLengths[row * TEXT_FIELDS + field]);
+    }
+
+    String text(int row, int field) {
+        int length = textLength(row, field);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        copyText(row, field, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Detached Product with the row's values (not a managed entity)
+    Product toProduct(int row) {
+        Product product = new Product(text(row, TEXT_NAME), text(row, TEXT_DESCRIPTION),
+                Double.isNaN(prices[row]) ? null : prices[row],
+                Double.isNaN(oldPrices[row]) ? null : oldPrices[row],
+                discounted[row] == FLAG_NULL ? null : discounted[row] == FLAG_TRUE,
+                category(row), subcategory(row), text(row, TEXT_IMAGE_URL),
+                stock[row] == NULL_INT ? null : stock[row]);
+        product.setId(ids[row]);
+        product.setVersion(versions[row] == NULL_LONG ? null : versions[row]);
+        return product;
+    }
+
+    // =====================================================================
+    // STATISTICS
+    // =====================================================================
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Bytes of text held outside the Java heap
+    public long getOffHeapBytes() {
+        return text.capacity();
+    }
+
+    // Approximate heap footprint of the columns and dictionaries
+    public long getHeapBytes() {
+        long bytes = (long) size * (8 + 8 + 8 + 1 + 4 + 8 + 4 + 4) + (long) textOffsets.length * 8;
+        for (String value : categories) {
+            bytes += 40 + value.length();
+        }
+        for (String value : subcategories) {
+            bytes += 40 + value.length();
+        }
+        return bytes;
+    }
+
+    static String key(String category) {
+        return category.toLowerCase(Locale.ROOT);
+    }
+
+    // =====================================================================
+    // INCREMENTAL UPDATE
+    // =====================================================================
+
+    // New snapshot with the given products replaced, added or (null value) removed; every other row is copied
+    // column by column, without going back to the database.
+    public CatalogSnapshot withChanges(SortedMap<Long, Product> changes, long newVersion) {
+        Builder builder = new Builder(size + changes.size(), text.capacity());
+        Iterator<Map.Entry<Long, Product>> changed = changes.entrySet().iterator();
+        Map.Entry<Long, Product> next = changed.hasNext() ? changed.next() : null;
+        for (int row = 0; row < size; row++) {
+            while (next != null && next.getKey() < ids[row]) {
+                addChange(builder, next.getValue());
+                next = changed.hasNext() ? changed.next() : null;
+            }
+            if (next != null && next.getKey() == ids[row]) {
+                addChange(builder, next.getValue());
+                next = changed.hasNext() ? changed.next() : null;
+            } else {
+                builder.addRow(this, row);
+            }
+        }
+        while (next != null) {
+            addChange(builder, next.getValue());
+            next = changed.hasNext() ? changed.next() : null;
+        }
+        return builder.build(newVersion);
+    }
+
+    private static void addChange(Builder builder, Product product) {
+        if (product != null) {
+            builder.add(product);
+        }
+    }
+
+    // =====================================================================
+    // FILE
+    // =====================================================================
+
+    // Writes the snapshot to 'file' (replaced atomically: readers mapping the old file keep their copy).
+    public void writeTo(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+            DataOutputStream header = new DataOutputStream(headerBytes);
+            header.writeInt(FILE_MAGIC);
+            header.writeInt(FILE_FORMAT);
+            header.writeLong(builtAt);
+            header.writeLong(version);
+            header.writeInt(size);
+            writeDictionary(header, categories);
+            writeDictionary(header, subcategories);
+            header.flush();
+            writeFully(channel, ByteBuffer.wrap(headerBytes.toByteArray()));
+
+            ByteBuffer column = ByteBuffer.allocate(size * Long.BYTES);
+            column.asLongBuffer().put(ids);
+            writeFully(channel, column);
+            column.clear().asDoubleBuffer().put(prices);
+            writeFully(channel, column);
+            column.clear().asDoubleBuffer().put(oldPrices);
+            writeFully(channel, column);
+            writeFully(channel, ByteBuffer.wrap(discounted));
+            writeFully(channel, intColumn(stock));
+            column.clear().asLongBuffer().put(versions);
+            writeFully(channel, column);
+            writeFully(channel, intColumn(categoryCodes));
+            writeFully(channel, intColumn(subcategoryCodes));
+            writeFully(channel, intColumn(textOffsets));
+            writeFully(channel, intColumn(textLengths));
+            writeFully(channel, ByteBuffer.allocate(Integer.BYTES).putInt(0, text.capacity()));
+            writeFully(channel, text.duplicate().clear());
+            channel.force(false);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Maps a file written by writeTo(). Throws IOException if it is not a complete snapshot file of this format.
+    public static CatalogSnapshot map(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Catalog snapshot file too large: " + channel.size());
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != FILE_MAGIC || buffer.getInt() != FILE_FORMAT) {
+                throw new IOException("Not a catalog snapshot file (format " + FILE_FORMAT + "): " + file);
+            }
+            long builtAt = buffer.getLong();
+            long version = buffer.getLong();
+            int size = buffer.getInt();
+            String[] categories = readDictionary(buffer);
+            String[] subcategories = readDictionary(buffer);
+
+            long[] ids = new long[size];
+            buffer.asLongBuffer().get(ids);
+            skip(buffer, size * Long.BYTES);
+            double[] prices = new double[size];
+            buffer.asDoubleBuffer().get(prices);
+            skip(buffer, size * Double.BYTES);
+            double[] oldPrices = new double[size];
+            buffer.asDoubleBuffer().get(oldPrices);
+            skip(buffer, size * Double.BYTES);
+            byte[] discounted = new byte[size];
+            buffer.get(discounted);
+            int[] stock = readIntColumn(buffer, size);
+            long[] versions = new long[size];
+            buffer.asLongBuffer().get(versions);
+            skip(buffer, size * Long.BYTES);
+            int[] categoryCodes = readIntColumn(buffer, size);
+            int[] subcategoryCodes = readIntColumn(buffer, size);
+            int[] textOffsets = readIntColumn(buffer, size * TEXT_FIELDS);
+            int[] textLengths = readIntColumn(buffer, size * TEXT_FIELDS);
+            int textSize = buffer.getInt();
+            if (textSize != buffer.remaining()) {
+                throw new IOException("Truncated catalog snapshot file: " + file);
+            }
+            ByteBuffer text = buffer.slice(buffer.position(), textSize);
+
+            for (int row = 0; row < size; row++) {
+                if ((row > 0 && ids[row] <= ids[row - 1])
+                        || categoryCodes[row] < NO_CODE || categoryCodes[row] >= categories.length
+                        || subcategoryCodes[row] < NO_CODE || subcategoryCodes[row] >= subcategories.length) {
+                    throw new IOException("Corrupt catalog snapshot file (row " + row + "): " + file);
+                }
+            }
+            for (int slot = 0; slot < textOffsets.length; slot++) {
+                if (textLengths[slot] >= 0 && (textOffsets[slot] < 0 || (long) textOffsets[slot] + textLengths[slot] > textSize)) {
+                    throw new IOException("Corrupt catalog snapshot file (text " + slot + "): " + file);
+                }
+            }
+            return new CatalogSnapshot(builtAt, version, size, ids, prices, oldPrices, discounted, stock, versions,
+                    categoryCodes, subcategoryCodes, categories, subcategories, textOffsets, textLengths, text);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Truncated or corrupt catalog snapshot file: " + file, e);
+        }
+    }
+
+    private static void writeDictionary(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values.length);
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer) {
+        String[] values = new String[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static ByteBuffer intColumn(int[] values) {
+        ByteBuffer column = ByteBuffer.allocate(values.length * Integer.BYTES);
+        column.asIntBuffer().put(values);
+        return column;
+    }
+
+    private static int[] readIntColumn(ByteBuffer buffer, int length) {
+        int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        skip(buffer, length * Integer.BYTES);
+        return values;
+    }
+
+    private static void skip(ByteBuffer buffer, int bytes) {
+        buffer.position(buffer.position() + bytes);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // =====================================================================
+    // BUILDER
+    // =====================================================================
+
+    // Collects rows in ascending id order; text is written straight into a growing direct buffer.
+    public static final class Builder {
+
+        private int size;
+        private long[] ids;
+        private double[] prices;
+        private double[] oldPrices;
+        private byte[] discounted;
+        private int[] stock;
+        private long[] versions;
+        private int[] categoryCodes;
+        private int[] subcategoryCodes;
+        private int[] textOffsets;
+        private int[] textLengths;
+        private ByteBuffer text;
+        private byte[] copyBuffer = new byte[256];
+
+        private final Map<String, Integer> categoryDictionary = new HashMap<>();
+        private final Map<String, Integer> subcategoryDictionary = new HashMap<>();
+        private final List<String> categories = new ArrayList<>();
+        private final List<String> subcategories = new ArrayList<>();
+
+        public Builder() {
+            this(1024, 1 << 20);
+        }
+
+        // Initial room for 'rows' rows and 'textBytes' bytes of text
+        Builder(int rows, int textBytes) {
+            int capacity = Math.max(16, rows);
+            ids = new long[capacity];
+            prices = new double[capacity];
+            oldPrices = new double[capacity];
+            discounted = new byte[capacity];
+            stock = new int[capacity];
+            versions = new long[capacity];
+            categoryCodes = new int[capacity];
+            subcategoryCodes = new int[capacity];
+            textOffsets = new int[capacity * TEXT_FIELDS];
+            textLengths = new int[capacity * TEXT_FIELDS];
+            text = ByteBuffer.allocateDirect(Math.max(1024, textBytes));
+        }
+
+        public Builder add(long id, String name, String description, Double price, Double oldPrice, Boolean isDiscounted,
+                           String category, String subcategory, String imageUrl, Integer stockValue, Long version) {
+            if (size > 0 && id <= ids[size - 1]) {
+                throw new IllegalArgumentException("Rows must be added in ascending id order: " + id);
+            }
+            ensureCapacity(size + 1);
+            ids[size] = id;
+            prices[size] = price == null ? Double.NaN : price;
+            oldPrices[size] = oldPrice == null ? Double.NaN : oldPrice;
+            discounted[size] = isDiscounted == null ? FLAG_NULL : isDiscounted ? FLAG_TRUE : FLAG_FALSE;
+            stock[size] = stockValue == null ? NULL_INT : stockValue;
+            versions[size] = version == null ? NULL_LONG : version;
+            categoryCodes[size] = encode(category, categoryDictionary, categories);
+            subcategoryCodes[size] = encode(subcategory, subcategoryDictionary, subcategories);
+            putText(size * TEXT_FIELDS + TEXT_NAME, name);
+            putText(size * TEXT_FIELDS + TEXT_DESCRIPTION, description);
+            putText(size * TEXT_FIELDS + TEXT_IMAGE_URL, imageUrl);
+            size++;
+            return this;
+        }
+
+        public Builder add(Product product) {
+            return add(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                    product.getOldPrice(), product.getIsDiscounted(), product.getCategory(), product.getSubcategory(),
+                    product.getImageUrl(), product.getStock(), product.getVersion());
+        }
+
+        // Copies a row of another snapshot (text bytes included, no String is decoded)
+        Builder addRow(CatalogSnapshot source, int row) {
+            long id = source.ids[row];
+            if (size > 0 && id <= ids[size - 1]) {
+                throw new IllegalArgumentException("Rows must be added in ascending id order: " + id);
+            }
+            ensureCapacity(size + 1);
+            ids[size] = id;
+            prices[size] = source.prices[row];
+            oldPrices[size] = source.oldPrices[row];
+            discounted[size] = source.discounted[row];
+            stock[size] = source.stock[row];
+            versions[size] = source.versions[row];
+            categoryCodes[size] = encode(source.category(row), categoryDictionary, categories);
+            subcategoryCodes[size] = encode(source.subcategory(row), subcategoryDictionary, subcategories);
+            for (int field = 0; field < TEXT_FIELDS; field++) {
+                int length = source.textLength(row, field);
+                if (length < 0) {
+                    putText(size * TEXT_FIELDS + field, null, 0);
+                    continue;
+                }
+                if (length > copyBuffer.length) {
+                    copyBuffer = new byte[Math.max(length, copyBuffer.length * 2)];
+                }
+                source.copyText(row, field, copyBuffer);
+                putText(size * TEXT_FIELDS + field, copyBuffer, length);
+            }
+            size++;
+            return this;
+        }
+
+        public CatalogSnapshot build() {
+            return build(0);
+        }
+
+        // 'version': position in the catalog change log the rows include
+        public CatalogSnapshot build(long version) {
+            ByteBuffer compactText = ByteBuffer.allocateDirect(text.position());
+            compactText.put(text.flip());
+            return new CatalogSnapshot(System.currentTimeMillis(), version, size, Arrays.copyOf(ids, size),
+                    Arrays.copyOf(prices, size), Arrays.copyOf(oldPrices, size), Arrays.copyOf(discounted, size),
+                    Arrays.copyOf(stock, size), Arrays.copyOf(versions, size), Arrays.copyOf(categoryCodes, size),
+                    Arrays.copyOf(subcategoryCodes, size), categories.toArray(new String[0]),
+                    subcategories.toArray(new String[0]), Arrays.copyOf(textOffsets, size * TEXT_FIELDS),
+                    Arrays.copyOf(textLengths, size * TEXT_FIELDS), compactText.flip());
+        }
+
+        private static int encode(String value, Map<String, Integer> dictionary, List<String> values) {
+            if (value == null) {
+                return NO_CODE;
+            }
+            return dictionary.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        private void putText(int slot, String value) {
+            if (value == null) {
+                putText(slot, null, 0);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                putText(slot, bytes, bytes.length);
+            }
+        }
+
+        private void putText(int slot, byte[] bytes, int length) {
+            if (bytes == null) {
+                textOffsets[slot] = 0;
+                textLengths[slot] = -1;
+                return;
+            }
+            if (text.remaining() < length) {
+                long needed = (long) text.position() + length;
+                if (needed > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Catalog text exceeds 2 GB");
+                }
+                ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE, Math.max(needed, text.capacity() * 2L)));
+                grown.put(text.flip());
+                text = grown;
+            }
+            textOffsets[slot] = text.position();
+            textLengths[slot] = length;
+            text.put(bytes, 0, length);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int grown = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, grown);
+            prices = Arrays.copyOf(prices, grown);
+            oldPrices = Arrays.copyOf(oldPrices, grown);
+            discounted = Arrays.copyOf(discounted, grown);
+            stock = Arrays.copyOf(stock, grown);
+            versions = Arrays.copyOf(versions, grown);
+            categoryCodes = Arrays.copyOf(categoryCodes, grown);
+            subcategoryCodes = Arrays.copyOf(subcategoryCodes, grown);
+            textOffsets = Arrays.copyOf(textOffsets, grown * TEXT_FIELDS);
+            textLengths = Arrays.copyOf(textLengths, grown * TEXT_FIELDS);
+        }
+    }
+}
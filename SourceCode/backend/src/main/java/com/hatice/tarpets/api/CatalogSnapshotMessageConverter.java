@@ -0,0 +1,51 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+
+// Writes catalog snapshot listings (CatalogSnapshot.Rows) as JSON straight from the snapshot columns.
+// The controllers keep returning List<Product>; Spring Boot puts converter beans ahead of the default Jackson
+// converter, which would otherwise materialize a Product for every row. Output is the same JSON array.
+@Component
+public class CatalogSnapshotMessageConverter extends AbstractHttpMessageConverter<CatalogSnapshot.Rows> {
+
+    private final ObjectMapper objectMapper;
+
+    public CatalogSnapshotMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return CatalogSnapshot.Rows.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false; // Response bodies only
+    }
+
+    @Override
+    protected CatalogSnapshot.Rows readInternal(Class<? extends CatalogSnapshot.Rows> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Catalog snapshot rows cannot be read", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(CatalogSnapshot.Rows rows, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(
+                StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            ProductJsonSerializer.writeRows(rows, generator);
+        }
+    }
+}
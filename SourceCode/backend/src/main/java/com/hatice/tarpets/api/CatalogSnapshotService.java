@@ -0,0 +1,402 @@
+package com.hatice.tarpets.api;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Catalog Snapshot Service.
+// Serves the plain listing endpoints (all products, by category, discounted) from a CatalogSnapshot instead of
+// loading entities for every request. The first snapshot is built by streaming the 'products' table through a
+// fetch-size limited cursor straight into the columns (no entity per row); after that only the changed products
+// are read and merged into a new snapshot. Each new snapshot replaces the old one in one volatile write, so
+// readers always see either the old or the new snapshot, never a mix.
+// Any product change makes the snapshot stale: until the next refresh (catalog.snapshot.refresh-ms) current()
+// returns null and the listings are answered from the database as before, so a change is visible at once.
+//
+// With 'catalog.snapshot.file' set, the snapshot is also written to that file periodically, every product change
+// is logged in 'catalog_changes', and a starting instance maps the file and re-reads only the products logged
+// since it was written, instead of querying the whole table.
+@Service
+public class CatalogSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private static final String ENTITY_NAME = Product.class.getName();
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static final String COLUMNS =
+            "SELECT id, name, description, price, old_price, is_discounted, category, subcategory, image_url, stock, version FROM products";
+    private static final String PRODUCTS_SQL = COLUMNS + " ORDER BY id";
+
+    // Changes logged shortly before a snapshot's log position may be missing from it (another instance's change
+    // whose bus message had not arrived yet, or a log insert committed after a later one), so catching up also
+    // re-reads everything logged within this window before the snapshot was built. Reading a product twice is harmless.
+    private static final Duration CATCH_UP_OVERLAP = Duration.ofMinutes(5);
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductWriteBuffer productWriteBuffer;
+    private final CatalogChangeRepository changeRepository;
+    private final boolean enabled;
+    private final Path snapshotFile;
+    private final Duration changeRetention;
+    private final int maxIncremental;
+
+    private record Built(CatalogSnapshot snapshot, long changes) {}
+
+    private volatile Built built;
+
+    // ---- Change tracking (guarded by 'changeLock') ----
+    private final Object changeLock = new Object();
+    // Counts product changes; a snapshot is current only while no change happened since its refresh started
+    private volatile long changes;
+    // Products changed since the last refresh, read again by the next one
+    private Set<Long> changedIds = new HashSet<>();
+    private boolean fullRebuild = true;
+
+    // Snapshot last written to the file (not written again while unchanged)
+    private volatile CatalogSnapshot exported;
+
+    public CatalogSnapshotService(DataSource dataSource, ProductWriteBuffer productWriteBuffer,
+                                  CatalogChangeRepository changeRepository, CacheInvalidationBus bus,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${catalog.snapshot.enabled:true}") boolean enabled,
+                                  @Value("${catalog.snapshot.file:}") String snapshotFile,
+                                  @Value("${catalog.snapshot.change-retention-hours:24}") long changeRetentionHours,
+                                  @Value("${catalog.snapshot.max-incremental:10000}") int maxIncremental) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(AdminExportService.FETCH_SIZE);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.productWriteBuffer = productWriteBuffer;
+        this.changeRepository = changeRepository;
+        this.enabled = enabled;
+        this.snapshotFile = snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        this.changeRetention = Duration.ofHours(changeRetentionHours);
+        this.maxIncremental = maxIncremental;
+        bus.subscribe(this::onRemoteInvalidation);
+
+        Gauge.builder("tarpets.catalog.snapshot.products", this, s -> s.built == null ? 0 : s.built.snapshot().size())
+                .description("Products in the catalog snapshot").register(meterRegistry);
+        Gauge.builder("tarpets.catalog.snapshot.heap", this, s -> s.built == null ? 0 : s.built.snapshot().getHeapBytes())
+                .baseUnit("bytes").description("Heap used by the catalog snapshot columns").register(meterRegistry);
+        Gauge.builder("tarpets.catalog.snapshot.off-heap", this, s -> s.built == null ? 0 : s.built.snapshot().getOffHeapBytes())
+                .baseUnit("bytes").description("Product text held off-heap by the catalog snapshot").register(meterRegistry);
+    }
+
+    // From the snapshot file if there is a usable one, otherwise from the database (and then written to the file
+    // right away, so the next instance can start from it).
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        boolean loaded = snapshotFile != null && loadFile();
+        refresh();
+        if (!loaded) {
+            export();
+        }
+    }
+
+    // The current snapshot, or null while it is stale (or disabled): read from the database then.
+    public CatalogSnapshot current() {
+        Built current = built;
+        return current == null || current.changes() != changes ? null : current.snapshot();
+    }
+
+    // =====================================================================
+    // CHANGE TRACKING
+    // =====================================================================
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        changed(event.getProductId());
+        logChange(event.getProductId());
+    }
+
+    @EventListener
+    public void onCatalogReload(CatalogReloadEvent event) {
+        changed(null);
+        logChange(null);
+    }
+
+    // An accepted PATCH (not written yet): merged into a current snapshot right away, since the database fallback
+    // would not show it. A stale snapshot gets it from the next refresh (which overlays buffered patches).
+    // Only takes 'changeLock': the buffer publishes this while holding its own lock, and refresh() holds this
+    // service's lock while asking the buffer for its pending changes.
+    @EventListener
+    public void onProductPatched(ProductPatchedEvent event) {
+        Product product = event.getProduct();
+        synchronized (changeLock) {
+            Built current = built;
+            if (current == null || current.changes() != changes) {
+                changed(product.getId());
+                return;
+            }
+            SortedMap<Long, Product> patched = new TreeMap<>(Map.of(product.getId(), product));
+            built = new Built(current.snapshot().withChanges(patched, current.snapshot().getVersion()), changes);
+        }
+    }
+
+    // Changes made on other instances (logged there)
+    private void onRemoteInvalidation(CacheInvalidation message) {
+        if (ENTITY_NAME.equals(message.getEntityName())) {
+            changed(message.getEntityId());
+        }
+    }
+
+    // productId null: any product may have changed
+    private void changed(Long productId) {
+        synchronized (changeLock) {
+            if (productId == null) {
+                fullRebuild = true;
+            } else {
+                changedIds.add(productId);
+            }
+            changes++;
+        }
+    }
+
+    // Only needed to catch up from a snapshot file
+    private void logChange(Long productId) {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            changeRepository.save(new CatalogChange(productId));
+        } catch (RuntimeException e) {
+            logger.warn("Logging the catalog change of product {} failed: {}", productId, e.getMessage());
+        }
+    }
+
+    // =====================================================================
+    // REFRESH
+    // =====================================================================
+
+    @Scheduled(initialDelayString = "${catalog.snapshot.refresh-ms:1000}", fixedDelayString = "${catalog.snapshot.refresh-ms:1000}")
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        Built current = built;
+        long changesBefore;
+        Set<Long> productIds;
+        boolean full;
+        synchronized (changeLock) {
+            changesBefore = changes;
+            if (current != null && current.changes() == changesBefore) {
+                return;
+            }
+            productIds = changedIds;
+            changedIds = new HashSet<>();
+            full = fullRebuild || current == null || productIds.size() > maxIncremental;
+            fullRebuild = false;
+        }
+        try {
+            long start = System.nanoTime();
+            // Read before the products: everything logged up to here is in the new snapshot
+            long logPosition = snapshotFile == null ? 0 : changeRepository.findMaxId();
+            CatalogSnapshot rebuilt = full ? build(logPosition)
+                    : current.snapshot().withChanges(readProducts(productIds), logPosition);
+            built = new Built(rebuilt, changesBefore);
+            logger.debug("Catalog snapshot {} with {} products in {} ms ({} bytes heap, {} bytes off-heap)",
+                    full ? "rebuilt" : "updated (" + productIds.size() + " changed)", rebuilt.size(),
+                    (System.nanoTime() - start) / 1_000_000, rebuilt.getHeapBytes(), rebuilt.getOffHeapBytes());
+        } catch (RuntimeException e) {
+            synchronized (changeLock) {
+                changedIds.addAll(productIds);
+                fullRebuild |= full;
+            }
+            logger.warn("Catalog snapshot refresh failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    private CatalogSnapshot build(long logPosition) {
+        // PATCHed products whose database write is still buffered get the buffered values. Taken before the
+        // query: a patch arriving later counts as a change again.
+        Set<Long> pendingIds = productWriteBuffer.getPendingIds();
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+        streamingJdbcTemplate.query(PRODUCTS_SQL, rs -> {
+            long id = rs.getLong("id");
+            if (pendingIds.contains(id)) {
+                builder.add(productWriteBuffer.overlay(toProduct(rs, id)));
+                return;
+            }
+            builder.add(id, rs.getString("name"), rs.getString("description"), nullableDouble(rs, "price"),
+                    nullableDouble(rs, "old_price"), nullableBoolean(rs, "is_discounted"), rs.getString("category"),
+                    rs.getString("subcategory"), rs.getString("image_url"), nullableInt(rs, "stock"),
+                    nullableLong(rs, "version"));
+        });
+        return builder.build(logPosition);
+    }
+
+    // Current state of the given products (with buffered PATCHes); null for products that no longer exist
+    private SortedMap<Long, Product> readProducts(Set<Long> productIds) {
+        SortedMap<Long, Product> products = new TreeMap<>();
+        productIds.forEach(id -> products.put(id, null));
+        List<Long> ids = new ArrayList<>(productIds);
+        for (int from = 0; from < ids.size(); from += ProductBulkService.CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + ProductBulkService.CHUNK_SIZE));
+            String sql = COLUMNS + " WHERE id IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                long id = rs.getLong("id");
+                products.put(id, productWriteBuffer.overlay(toProduct(rs, id)));
+            }, chunk.toArray());
+        }
+        return products;
+    }
+
+    // =====================================================================
+    // SNAPSHOT FILE
+    // =====================================================================
+
+    // Maps the file and catches up on the changes logged since it was written. False (and nothing changed here)
+    // without a usable file: missing, unreadable, older than the change log, or not matching the products table.
+    private boolean loadFile() {
+        if (!Files.exists(snapshotFile)) {
+            return false;
+        }
+        try {
+            long start = System.nanoTime();
+            long changesBefore;
+            synchronized (changeLock) {
+                changesBefore = changes;
+            }
+            CatalogSnapshot mapped = CatalogSnapshot.map(snapshotFile);
+            LocalDateTime catchUpFrom = LocalDateTime.ofInstant(Instant.ofEpochMilli(mapped.getBuiltAt()), ZONE).minus(CATCH_UP_OVERLAP);
+            if (catchUpFrom.isBefore(LocalDateTime.now().minus(changeRetention))) {
+                logger.info("Catalog snapshot file {} is older than the change log, loading from the database", snapshotFile);
+                return false;
+            }
+
+            long logPosition = changeRepository.findMaxId();
+            Set<Long> productIds = new HashSet<>();
+            for (CatalogChange change : changeRepository.findByIdGreaterThanOrChangedAtGreaterThanEqual(mapped.getVersion(), catchUpFrom)) {
+                if (change.isAllProducts()) {
+                    logger.info("Catalog changed in bulk since the snapshot file was written, loading from the database");
+                    return false;
+                }
+                productIds.add(change.getProductId());
+            }
+            if (productIds.size() > maxIncremental) {
+                logger.info("{} products changed since the snapshot file was written, loading from the database", productIds.size());
+                return false;
+            }
+            CatalogSnapshot snapshot = productIds.isEmpty() ? mapped : mapped.withChanges(readProducts(productIds), logPosition);
+
+            // A file of another database (or missing a change that was never logged) must not be served
+            Map<String, Object> table = jdbcTemplate.queryForMap("SELECT COUNT(*) AS products, COALESCE(MAX(id), 0) AS max_id FROM products");
+            long maxId = snapshot.size() == 0 ? 0 : snapshot.id(snapshot.size() - 1);
+            if (((Number) table.get("products")).longValue() != snapshot.size() || ((Number) table.get("max_id")).longValue() != maxId) {
+                logger.warn("Catalog snapshot file {} does not match the products table, loading from the database", snapshotFile);
+                return false;
+            }
+
+            synchronized (this) {
+                built = new Built(snapshot, changesBefore);
+                synchronized (changeLock) {
+                    fullRebuild = false;
+                }
+            }
+            if (productIds.isEmpty()) {
+                exported = mapped;
+            }
+            logger.info("Catalog snapshot loaded from {} with {} products ({} changed since) in {} ms", snapshotFile,
+                    snapshot.size(), productIds.size(), (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Catalog snapshot file {} not usable, loading from the database: {}", snapshotFile, e.getMessage());
+            return false;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${catalog.snapshot.export-ms:300000}", fixedDelayString = "${catalog.snapshot.export-ms:300000}")
+    public void export() {
+        Built current = built;
+        if (snapshotFile == null || current == null || current.snapshot() == exported) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            if (snapshotFile.getParent() != null) {
+                Files.createDirectories(snapshotFile.getParent());
+            }
+            current.snapshot().writeTo(snapshotFile);
+            exported = current.snapshot();
+            logger.debug("Catalog snapshot with {} products written to {} in {} ms", current.snapshot().size(),
+                    snapshotFile, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Writing the catalog snapshot file {} failed, retrying on the next run: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${catalog.snapshot.prune-ms:3600000}", fixedDelayString = "${catalog.snapshot.prune-ms:3600000}")
+    public void pruneChangeLog() {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            changeRepository.deleteOlderThan(LocalDateTime.now().minus(changeRetention));
+        } catch (RuntimeException e) {
+            logger.warn("Pruning the catalog change log failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    // =====================================================================
+    // ROWS
+    // =====================================================================
+
+    private static Product toProduct(ResultSet rs, long id) throws SQLException {
+        Product product = new Product(rs.getString("name"), rs.getString("description"), nullableDouble(rs, "price"),
+                nullableDouble(rs, "old_price"), nullableBoolean(rs, "is_discounted"), rs.getString("category"),
+                rs.getString("subcategory"), rs.getString("image_url"), nullableInt(rs, "stock"));
+        product.setId(id);
+        product.setVersion(nullableLong(rs, "version"));
+        return product;
+    }
+
+    private static Double nullableDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Integer nullableInt(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Long nullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Boolean nullableBoolean(ResultSet rs, String column) throws SQLException {
+        boolean value = rs.getBoolean(column);
+        return rs.wasNull() ? null : value;
+    }
+}
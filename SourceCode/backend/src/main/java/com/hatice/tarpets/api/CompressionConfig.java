@@ -0,0 +1,55 @@
+package com.hatice.tarpets.api;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.List;
+
+// Response Compression Configuration.
+// gzip and HTTP/2 (h2c) are handled by the embedded Tomcat (see "server.compression.*" / "server.http2.enabled").
+// This class adds Brotli on top for clients that support it, using the same MIME filter and size threshold style.
+@Configuration
+@ConditionalOnProperty(name = "compression.brotli.enabled", havingValue = "true")
+public class CompressionConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompressionConfig.class);
+
+    @Bean
+    @Conditional(BrotliAvailable.class)
+    public FilterRegistrationBean<BrotliCompressionFilter> brotliCompressionFilter(
+            @Value("${compression.brotli.mime-types}") List<String> mimeTypes,
+            @Value("${compression.brotli.min-response-size:2048}") int minResponseSize,
+            @Value("${compression.brotli.quality:4}") int quality) {
+
+        FilterRegistrationBean<BrotliCompressionFilter> registration =
+                new FilterRegistrationBean<>(new BrotliCompressionFilter(mimeTypes, minResponseSize, quality));
+        // Outermost filter, so security error responses are compressed the same way.
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    // Brotli needs a native library; without it the filter is not registered and Tomcat's gzip stays active.
+    static class BrotliAvailable implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            if (Brotli4jLoader.isAvailable()) {
+                return true;
+            }
+            logger.warn("Brotli native library not available, only gzip compression is active: {}",
+                    Brotli4jLoader.getUnavailabilityCause().getMessage());
+            return false;
+        }
+    }
+}
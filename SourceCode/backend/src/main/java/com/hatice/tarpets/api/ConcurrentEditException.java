@@ -0,0 +1,21 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// Conflict (409): the client edited an outdated version of a record.
+// Carries the record as it is now, so the client can show the concurrent change and retry with its version
+// (see ConcurrentEditHandler for the response body).
+public class ConcurrentEditException extends ResponseStatusException {
+
+    private final transient Object current;
+
+    public ConcurrentEditException(String reason, Object current) {
+        super(HttpStatus.CONFLICT, reason);
+        this.current = current;
+    }
+
+    public Object getCurrent() {
+        return current;
+    }
+}
@@ -0,0 +1,31 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Conflict Responses for Optimistic Locking.
+// Body: {"message": ..., "current": <record as it is now>} so the client can merge and resend with the new version.
+@RestControllerAdvice
+public class ConcurrentEditHandler {
+
+    @ExceptionHandler(ConcurrentEditException.class)
+    public ResponseEntity<Map<String, Object>> handleConcurrentEdit(ConcurrentEditException e) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("message", e.getReason());
+        body.put("current", e.getCurrent());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
+    // Version check failed at commit time without a handler that could re-read the record.
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "The record was modified concurrently, reload it and try again"));
+    }
+}
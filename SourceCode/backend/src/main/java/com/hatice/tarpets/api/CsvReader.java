@@ -0,0 +1,115 @@
+package com.hatice.tarpets.api;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Minimal streaming CSV reader (RFC 4180 style).
+// Reads one record at a time from the underlying Reader, so memory use is bounded by the longest row,
+// not by the size of the upload. Supports quoted fields, escaped quotes ("") and line breaks inside quotes.
+public class CsvReader implements Closeable {
+
+    private final Reader in;
+
+    // Physical line counter (1-based) and the line on which the last returned record started.
+    private long line = 1;
+    private long recordLine;
+
+    // One character of push-back, used when looking ahead after '"' or '\r'.
+    private int pushedBack = -2;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    // Returns the next record as a list of fields, or null at end of input.
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c == '\r') {
+                int next = read();
+                if (next != '\n') {
+                    pushedBack = next;
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Line number on which the most recently returned record started (for error reports).
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    // Escapes a single value for CSV output. Null becomes an empty field.
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean needsQuotes = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!needsQuotes) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != -2) {
+            c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        c = in.read();
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,42 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+
+// Supported formats for streaming admin imports/exports.
+// Centralizes the "?format=" parsing and the response Content-Type for every bulk endpoint.
+public enum ExportFormat {
+
+    CSV("csv", new MediaType("text", "csv")),
+    NDJSON("ndjson", MediaType.APPLICATION_NDJSON);
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    ExportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    // Accepts "csv", "ndjson" (and "jsonl" as an alias), case-insensitive; anything else is a client error.
+    public static ExportFormat parse(String value) {
+        String normalized = value == null ? "" : value.trim().toLowerCase();
+        switch (normalized) {
+            case "csv":
+                return CSV;
+            case "ndjson": case "jsonl":
+                return NDJSON;
+            default:
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported format: " + value);
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Typo-Tolerant Product Search ("?search=...&fuzzy=true").
+// Product names are folded (lowercase, Turkish letters and accents removed: "Kedi Maması" -> "kedi mamasi")
+// and split into words. Each distinct word is a vocabulary term with a posting list of the products using it;
+// adjacent words are also indexed joined ("Pro Plan" -> "proplan"). A query word matches every term within a
+// bounded Damerau-Levenshtein distance; candidates come from a bigram index (an edit changes at most two
+// bigrams), so only a small part of the vocabulary is verified. Query words are AND-ed; two adjacent query
+// words may also match one joined term ("pro plan" -> "ProPlan").
+@Service
+public class FuzzySearchService {
+
+    // Upper bound for the number of fuzzy results returned to the listing.
+    static final int MAX_RESULTS = 200;
+
+    // Words shorter than this are ignored (e.g. single letters).
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    private final CatalogIndex catalogIndex;
+
+    // Upper bound for edits per word; short words allow fewer (see maxEditsFor).
+    private final int maxEdits;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ---- Index state (guarded by 'lock') ----
+    // Documents: dense numbers for products (BitSet positions)
+    private final Map<Long, Integer> docByProduct = new HashMap<>();
+    private long[] productByDoc = new long[16];
+    private int[] wordCountByDoc = new int[16];
+    private final ArrayDeque<Integer> freeDocs = new ArrayDeque<>();
+    private int docCount;
+
+    // Vocabulary: term -> id, id -> term, id -> products
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<Posting> postings = new ArrayList<>();
+    private final Map<Long, int[]> termsByProduct = new HashMap<>();
+
+    // Bigram ("$a", "ab", ..., "z$") -> ids of the terms containing it
+    private final Map<String, int[]> bigramIndex = new HashMap<>();
+    private final Map<String, Integer> bigramSizes = new HashMap<>();
+
+    public FuzzySearchService(CatalogIndex catalogIndex, @Value("${search.fuzzy.max-edits:2}") int maxEdits) {
+        this.catalogIndex = catalogIndex;
+        this.maxEdits = maxEdits;
+    }
+
+    // =====================================================================
+    // MAINTENANCE
+    // =====================================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @EventListener
+    public void onCatalogReload(CatalogReloadEvent event) {
+        reload();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.getProductId());
+            if (!event.isDeleted()) {
+                add(event.getProduct());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void reload() {
+        List<Product> products = catalogIndex.getProducts();
+        lock.writeLock().lock();
+        try {
+            docByProduct.clear();
+            freeDocs.clear();
+            docCount = 0;
+            termIds.clear();
+            terms.clear();
+            postings.clear();
+            termsByProduct.clear();
+            bigramIndex.clear();
+            bigramSizes.clear();
+            for (Product product : products) {
+                add(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Indexes one product (caller holds the write lock, or the service is not shared yet).
+    void add(Product product) {
+        if (product.getId() == null || docByProduct.containsKey(product.getId())) {
+            return;
+        }
+        String[] words = tokenize(product.getName());
+        int doc = freeDocs.isEmpty() ? docCount++ : freeDocs.pop();
+        if (doc >= productByDoc.length) {
+            productByDoc = Arrays.copyOf(productByDoc, productByDoc.length * 2);
+            wordCountByDoc = Arrays.copyOf(wordCountByDoc, wordCountByDoc.length * 2);
+        }
+        productByDoc[doc] = product.getId();
+        wordCountByDoc[doc] = words.length;
+        docByProduct.put(product.getId(), doc);
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < words.length; i++) {
+            ids.add(term(words[i]));
+            if (i + 1 < words.length) {
+                ids.add(term(words[i] + words[i + 1]));
+            }
+        }
+        int[] productTerms = ids.stream().mapToInt(Integer::intValue).distinct().toArray();
+        for (int termId : productTerms) {
+            postings.get(termId).add(doc);
+        }
+        termsByProduct.put(product.getId(), productTerms);
+    }
+
+    // Terms whose posting becomes empty stay in the vocabulary; they match nothing and are dropped on reload.
+    void remove(Long productId) {
+        Integer doc = docByProduct.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        for (int termId : termsByProduct.remove(productId)) {
+            postings.get(termId).remove(doc);
+        }
+        freeDocs.push(doc);
+    }
+
+    private int term(String text) {
+        Integer id = termIds.get(text);
+        if (id != null) {
+            return id;
+        }
+        int newId = terms.size();
+        termIds.put(text, newId);
+        terms.add(text);
+        postings.add(new Posting());
+        for (String bigram : bigrams(text)) {
+            int size = bigramSizes.getOrDefault(bigram, 0);
+            int[] list = bigramIndex.get(bigram);
+            if (list == null || size == list.length) {
+                list = list == null ? new int[4] : Arrays.copyOf(list, list.length * 2);
+                bigramIndex.put(bigram, list);
+            }
+            if (size == 0 || list[size - 1] != newId) { // A term can repeat a bigram ("anan")
+                list[size++] = newId;
+                bigramSizes.put(bigram, size);
+            }
+        }
+        return newId;
+    }
+
+    // =====================================================================
+    // SEARCH
+    // =====================================================================
+
+    // Product ids matching every query word (within the allowed edits), closest matches first.
+    public List<Long> search(String query, int limit) {
+        String[] words = tokenize(query);
+        if (words.length == 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            // Matching terms (term id -> edit distance) per query word and per joined pair of adjacent words
+            List<Map<Integer, Integer>> single = new ArrayList<>(words.length);
+            List<Map<Integer, Integer>> joined = new ArrayList<>(words.length);
+            for (int i = 0; i < words.length; i++) {
+                single.add(matchingTerms(words[i]));
+                joined.add(i + 1 < words.length ? matchingTerms(words[i] + words[i + 1]) : Map.of());
+            }
+
+            // matches[i] = products matching words i..n-1; each step uses word i alone or joined with i+1.
+            BitSet[] matches = new BitSet[words.length + 2];
+            BitSet all = new BitSet();
+            all.set(0, docCount);
+            for (int doc : freeDocs) {
+                all.clear(doc);
+            }
+            matches[words.length] = all;
+            matches[words.length + 1] = new BitSet();
+            for (int i = words.length - 1; i >= 0; i--) {
+                BitSet result = union(single.get(i));
+                result.and(matches[i + 1]);
+                if (!joined.get(i).isEmpty()) {
+                    BitSet pair = union(joined.get(i));
+                    pair.and(matches[i + 2]);
+                    result.or(pair);
+                }
+                matches[i] = result;
+            }
+
+            // Rank by total edit distance, then by name length (fewer extra words = closer), then id.
+            List<long[]> ranked = new ArrayList<>();
+            BitSet found = matches[0];
+            for (int doc = found.nextSetBit(0); doc >= 0; doc = found.nextSetBit(doc + 1)) {
+                int distance = distance(productByDoc[doc], single, joined);
+                ranked.add(new long[]{distance, wordCountByDoc[doc], productByDoc[doc]});
+            }
+            ranked.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+                    : a[1] != b[1] ? Long.compare(a[1], b[1]) : Long.compare(a[2], b[2]));
+
+            List<Long> result = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (int i = 0; i < ranked.size() && i < limit; i++) {
+                result.add(ranked.get(i)[2]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Vocabulary terms within the allowed distance of a query word.
+    private Map<Integer, Integer> matchingTerms(String word) {
+        int allowed = maxEditsFor(word.length());
+        Map<Integer, Integer> result = new HashMap<>();
+
+        Integer exact = termIds.get(word);
+        if (exact != null) {
+            result.put(exact, 0);
+        }
+        if (allowed == 0) {
+            return result;
+        }
+
+        // Count shared bigrams per term. One edit changes at most three bigrams of the word (an adjacent
+        // transposition: "paln" and "plan" only share "$p" and "n$"), so a term within 'allowed' edits
+        // shares at least grams - 3 * allowed.
+        List<String> grams = bigrams(word);
+        int required = Math.max(0, grams.size() - 3 * allowed);
+        int[] shared = new int[terms.size()];
+        List<Integer> candidates = new ArrayList<>();
+        if (required > 0) {
+            for (String gram : grams) {
+                int[] list = bigramIndex.get(gram);
+                int size = bigramSizes.getOrDefault(gram, 0);
+                for (int i = 0; i < size; i++) {
+                    if (shared[list[i]]++ == 0) {
+                        candidates.add(list[i]);
+                    }
+                }
+            }
+        } else {
+            // Too short for the bigram filter to prune anything: check every term.
+            for (int termId = 0; termId < terms.size(); termId++) {
+                candidates.add(termId);
+            }
+        }
+
+        for (int termId : candidates) {
+            if (required > 0 && shared[termId] < required) {
+                continue;
+            }
+            String term = terms.get(termId);
+            if (Math.abs(term.length() - word.length()) > allowed || postings.get(termId).size == 0) {
+                continue;
+            }
+            int distance = boundedDistance(word, term, allowed);
+            if (distance <= allowed) {
+                result.merge(termId, distance, Math::min);
+            }
+        }
+        return result;
+    }
+
+    private BitSet union(Map<Integer, Integer> matchingTerms) {
+        BitSet result = new BitSet();
+        for (int termId : matchingTerms.keySet()) {
+            Posting posting = postings.get(termId);
+            for (int i = 0; i < posting.size; i++) {
+                result.set(posting.docs[i]);
+            }
+        }
+        return result;
+    }
+
+    // Sum of the best distance per query word for one product (joined matches count once for both words).
+    private int distance(long productId, List<Map<Integer, Integer>> single, List<Map<Integer, Integer>> joined) {
+        int[] productTerms = termsByProduct.get(productId);
+        int n = single.size();
+        int[] best = new int[n + 2];
+        best[n] = 0;
+        best[n + 1] = Integer.MAX_VALUE / 2;
+        for (int i = n - 1; i >= 0; i--) {
+            int viaSingle = bestDistance(productTerms, single.get(i)) + best[i + 1];
+            int viaJoined = bestDistance(productTerms, joined.get(i)) + best[Math.min(i + 2, n + 1)];
+            best[i] = Math.min(viaSingle, viaJoined);
+        }
+        return best[0];
+    }
+
+    private static int bestDistance(int[] productTerms, Map<Integer, Integer> matchingTerms) {
+        int best = Integer.MAX_VALUE / 4;
+        for (int termId : productTerms) {
+            Integer distance = matchingTerms.get(termId);
+            if (distance != null && distance < best) {
+                best = distance;
+            }
+        }
+        return best;
+    }
+
+    // Short words tolerate fewer typos, otherwise almost every 3-letter word would match.
+    int maxEditsFor(int length) {
+        if (length <= 3) {
+            return 0;
+        }
+        if (length <= 5) {
+            return Math.min(1, maxEdits);
+        }
+        return maxEdits;
+    }
+
+    // Documents using one term. Most terms (especially joined pairs) are rare, so a plain array
+    // is far smaller than a BitSet sized to the highest document number.
+    private static final class Posting {
+        private int[] docs = new int[2];
+        private int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        void remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] == doc) {
+                    docs[i] = docs[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    // =====================================================================
+    // TEXT HELPERS
+    // =====================================================================
+
+    // Lowercase, Turkish-specific letters mapped to ASCII, accents removed, punctuation as separators.
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        // Locale.ROOT turns 'İ' into "i" + combining dot (stripped below); dotless 'ı' has no decomposition.
+        String lower = text.toLowerCase(Locale.ROOT).replace('ı', 'i');
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    static String[] tokenize(String text) {
+        String folded = fold(text);
+        if (folded.isEmpty()) {
+            return new String[0];
+        }
+        return Arrays.stream(folded.split(" "))
+                .filter(word -> word.length() >= MIN_TOKEN_LENGTH)
+                .toArray(String[]::new);
+    }
+
+    // Bigrams of the word padded with '$' at both ends (length + 1 grams).
+    private static List<String> bigrams(String word) {
+        String padded = "$" + word + "$";
+        List<String> grams = new ArrayList<>(padded.length() - 1);
+        for (int i = 0; i + 2 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    // Optimal string alignment distance (Damerau-Levenshtein with adjacent transpositions).
+    // Stops early and returns max + 1 as soon as every cell of a row exceeds 'max'.
+    static int boundedDistance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m];
+    }
+}
@@ -0,0 +1,144 @@
+package com.hatice.tarpets.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+// Hashed Timer Wheel.
+// Schedules many far-apart deadlines (campaign starts/ends) with one worker thread and O(1) insert/cancel:
+// time is cut into ticks, a deadline goes into bucket (tick % wheelSize) with the number of full wheel
+// rotations still to wait. Each tick only looks at one bucket; nothing is polled from the database.
+// Due tasks are handed to the given executor so a slow task never delays the wheel.
+public class HashedTimerWheel implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedTimerWheel.class);
+
+    private final long tickMs;
+    private final int mask;
+    private final List<List<Timeout>> buckets;
+    private final Executor executor;
+
+    // New timeouts are handed to the worker through this queue (buckets are touched by the worker only)
+    private final Queue<Timeout> additions = new ConcurrentLinkedQueue<>();
+
+    private final long startTime = System.currentTimeMillis();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // Number of ticks processed so far (worker thread only)
+    private long tick;
+
+    // wheelSize is rounded up to a power of two
+    public HashedTimerWheel(String name, long tickMs, int wheelSize, Executor executor) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMs and wheelSize must be positive");
+        }
+        int size = Integer.highestOneBit(wheelSize - 1 == 0 ? 1 : wheelSize - 1) << 1;
+        this.tickMs = tickMs;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.executor = executor;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // Runs the task at (or up to one tick after) the deadline; deadlines in the past run on the next tick.
+    public Timeout schedule(Runnable task, long deadlineMillis) {
+        Timeout timeout = new Timeout(task, deadlineMillis);
+        additions.add(timeout);
+        return timeout;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long nextTickAt = startTime + (tick + 1) * tickMs;
+            long sleep = nextTickAt - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            transferAdditions();
+            expire(buckets.get((int) (tick & mask)));
+            tick++;
+        }
+    }
+
+    private void transferAdditions() {
+        Timeout timeout;
+        while ((timeout = additions.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            // Tick at which the deadline has passed; never earlier than the tick being processed
+            long deadlineTick = Math.max(tick, (timeout.deadline - startTime + tickMs - 1) / tickMs - 1);
+            timeout.remainingRounds = (deadlineTick - tick) / buckets.size();
+            buckets.get((int) (deadlineTick & mask)).add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                iterator.remove();
+                try {
+                    executor.execute(timeout.task);
+                } catch (RuntimeException e) {
+                    logger.warn("Timer task could not be started: {}", e.getMessage());
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    // Handle of a scheduled task.
+    public static final class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private volatile boolean cancelled;
+
+        // Full wheel rotations left before the task is due (worker thread only)
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        // The task will not run (unless it has already been handed to the executor).
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.hatice.tarpets.api;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Hibernate Second-Level Cache Configuration.
+// Product entities are kept in a bounded, expiring Caffeine cache (through JCache). The results of the
+// ProductRepository finders are not in Hibernate's query cache but in the application cache
+// (TieredCacheConfig.PRODUCT_QUERIES): the query cache is invalidated only by writes Hibernate makes itself, and
+// most product writes here are plain JDBC (write-behind buffer, campaigns, bulk import), while ProductCacheInvalidator
+// clears the application region on every product change and catalog reload, on all instances. Each application
+// context gets its own cache manager, so two instances started in one JVM (tests) do not share entries. Other
+// instances are kept consistent by ProductCacheInvalidator over the configured CacheInvalidationBus.
+@Configuration
+public class HibernateCacheConfig {
+
+    // Region of Product entities (see @Cache on Product)
+    public static final String PRODUCT_REGION = "products";
+
+    private static final String CAFFEINE_PROVIDER = "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${cache.product.max-entries:10000}") long productMaxEntries,
+            @Value("${cache.product.ttl-seconds:600}") long productTtlSeconds) {
+
+        URI uri = URI.create("tarpets-l2-" + UUID.randomUUID());
+        CacheManager cacheManager = Caching.getCachingProvider(CAFFEINE_PROVIDER)
+                .getCacheManager(uri, getClass().getClassLoader());
+
+        cacheManager.createCache(PRODUCT_REGION, bounded(productMaxEntries, productTtlSeconds));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // All regions are created above; a missing one means a typo in a region name.
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxEntries, long ttlSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
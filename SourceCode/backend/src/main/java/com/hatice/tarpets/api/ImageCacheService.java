@@ -0,0 +1,454 @@
+package com.hatice.tarpets.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Image Proxy Cache.
+// Downloads each external product image (Product.imageUrl) once, renders the THUMBNAIL/CARD/DETAIL variants
+// as JPEG and keeps them in a size-bounded disk cache (least recently used files are evicted first).
+// Files are named by the SHA-256 of the source URL, so a changed imageUrl naturally maps to new, immutable files.
+// Sources are only fetched from the configured image hosts (images.fetch.allowed-hosts), redirects included, so a
+// product image URL cannot be used to reach internal hosts.
+@Service
+public class ImageCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageCacheService.class);
+
+    // Redirects followed per download (each target must be on the allow-list too)
+    static final int MAX_REDIRECTS = 3;
+
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final String URL_SUFFIX = ".url";
+    private static final String VARIANT_SUFFIX = ".jpg";
+
+    private final Path cacheDir;
+    private final long maxBytes;
+    private final HttpClient httpClient;
+    private final Duration fetchTimeout;
+    // Hard limit for downloaded originals; protects the heap against huge or malicious sources.
+    private final int maxSourceBytes;
+    // Limit on width * height, checked before decoding: a small compressed file can declare dimensions that
+    // decode to gigabytes of pixels.
+    private final long maxSourcePixels;
+    // Exact host names, or "*.example.com" for any subdomain of example.com. Empty: nothing is fetched.
+    private final List<String> allowedHosts;
+    private final int maxSources;
+    private final long deleteGraceMs;
+
+    // LRU index of cached variant files (access-ordered) and their total size. Guarded by 'this'.
+    private final LinkedHashMap<Path, Long> lru = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    // Evicted variants, deleted from disk only after deleteGraceMs: a path already handed to a response (sendfile
+    // opens it after the controller returns) must still exist when it is opened. Guarded by 'this'.
+    private final ArrayDeque<EvictedFile> evicted = new ArrayDeque<>();
+
+    // Registered source URLs (.url files), least recently used first; at most maxSources are kept. Guarded by 'this'.
+    private final LinkedHashMap<String, Boolean> sources = new LinkedHashMap<>(256, 0.75f, true);
+
+    // One download per source URL at a time; concurrent requests for the same key wait for it.
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageCacheService(@Value("${images.cache.dir:${java.io.tmpdir}/tarpets-images}") String cacheDir,
+                             @Value("${images.cache.max-bytes:536870912}") long maxBytes,
+                             @Value("${images.cache.max-sources:100000}") int maxSources,
+                             @Value("${images.cache.delete-grace-ms:60000}") long deleteGraceMs,
+                             @Value("${images.fetch.timeout-ms:10000}") long fetchTimeoutMs,
+                             @Value("${images.fetch.max-bytes:15728640}") int maxSourceBytes,
+                             @Value("${images.fetch.max-pixels:25000000}") long maxSourcePixels,
+                             @Value("${images.fetch.allowed-hosts:}") List<String> allowedHosts) throws IOException {
+        this.cacheDir = Paths.get(cacheDir);
+        this.maxBytes = maxBytes;
+        this.maxSources = maxSources;
+        this.deleteGraceMs = deleteGraceMs;
+        this.fetchTimeout = Duration.ofMillis(fetchTimeoutMs);
+        this.maxSourceBytes = maxSourceBytes;
+        this.maxSourcePixels = maxSourcePixels;
+        this.allowedHosts = allowedHosts.stream()
+                .map(host -> host.trim().toLowerCase(Locale.ROOT))
+                .filter(host -> !host.isEmpty())
+                .toList();
+        // Redirects are followed by fetch(), which checks every target against the allow-list
+        this.httpClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(fetchTimeout)
+                .build();
+        Files.createDirectories(this.cacheDir);
+        loadIndex();
+    }
+
+    // Returns the cache key (hex SHA-256) for a source URL and remembers the URL so the key can be
+    // resolved later by the immutable /api/images/{key}/{variant} endpoint.
+    // Throws IllegalArgumentException for URLs that are not http(s) or not on an allowed image host.
+    public String register(String sourceUrl) throws IOException {
+        checkSource(URI.create(sourceUrl.trim()));
+        String key = keyFor(sourceUrl.trim());
+        Path urlFile = cacheDir.resolve(key + URL_SUFFIX);
+        if (!Files.exists(urlFile)) {
+            writeAtomically(urlFile, out -> out.write(sourceUrl.trim().getBytes(StandardCharsets.UTF_8)));
+        }
+        indexSource(key);
+        return key;
+    }
+
+    // Only http(s) URLs on an allowed host, without user info (which could disguise the host).
+    void checkSource(URI uri) {
+        if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())) {
+            throw new IllegalArgumentException("Only http(s) image URLs are supported");
+        }
+        String host = uri.getHost();
+        if (host == null || uri.getRawUserInfo() != null || !isAllowedHost(host.toLowerCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("Image host is not allowed: " + uri.getHost());
+        }
+    }
+
+    private boolean isAllowedHost(String host) {
+        for (String allowed : allowedHosts) {
+            if (allowed.startsWith("*.") ? host.endsWith(allowed.substring(1)) : host.equals(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Returns the cached file for a variant, fetching and resizing the source on a miss.
+    // Returns null when the key was never registered.
+    public Path getVariant(String key, ImageVariant variant) throws IOException {
+        Path file = variantPath(key, variant);
+        if (touch(file)) {
+            return file;
+        }
+
+        Path urlFile = cacheDir.resolve(key + URL_SUFFIX);
+        if (!Files.exists(urlFile)) {
+            return null;
+        }
+
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                existing.join();
+            } catch (CompletionException e) {
+                throw new IOException("Image generation failed for " + key, e.getCause());
+            }
+        } else {
+            try {
+                // Re-check: another request may have finished between the first lookup and putIfAbsent.
+                if (!Files.exists(file)) {
+                    String sourceUrl = Files.readString(urlFile, StandardCharsets.UTF_8);
+                    indexSource(key);
+                    generateVariants(key, fetch(URI.create(sourceUrl)));
+                }
+                mine.complete(null);
+            } catch (IOException | RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+
+        touch(file);
+        return Files.exists(file) ? file : null;
+    }
+
+    // Downloads the original image with size and time limits, following at most MAX_REDIRECTS redirects
+    // that stay on the allowed hosts.
+    private byte[] fetch(URI sourceUri) throws IOException {
+        URI uri = sourceUri;
+        for (int redirects = 0; ; redirects++) {
+            try {
+                checkSource(uri);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Refused image source " + uri + ": " + e.getMessage(), e);
+            }
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(fetchTimeout)
+                    .header("Accept", "image/*")
+                    .GET()
+                    .build();
+            HttpResponse<InputStream> response;
+            try {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while fetching " + uri, e);
+            }
+            try (InputStream body = response.body()) {
+                int status = response.statusCode();
+                if (status == 301 || status == 302 || status == 303 || status == 307 || status == 308) {
+                    String location = response.headers().firstValue("Location")
+                            .orElseThrow(() -> new IOException("Redirect without Location from " + sourceUri));
+                    if (redirects == MAX_REDIRECTS) {
+                        throw new IOException("Too many redirects fetching " + sourceUri);
+                    }
+                    try {
+                        uri = uri.resolve(location);
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException("Invalid redirect from " + uri + ": " + location, e);
+                    }
+                    continue;
+                }
+                if (status != 200) {
+                    throw new IOException("Image source returned HTTP " + status + ": " + uri);
+                }
+                if (response.headers().firstValueAsLong("Content-Length").orElse(0) > maxSourceBytes) {
+                    throw new IOException("Image source exceeds " + maxSourceBytes + " bytes: " + uri);
+                }
+                byte[] bytes = body.readNBytes(maxSourceBytes + 1);
+                if (bytes.length > maxSourceBytes) {
+                    throw new IOException("Image source exceeds " + maxSourceBytes + " bytes: " + uri);
+                }
+                return bytes;
+            }
+        }
+    }
+
+    // Decodes the original once and writes every variant, largest first so each step downscales from a
+    // smaller intermediate image.
+    private void generateVariants(String key, byte[] original) throws IOException {
+        BufferedImage source = decode(key, original);
+
+        ImageVariant[] variants = ImageVariant.values();
+        BufferedImage current = source;
+        for (int i = variants.length - 1; i >= 0; i--) {
+            ImageVariant variant = variants[i];
+            current = resize(current, variant.getMaxSize());
+            BufferedImage image = current;
+            Path file = variantPath(key, variant);
+            writeAtomically(file, out -> writeJpeg(image, out));
+            index(file, Files.size(file));
+        }
+        logger.debug("Generated image variants for {}", key);
+    }
+
+    // Reads the dimensions from the image header and decodes only if they are within maxSourcePixels.
+    private BufferedImage decode(String key, byte[] original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(original))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format for key " + key);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    throw new IOException("Image for key " + key + " is " + width + "x" + height
+                            + ", exceeds " + maxSourcePixels + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Scales the image to fit a maxSize x maxSize box; RGB output (JPEG has no alpha, transparency becomes white).
+    static BufferedImage resize(BufferedImage source, int maxSize) {
+        double scale = Math.min(1.0, Math.min((double) maxSize / source.getWidth(), (double) maxSize / source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static void writeJpeg(BufferedImage image, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // =====================================================================
+    // DISK CACHE INDEX (size-bounded LRU)
+    // =====================================================================
+
+    // Rebuilds the LRU indexes from disk at startup, oldest files first.
+    private void loadIndex() throws IOException {
+        for (Path file : listByAge("*" + VARIANT_SUFFIX)) {
+            index(file, Files.size(file));
+        }
+        for (Path file : listByAge("*" + URL_SUFFIX)) {
+            String name = file.getFileName().toString();
+            indexSource(name.substring(0, name.length() - URL_SUFFIX.length()));
+        }
+    }
+
+    private List<Path> listByAge(String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir, glob)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(ImageCacheService::lastModified));
+        return files;
+    }
+
+    // Marks the file as recently used; false when it is not cached.
+    private synchronized boolean touch(Path file) {
+        return lru.get(file) != null;
+    }
+
+    private synchronized void index(Path file, long size) {
+        Long previous = lru.put(file, size);
+        totalBytes += size - (previous == null ? 0 : previous);
+        evictIfNeeded();
+    }
+
+    // Drops least recently used variants until the cache fits; the newest entry is always kept.
+    // Their files are deleted once the grace period has passed.
+    private void evictIfNeeded() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, Long>> it = lru.entrySet().iterator();
+        while (totalBytes > maxBytes && lru.size() > 1 && it.hasNext()) {
+            Map.Entry<Path, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            evicted.add(new EvictedFile(eldest.getKey(), now + deleteGraceMs));
+        }
+        while (!evicted.isEmpty() && evicted.peek().deleteAt <= now) {
+            Path file = evicted.poll().file;
+            // Regenerated since it was evicted: the file is in use again
+            if (lru.containsKey(file)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Could not evict cached image {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    // Marks a registered source URL as recently used; beyond maxSources the least recently used .url file is
+    // deleted. Its cached variants stay until they are evicted; once they are, the key answers 404 until the
+    // product image is requested again (which registers the URL anew).
+    private synchronized void indexSource(String key) {
+        sources.put(key, Boolean.TRUE);
+        Iterator<String> it = sources.keySet().iterator();
+        while (sources.size() > maxSources && it.hasNext()) {
+            String eldest = it.next();
+            it.remove();
+            try {
+                Files.deleteIfExists(cacheDir.resolve(eldest + URL_SUFFIX));
+            } catch (IOException e) {
+                logger.warn("Could not evict image source {}: {}", eldest, e.getMessage());
+            }
+        }
+    }
+
+    synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    synchronized int getSourceCount() {
+        return sources.size();
+    }
+
+    // =====================================================================
+    // HELPERS
+    // =====================================================================
+
+    Path variantPath(String key, ImageVariant variant) {
+        return cacheDir.resolve(key + "-" + variant.getPathName() + VARIANT_SUFFIX);
+    }
+
+    public static String keyFor(String sourceUrl) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sourceUrl.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Writes to a temp file first so readers never see a half-written image.
+    private void writeAtomically(Path target, FileWriter writer) throws IOException {
+        Path temp = Files.createTempFile(cacheDir, "tmp-", ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                writer.write(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private record EvictedFile(Path file, long deleteAt) {}
+
+    @FunctionalInterface
+    private interface FileWriter {
+        void write(OutputStream out) throws IOException;
+    }
+}
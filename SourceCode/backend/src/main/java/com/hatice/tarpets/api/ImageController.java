@@ -0,0 +1,126 @@
+package com.hatice.tarpets.api;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Image Proxy Controller (REST API).
+// Serves resized, locally cached copies of external product images so grid tiles no longer download
+// full-size remote files. Two steps:
+//   GET /api/products/{id}/image?variant=card  -> short-lived redirect to the immutable URL below
+//   GET /api/images/{key}/{variant}             -> JPEG bytes, cached "forever" by browsers and CDNs
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ImageController {
+
+    // Tomcat request attributes for zero-copy file transfer (sendfile) on the NIO connector.
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ImageCacheService imageCacheService;
+
+    // 1. Resolve a Product Image.
+    // Redirects to the content-addressed variant URL. Cached briefly, because the product's imageUrl may change.
+    @GetMapping("/products/{id}/image")
+    public ResponseEntity<Void> getProductImage(@PathVariable Long id,
+                                                @RequestParam(defaultValue = "card") String variant) throws IOException {
+        ImageVariant imageVariant = ImageVariant.parse(variant);
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + id));
+
+        if (product.getImageUrl() == null || product.getImageUrl().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product has no image: " + id);
+        }
+
+        String key;
+        try {
+            key = imageCacheService.register(product.getImageUrl());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product image URL is not supported: " + id);
+        }
+
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create("/api/images/" + key + "/" + imageVariant.getPathName()))
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .build();
+    }
+
+    // 2. Serve a Cached Image Variant.
+    // The URL never changes meaning (the key is the hash of the source URL), so responses are immutable.
+    @GetMapping("/images/{key}/{variant}")
+    public void getImageVariant(@PathVariable String key, @PathVariable String variant,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!KEY_PATTERN.matcher(key).matches()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown image");
+        }
+        ImageVariant imageVariant = ImageVariant.parse(variant);
+
+        String etag = "\"" + key + "-" + imageVariant.getPathName() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+
+        // Conditional request: the browser already has exactly these bytes.
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        Path file;
+        try {
+            file = imageCacheService.getVariant(key, imageVariant);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Image source unavailable", e);
+        }
+        if (file == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown image");
+        }
+
+        long size = Files.size(file);
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        response.setContentLengthLong(size);
+
+        // Zero-copy: let Tomcat hand the file to the kernel (sendfile) after this method returns.
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+
+        // Fallback (other containers, TLS): channel-to-channel transfer without an intermediate heap buffer.
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
+}
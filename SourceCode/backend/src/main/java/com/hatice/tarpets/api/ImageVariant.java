@@ -0,0 +1,39 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// Resized image variants served by ImageController.
+// Each variant fits the source image into a square bounding box (aspect ratio kept, never upscaled).
+public enum ImageVariant {
+
+    THUMBNAIL("thumbnail", 160),  // Cart rows, search suggestions
+    CARD("card", 400),            // Product grid tiles
+    DETAIL("detail", 1000);       // Product details page
+
+    private final String pathName;
+    private final int maxSize;
+
+    ImageVariant(String pathName, int maxSize) {
+        this.pathName = pathName;
+        this.maxSize = maxSize;
+    }
+
+    public String getPathName() {
+        return pathName;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    // Parses the variant name used in URLs ("thumbnail", "card", "detail").
+    public static ImageVariant parse(String value) {
+        for (ImageVariant variant : values()) {
+            if (variant.pathName.equalsIgnoreCase(value)) {
+                return variant;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown image variant: " + value);
+    }
+}
@@ -0,0 +1,92 @@
+package com.hatice.tarpets.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Data Transfer Object (DTO) for Bulk Import Results.
+// Summarizes a streamed product upload: how many rows were inserted/updated and which rows failed (and why).
+public class ImportReport {
+
+    // Upper bound on the number of row errors kept in the report.
+    // A broken upload with millions of bad rows must not turn the report itself into a heap problem.
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private long totalRows;
+    private long inserted;
+    private long updated;
+    private long failed;
+
+    // Per-row errors (line number + message), capped at MAX_REPORTED_ERRORS
+    private List<RowError> errors = new ArrayList<>();
+
+    // True when more errors occurred than were included in 'errors'
+    private boolean errorsTruncated;
+
+    // Records a failed row. Counts every failure but only keeps the first MAX_REPORTED_ERRORS messages.
+    public void addError(long line, String message) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public void incrementTotalRows() {
+        totalRows++;
+    }
+
+    public void addInserted(long count) {
+        inserted += count;
+    }
+
+    public void addUpdated(long count) {
+        updated += count;
+    }
+
+    // ---------- GETTERS ----------
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    // Inner class describing a single rejected row.
+    public static class RowError {
+
+        private final long line;
+        private final String message;
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.hatice.tarpets.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Database-Backed Cache Invalidation Bus ("cache.invalidation.mode=jdbc").
+// For several instances behind a load balancer: they already share the database, so messages are rows in
+// 'cache_invalidations' and every instance polls for rows written by the others. A remote change becomes
+// visible within one poll interval. Ids are assigned on insert but become visible on commit, so a message can
+// appear below one already read: every poll re-reads a look-back window of ids below the last one seen and
+// skips the messages it already handled. Several receivers (catalog snapshot and index, carts) never expire,
+// so a message must not be missed for longer than it takes to commit.
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.mode", havingValue = "jdbc")
+public class JdbcCacheInvalidationBus implements CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcCacheInvalidationBus.class);
+
+    private final CacheInvalidationRepository repository;
+    private final long retentionMinutes;
+
+    // Message ids below the last one seen that are read again on every poll (messages that commit late)
+    private final long lookbackMessages;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<CacheInvalidation>> handlers = new CopyOnWriteArrayList<>();
+
+    // Highest message id already handled (or skipped as older than this instance); -1 until started
+    private volatile long lastSeenId = -1;
+
+    // Messages handled (or skipped) within the look-back window, so a re-read is not handled twice (guarded by 'this')
+    private final NavigableSet<Long> seenIds = new TreeSet<>();
+
+    public JdbcCacheInvalidationBus(CacheInvalidationRepository repository,
+                                    @Value("${cache.invalidation.retention-minutes:60}") long retentionMinutes,
+                                    @Value("${cache.invalidation.lookback-messages:1000}") long lookbackMessages) {
+        this.repository = repository;
+        this.retentionMinutes = retentionMinutes;
+        this.lookbackMessages = lookbackMessages;
+    }
+
+    // Messages from before startup are irrelevant: this instance's caches start empty. Those within the
+    // look-back window are marked as seen; one committing later is handled.
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        long maxId = repository.findMaxId();
+        for (CacheInvalidation message : repository.findByIdGreaterThanOrderByIdAsc(Math.max(0, maxId - lookbackMessages))) {
+            seenIds.add(message.getId());
+        }
+        lastSeenId = maxId;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(CacheInvalidation message) {
+        repository.save(message);
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> handler) {
+        handlers.add(handler);
+    }
+
+    @Scheduled(fixedDelayString = "${cache.invalidation.poll-ms:1000}")
+    public synchronized void poll() {
+        if (lastSeenId < 0) {
+            return;
+        }
+        try {
+            for (CacheInvalidation message : repository.findByIdGreaterThanOrderByIdAsc(Math.max(0, lastSeenId - lookbackMessages))) {
+                if (seenIds.contains(message.getId())) {
+                    continue;
+                }
+                if (!nodeId.equals(message.getNodeId())) {
+                    handlers.forEach(handler -> handler.accept(message));
+                }
+                seenIds.add(message.getId());
+                lastSeenId = Math.max(lastSeenId, message.getId());
+            }
+            seenIds.headSet(lastSeenId - lookbackMessages, true).clear();
+        } catch (RuntimeException e) {
+            logger.warn("Polling cache invalidations failed, retrying on the next poll: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cache.invalidation.prune-ms:600000}")
+    public void prune() {
+        repository.deleteOlderThan(LocalDateTime.now().minusMinutes(retentionMinutes));
+    }
+}
@@ -0,0 +1,69 @@
+package com.hatice.tarpets.api;
+
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+// JWT Authentication Filter.
+// Runs once per request inside the Spring Security chain, before controller dispatch and body binding.
+// Parses the "Authorization: Bearer <token>" header a single time and stores the user ID (principal)
+// and role (authority "ROLE_<role>") in the SecurityContext. Revoked tokens (logout, role change) are
+// treated like invalid ones; the check is in memory (TokenRevocationService). URL rules in SecurityConfig then reject
+// unauthorized admin calls without ever reaching a controller.
+// NOTE: Not a @Component on purpose, otherwise Spring Boot would also register it as a plain servlet filter.
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationService revocationService;
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, TokenRevocationService revocationService) {
+        this.jwtUtil = jwtUtil;
+        this.revocationService = revocationService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            Claims claims = jwtUtil.parseClaims(header.substring(BEARER_PREFIX.length()));
+            if (claims != null && claims.getSubject() != null) {
+                try {
+                    long userId = Long.parseLong(claims.getSubject());
+                    // Revoked: continue as anonymous, URL rules decide the outcome.
+                    if (!revocationService.isRevoked(claims.getId(), userId, JwtUtil.getIssuedAtMillis(claims))) {
+                        String role = claims.get("role", String.class);
+
+                        List<GrantedAuthority> authorities = role == null
+                                ? List.of()
+                                : List.of(new SimpleGrantedAuthority("ROLE_" + role));
+
+                        SecurityContext context = SecurityContextHolder.createEmptyContext();
+                        context.setAuthentication(new UsernamePasswordAuthenticationToken(userId, null, authorities));
+                        SecurityContextHolder.setContext(context);
+                    }
+                } catch (NumberFormatException e) {
+                    // Malformed subject: continue as anonymous, URL rules decide the outcome.
+                    logger.debug("JWT subject is not a user id: " + claims.getSubject());
+                }
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
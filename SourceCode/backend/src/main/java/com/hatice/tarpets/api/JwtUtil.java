@@ -10,6 +10,7 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.UUID;
 
 
  // Utility class for handling JSON Web Tokens (JWT).
@@ -20,26 +21,40 @@ public class JwtUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
+    // Issue time in milliseconds: "iat" only has second precision, too coarse to tell a token issued right after
+    // a revocation (TokenRevocationService) from one issued right before it
+    private static final String ISSUED_AT_MS_CLAIM = "iat_ms";
+
     private final SecretKey key;
     private final long expirationMs;
+    // Immutable and thread-safe: built once instead of on every parse
+    private final JwtParser parser;
 
     // Constructor Injection for security properties
     public JwtUtil(@Value("${jwt.secret}") String secret, @Value("${jwt.expirationMs}") long expirationMs) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.expirationMs = expirationMs;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+    }
+
+    // Lifetime of access tokens; kept short, clients renew them with a refresh token (RefreshTokenService).
+    public long getExpirationMs() {
+        return expirationMs;
     }
 
 
     // Generates a signed JWT for a specific user.
-    // Includes User ID as subject and Role as a custom claim.
+    // Includes User ID as subject, Role as a custom claim and a unique token id (jti) for revocation.
     public String generateToken(Long userId, String role) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + expirationMs);
 
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userId.toString())
                 .claim("role", role)
                 .setIssuedAt(now)
+                .claim(ISSUED_AT_MS_CLAIM, now.getTime())
                 .setExpiration(expiry)
                 .signWith(key)
                 .compact();
@@ -50,7 +65,7 @@ public class JwtUtil {
      // Returns true only if the token signature is valid and not expired.
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+            parser.parseClaimsJws(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             logger.debug("Invalid JWT token: {}", e.getMessage());
@@ -58,16 +73,39 @@ public class JwtUtil {
         }
     }
 
+    // Parses and verifies the token a single time and returns its claims.
+    // Returns null when the signature is invalid or the token has expired.
+    // Used by JwtAuthenticationFilter so each request pays for exactly one parse.
+    public Claims parseClaims(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Invalid JWT token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Issue time (epoch ms) of a parsed token, or null if it has none. Tokens without the millisecond claim count
+    // as issued at the end of their "iat" second.
+    public static Long getIssuedAtMillis(Claims claims) {
+        Number millis = claims.get(ISSUED_AT_MS_CLAIM, Number.class);
+        if (millis != null) {
+            return millis.longValue();
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt == null ? null : issuedAt.getTime() / 1000 * 1000 + 999;
+    }
+
     // Extracts the User ID (Subject) from the token claims.
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
         return Long.parseLong(claims.getSubject());
     }
 
 
     // Extracts the User Role from the token claims.
     public String getRoleFromToken(String token) {
-        Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
         return claims.get("role", String.class);
     }
 }
\ No newline at end of file
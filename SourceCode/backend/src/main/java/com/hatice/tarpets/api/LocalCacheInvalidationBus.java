@@ -0,0 +1,52 @@
+package com.hatice.tarpets.api;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// In-JVM Cache Invalidation Bus ("cache.invalidation.mode=local", the default).
+// Every application context in the JVM registers itself in a shared static list, and messages are delivered
+// synchronously to the others. With one instance per JVM this is a no-op (the local Hibernate cache is already
+// up to date); with two contexts in one JVM it behaves like a two-node cluster, which is how it is tested.
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.mode", havingValue = "local", matchIfMissing = true)
+public class LocalCacheInvalidationBus implements CacheInvalidationBus {
+
+    private static final List<LocalCacheInvalidationBus> NODES = new CopyOnWriteArrayList<>();
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<CacheInvalidation>> handlers = new CopyOnWriteArrayList<>();
+
+    public LocalCacheInvalidationBus() {
+        NODES.add(this);
+    }
+
+    @PreDestroy
+    public void leave() {
+        NODES.remove(this);
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(CacheInvalidation message) {
+        for (LocalCacheInvalidationBus node : NODES) {
+            if (node != this) {
+                node.handlers.forEach(handler -> handler.accept(message));
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> handler) {
+        handlers.add(handler);
+    }
+}
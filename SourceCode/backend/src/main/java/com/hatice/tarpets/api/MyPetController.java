@@ -0,0 +1,58 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// My Pets Controller (REST API).
+// The signed-in user's pets (user taken from the Bearer token, never from a request parameter).
+// Bulk create/update take a list and are applied all-or-nothing (PetService).
+@RestController
+@RequestMapping("/api/me/pets")
+@CrossOrigin(origins = "http://localhost:3000")
+public class MyPetController {
+
+    @Autowired
+    private PetService petService;
+
+    // 1. List My Pets (paged, oldest first)
+    @GetMapping
+    public List<Pet> getPets(@AuthenticationPrincipal Long userId,
+                             @RequestParam(defaultValue = "0") int page,
+                             @RequestParam(defaultValue = "20") int size) {
+        return petService.getPets(userId, page, size);
+    }
+
+    // 2. Pets per Type (dashboard statistics)
+    @GetMapping("/stats")
+    public PetStats getStats(@AuthenticationPrincipal Long userId) {
+        return new PetStats(petService.countByType(userId));
+    }
+
+    // 3. Get One Pet
+    @GetMapping("/{id}")
+    public Pet getPet(@AuthenticationPrincipal Long userId, @PathVariable Long id) {
+        return petService.getPet(userId, id);
+    }
+
+    // 4. Add Pets, e.g. [{"name": "Tom", "type": "Cat"}, {"name": "Rex", "type": "Dog"}]
+    @PostMapping
+    public List<Pet> createPets(@AuthenticationPrincipal Long userId, @RequestBody List<Pet> pets) {
+        return petService.createPets(userId, pets);
+    }
+
+    // 5. Update Pets: each with id and the version last read (409 with the current pets if one changed meanwhile)
+    @PutMapping
+    public List<Pet> updatePets(@AuthenticationPrincipal Long userId, @RequestBody List<Pet> pets) {
+        return petService.updatePets(userId, pets);
+    }
+
+    // 6. Delete Pet
+    @DeleteMapping("/{id}")
+    public String deletePet(@AuthenticationPrincipal Long userId, @PathVariable Long id) {
+        petService.deletePet(userId, id);
+        return "Deleted: " + id;
+    }
+}
@@ -10,8 +10,9 @@ import java.util.List;
 // Order Entity Class.
 // Represents order records in the database.
 // Explicitly named "orders" because "ORDER" is a reserved keyword in SQL.
+// created_at is indexed for the date range scans of OrderAnalyticsService.
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_created_at", columnList = "created_at"))
 public class Order {
 
     @Id
@@ -44,6 +45,11 @@ public class Order {
     @JsonIgnoreProperties({"order"}) // Infinite loop protection
     private List<OrderItem> items = new ArrayList<>();
 
+    // Optimistic locking: concurrent modifications of the same order fail instead of overwriting each other
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version;
+
     // ---- Constructors ----
     public Order() {}
 
@@ -83,4 +89,8 @@ public class Order {
     public void setItems(List<OrderItem> items) {
         this.items = items;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
\ No newline at end of file
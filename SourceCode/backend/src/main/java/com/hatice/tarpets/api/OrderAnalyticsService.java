@@ -0,0 +1,487 @@
+package com.hatice.tarpets.api;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+// Sales Analytics for the Admin Dashboard (GET /api/admin/analytics).
+// Order lines of the requested days are read through a fetch-size limited cursor (like AdminExportService) into
+// columnar chunks: primitive arrays per column, with category, subcategory and the customer's pet types as
+// dictionary codes. Each full chunk is aggregated on a ForkJoinPool (recursive split, partial results merged)
+// while the cursor keeps reading the next one; no Order/OrderItem entities are built.
+// Results are kept per day. Days that are over ('analytics.closed-after-minutes' past midnight, so orders still
+// being committed are counted) cannot get new orders and are cached, so a report only scans today and the days
+// it has not seen before. Cached days keep the product categories and pet ownership they were computed with.
+@Service
+public class OrderAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderAnalyticsService.class);
+
+    // Order lines per chunk read from the cursor
+    static final int CHUNK_ROWS = 8192;
+
+    // Chunks are split down to this many rows per fork-join task
+    static final int LEAF_ROWS = 1024;
+
+    // Lines without a category (product deleted) and customers without pets
+    static final String UNKNOWN_CATEGORY = "unknown";
+    static final String NO_PET = "none";
+
+    private static final String LINES_SQL =
+            "SELECT o.id AS order_id, o.user_id, o.created_at, i.quantity, i.price, p.category, p.subcategory "
+                    + "FROM orders o JOIN order_items i ON i.order_id = o.id "
+                    + "LEFT JOIN products p ON p.id = i.product_id "
+                    + "WHERE o.created_at >= ? AND o.created_at < ? "
+                    + "ORDER BY o.id, i.id";
+
+    private static final String PETS_SQL = "SELECT user_id, type FROM pets WHERE user_id IS NOT NULL";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ForkJoinPool pool;
+    private final int closedAfterMinutes;
+    private final int maxRangeDays;
+
+    // Closed days (oldest dropped first beyond maxRangeDays entries)
+    private final NavigableMap<LocalDate, DayTotals> closedDays = new ConcurrentSkipListMap<>();
+
+    // One scan at a time: concurrent reports for the same days would read them twice
+    private final Object scanLock = new Object();
+
+    public OrderAnalyticsService(DataSource dataSource,
+                                 @Value("${analytics.parallelism:0}") int parallelism,
+                                 @Value("${analytics.closed-after-minutes:10}") int closedAfterMinutes,
+                                 @Value("${analytics.max-range-days:1100}") int maxRangeDays) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(AdminExportService.FETCH_SIZE);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("analytics-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+        this.closedAfterMinutes = closedAfterMinutes;
+        this.maxRangeDays = maxRangeDays;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // =====================================================================
+    // REPORT
+    // =====================================================================
+
+    // Totals for the days from..to (inclusive).
+    public AnalyticsReport report(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must not be after 'to'");
+        }
+        long dayCount = ChronoUnit.DAYS.between(from, to) + 1;
+        if (dayCount > maxRangeDays) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxRangeDays + " days per report");
+        }
+
+        Map<LocalDate, DayTotals> days = new TreeMap<>();
+        int scanned = 0;
+        synchronized (scanLock) {
+            LocalDate firstOpenDay = LocalDateTime.now().minusMinutes(closedAfterMinutes).toLocalDate();
+            // Consecutive days missing from the cache are read with one scan
+            LocalDate rangeStart = null;
+            for (LocalDate day = from; !day.isAfter(to.plusDays(1)); day = day.plusDays(1)) {
+                DayTotals cached = day.isAfter(to) ? null : closedDays.get(day);
+                boolean missing = !day.isAfter(to) && cached == null;
+                if (missing && rangeStart == null) {
+                    rangeStart = day;
+                } else if (!missing && rangeStart != null) {
+                    Map<LocalDate, DayTotals> read = scan(rangeStart, day);
+                    for (Map.Entry<LocalDate, DayTotals> entry : read.entrySet()) {
+                        if (entry.getKey().isBefore(firstOpenDay)) {
+                            closedDays.put(entry.getKey(), entry.getValue());
+                        }
+                    }
+                    days.putAll(read);
+                    scanned += read.size();
+                    rangeStart = null;
+                }
+                if (cached != null) {
+                    days.put(day, cached);
+                }
+            }
+            while (closedDays.size() > maxRangeDays) {
+                closedDays.pollFirstEntry();
+            }
+        }
+        return toReport(from, to, days, (int) dayCount - scanned, scanned);
+    }
+
+    private static AnalyticsReport toReport(LocalDate from, LocalDate to, Map<LocalDate, DayTotals> days,
+                                            int cachedDays, int scannedDays) {
+        double revenue = 0;
+        long orders = 0;
+        long units = 0;
+        Map<LocalDate, Double> revenueByDay = new LinkedHashMap<>();
+        Map<String, Double> byCategory = new HashMap<>();
+        Map<String, Double> bySubcategory = new HashMap<>();
+        Map<String, Double> byPetType = new HashMap<>();
+        for (Map.Entry<LocalDate, DayTotals> entry : days.entrySet()) {
+            DayTotals day = entry.getValue();
+            revenue += day.revenue;
+            orders += day.orders;
+            units += day.units;
+            revenueByDay.put(entry.getKey(), money(day.revenue));
+            day.byCategory.forEach((name, value) -> byCategory.merge(name, value, Double::sum));
+            day.bySubcategory.forEach((name, value) -> bySubcategory.merge(name, value, Double::sum));
+            day.byPetType.forEach((name, value) -> byPetType.merge(name, value, Double::sum));
+        }
+
+        AnalyticsReport report = new AnalyticsReport();
+        report.setFrom(from);
+        report.setTo(to);
+        report.setRevenue(money(revenue));
+        report.setOrders(orders);
+        report.setUnits(units);
+        report.setAverageBasketUnits(orders == 0 ? 0.0 : Math.round(units * 100.0 / orders) / 100.0);
+        report.setAverageBasketValue(orders == 0 ? 0.0 : money(revenue / orders));
+        report.setRevenueByDay(revenueByDay);
+        report.setRevenueByCategory(ranked(byCategory));
+        report.setRevenueBySubcategory(ranked(bySubcategory));
+        report.setSpendByPetType(ranked(byPetType));
+        report.setCachedDays(cachedDays);
+        report.setScannedDays(scannedDays);
+        return report;
+    }
+
+    // Highest first, rounded to cents
+    private static Map<String, Double> ranked(Map<String, Double> totals) {
+        Map<String, Double> ranked = new LinkedHashMap<>();
+        totals.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> ranked.put(entry.getKey(), money(entry.getValue())));
+        return ranked;
+    }
+
+    private static double money(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    // =====================================================================
+    // SCAN (cursor -> columnar chunks -> fork-join aggregation)
+    // =====================================================================
+
+    // Per-day totals of the days start (inclusive) .. end (exclusive); days without orders included.
+    Map<LocalDate, DayTotals> scan(LocalDate start, LocalDate end) {
+        long startedAt = System.currentTimeMillis();
+        Scan scan = new Scan(start, loadPetGroups());
+        streamingJdbcTemplate.query(LINES_SQL, scan::read,
+                Timestamp.valueOf(start.atStartOfDay()), Timestamp.valueOf(end.atStartOfDay()));
+        Partial total = scan.finish();
+
+        Map<LocalDate, DayTotals> days = new TreeMap<>();
+        for (LocalDate day = start; day.isBefore(end); day = day.plusDays(1)) {
+            DayPartial partial = total.days.get((int) ChronoUnit.DAYS.between(start, day));
+            days.put(day, partial == null ? DayTotals.EMPTY : scan.toTotals(partial));
+        }
+        logger.debug("Analytics scan {}..{}: {} order lines in {} ms", start, end.minusDays(1), scan.lines,
+                System.currentTimeMillis() - startedAt);
+        return days;
+    }
+
+    // Customers' pet types: user id -> group of distinct types (one spend share per type)
+    private PetGroups loadPetGroups() {
+        Map<Long, TreeSet<String>> typesByUser = new HashMap<>();
+        streamingJdbcTemplate.query(PETS_SQL, rs -> {
+            String type = rs.getString("type");
+            typesByUser.computeIfAbsent(rs.getLong("user_id"), id -> new TreeSet<>())
+                    .add(type == null || type.isBlank() ? NO_PET : type);
+        });
+        PetGroups groups = new PetGroups();
+        typesByUser.forEach((userId, types) -> groups.byUser.put(userId, groups.code(types)));
+        return groups;
+    }
+
+    // Reading state of one scan; used by the cursor's thread only (tasks get finished chunks).
+    private final class Scan {
+
+        private final LocalDate start;
+        private final PetGroups petGroups;
+        private final Dictionary categories = new Dictionary();
+        private final Dictionary subcategories = new Dictionary();
+        private final Deque<ForkJoinTask<Partial>> running = new ArrayDeque<>();
+        private final int maxRunning = 2 * pool.getParallelism();
+        private Partial total = new Partial();
+        private Chunk chunk = new Chunk();
+        private long previousOrderId = -1;
+        private long lines;
+
+        Scan(LocalDate start, PetGroups petGroups) {
+            this.start = start;
+            this.petGroups = petGroups;
+        }
+
+        void read(ResultSet rs) throws SQLException {
+            long orderId = rs.getLong("order_id");
+            long userId = rs.getLong("user_id");
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            int quantity = rs.getInt("quantity");
+            double price = rs.getDouble("price");
+
+            int row = chunk.size++;
+            chunk.day[row] = (int) ChronoUnit.DAYS.between(start, createdAt.toLocalDateTime().toLocalDate());
+            chunk.category[row] = categories.code(rs.getString("category"));
+            chunk.subcategory[row] = subcategories.code(rs.getString("subcategory"));
+            chunk.petGroup[row] = petGroups.byUser.getOrDefault(userId, 0);
+            chunk.quantity[row] = quantity;
+            chunk.amount[row] = quantity * price;
+            chunk.firstLine[row] = orderId != previousOrderId; // Lines arrive ordered by order
+            previousOrderId = orderId;
+            lines++;
+
+            if (chunk.size == CHUNK_ROWS) {
+                submit();
+            }
+        }
+
+        private void submit() {
+            // Bounded: at most maxRunning chunks in memory, the cursor waits for the oldest otherwise
+            if (running.size() >= maxRunning) {
+                total = total.merge(running.removeFirst().join());
+            }
+            running.addLast(pool.submit(new ChunkTask(chunk, 0, chunk.size)));
+            chunk = new Chunk();
+        }
+
+        Partial finish() {
+            if (chunk.size > 0) {
+                submit();
+            }
+            while (!running.isEmpty()) {
+                total = total.merge(running.removeFirst().join());
+            }
+            return total;
+        }
+
+        DayTotals toTotals(DayPartial partial) {
+            DayTotals totals = new DayTotals(partial.revenue, partial.orders, partial.units);
+            for (int code = 0; code < partial.byCategory.length; code++) {
+                if (partial.byCategory[code] != 0) {
+                    totals.byCategory.merge(categories.name(code), partial.byCategory[code], Double::sum);
+                }
+            }
+            for (int code = 0; code < partial.bySubcategory.length; code++) {
+                if (partial.bySubcategory[code] != 0) {
+                    totals.bySubcategory.merge(subcategories.name(code), partial.bySubcategory[code], Double::sum);
+                }
+            }
+            for (int group = 0; group < partial.byPetGroup.length; group++) {
+                if (partial.byPetGroup[group] != 0) {
+                    String[] types = petGroups.types.get(group);
+                    for (String type : types) {
+                        totals.byPetType.merge(type, partial.byPetGroup[group] / types.length, Double::sum);
+                    }
+                }
+            }
+            return totals;
+        }
+    }
+
+    // Aggregates rows from..to of a chunk, splitting the range in halves down to LEAF_ROWS.
+    private static final class ChunkTask extends RecursiveTask<Partial> {
+
+        private final Chunk chunk;
+        private final int from;
+        private final int to;
+
+        ChunkTask(Chunk chunk, int from, int to) {
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= LEAF_ROWS) {
+                return aggregate();
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(chunk, from, middle);
+            left.fork();
+            Partial right = new ChunkTask(chunk, middle, to).compute();
+            return left.join().merge(right);
+        }
+
+        private Partial aggregate() {
+            Partial partial = new Partial();
+            DayPartial day = null;
+            int dayIndex = Integer.MIN_VALUE;
+            for (int row = from; row < to; row++) {
+                if (chunk.day[row] != dayIndex) {
+                    dayIndex = chunk.day[row];
+                    day = partial.days.computeIfAbsent(dayIndex, index -> new DayPartial());
+                }
+                double amount = chunk.amount[row];
+                day.revenue += amount;
+                day.units += chunk.quantity[row];
+                if (chunk.firstLine[row]) {
+                    day.orders++;
+                }
+                day.byCategory = add(day.byCategory, chunk.category[row], amount);
+                day.bySubcategory = add(day.bySubcategory, chunk.subcategory[row], amount);
+                day.byPetGroup = add(day.byPetGroup, chunk.petGroup[row], amount);
+            }
+            return partial;
+        }
+    }
+
+    // Adds to array[code], growing the array when the code is new to it
+    private static double[] add(double[] array, int code, double value) {
+        if (code >= array.length) {
+            array = Arrays.copyOf(array, Math.max(code + 1, array.length * 2));
+        }
+        array[code] += value;
+        return array;
+    }
+
+    private static double[] addAll(double[] target, double[] source) {
+        if (source.length > target.length) {
+            target = Arrays.copyOf(target, source.length);
+        }
+        for (int i = 0; i < source.length; i++) {
+            target[i] += source[i];
+        }
+        return target;
+    }
+
+    // ---- Columnar chunk, partial results and dictionaries ----
+
+    // Order lines, one array per column
+    private static final class Chunk {
+        final int[] day = new int[CHUNK_ROWS];          // Days since the scan's first day
+        final int[] category = new int[CHUNK_ROWS];     // Dictionary codes
+        final int[] subcategory = new int[CHUNK_ROWS];
+        final int[] petGroup = new int[CHUNK_ROWS];     // Customer's pet types (PetGroups)
+        final int[] quantity = new int[CHUNK_ROWS];
+        final double[] amount = new double[CHUNK_ROWS]; // quantity * unit price
+        final boolean[] firstLine = new boolean[CHUNK_ROWS];
+        int size;
+    }
+
+    // Totals of a part of the scan, by day index
+    private static final class Partial {
+
+        final Map<Integer, DayPartial> days = new HashMap<>();
+
+        Partial merge(Partial other) {
+            other.days.forEach((index, day) -> days.merge(index, day, DayPartial::merge));
+            return this;
+        }
+    }
+
+    private static final class DayPartial {
+        double revenue;
+        long orders;
+        long units;
+        double[] byCategory = new double[8];
+        double[] bySubcategory = new double[16];
+        double[] byPetGroup = new double[4];
+
+        DayPartial merge(DayPartial other) {
+            revenue += other.revenue;
+            orders += other.orders;
+            units += other.units;
+            byCategory = addAll(byCategory, other.byCategory);
+            bySubcategory = addAll(bySubcategory, other.bySubcategory);
+            byPetGroup = addAll(byPetGroup, other.byPetGroup);
+            return this;
+        }
+    }
+
+    // String -> code; code 0 is UNKNOWN_CATEGORY (null)
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> names = new ArrayList<>(List.of(UNKNOWN_CATEGORY));
+
+        int code(String name) {
+            if (name == null) {
+                return 0;
+            }
+            return codes.computeIfAbsent(name, key -> {
+                names.add(key);
+                return names.size() - 1;
+            });
+        }
+
+        String name(int code) {
+            return names.get(code);
+        }
+    }
+
+    // Distinct sets of pet types; group 0 is customers without pets
+    private static final class PetGroups {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String[]> types = new ArrayList<>();
+        private final Map<Long, Integer> byUser = new HashMap<>();
+
+        PetGroups() {
+            types.add(new String[] {NO_PET});
+        }
+
+        int code(TreeSet<String> petTypes) {
+            return codes.computeIfAbsent(String.join("\u0000", petTypes), key -> {
+                types.add(petTypes.toArray(new String[0]));
+                return types.size() - 1;
+            });
+        }
+    }
+
+    // Totals of one day (immutable once built; cached for closed days)
+    static final class DayTotals {
+
+        static final DayTotals EMPTY = new DayTotals(0, 0, 0);
+
+        final double revenue;
+        final long orders;
+        final long units;
+        final Map<String, Double> byCategory = new HashMap<>();
+        final Map<String, Double> bySubcategory = new HashMap<>();
+        final Map<String, Double> byPetType = new HashMap<>();
+
+        DayTotals(double revenue, long orders, long units) {
+            this.revenue = revenue;
+            this.orders = orders;
+            this.units = units;
+        }
+    }
+}
@@ -4,11 +4,13 @@ import com.stripe.Stripe;
 import com.stripe.model.checkout.Session;
 import com.stripe.param.checkout.SessionCreateParams;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
-import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,10 +28,13 @@ public class OrderController {
     private ProductRepository productRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private AdminExportService adminExportService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private OrderService orderService;
+
+    @Autowired
+    private OrderAnalyticsService orderAnalyticsService;
 
     private static final String STRIPE_API_KEY = "sk_test_51SeFsQADFScXHxXE2kS8uyL1lyRkyntIfLinZMEsZsq262ye3FCuiz9OwENLcJJPyQdQeiyjgTXdvkEBLbZnCMSr00TYaNHMua";
 
@@ -77,52 +82,45 @@ public class OrderController {
     // 2. Retrieve Orders for a Specific User
     @GetMapping("/orders/user/{userId}")
     public List<Order> getUserOrders(@PathVariable Long userId) {
-        return orderRepository.findByUserId(userId);
+        return orderService.history(userId);
     }
 
     // 3. Retrieve All Orders (Admin Dashboard)
+    // Security check (ADMIN role only) is done by SecurityConfig before dispatch.
     @GetMapping("/orders")
-    public List<Order> getAllOrders(@RequestHeader(value = "Authorization", required = false) String auth) {
-        String token = null;
-        if (auth != null && auth.startsWith("Bearer ")) token = auth.substring(7);
-
-        // Security check: Only allow ADMIN role
-        if (token == null || !jwtUtil.validateToken(token) || !"ADMIN".equals(jwtUtil.getRoleFromToken(token))) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied");
-        }
+    public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
 
+    // 3b. Export All Orders as a Stream (Admin Dashboard).
+    // Alternative to getAllOrders for large histories: rows are streamed from a database cursor
+    // straight to the response instead of building the full List<Order> entity graph in memory.
+    @GetMapping("/admin/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        StreamingResponseBody body = output -> adminExportService.exportOrders(exportFormat, output);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    // 3c. Sales Analytics (Admin Dashboard).
+    // Revenue per day/category/subcategory, average basket and spend per pet type for the days from..to
+    // (ISO dates, inclusive; default: the last 30 days). Aggregated from order lines by OrderAnalyticsService.
+    @GetMapping("/admin/analytics")
+    public AnalyticsReport getAnalytics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate last = to != null ? to : LocalDate.now();
+        return orderAnalyticsService.report(from != null ? from : last.minusDays(29), last);
+    }
+
     // 4. Save Order to Database (After successful payment)
     @PostMapping("/orders")
     public boolean createOrder(@Valid @RequestBody CreateOrderRequest request) throws Exception{
-
-        request.setUserId(request.getUserId());
-        Order order = new Order();
-
-        // Retrieve User entity from DB
-        order.setUser(userRepository.findById(request.getUserId()).orElse(null));
-        order.setTotalPrice(request.getTotalPrice());
-        order.setCreatedAt(LocalDateTime.now());
-
-        // Map request items to OrderItem entities
-        if (request.getItems() != null) {
-            for (CreateOrderRequest.Item itemReq : request.getItems()) {
-                OrderItem item = new OrderItem();
-                item.setPrice(itemReq.getPrice());
-                item.setQuantity(itemReq.getQuantity());
-                item.setOrder(order);
-
-                // Set Product reference (Proxy object)
-                Product p = new Product();
-                p.setId(itemReq.getProductId());
-                item.setProduct(p);
-
-                order.getItems().add(item);
-            }
-        }
-
-        orderRepository.save(order);
+        orderService.placeOrder(request);
         return true;
     }
 }
\ No newline at end of file
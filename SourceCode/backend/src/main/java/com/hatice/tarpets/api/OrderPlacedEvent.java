@@ -0,0 +1,66 @@
+package com.hatice.tarpets.api;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Application Event: an order was saved (published by OrderController after the insert is committed).
+// Carries only ids and quantities so listeners (rankings, ...) never touch lazy entity state.
+public class OrderPlacedEvent {
+
+    private final Long orderId;
+    private final Long userId;
+    private final LocalDateTime createdAt;
+    private final List<Line> lines;
+
+    public OrderPlacedEvent(Long orderId, Long userId, LocalDateTime createdAt, List<Line> lines) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.createdAt = createdAt;
+        this.lines = lines;
+    }
+
+    // Builds the event from a saved order.
+    public static OrderPlacedEvent of(Order order) {
+        List<Line> lines = order.getItems().stream()
+                .filter(item -> item.getProduct() != null && item.getProduct().getId() != null)
+                .map(item -> new Line(item.getProduct().getId(), item.getQuantity() == null ? 1 : item.getQuantity()))
+                .toList();
+        Long userId = order.getUser() == null ? null : order.getUser().getId();
+        return new OrderPlacedEvent(order.getId(), userId, order.getCreatedAt(), lines);
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    // One order line: product and quantity.
+    public static class Line {
+        private final Long productId;
+        private final int quantity;
+
+        public Line(Long productId, int quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+}
@@ -1,17 +1,26 @@
 package com.hatice.tarpets.api;
 
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-    // Standard Spring Data JPA query method.
-    // Automatically generates SQL based on the method name to find orders by User ID.
-    // Matches the method call used in the OrderController.
-    List<Order> findByUserId(Long userId);
+    // Finds the orders of a User ID (cached as OrderService.history, which also loads the user's pets).
+    // The user is fetched with the orders (items are eager); fetching the pets here would repeat them once per order.
+    @Query("select o from Order o join fetch o.user u where u.id = :userId")
+    List<Order> findByUserId(@Param("userId") Long userId);
 
     // Advanced query method for alternative use cases.
     // Retrieves orders for a specific user, automatically sorted by creation date (Newest first).
     // Useful for showing "Recent Orders" in the UI.
     List<Order> findAllByUserIdOrderByCreatedAtDesc(Long userId);
-}
\ No newline at end of file
+
+    // A new (or changed) order evicts its user's cached history, on every instance.
+    @Override
+    @CacheEvict(cacheNames = TieredCacheConfig.ORDERS_BY_USER, key = "#p0.user.id", condition = "#p0.user != null")
+    <S extends Order> S save(S order);
+}
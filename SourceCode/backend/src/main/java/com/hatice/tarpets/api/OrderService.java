@@ -0,0 +1,85 @@
+package com.hatice.tarpets.api;
+
+import org.hibernate.Hibernate;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Order Placement Service.
+// Shared by the direct order endpoint (OrderController) and cart checkout (CartService).
+// Also serves the cached order history of a user.
+@Service
+public class OrderService {
+
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate historyTemplate;
+
+    public OrderService(OrderRepository orderRepository, UserRepository userRepository,
+                        ProductRepository productRepository, ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        // A persistence context of its own (not the request's), closed after the read: the orders come back detached
+        this.historyTemplate = new TransactionTemplate(transactionManager);
+        historyTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        historyTemplate.setReadOnly(true);
+    }
+
+    // Orders of a user with their items, the user and the user's pets (loaded here, so the orders serialize without
+    // a session); cached per user (see TieredCacheConfig). The copies are detached, so the password hash is dropped
+    // from them without touching the row.
+    @Cacheable(cacheNames = TieredCacheConfig.ORDERS_BY_USER, key = "#p0", sync = true)
+    public List<Order> history(Long userId) {
+        List<Order> orders = historyTemplate.execute(status -> {
+            List<Order> found = orderRepository.findByUserId(userId);
+            if (!found.isEmpty()) {
+                Hibernate.initialize(found.get(0).getUser().getPets());
+            }
+            return found;
+        });
+        orders.forEach(order -> order.getUser().setPassword(null));
+        return orders;
+    }
+
+    // Saves the order with its line items and announces it.
+    public Order placeOrder(CreateOrderRequest request) {
+        Order order = new Order();
+
+        // Retrieve User entity from DB
+        order.setUser(userRepository.findById(request.getUserId()).orElse(null));
+        order.setTotalPrice(request.getTotalPrice());
+        order.setCreatedAt(LocalDateTime.now());
+
+        // Map request items to OrderItem entities
+        if (request.getItems() != null) {
+            for (CreateOrderRequest.Item itemReq : request.getItems()) {
+                OrderItem item = new OrderItem();
+                item.setPrice(itemReq.getPrice());
+                item.setQuantity(itemReq.getQuantity());
+                item.setOrder(order);
+
+                // Set Product reference (Proxy object; a detached new Product() would carry no @Version value)
+                item.setProduct(productRepository.getReferenceById(itemReq.getProductId()));
+
+                order.getItems().add(item);
+            }
+        }
+
+        Order saved = orderRepository.save(order);
+
+        // Notify in-memory views (best sellers, trending) without them re-reading order_items
+        eventPublisher.publishEvent(OrderPlacedEvent.of(saved));
+        return saved;
+    }
+}
@@ -24,6 +24,11 @@ public class Pet {
     @JsonIgnore
     private User user;
 
+    // Optimistic locking: an update with an outdated version is rejected with 409 (see PetController)
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version;
+
     public Pet() {}
 
     public Pet(String name, String type, User user) {
@@ -61,4 +66,11 @@ public class Pet {
     public void setUser(User user) {
         this.user = user;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
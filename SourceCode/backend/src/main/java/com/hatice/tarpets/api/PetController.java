@@ -1,6 +1,7 @@
 package com.hatice.tarpets.api;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
@@ -25,15 +26,23 @@ public class PetController {
         return petRepository.save(pet);
     }
 
+    // Optimistic locking: a request carrying an outdated 'version' gets 409 with the current pet.
     @PutMapping("/{id}")
     public Pet updatePet(@PathVariable Long id, @RequestBody Pet updatedPet) {
-        return petRepository.findById(id)
-                .map(pet -> {
-                    pet.setName(updatedPet.getName());
-                    pet.setType(updatedPet.getType());
-                    return petRepository.save(pet);
-                })
-                .orElseThrow(() -> new RuntimeException("Pet not found: " + id));
+        try {
+            return petRepository.findById(id)
+                    .map(pet -> {
+                        if (updatedPet.getVersion() != null && !updatedPet.getVersion().equals(pet.getVersion())) {
+                            throw new ConcurrentEditException("Pet was modified by someone else", pet);
+                        }
+                        pet.setName(updatedPet.getName());
+                        pet.setType(updatedPet.getType());
+                        return petRepository.save(pet);
+                    })
+                    .orElseThrow(() -> new RuntimeException("Pet not found: " + id));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new ConcurrentEditException("Pet was modified by someone else", petRepository.findById(id).orElse(null));
+        }
     }
 
     @DeleteMapping("/{id}")
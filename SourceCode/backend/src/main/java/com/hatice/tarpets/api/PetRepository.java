@@ -1,6 +1,40 @@
 package com.hatice.tarpets.api;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Data Access Object (DAO) for Pet entities.
+// The owner-scoped finders always filter by user_id, so one user can never read or change another user's pets.
 public interface PetRepository extends JpaRepository<Pet, Long> {
-}
\ No newline at end of file
+
+    List<Pet> findByUserId(Long userId, Pageable pageable);
+
+    Optional<Pet> findByIdAndUserId(Long id, Long userId);
+
+    List<Pet> findByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+    // Pets per type, counted in the database (one row per distinct trimmed type).
+    @Query("select trim(p.type) as type, count(p) as total from Pet p where p.user.id = :userId group by trim(p.type)")
+    List<PetTypeCount> countByTypeForUser(@Param("userId") Long userId);
+
+    // Cached order histories include the owner's pets (see TieredCacheConfig); the owner of a pet is not always
+    // loaded, so writes drop the whole region.
+    @Override
+    @CacheEvict(cacheNames = TieredCacheConfig.ORDERS_BY_USER, allEntries = true)
+    <S extends Pet> S save(S pet);
+
+    @Override
+    @CacheEvict(cacheNames = TieredCacheConfig.ORDERS_BY_USER, allEntries = true)
+    void delete(Pet pet);
+
+    @Override
+    @CacheEvict(cacheNames = TieredCacheConfig.ORDERS_BY_USER, allEntries = true)
+    void deleteById(Long id);
+}
@@ -0,0 +1,202 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Pet Service: the signed-in user's pets (/api/me/pets).
+// Every query is scoped by the owner's id. Bulk create/update is one JDBC batch in one transaction: all
+// pets are written or none. Updates carry the version the client read (optimistic locking, as in
+// ProductController); one outdated pet rolls back the whole batch with 409 and the current state.
+@Service
+public class PetService {
+
+    // Largest number of pets in one bulk request
+    static final int MAX_BATCH = 100;
+    static final int MAX_PAGE_SIZE = 100;
+
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final String UNKNOWN_TYPE = "Unknown";
+
+    private static final String INSERT_SQL = "INSERT INTO pets (name, type, user_id, version) VALUES (?, ?, ?, 0)";
+    private static final String UPDATE_SQL =
+            "UPDATE pets SET name = ?, type = ?, version = version + 1 WHERE id = ? AND user_id = ? AND version = ?";
+
+    private final PetRepository petRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public PetService(PetRepository petRepository, DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.petRepository = petRepository;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public List<Pet> getPets(Long userId, int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        return petRepository.findByUserId(userId, PageRequest.of(page, size, Sort.by("id")));
+    }
+
+    public Pet getPet(Long userId, Long petId) {
+        return petRepository.findByIdAndUserId(petId, userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Pet not found: " + petId));
+    }
+
+    // Inserts all pets in one batch; returns them with their new ids.
+    // The user's cached order history holds their pets (see TieredCacheConfig).
+    @CacheEvict(cacheNames = TieredCacheConfig.ORDERS_BY_USER, key = "#p0")
+    public List<Pet> createPets(Long userId, List<Pet> pets) {
+        validate(pets, false);
+        KeyHolder keys = new GeneratedKeyHolder();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setString(1, pets.get(i).getName());
+                        ps.setString(2, pets.get(i).getType());
+                        ps.setLong(3, userId);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return pets.size();
+                    }
+                },
+                keys));
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        List<Pet> created = new ArrayList<>(pets.size());
+        for (int i = 0; i < pets.size(); i++) {
+            // Key column name differs per driver ("id", "ID", "GENERATED_KEY"); there is only one
+            Pet pet = new Pet(pets.get(i).getName(), pets.get(i).getType(), null);
+            pet.setId(((Number) generated.get(i).values().iterator().next()).longValue());
+            pet.setVersion(0L);
+            created.add(pet);
+        }
+        return created;
+    }
+
+    // Updates name/type of all pets in one batch, only if each is the user's and still at the given version.
+    @CacheEvict(cacheNames = TieredCacheConfig.ORDERS_BY_USER, key = "#p0")
+    public List<Pet> updatePets(Long userId, List<Pet> pets) {
+        validate(pets, true);
+        List<Long> stale = transactionTemplate.execute(status -> {
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Pet pet = pets.get(i);
+                    ps.setString(1, pet.getName());
+                    ps.setString(2, pet.getType());
+                    ps.setLong(3, pet.getId());
+                    ps.setLong(4, userId);
+                    ps.setLong(5, pet.getVersion());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return pets.size();
+                }
+            });
+            List<Long> notUpdated = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    notUpdated.add(pets.get(i).getId());
+                }
+            }
+            if (!notUpdated.isEmpty()) {
+                status.setRollbackOnly();
+            }
+            return notUpdated;
+        });
+
+        if (!stale.isEmpty()) {
+            List<Pet> current = petRepository.findByUserIdAndIdIn(userId, stale);
+            if (current.size() < stale.size()) {
+                Set<Long> found = new HashSet<>();
+                current.forEach(pet -> found.add(pet.getId()));
+                stale.removeAll(found);
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Pet not found: " + stale.get(0));
+            }
+            throw new ConcurrentEditException("Pets were modified by someone else", current);
+        }
+
+        List<Pet> updated = new ArrayList<>(pets.size());
+        for (Pet pet : pets) {
+            Pet result = new Pet(pet.getName(), pet.getType(), null);
+            result.setId(pet.getId());
+            result.setVersion(pet.getVersion() + 1);
+            updated.add(result);
+        }
+        return updated;
+    }
+
+    public void deletePet(Long userId, Long petId) {
+        petRepository.delete(getPet(userId, petId));
+    }
+
+    // Pets per type (e.g. "Cat": 2, "Dog": 1), counted in the database; pets without a type count as "Unknown".
+    // SQL TRIM only strips spaces, so the groups are trimmed once more here (tabs, line breaks) and merged.
+    public Map<String, Integer> countByType(Long userId) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (PetTypeCount row : petRepository.countByTypeForUser(userId)) {
+            String type = row.getType() == null ? "" : row.getType().trim();
+            if (type.isEmpty()) {
+                type = UNKNOWN_TYPE;
+            }
+            counts.merge(type, (int) row.getTotal(), Integer::sum);
+        }
+        return counts;
+    }
+
+    private static void validate(List<Pet> pets, boolean update) {
+        if (pets == null || pets.isEmpty() || pets.size() > MAX_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Send between 1 and " + MAX_BATCH + " pets");
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Pet pet : pets) {
+            pet.setName(text(pet.getName(), "name"));
+            pet.setType(text(pet.getType(), "type"));
+            if (update) {
+                if (pet.getId() == null || pet.getVersion() == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id and version are required for updates");
+                }
+                if (!ids.add(pet.getId())) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Pet listed twice: " + pet.getId());
+                }
+            }
+        }
+    }
+
+    private static String text(String value, String field) {
+        if (value == null || value.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, field + " is required");
+        }
+        String trimmed = value.trim();
+        if (trimmed.length() > MAX_TEXT_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, field + " is too long");
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,39 @@
+package com.hatice.tarpets.api;
+
+import java.util.Map;
+
+// Data Transfer Object (DTO) for Pet Statistics (GET /api/me/pets/stats).
+// Same fields as in AuthResponse, so the dashboard can refresh them without logging in again.
+public class PetStats {
+
+    // Pets per type (e.g., "Cat": 2, "Dog": 1)
+    private Map<String, Integer> petTypeCounts;
+
+    // Total number of pets
+    private Integer petCount;
+
+    public PetStats() {}
+
+    public PetStats(Map<String, Integer> petTypeCounts) {
+        this.petTypeCounts = petTypeCounts;
+        this.petCount = petTypeCounts.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    // ---------- GETTERS & SETTERS ----------
+
+    public Map<String, Integer> getPetTypeCounts() {
+        return petTypeCounts;
+    }
+
+    public void setPetTypeCounts(Map<String, Integer> petTypeCounts) {
+        this.petTypeCounts = petTypeCounts;
+    }
+
+    public Integer getPetCount() {
+        return petCount;
+    }
+
+    public void setPetCount(Integer petCount) {
+        this.petCount = petCount;
+    }
+}
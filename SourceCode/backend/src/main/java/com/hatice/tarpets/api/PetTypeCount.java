@@ -0,0 +1,10 @@
+package com.hatice.tarpets.api;
+
+// Projection: number of pets of one type (see PetRepository.countByTypeForUser).
+public interface PetTypeCount {
+
+    // Trimmed type; null or empty when the pets have no type
+    String getType();
+
+    long getTotal();
+}
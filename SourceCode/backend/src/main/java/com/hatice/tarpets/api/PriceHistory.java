@@ -0,0 +1,95 @@
+package com.hatice.tarpets.api;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Price History Entity.
+// One narrow row per actual change of a product's pricing (price, oldPrice, isDiscounted): the state after
+// the change, so the previous state is simply the previous row. Rows are only written when something changed.
+@Entity
+@Table(name = "price_history", indexes = @Index(name = "idx_price_history_product", columnList = "product_id"))
+public class PriceHistory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    private Double price;
+    private Double oldPrice;
+    private Boolean isDiscounted;
+
+    // Set when the change was made by a discount campaign (start or end), null for manual edits
+    private Long campaignId;
+
+    private LocalDateTime changedAt;
+
+    public PriceHistory() {}
+
+    public PriceHistory(Long productId, Double price, Double oldPrice, Boolean isDiscounted, Long campaignId,
+                        LocalDateTime changedAt) {
+        this.productId = productId;
+        this.price = price;
+        this.oldPrice = oldPrice;
+        this.isDiscounted = isDiscounted;
+        this.campaignId = campaignId;
+        this.changedAt = changedAt;
+    }
+
+    // ---- GETTERS & SETTERS ----
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public Double getOldPrice() {
+        return oldPrice;
+    }
+
+    public void setOldPrice(Double oldPrice) {
+        this.oldPrice = oldPrice;
+    }
+
+    public Boolean getIsDiscounted() {
+        return isDiscounted;
+    }
+
+    public void setIsDiscounted(Boolean isDiscounted) {
+        this.isDiscounted = isDiscounted;
+    }
+
+    public Long getCampaignId() {
+        return campaignId;
+    }
+
+    public void setCampaignId(Long campaignId) {
+        this.campaignId = campaignId;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
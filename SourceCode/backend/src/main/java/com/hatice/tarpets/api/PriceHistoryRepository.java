@@ -0,0 +1,16 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+// Data Access Object (DAO) for price history rows.
+// Rows are written in batches with JDBC (PriceHistoryService, CampaignService); this repository only reads.
+public interface PriceHistoryRepository extends JpaRepository<PriceHistory, Long> {
+
+    // Latest changes of one product, newest first
+    List<PriceHistory> findTop100ByProductIdOrderByIdDesc(Long productId);
+
+    // Rows written when the campaign started (the products it discounted)
+    List<PriceHistory> findByCampaignIdAndIsDiscountedTrue(Long campaignId);
+}
@@ -0,0 +1,185 @@
+package com.hatice.tarpets.api;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Price History Service.
+// Remembers the last known pricing of every product and appends a 'price_history' row only when it actually
+// changes: single edits (ProductChangedEvent) are buffered and written in batches, bulk changes are found by
+// comparing with the database (CatalogReloadEvent), and campaign transitions write their rows inside their own
+// transaction (recordInTransaction).
+@Service
+public class PriceHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceHistoryService.class);
+
+    private static final String PRICES_SQL = "SELECT id, price, old_price, is_discounted FROM products";
+    private static final String INSERT_SQL = "INSERT INTO price_history (product_id, price, old_price, is_discounted, "
+            + "campaign_id, changed_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Product id -> pricing as of the last recorded change
+    private final Map<Long, PricePoint> lastKnown = new ConcurrentHashMap<>();
+
+    // Changes not yet written; guarded by 'this'
+    private List<PriceHistory> pending = new ArrayList<>();
+
+    public PriceHistoryService(PriceHistoryRepository priceHistoryRepository, DataSource dataSource) {
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    // Starting point: current prices are known, not changes.
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        jdbcTemplate.query(PRICES_SQL, rs -> {
+            lastKnown.put(rs.getLong("id"), pricePoint(rs));
+        });
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            lastKnown.remove(event.getProductId());
+            return;
+        }
+        Product product = event.getProduct();
+        PricePoint current = new PricePoint(product.getPrice(), product.getOldPrice(), product.getIsDiscounted());
+        PricePoint previous = lastKnown.put(product.getId(), current);
+        if (!current.equals(previous)) {
+            synchronized (this) {
+                pending.add(current.toHistory(product.getId(), null));
+            }
+        }
+    }
+
+    // Bulk writes: compare every product with the database.
+    @EventListener
+    public void onCatalogReload(CatalogReloadEvent event) {
+        List<PriceHistory> changes = new ArrayList<>();
+        jdbcTemplate.query(PRICES_SQL, rs -> {
+            long productId = rs.getLong("id");
+            PricePoint current = pricePoint(rs);
+            if (!current.equals(lastKnown.put(productId, current))) {
+                changes.add(current.toHistory(productId, null));
+            }
+        });
+        if (!changes.isEmpty()) {
+            synchronized (this) {
+                pending.addAll(changes);
+            }
+        }
+    }
+
+    // Writes the rows with the caller's transaction (same DataSource) and marks them as known.
+    public void recordInTransaction(List<PriceHistory> changes) {
+        insert(changes);
+        for (PriceHistory change : changes) {
+            lastKnown.put(change.getProductId(),
+                    new PricePoint(change.getPrice(), change.getOldPrice(), change.getIsDiscounted()));
+        }
+    }
+
+    // Latest changes first (buffered ones included).
+    public List<PriceHistory> getHistory(Long productId) {
+        flush();
+        return priceHistoryRepository.findTop100ByProductIdOrderByIdDesc(productId);
+    }
+
+    @Scheduled(initialDelayString = "${price-history.flush-ms:5000}", fixedDelayString = "${price-history.flush-ms:5000}")
+    public void flush() {
+        List<PriceHistory> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        try {
+            insert(batch);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                batch.addAll(pending);
+                pending = batch;
+            }
+            logger.warn("Writing {} price history rows failed, retrying on the next flush: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Writing price history on shutdown failed: {}", e.getMessage());
+        }
+    }
+
+    private void insert(List<PriceHistory> rows) {
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (PriceHistory row : rows) {
+            args.add(new Object[]{row.getProductId(), row.getPrice(), row.getOldPrice(), row.getIsDiscounted(),
+                    row.getCampaignId(), Timestamp.valueOf(row.getChangedAt())});
+        }
+        for (int from = 0; from < args.size(); from += ProductBulkService.CHUNK_SIZE) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, args.subList(from, Math.min(args.size(), from + ProductBulkService.CHUNK_SIZE)));
+        }
+    }
+
+    private static PricePoint pricePoint(ResultSet rs) throws SQLException {
+        return new PricePoint(rs.getObject("price", Double.class), rs.getObject("old_price", Double.class),
+                rs.getObject("is_discounted", Boolean.class));
+    }
+
+    // Pricing of one product at one point in time.
+    private static final class PricePoint {
+
+        private final Double price;
+        private final Double oldPrice;
+        private final boolean discounted;
+
+        PricePoint(Double price, Double oldPrice, Boolean discounted) {
+            this.price = price;
+            this.oldPrice = oldPrice;
+            this.discounted = Boolean.TRUE.equals(discounted);
+        }
+
+        PriceHistory toHistory(Long productId, Long campaignId) {
+            return new PriceHistory(productId, price, oldPrice, discounted, campaignId, LocalDateTime.now());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof PricePoint point)) {
+                return false;
+            }
+            return discounted == point.discounted && Objects.equals(price, point.price)
+                    && Objects.equals(oldPrice, point.oldPrice);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(price, oldPrice, discounted);
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.hatice.tarpets.api;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 // Product Entity Class.
 // Represents items available for sale in the inventory.
+// Cached in the second-level cache (see HibernateCacheConfig, ProductCacheInvalidator).
 @Entity
 @Table(name = "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.PRODUCT_REGION)
 public class Product {
 
     @Id
@@ -33,6 +38,12 @@ public class Product {
 
     private Integer stock;
 
+    // Optimistic locking: an update carrying an outdated version is rejected with 409 instead of overwriting
+    // a concurrent edit. JDBC writers (bulk import, write-behind buffer, campaigns) increment it as well.
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version;
+
     public Product() {}
 
     public Product(String name, String description, Double price, Double oldPrice, Boolean isDiscounted,
@@ -132,4 +143,12 @@ public class Product {
     public void setStock(Integer stock) {
         this.stock = stock;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.hatice.tarpets.api;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+
+// Bulk Product Controller (REST API).
+// Admin-only catalog import/export (protected by the "/api/admin/**" rule in SecurityConfig).
+// Uploads are read directly from the request stream (no multipart buffering) and processed in chunks.
+@RestController
+@RequestMapping("/api/admin/products")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ProductBulkController {
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    // 1. Bulk Import (Upsert).
+    // Body: raw CSV (with header) or NDJSON. Example: curl --data-binary @products.csv ".../import?format=csv"
+    // Rows with an 'id' update the columns they carry of that product; rows without one are inserted.
+    // Invalid rows are reported, not fatal.
+    @PostMapping("/import")
+    public ImportReport importProducts(@RequestParam(defaultValue = "csv") String format,
+                                       HttpServletRequest request) throws IOException {
+        if (ExportFormat.parse(format) == ExportFormat.NDJSON) {
+            return productBulkService.importNdjson(request.getInputStream());
+        }
+        return productBulkService.importCsv(request.getInputStream());
+    }
+
+    // 2. Bulk Export.
+    // Streams the whole 'products' table as CSV or NDJSON while it is being read from the database.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "csv") String format) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        StreamingResponseBody body = output -> productBulkService.exportProducts(exportFormat, output);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,540 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Bulk Catalog Import/Export Service.
+// Streams CSV or NDJSON uploads row by row (constant memory), validates each row and upserts valid rows
+// through batched JDBC statements, one transaction per chunk. Export streams the 'products' table straight
+// from a fetch-size limited cursor to the response, so the full list is never materialized in heap.
+@Service
+public class ProductBulkService {
+
+    // Rows per JDBC batch / transaction. Large enough to amortize round trips, small enough to keep
+    // lock time and rollback scope short when a chunk fails.
+    static final int CHUNK_SIZE = 500;
+
+    // Rows fetched per round trip while exporting (requires useCursorFetch=true on MySQL).
+    static final int EXPORT_FETCH_SIZE = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (name, description, price, old_price, is_discounted, category, subcategory, image_url, stock) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String EXPORT_SQL =
+            "SELECT id, name, description, price, old_price, is_discounted, category, subcategory, image_url, stock "
+                    + "FROM products ORDER BY id";
+
+    private static final int[] INSERT_TYPES = {
+            Types.VARCHAR, Types.VARCHAR, Types.DOUBLE, Types.DOUBLE, Types.BOOLEAN,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER
+    };
+
+    // Importable fields (as normalized by normalizeColumn) and their columns, in INSERT_SQL order.
+    // An update only sets the columns its row carries, so a partial upload leaves the other columns alone.
+    private static final String[] IMPORT_FIELDS = {
+            "name", "description", "price", "oldprice", "isdiscounted", "category", "subcategory", "imageurl", "stock"
+    };
+    private static final String[] IMPORT_COLUMNS = {
+            "name", "description", "price", "old_price", "is_discounted", "category", "subcategory", "image_url", "stock"
+    };
+
+    // Column order used for CSV export; the same names are accepted by the importer (round trip).
+    private static final String[] EXPORT_COLUMNS = {
+            "id", "name", "description", "price", "oldPrice", "isDiscounted", "category", "subcategory", "imageUrl", "stock"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductBulkService(DataSource dataSource, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                              ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(EXPORT_FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // =====================================================================
+    // IMPORT
+    // =====================================================================
+
+    // Imports a CSV upload. The first record must be a header naming the columns (any order, e.g.
+    // "name,price,category,stock"). Rows with an 'id' update the header's columns of that product (the others
+    // keep their values), rows without one are inserted. Every row must have as many fields as the header.
+    public ImportReport importCsv(InputStream input) throws IOException {
+        ImportReport report = new ImportReport();
+        List<PendingRow> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try {
+            readCsv(input, report, chunk);
+            flush(chunk, report);
+        } finally {
+            publishReload(report);
+        }
+        return report;
+    }
+
+    // Queues the rows of the upload, flushing every full chunk.
+    private void readCsv(InputStream input, ImportReport report, List<PendingRow> chunk) throws IOException {
+        try (CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)))) {
+            List<String> header = reader.readRecord();
+            if (header == null) {
+                return;
+            }
+            String[] columns = new String[header.size()];
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i);
+                // Strip a UTF-8 BOM left by spreadsheet exports
+                if (i == 0 && name.startsWith("\uFEFF")) {
+                    name = name.substring(1);
+                }
+                columns[i] = normalizeColumn(name);
+            }
+
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue; // Skip empty lines
+                }
+                report.incrementTotalRows();
+                long line = reader.getRecordLine();
+
+                if (record.size() != columns.length) {
+                    report.addError(line, "Row has " + record.size() + " fields but header has " + columns.length);
+                    continue;
+                }
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < record.size(); i++) {
+                    values.put(columns[i], record.get(i));
+                }
+                acceptRow(line, values, chunk, report);
+            }
+        }
+    }
+
+    // Imports an NDJSON upload: one JSON object per line, using the same field names as the Product JSON.
+    // As for CSV, an update sets only the fields the object contains (an explicit null clears the column).
+    public ImportReport importNdjson(InputStream input) throws IOException {
+        ImportReport report = new ImportReport();
+        List<PendingRow> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try {
+            readNdjson(input, report, chunk);
+            flush(chunk, report);
+        } finally {
+            publishReload(report);
+        }
+        return report;
+    }
+
+    private void readNdjson(InputStream input, ImportReport report, List<PendingRow> chunk) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String text;
+            long line = 0;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                report.incrementTotalRows();
+
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(text);
+                } catch (JsonProcessingException e) {
+                    report.addError(line, "Invalid JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+                if (node == null || !node.isObject()) {
+                    report.addError(line, "Expected a JSON object");
+                    continue;
+                }
+
+                Map<String, String> values = new HashMap<>();
+                Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    JsonNode value = field.getValue();
+                    values.put(normalizeColumn(field.getKey()), value.isNull() ? null : value.asText());
+                }
+                acceptRow(line, values, chunk, report);
+            }
+        }
+    }
+
+    // Rows were written with plain JDBC, so in-memory catalog views and cached finder results must reload from the
+    // database; also when the upload failed part way, after earlier chunks were committed.
+    private void publishReload(ImportReport report) {
+        if (report.getInserted() + report.getUpdated() > 0) {
+            eventPublisher.publishEvent(new CatalogReloadEvent("bulk import"));
+        }
+    }
+
+    // Validates a single row and queues it; flushes the chunk once it is full.
+    private void acceptRow(long line, Map<String, String> values, List<PendingRow> chunk, ImportReport report) {
+        try {
+            chunk.add(toPendingRow(line, values));
+        } catch (IllegalArgumentException e) {
+            report.addError(line, e.getMessage());
+            return;
+        }
+        if (chunk.size() >= CHUNK_SIZE) {
+            flush(chunk, report);
+        }
+    }
+
+    // Writes one chunk in a single transaction: inserts go out as one JDBC batch, updates as one batch per
+    // set of columns. If the chunk fails as a whole (e.g. constraint violation), it is rolled back and every
+    // row in it is reported.
+    private void flush(List<PendingRow> chunk, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> inserts = new ArrayList<>();
+        Map<String, List<PendingRow>> updates = new LinkedHashMap<>();
+        int updateCount = 0;
+        for (PendingRow row : chunk) {
+            if (row.id == null) {
+                inserts.add(row.args);
+            } else {
+                updates.computeIfAbsent(row.sql, sql -> new ArrayList<>()).add(row);
+                updateCount++;
+            }
+        }
+
+        List<PendingRow> missing = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!inserts.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, inserts, INSERT_TYPES);
+                }
+                for (Map.Entry<String, List<PendingRow>> group : updates.entrySet()) {
+                    List<PendingRow> rows = group.getValue();
+                    List<Object[]> args = new ArrayList<>(rows.size());
+                    rows.forEach(row -> args.add(row.args));
+                    int[] counts = jdbcTemplate.batchUpdate(group.getKey(), args, rows.get(0).types);
+                    for (int i = 0; i < counts.length; i++) {
+                        // 0 = no row with that id. (Statement.SUCCESS_NO_INFO is negative and counts as success.)
+                        if (counts[i] == 0) {
+                            missing.add(rows.get(i));
+                        }
+                    }
+                }
+            });
+            report.addInserted(inserts.size());
+            report.addUpdated(updateCount - missing.size());
+            for (PendingRow row : missing) {
+                report.addError(row.line, "Product not found: " + row.id);
+            }
+        } catch (DataAccessException e) {
+            String reason = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (PendingRow row : chunk) {
+                report.addError(row.line, "Chunk rolled back: " + reason);
+            }
+        }
+        chunk.clear();
+    }
+
+    // Converts raw text values into typed statement arguments, enforcing the entity's column limits.
+    // An insert needs name, price and category; an update only checks the fields its row carries.
+    private PendingRow toPendingRow(long line, Map<String, String> values) {
+        Long id = parseLong("id", values.get("id"));
+        boolean update = id != null;
+
+        String name = trimToNull(values.get("name"));
+        if (name == null && (!update || values.containsKey("name"))) {
+            throw new IllegalArgumentException("'name' is required");
+        }
+        checkLength("name", name, 255);
+
+        String description = trimToNull(values.get("description"));
+        checkLength("description", description, 1000);
+
+        Double price = parseDouble("price", values.get("price"));
+        if (price == null && (!update || values.containsKey("price"))) {
+            throw new IllegalArgumentException("'price' is required");
+        }
+        Double oldPrice = parseDouble("oldPrice", values.get("oldprice"));
+
+        Boolean discounted = parseBoolean("isDiscounted", values.get("isdiscounted"));
+
+        String category = trimToNull(values.get("category"));
+        if (category == null && (!update || values.containsKey("category"))) {
+            throw new IllegalArgumentException("'category' is required");
+        }
+        checkLength("category", category, 255);
+
+        String subcategory = trimToNull(values.get("subcategory"));
+        checkLength("subcategory", subcategory, 255);
+
+        String imageUrl = trimToNull(values.get("imageurl"));
+        checkLength("imageUrl", imageUrl, 2000);
+
+        Integer stock = parseInteger("stock", values.get("stock"));
+
+        Object[] args = {
+                name, description, price, oldPrice, discounted != null && discounted,
+                category, subcategory, imageUrl, stock == null ? 0 : stock
+        };
+        if (!update) {
+            return new PendingRow(line, null, INSERT_SQL, args, INSERT_TYPES);
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE products SET ");
+        List<Object> updateArgs = new ArrayList<>();
+        List<Integer> updateTypes = new ArrayList<>();
+        for (int i = 0; i < IMPORT_FIELDS.length; i++) {
+            if (values.containsKey(IMPORT_FIELDS[i])) {
+                sql.append(IMPORT_COLUMNS[i]).append(" = ?, ");
+                updateArgs.add(args[i]);
+                updateTypes.add(INSERT_TYPES[i]);
+            }
+        }
+        if (updateArgs.isEmpty()) {
+            throw new IllegalArgumentException("No columns to update for id " + id);
+        }
+        sql.append("version = version + 1 WHERE id = ?");
+        updateArgs.add(id);
+        updateTypes.add(Types.BIGINT);
+        return new PendingRow(line, id, sql.toString(), updateArgs.toArray(),
+                updateTypes.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    // =====================================================================
+    // EXPORT
+    // =====================================================================
+
+    // Streams every product to the given output in the requested format.
+    // Rows are written as they are read from the cursor; nothing is collected in memory.
+    public void exportProducts(ExportFormat format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        if (format == ExportFormat.CSV) {
+            writer.write(String.join(",", EXPORT_COLUMNS));
+            writer.write('\n');
+            streamingJdbcTemplate.query(EXPORT_SQL, rs -> {
+                try {
+                    writeCsvRow(writer, rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } else {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            streamingJdbcTemplate.query(EXPORT_SQL, rs -> {
+                try {
+                    writeJsonRow(generator, rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeRaw('\n');
+            generator.flush();
+        }
+        writer.flush();
+    }
+
+    private void writeCsvRow(Writer writer, ResultSet rs) throws IOException, SQLException {
+        writer.write(Long.toString(rs.getLong("id")));
+        writer.write(',');
+        writer.write(CsvReader.escape(rs.getString("name")));
+        writer.write(',');
+        writer.write(CsvReader.escape(rs.getString("description")));
+        writer.write(',');
+        writer.write(nullableText(rs, "price"));
+        writer.write(',');
+        writer.write(nullableText(rs, "old_price"));
+        writer.write(',');
+        writer.write(nullableText(rs, "is_discounted"));
+        writer.write(',');
+        writer.write(CsvReader.escape(rs.getString("category")));
+        writer.write(',');
+        writer.write(CsvReader.escape(rs.getString("subcategory")));
+        writer.write(',');
+        writer.write(CsvReader.escape(rs.getString("image_url")));
+        writer.write(',');
+        writer.write(nullableText(rs, "stock"));
+        writer.write('\n');
+    }
+
+    private void writeJsonRow(JsonGenerator generator, ResultSet rs) throws IOException, SQLException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", rs.getLong("id"));
+        generator.writeStringField("name", rs.getString("name"));
+        generator.writeStringField("description", rs.getString("description"));
+        writeNullableDouble(generator, "price", rs, "price");
+        writeNullableDouble(generator, "oldPrice", rs, "old_price");
+
+        boolean discounted = rs.getBoolean("is_discounted");
+        if (rs.wasNull()) {
+            generator.writeNullField("isDiscounted");
+        } else {
+            generator.writeBooleanField("isDiscounted", discounted);
+        }
+
+        generator.writeStringField("category", rs.getString("category"));
+        generator.writeStringField("subcategory", rs.getString("subcategory"));
+        generator.writeStringField("imageUrl", rs.getString("image_url"));
+
+        int stock = rs.getInt("stock");
+        if (rs.wasNull()) {
+            generator.writeNullField("stock");
+        } else {
+            generator.writeNumberField("stock", stock);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeNullableDouble(JsonGenerator generator, String field, ResultSet rs, String column)
+            throws IOException, SQLException {
+        double value = rs.getDouble(column);
+        if (rs.wasNull()) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, value);
+        }
+    }
+
+    private static String nullableText(ResultSet rs, String column) throws SQLException {
+        Object value = rs.getObject(column);
+        return value == null ? "" : value.toString();
+    }
+
+    // =====================================================================
+    // PARSING HELPERS
+    // =====================================================================
+
+    // "old_price", "Old Price" and "oldPrice" all map to "oldprice".
+    private static String normalizeColumn(String name) {
+        return name.trim().replace("_", "").replace(" ", "").toLowerCase();
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static void checkLength(String field, String value, int max) {
+        if (value != null && value.length() > max) {
+            throw new IllegalArgumentException("'" + field + "' exceeds " + max + " characters");
+        }
+    }
+
+    private static Long parseLong(String field, String value) {
+        String text = trimToNull(value);
+        if (text == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + field + "' is not a valid id: " + text);
+        }
+    }
+
+    private static Double parseDouble(String field, String value) {
+        String text = trimToNull(value);
+        if (text == null) {
+            return null;
+        }
+        try {
+            double parsed = Double.parseDouble(text);
+            if (Double.isNaN(parsed) || Double.isInfinite(parsed) || parsed < 0) {
+                throw new IllegalArgumentException("'" + field + "' must be a non-negative number: " + text);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + field + "' is not a number: " + text);
+        }
+    }
+
+    private static Integer parseInteger(String field, String value) {
+        String text = trimToNull(value);
+        if (text == null) {
+            return null;
+        }
+        try {
+            int parsed = Integer.parseInt(text);
+            if (parsed < 0) {
+                throw new IllegalArgumentException("'" + field + "' must not be negative: " + text);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + field + "' is not an integer: " + text);
+        }
+    }
+
+    private static Boolean parseBoolean(String field, String value) {
+        String text = trimToNull(value);
+        if (text == null) {
+            return null;
+        }
+        switch (text.toLowerCase()) {
+            case "true": case "1": case "yes":
+                return true;
+            case "false": case "0": case "no":
+                return false;
+            default:
+                throw new IllegalArgumentException("'" + field + "' is not a boolean: " + text);
+        }
+    }
+
+    // A validated row waiting for the next batch flush, with the statement that writes it.
+    private static class PendingRow {
+        final long line;
+        final Long id;
+        final String sql;
+        final Object[] args;
+        final int[] types;
+
+        PendingRow(long line, Long id, String sql, Object[] args, int[] types) {
+            this.line = line;
+            this.id = id;
+            this.sql = sql;
+            this.args = args;
+            this.types = types;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.hatice.tarpets.api;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+// Keeps the Product caches consistent across instances.
+// Local JPA writes already update this instance's second-level cache; they are announced on the
+// CacheInvalidationBus so other instances evict the product. Bulk JDBC writes bypass Hibernate entirely, so every
+// Product entry is evicted here as well as on the other instances; buffered JDBC updates (ProductWriteBuffer)
+// evict the written products here once they reach the database, and announce them with their ProductChangedEvent
+// like any other write. Any change also clears the cached finder results
+// (TieredCacheConfig.PRODUCT_QUERIES), which sends its own message to the other instances.
+@Component
+public class ProductCacheInvalidator {
+
+    private static final String ENTITY_NAME = Product.class.getName();
+
+    private final SessionFactory sessionFactory;
+    private final Cache productQueries;
+    private final CacheInvalidationBus bus;
+
+    public ProductCacheInvalidator(EntityManagerFactory entityManagerFactory, CacheManager cacheManager,
+                                   CacheInvalidationBus bus) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.productQueries = cacheManager.getCache(TieredCacheConfig.PRODUCT_QUERIES);
+        this.bus = bus;
+        bus.subscribe(this::onRemoteInvalidation);
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        productQueries.clear();
+        bus.publish(new CacheInvalidation(bus.getNodeId(), ENTITY_NAME, event.getProductId()));
+    }
+
+    // Runs before the other reload listeners (CatalogIndex, ...), which read products back through JPA.
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogReload(CatalogReloadEvent event) {
+        evict(null);
+        productQueries.clear();
+        bus.publish(new CacheInvalidation(bus.getNodeId(), ENTITY_NAME, null));
+    }
+
+    // Products updated with plain JDBC (ProductWriteBuffer): evict this instance's copies. The other instances
+    // are told by the ProductChangedEvent the buffer publishes next.
+    public void evictWritten(Collection<Long> productIds) {
+        for (Long productId : productIds) {
+            evict(productId);
+        }
+    }
+
+    private void onRemoteInvalidation(CacheInvalidation message) {
+        if (ENTITY_NAME.equals(message.getEntityName())) {
+            evict(message.getEntityId());
+        }
+    }
+
+    private void evict(Long productId) {
+        if (productId == null) {
+            sessionFactory.getCache().evictEntityData(Product.class);
+        } else {
+            sessionFactory.getCache().evictEntityData(Product.class, productId);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.hatice.tarpets.api;
+
+// Application Event: a single product was created, updated or deleted.
+// Published after the write is committed so in-memory views (catalog index, suggestions, ...) can update
+// incrementally instead of reloading the whole table.
+public class ProductChangedEvent {
+
+    private final Long productId;
+
+    // Current state of the product, or null when it was deleted.
+    private final Product product;
+
+    private ProductChangedEvent(Long productId, Product product) {
+        this.productId = productId;
+        this.product = product;
+    }
+
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null);
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
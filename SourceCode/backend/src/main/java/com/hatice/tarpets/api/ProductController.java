@@ -1,11 +1,17 @@
 package com.hatice.tarpets.api;
 
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 // Product Controller (REST API).
 // Manages the product catalog. Handles public browsing (search/filter) and protected administrative actions.
@@ -18,94 +24,245 @@ public class ProductController {
     private ProductRepository productRepository;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private CatalogIndex catalogIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductRankingService productRankingService;
+
+    @Autowired
+    private SearchSuggestService searchSuggestService;
+
+    @Autowired
+    private FuzzySearchService fuzzySearchService;
+
+    @Autowired
+    private ProductWriteBuffer productWriteBuffer;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    @Autowired
+    private ProductStockService productStockService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    // Upper bound for the page size of the browse endpoint
+    private static final int MAX_PAGE_SIZE = 100;
 
     // 1. Main Search and Listing Endpoint.
     // Supports dynamic filtering by 'category' or 'search' keyword via Query Parameters.
+    // 'fuzzy=true' switches the search to the typo-tolerant mode ("royal kanin" finds "Royal Canin").
     @GetMapping
     public List<Product> getAllProducts(
             @RequestParam(required = false) String category,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean fuzzy) {
 
         if (search != null && !search.isEmpty()) {
+            if (fuzzy) {
+                List<Product> results = new ArrayList<>();
+                for (Long id : fuzzySearchService.search(search, FuzzySearchService.MAX_RESULTS)) {
+                    Product product = catalogIndex.getProduct(id);
+                    if (product != null) {
+                        results.add(product);
+                    }
+                }
+                return results;
+            }
             return productRepository.findByNameContainingIgnoreCase(search);
         }
         if (category != null && !category.isEmpty()) {
-            return productRepository.findByCategory(category);
+            return getProductsByCategory(category);
         }
-        return productRepository.findAll();
+        // Listings come from the compact catalog snapshot when it is up to date (CatalogSnapshotService)
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        return snapshot != null ? snapshot.all() : productRepository.findAll();
     }
 
     // 2. Retrieve Products by Category.
     @GetMapping("/category/{category}")
     public List<Product> getProductsByCategory(@PathVariable String category) {
-        return productRepository.findByCategory(category);
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        return snapshot != null ? snapshot.byCategory(category) : productRepository.findByCategory(category);
     }
 
     // 3. Retrieve Discounted Products (e.g. for Home Page slider).
     @GetMapping("/discounted")
     public List<Product> getDiscountedProducts() {
-        return productRepository.findByIsDiscountedTrue();
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        return snapshot != null ? snapshot.discounted() : productRepository.findByIsDiscountedTrue();
+    }
+
+    // 3b. Faceted Browse.
+    // Combined filters (category/subcategory accept several values, e.g. ?category=Cat&category=Dog) plus facet
+    // counts for the filter sidebar. Served from the in-memory CatalogIndex, not from the database.
+    // Example: /api/products/browse?category=Cat&maxPrice=250&inStock=true&sort=price_asc&page=0&size=24
+    @GetMapping("/browse")
+    public BrowseResponse browseProducts(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> subcategory,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Boolean discounted,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "24") int size) {
+
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minPrice must not be greater than maxPrice");
+        }
+        if (sort != null && !sort.isEmpty() && !List.of(CatalogIndex.SORT_PRICE_ASC, CatalogIndex.SORT_PRICE_DESC, CatalogIndex.SORT_NAME).contains(sort)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported sort: " + sort);
+        }
+        return catalogIndex.browse(category, subcategory, minPrice, maxPrice, discounted, inStock, sort, page, size);
+    }
+
+    // 3c. Best Sellers (overall or per category, e.g. ?category=cat).
+    // Units sold with a decay over time, served from in-memory rankings kept current by new orders.
+    @GetMapping("/best-sellers")
+    public List<Product> getBestSellers(@RequestParam(required = false) String category,
+                                        @RequestParam(defaultValue = "10") int limit) {
+        validateRankingLimit(limit);
+        return productRankingService.getBestSellers(category, limit);
+    }
+
+    // 3d. Trending Products: selling noticeably more in the last 24 hours than in the days before.
+    @GetMapping("/trending")
+    public List<Product> getTrendingProducts(@RequestParam(required = false) String category,
+                                             @RequestParam(defaultValue = "10") int limit) {
+        validateRankingLimit(limit);
+        return productRankingService.getTrending(category, limit);
+    }
+
+    // 3e. Search Autocomplete.
+    // Lightweight completions (product names, categories, subcategories) for the search box, answered from an
+    // in-memory prefix trie. Use this on every keystroke instead of the full '?search=' listing.
+    @GetMapping("/suggest")
+    public List<SearchSuggestion> suggest(@RequestParam(name = "q", defaultValue = "") String query,
+                                          @RequestParam(defaultValue = "8") int limit) {
+        if (limit < 1 || limit > SearchSuggestService.TOP_K) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + SearchSuggestService.TOP_K);
+        }
+        return searchSuggestService.suggest(query, limit);
     }
 
     // 4. Get Single Product Details by ID.
     @GetMapping("/{id}")
     public Product getProductById(@PathVariable Long id) {
         return productRepository.findById(id)
+                .map(productWriteBuffer::overlay) // PATCHed fields not yet written to the database
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + id));
     }
 
-    // 5. Create New Product (Admin Access Required).
+    // 4b. Price History of a Product (latest 100 changes, newest first).
+    @GetMapping("/{id}/price-history")
+    public List<PriceHistory> getPriceHistory(@PathVariable Long id) {
+        return priceHistoryService.getHistory(id);
+    }
+
+    // 5. Create New Product (Admin Access Required, enforced by SecurityConfig).
     @PostMapping
-    public Product createProduct(@RequestHeader(value = "Authorization", required = false) String auth, @RequestBody Product product) {
-        validateAdminAccess(auth);
-        return productRepository.save(product);
+    public Product createProduct(@RequestBody Product product) {
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        return saved;
     }
 
-    // 6. Update Existing Product (Admin Access Required).
+    // 6. Update Existing Product (Admin Access Required, enforced by SecurityConfig).
+    // Optimistic locking: send the 'version' you loaded; if the product changed since then the response is 409
+    // with the current product (see ConcurrentEditHandler). Without a version only the last write wins.
     @PutMapping("/{id}")
-    public Product updateProduct(@RequestHeader(value = "Authorization", required = false) String auth, @PathVariable Long id, @RequestBody Product updatedProduct) {
-        validateAdminAccess(auth);
+    public Product updateProduct(@PathVariable Long id, @RequestBody Product updatedProduct) {
+        productWriteBuffer.flush(id); // Buffered PATCHes count as changes too
+        try {
+            return productRepository.findById(id)
+                    .map(product -> {
+                        if (updatedProduct.getVersion() != null && !updatedProduct.getVersion().equals(product.getVersion())) {
+                            throw new ConcurrentEditException("Product was modified by someone else", product);
+                        }
+                        product.setName(updatedProduct.getName());
+                        product.setDescription(updatedProduct.getDescription());
+                        product.setPrice(updatedProduct.getPrice());
+                        product.setOldPrice(updatedProduct.getOldPrice());
+                        product.setIsDiscounted(updatedProduct.getIsDiscounted());
+                        product.setCategory(updatedProduct.getCategory());
+                        product.setSubcategory(updatedProduct.getSubcategory());
+                        product.setImageUrl(updatedProduct.getImageUrl());
+                        product.setStock(updatedProduct.getStock());
+                        productWriteBuffer.discard(id); // This full update supersedes buffered PATCHes
+                        Product saved = productRepository.save(product);
+                        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+                        return saved;
+                    })
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + id));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Changed between our read and our write
+            throw new ConcurrentEditException("Product was modified by someone else",
+                    productRepository.findById(id).orElse(null));
+        }
+    }
 
-        return productRepository.findById(id)
-                .map(product -> {
-                    product.setName(updatedProduct.getName());
-                    product.setDescription(updatedProduct.getDescription());
-                    product.setPrice(updatedProduct.getPrice());
-                    product.setOldPrice(updatedProduct.getOldPrice());
-                    product.setIsDiscounted(updatedProduct.getIsDiscounted());
-                    product.setCategory(updatedProduct.getCategory());
-                    product.setSubcategory(updatedProduct.getSubcategory());
-                    product.setImageUrl(updatedProduct.getImageUrl());
-                    product.setStock(updatedProduct.getStock());
-                    return productRepository.save(product);
-                })
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + id));
+    // 6b. Partial Update (Admin Access Required, enforced by SecurityConfig).
+    // Only the given fields change, e.g. {"price": 89.9, "stock": 12}. The database write is buffered and merged
+    // with further updates of the same product (ProductWriteBuffer); the catalog listings show the change at once.
+    // Optimistic locking as for PUT: send the version you loaded as If-Match (or "version" in the body), 409 if
+    // it is not the current one; the response carries the version the product has after this change.
+    @PatchMapping("/{id}")
+    public Product patchProduct(@PathVariable Long id, @RequestBody Map<String, Object> changes,
+                                @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Map<String, Object> fields = new LinkedHashMap<>(changes);
+        Long version = parseVersion(ifMatch != null ? ifMatch : fields.get("version"));
+        fields.remove("version");
+        return productWriteBuffer.patch(id, fields, version);
     }
 
-    // 7. Delete Product (Admin Access Required).
-    @DeleteMapping("/{id}")
-    public String deleteProduct(@RequestHeader(value = "Authorization", required = false) String auth, @PathVariable Long id) {
-        validateAdminAccess(auth);
+    // 6c. Stock Adjustment (Admin Access Required, enforced by SecurityConfig).
+    // Relative change, e.g. {"delta": -3}; concurrent adjustments are retried instead of rejected (ProductStockService).
+    @PostMapping("/{id}/stock-adjustments")
+    public Product adjustStock(@PathVariable Long id, @Valid @RequestBody StockAdjustmentRequest request) {
+        return productStockService.adjustStock(id, request.getDelta());
+    }
 
+    // 7. Delete Product (Admin Access Required, enforced by SecurityConfig).
+    @DeleteMapping("/{id}")
+    public String deleteProduct(@PathVariable Long id) {
         if (productRepository.existsById(id)) {
+            productWriteBuffer.discard(id);
             productRepository.deleteById(id);
+            eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
             return "Deleted product with id: " + id;
         } else {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
         }
     }
 
-    // Helper method to validate Admin Role from the JWT Token.
-    // Centralizes security logic to prevent code duplication (DRY Principle).
-    private void validateAdminAccess(String authHeader) {
-        String token = null;
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
+    // "3", W/"3" or 3 -> 3; null when no version was sent.
+    private static Long parseVersion(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString().trim();
+        if (text.startsWith("W/")) {
+            text = text.substring(2);
         }
+        try {
+            return Long.parseLong(text.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid version: " + value);
+        }
+    }
 
-        if (token == null || !jwtUtil.validateToken(token) || !"ADMIN".equals(jwtUtil.getRoleFromToken(token))) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied: Admins only.");
+    private void validateRankingLimit(int limit) {
+        if (limit < 1 || limit > ProductRankingService.MAX_RANKED) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + ProductRankingService.MAX_RANKED);
         }
     }
 }
\ No newline at end of file
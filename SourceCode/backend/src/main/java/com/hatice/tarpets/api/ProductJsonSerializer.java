@@ -0,0 +1,187 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Product JSON Serializer.
+// Products are the bulk of every catalog response (listings, browse, rankings, order items), so they are
+// written by hand instead of through Jackson's reflective bean serializer: field names are encoded once
+// (SerializedString) and values go straight from the getters into the generator's output buffer, with no
+// property lookup or per-value serializer dispatch. Produces exactly the same JSON as the default mapping
+// (ProductJsonSerializerTests); a new Product field has to be added here as well.
+// writeRows() writes catalog snapshot listings (CatalogSnapshot.Rows) in the same shape straight from the
+// snapshot's columns and off-heap text. Allocation per request is measured by ProductAllocationBenchmark (src/test).
+@JsonComponent
+public class ProductJsonSerializer extends StdSerializer<Product> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString DESCRIPTION = new SerializedString("description");
+    private static final SerializableString PRICE = new SerializedString("price");
+    private static final SerializableString OLD_PRICE = new SerializedString("oldPrice");
+    private static final SerializableString IS_DISCOUNTED = new SerializedString("isDiscounted");
+    private static final SerializableString CATEGORY = new SerializedString("category");
+    private static final SerializableString SUBCATEGORY = new SerializedString("subcategory");
+    private static final SerializableString IMAGE_URL = new SerializedString("imageUrl");
+    private static final SerializableString STOCK = new SerializedString("stock");
+    private static final SerializableString VERSION = new SerializedString("version");
+
+    public ProductJsonSerializer() {
+        super(Product.class);
+    }
+
+    @Override
+    public void serialize(Product product, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(product);
+
+        generator.writeFieldName(ID);
+        writeNumber(generator, product.getId());
+        generator.writeFieldName(NAME);
+        generator.writeString(product.getName());
+        generator.writeFieldName(DESCRIPTION);
+        generator.writeString(product.getDescription());
+        generator.writeFieldName(PRICE);
+        writeNumber(generator, product.getPrice());
+        generator.writeFieldName(OLD_PRICE);
+        writeNumber(generator, product.getOldPrice());
+        generator.writeFieldName(IS_DISCOUNTED);
+        if (product.getIsDiscounted() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeBoolean(product.getIsDiscounted());
+        }
+        generator.writeFieldName(CATEGORY);
+        generator.writeString(product.getCategory());
+        generator.writeFieldName(SUBCATEGORY);
+        generator.writeString(product.getSubcategory());
+        generator.writeFieldName(IMAGE_URL);
+        generator.writeString(product.getImageUrl());
+        generator.writeFieldName(STOCK);
+        writeNumber(generator, product.getStock());
+        generator.writeFieldName(VERSION);
+        writeNumber(generator, product.getVersion());
+
+        generator.writeEndObject();
+    }
+
+    // Same JSON as serialize() for every row, read from the snapshot columns: no Product or String is created,
+    // text is copied from off-heap into one reused buffer and handed to the generator as UTF-8. Character based
+    // generators (writing to a Writer) cannot take UTF-8 bytes and get decoded Strings instead.
+    public static void writeRows(CatalogSnapshot.Rows rows, JsonGenerator generator) throws IOException {
+        CatalogSnapshot snapshot = rows.getSnapshot();
+        byte[] buffer = new byte[256];
+        generator.writeStartArray();
+        for (int i = 0; i < rows.size(); i++) {
+            buffer = writeRow(snapshot, rows.row(i), generator, buffer);
+        }
+        generator.writeEndArray();
+    }
+
+    // One snapshot row as a JSON object; returns the (possibly grown) text buffer for the next call.
+    static byte[] writeRow(CatalogSnapshot snapshot, int row, JsonGenerator generator, byte[] buffer) throws IOException {
+        generator.writeStartObject();
+
+        generator.writeFieldName(ID);
+        generator.writeNumber(snapshot.id(row));
+        generator.writeFieldName(NAME);
+        buffer = writeText(generator, snapshot, row, CatalogSnapshot.TEXT_NAME, buffer);
+        generator.writeFieldName(DESCRIPTION);
+        buffer = writeText(generator, snapshot, row, CatalogSnapshot.TEXT_DESCRIPTION, buffer);
+        generator.writeFieldName(PRICE);
+        writeNumber(generator, snapshot.price(row));
+        generator.writeFieldName(OLD_PRICE);
+        writeNumber(generator, snapshot.oldPrice(row));
+        generator.writeFieldName(IS_DISCOUNTED);
+        byte discounted = snapshot.discountedFlag(row);
+        if (discounted == CatalogSnapshot.FLAG_NULL) {
+            generator.writeNull();
+        } else {
+            generator.writeBoolean(discounted == CatalogSnapshot.FLAG_TRUE);
+        }
+        generator.writeFieldName(CATEGORY);
+        generator.writeString(snapshot.category(row));
+        generator.writeFieldName(SUBCATEGORY);
+        generator.writeString(snapshot.subcategory(row));
+        generator.writeFieldName(IMAGE_URL);
+        buffer = writeText(generator, snapshot, row, CatalogSnapshot.TEXT_IMAGE_URL, buffer);
+        generator.writeFieldName(STOCK);
+        int stock = snapshot.stock(row);
+        if (stock == CatalogSnapshot.NULL_INT) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(stock);
+        }
+        generator.writeFieldName(VERSION);
+        long version = snapshot.version(row);
+        if (version == CatalogSnapshot.NULL_LONG) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(version);
+        }
+
+        generator.writeEndObject();
+        return buffer;
+    }
+
+    // Returns the (possibly grown) buffer for the next field
+    private static byte[] writeText(JsonGenerator generator, CatalogSnapshot snapshot, int row, int field, byte[] buffer)
+            throws IOException {
+        int length = snapshot.textLength(row, field);
+        if (length < 0) {
+            generator.writeNull();
+            return buffer;
+        }
+        if (length > buffer.length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+        }
+        snapshot.copyText(row, field, buffer);
+        if (generator instanceof UTF8JsonGenerator) {
+            generator.writeUTF8String(buffer, 0, length);
+        } else {
+            generator.writeString(new String(buffer, 0, length, StandardCharsets.UTF_8));
+        }
+        return buffer;
+    }
+
+    // Snapshot columns mark null with NaN
+    private static void writeNumber(JsonGenerator generator, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    // Unboxed here: the generator formats the primitive straight into its buffer
+    private static void writeNumber(JsonGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value.longValue());
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, Integer value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value.intValue());
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, Double value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value.doubleValue());
+        }
+    }
+}
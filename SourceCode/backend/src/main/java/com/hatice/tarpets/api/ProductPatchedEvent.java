@@ -0,0 +1,19 @@
+package com.hatice.tarpets.api;
+
+// Application Event: a PATCH of a product was accepted, its database write is still buffered (ProductWriteBuffer).
+// Only the in-memory read views (catalog index, catalog snapshot) apply it, so listings show the change at once;
+// everything that reacts to written data (caches, price history, change log) waits for the ProductChangedEvent
+// published once the write is committed.
+public class ProductPatchedEvent {
+
+    // The product with the patch applied, carrying the version it will have once written
+    private final Product product;
+
+    public ProductPatchedEvent(Product product) {
+        this.product = product;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+}
@@ -0,0 +1,438 @@
+package com.hatice.tarpets.api;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+// Best-Seller and Trending Rankings.
+// Counters per product are updated as orders come in (no scans of order_items per request): right away from the
+// OrderPlacedEvent of this instance, and by a short incremental read of the orders table for the orders placed
+// through other instances (and orders that committed late). Every instance counts every order once, so all of
+// them hold the same counters:
+//   - best sellers: units sold with exponential decay (configurable half-life), so old hits fade out
+//   - trending: hourly unit counts over a sliding 7-day window; last 24h compared to the 6 days before
+// Top lists per category are materialized from the counters and rebuilt at most once per second.
+// Counters are snapshotted to 'product_ranking_snapshots'; at startup the snapshot is restored and only
+// orders placed after it are replayed from the database. Since the counters are the same everywhere, the last
+// snapshot written by any instance is a valid starting point for all of them.
+@Service
+public class ProductRankingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductRankingService.class);
+
+    // Length of each materialized list.
+    static final int MAX_RANKED = 50;
+
+    // Sliding window of the trending ranking (hourly buckets) and the "recent" part of it.
+    static final int WINDOW_HOURS = 7 * 24;
+    static final int RECENT_HOURS = 24;
+
+    // A product needs at least this many units in the recent window to be considered trending.
+    static final int MIN_TRENDING_UNITS = 2;
+
+    // Key of the list over all categories.
+    static final String ALL_CATEGORIES = "";
+
+    private static final long HOUR_MS = 3_600_000L;
+    private static final long MIN_REBUILD_INTERVAL_MS = 1_000L;
+    private static final long MAX_REBUILD_INTERVAL_MS = 60_000L;
+
+    // Forward decay weights grow as exp(lambda * (t - landmark)); rebase before they get too large.
+    private static final double MAX_EXPONENT = 50.0;
+
+    private static final String REPLAY_SQL =
+            "SELECT o.id AS order_id, o.created_at, i.product_id, i.quantity "
+                    + "FROM orders o JOIN order_items i ON i.order_id = o.id "
+                    + "WHERE o.id > ? AND i.product_id IS NOT NULL ORDER BY o.id";
+
+    private static final String DELETE_SNAPSHOT_SQL = "DELETE FROM product_ranking_snapshots";
+
+    private static final String INSERT_SNAPSHOT_SQL =
+            "INSERT INTO product_ranking_snapshots (product_id, score, total_units, hourly_counts, last_order_id, taken_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final ProductRankingSnapshotRepository snapshotRepository;
+    private final CatalogIndex catalogIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Decay rate per millisecond (ln 2 / half-life).
+    private final double lambda;
+
+    // Order ids below the read position that are read again (an order becomes visible when it commits, which
+    // can be after a higher id was read).
+    private final long lookbackOrders;
+
+    // ---- Counters (guarded by 'this') ----
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private long landmark = System.currentTimeMillis();
+    private long lastOrderId;       // Highest order id read from the database (written to snapshots)
+    // Orders counted above lastOrderId - lookbackOrders (from events or reads), so none is counted twice
+    private final NavigableSet<Long> countedOrders = new TreeSet<>();
+    private boolean restored;
+    private boolean dirty;
+    private long lastBuild;
+
+    // ---- Materialized rankings (category key -> product ids, best first) ----
+    private volatile Map<String, long[]> bestSellers = Map.of();
+    private volatile Map<String, long[]> trending = Map.of();
+
+    public ProductRankingService(ProductRankingSnapshotRepository snapshotRepository,
+                                 CatalogIndex catalogIndex,
+                                 DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${rankings.best-seller.half-life-days:30}") double halfLifeDays,
+                                 @Value("${rankings.lookback-orders:1000}") long lookbackOrders) {
+        this.snapshotRepository = snapshotRepository;
+        this.catalogIndex = catalogIndex;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(AdminExportService.FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lambda = Math.log(2) / (halfLifeDays * 24 * HOUR_MS);
+        this.lookbackOrders = lookbackOrders;
+    }
+
+    // =====================================================================
+    // UPDATES
+    // =====================================================================
+
+    // Restores the last snapshot (whichever instance wrote it) and replays newer orders. Events received
+    // meanwhile wait on the monitor and are skipped if the replay already counted their order.
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void restore() {
+        long started = System.currentTimeMillis();
+        List<ProductRankingSnapshot> snapshot = snapshotRepository.findAll();
+        for (ProductRankingSnapshot row : snapshot) {
+            long takenAt = toMillis(row.getTakenAt());
+            Counter counter = counter(row.getProductId());
+            counter.weight = (row.getScore() == null ? 0 : row.getScore()) * Math.exp(lambda * (takenAt - landmark));
+            counter.totalUnits = row.getTotalUnits() == null ? 0 : row.getTotalUnits();
+            parseHourly(counter, row.getHourlyCounts());
+            lastOrderId = Math.max(lastOrderId, row.getLastOrderId() == null ? 0 : row.getLastOrderId());
+        }
+
+        long replayed = readOrders(lastOrderId);
+        restored = true;
+        dirty = true;
+        logger.info("Rankings restored: {} products from snapshot, {} order lines replayed in {} ms",
+                snapshot.size(), replayed, System.currentTimeMillis() - started);
+    }
+
+    // Picks up the orders placed through other instances, and orders of any instance that committed after
+    // a higher id was read.
+    @Scheduled(initialDelayString = "${rankings.poll-ms:10000}", fixedDelayString = "${rankings.poll-ms:10000}")
+    public synchronized void poll() {
+        if (!restored) {
+            return;
+        }
+        if (readOrders(Math.max(0, lastOrderId - lookbackOrders)) > 0) {
+            dirty = true;
+        }
+    }
+
+    // Counts the order lines above 'afterOrderId' that were not counted yet; returns the number of lines counted.
+    private long readOrders(long afterOrderId) {
+        long[] counted = {0};
+        long[] currentOrder = {-1L};
+        boolean[] skipping = {false};
+        jdbcTemplate.query(REPLAY_SQL, rs -> {
+            long orderId = rs.getLong("order_id");
+            if (orderId != currentOrder[0]) {
+                currentOrder[0] = orderId;
+                skipping[0] = !countedOrders.add(orderId);
+                lastOrderId = Math.max(lastOrderId, orderId);
+            }
+            if (!skipping[0]) {
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                long time = createdAt == null ? System.currentTimeMillis() : createdAt.getTime();
+                add(rs.getLong("product_id"), Math.max(1, rs.getInt("quantity")), time);
+                counted[0]++;
+            }
+        }, afterOrderId);
+        countedOrders.headSet(lastOrderId - lookbackOrders, true).clear();
+        return counted[0];
+    }
+
+    @EventListener
+    public synchronized void onOrderPlaced(OrderPlacedEvent event) {
+        if (!restored || event.getOrderId() == null || !countedOrders.add(event.getOrderId())) {
+            return; // Counted (or about to be counted) by the startup replay or a read of the orders table
+        }
+        long time = event.getCreatedAt() == null ? System.currentTimeMillis() : toMillis(event.getCreatedAt());
+        for (OrderPlacedEvent.Line line : event.getLines()) {
+            add(line.getProductId(), Math.max(1, line.getQuantity()), time);
+        }
+        dirty = true;
+    }
+
+    private void add(long productId, int units, long time) {
+        if (lambda * (time - landmark) > MAX_EXPONENT) {
+            rebase(time);
+        }
+        Counter counter = counter(productId);
+        counter.weight += units * Math.exp(lambda * (time - landmark));
+        counter.totalUnits += units;
+
+        long hour = time / HOUR_MS;
+        if (hour > counter.lastHour) {
+            counter.advanceTo(hour);
+        }
+        if (hour > counter.lastHour - WINDOW_HOURS) {
+            counter.hourly[bucket(hour)] += units;
+        }
+    }
+
+    // Moves the landmark forward, scaling all weights so scores stay comparable.
+    private void rebase(long newLandmark) {
+        double factor = Math.exp(-lambda * (newLandmark - landmark));
+        for (Counter counter : counters.values()) {
+            counter.weight *= factor;
+        }
+        landmark = newLandmark;
+    }
+
+    private Counter counter(long productId) {
+        return counters.computeIfAbsent(productId, id -> new Counter());
+    }
+
+    // =====================================================================
+    // RANKINGS
+    // =====================================================================
+
+    public List<Product> getBestSellers(String category, int limit) {
+        rebuildIfNeeded();
+        return resolve(bestSellers.get(CatalogIndex.key(category)), limit);
+    }
+
+    public List<Product> getTrending(String category, int limit) {
+        rebuildIfNeeded();
+        return resolve(trending.get(CatalogIndex.key(category)), limit);
+    }
+
+    // Current decayed best-seller score of a product (0 when it never sold). Used to weight other rankings.
+    public synchronized double getScore(long productId) {
+        Counter counter = counters.get(productId);
+        return counter == null ? 0 : counter.weight * Math.exp(-lambda * (System.currentTimeMillis() - landmark));
+    }
+
+    private synchronized void rebuildIfNeeded() {
+        long now = System.currentTimeMillis();
+        long age = now - lastBuild;
+        if ((dirty && age >= MIN_REBUILD_INTERVAL_MS) || age >= MAX_REBUILD_INTERVAL_MS) {
+            rebuild(now);
+        }
+    }
+
+    private void rebuild(long now) {
+        long nowHour = now / HOUR_MS;
+        Map<String, List<Ranked>> bestByCategory = new HashMap<>();
+        Map<String, List<Ranked>> trendingByCategory = new HashMap<>();
+
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            Product product = catalogIndex.getProduct(entry.getKey());
+            if (product == null) {
+                continue; // Deleted from the catalog
+            }
+            Counter counter = entry.getValue();
+            String category = CatalogIndex.key(product.getCategory());
+
+            Ranked best = new Ranked(entry.getKey(), counter.weight);
+            bestByCategory.computeIfAbsent(category, k -> new ArrayList<>()).add(best);
+            bestByCategory.computeIfAbsent(ALL_CATEGORIES, k -> new ArrayList<>()).add(best);
+
+            long recent = counter.sum(nowHour - RECENT_HOURS + 1, nowHour);
+            if (recent >= MIN_TRENDING_UNITS) {
+                long previous = counter.sum(nowHour - WINDOW_HOURS + 1, nowHour - RECENT_HOURS);
+                double expected = previous / (double) (WINDOW_HOURS / RECENT_HOURS - 1);
+                double score = (recent - expected) / Math.sqrt(expected + 1);
+                if (score > 0) {
+                    Ranked trend = new Ranked(entry.getKey(), score);
+                    trendingByCategory.computeIfAbsent(category, k -> new ArrayList<>()).add(trend);
+                    trendingByCategory.computeIfAbsent(ALL_CATEGORIES, k -> new ArrayList<>()).add(trend);
+                }
+            }
+        }
+
+        bestSellers = top(bestByCategory);
+        trending = top(trendingByCategory);
+        dirty = false;
+        lastBuild = now;
+    }
+
+    private static Map<String, long[]> top(Map<String, List<Ranked>> byCategory) {
+        Map<String, long[]> result = new HashMap<>();
+        for (Map.Entry<String, List<Ranked>> entry : byCategory.entrySet()) {
+            List<Ranked> list = entry.getValue();
+            list.sort(Comparator.comparingDouble((Ranked r) -> r.score).reversed().thenComparingLong(r -> r.productId));
+            result.put(entry.getKey(), list.stream().limit(MAX_RANKED).mapToLong(r -> r.productId).toArray());
+        }
+        return result;
+    }
+
+    private List<Product> resolve(long[] productIds, int limit) {
+        List<Product> products = new ArrayList<>();
+        if (productIds == null) {
+            return products;
+        }
+        for (long productId : productIds) {
+            if (products.size() == limit) {
+                break;
+            }
+            Product product = catalogIndex.getProduct(productId);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    // =====================================================================
+    // SNAPSHOTS
+    // =====================================================================
+
+    // Every instance writes the same counters; the last one to write wins, which is as good as any other.
+    @Scheduled(initialDelayString = "${rankings.snapshot-ms:300000}", fixedDelayString = "${rankings.snapshot-ms:300000}")
+    public void snapshot() {
+        List<Object[]> rows = new ArrayList<>();
+        long takenAt = System.currentTimeMillis();
+        synchronized (this) {
+            if (!restored) {
+                return;
+            }
+            // Counters from events must not run ahead of lastOrderId, or the next restore would replay them
+            poll();
+            double decay = Math.exp(-lambda * (takenAt - landmark));
+            Timestamp timestamp = new Timestamp(takenAt);
+            for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+                Counter counter = entry.getValue();
+                rows.add(new Object[]{entry.getKey(), counter.weight * decay, counter.totalUnits,
+                        formatHourly(counter, takenAt / HOUR_MS), lastOrderId, timestamp});
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_SNAPSHOT_SQL);
+                for (int from = 0; from < rows.size(); from += ProductBulkService.CHUNK_SIZE) {
+                    jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_SQL, rows.subList(from, Math.min(rows.size(), from + ProductBulkService.CHUNK_SIZE)));
+                }
+            });
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            // Another instance replaced the snapshot at the same time; theirs is just as good
+            logger.info("Rankings snapshot not written, another instance was writing one: {}", e.getMessage());
+            return;
+        }
+        logger.debug("Rankings snapshot written ({} products)", rows.size());
+    }
+
+    // Last snapshot on a graceful shutdown, so the next start replays as little as possible.
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            logger.warn("Could not write rankings snapshot on shutdown: {}", e.getMessage());
+        }
+    }
+
+    private static String formatHourly(Counter counter, long nowHour) {
+        StringBuilder sb = new StringBuilder();
+        for (long hour = Math.max(nowHour, counter.lastHour) - WINDOW_HOURS + 1; hour <= counter.lastHour; hour++) {
+            int units = counter.hourly[bucket(hour)];
+            if (units > 0) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(hour).append(':').append(units);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void parseHourly(Counter counter, String hourlyCounts) {
+        if (hourlyCounts == null || hourlyCounts.isBlank()) {
+            return;
+        }
+        for (String part : hourlyCounts.split(",")) {
+            int colon = part.indexOf(':');
+            long hour = Long.parseLong(part.substring(0, colon));
+            int units = Integer.parseInt(part.substring(colon + 1));
+            if (hour > counter.lastHour) {
+                counter.advanceTo(hour);
+            }
+            if (hour > counter.lastHour - WINDOW_HOURS) {
+                counter.hourly[bucket(hour)] += units;
+            }
+        }
+    }
+
+    private static int bucket(long hour) {
+        return (int) Math.floorMod(hour, (long) WINDOW_HOURS);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? System.currentTimeMillis() : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Counters of one product.
+    private static final class Counter {
+        // Forward-decayed units: sum of units * exp(lambda * (t - landmark))
+        double weight;
+        long totalUnits;
+
+        // Ring buffer of units per hour; bucket(h) holds hour h for h in (lastHour - WINDOW_HOURS, lastHour]
+        final int[] hourly = new int[WINDOW_HOURS];
+        long lastHour = Long.MIN_VALUE / 2;
+
+        // Slides the window forward, clearing the buckets of the hours that fall out of it.
+        void advanceTo(long hour) {
+            long clearFrom = Math.max(lastHour + 1, hour - WINDOW_HOURS + 1);
+            for (long h = clearFrom; h <= hour; h++) {
+                hourly[bucket(h)] = 0;
+            }
+            lastHour = hour;
+        }
+
+        // Units sold in hours [from, to], limited to the hours still held in the ring buffer.
+        long sum(long from, long to) {
+            long start = Math.max(from, lastHour - WINDOW_HOURS + 1);
+            long end = Math.min(to, lastHour);
+            long total = 0;
+            for (long h = start; h <= end; h++) {
+                total += hourly[bucket(h)];
+            }
+            return total;
+        }
+    }
+
+    private static final class Ranked {
+        final long productId;
+        final double score;
+
+        Ranked(long productId, double score) {
+            this.productId = productId;
+            this.score = score;
+        }
+    }
+}
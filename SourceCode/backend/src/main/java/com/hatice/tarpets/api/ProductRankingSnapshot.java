@@ -0,0 +1,84 @@
+package com.hatice.tarpets.api;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Product Ranking Snapshot Entity.
+// Periodic copy of the in-memory best-seller/trending counters (ProductRankingService), one row per product.
+// Lets a restarted instance resume from the last snapshot and replay only the orders placed after it.
+@Entity
+@Table(name = "product_ranking_snapshots")
+public class ProductRankingSnapshot {
+
+    // Not generated: one row per product
+    @Id
+    private Long productId;
+
+    // Decayed best-seller score, as of 'takenAt'
+    private Double score;
+
+    // Units sold since tracking began (undecayed)
+    private Long totalUnits;
+
+    // Sparse hourly unit counts of the trending window: "epochHour:units,epochHour:units,..."
+    @Column(length = 4000)
+    private String hourlyCounts;
+
+    // Highest order id included in this snapshot (same value on every row of a snapshot)
+    private Long lastOrderId;
+
+    private LocalDateTime takenAt;
+
+    public ProductRankingSnapshot() {}
+
+    // ---- GETTERS & SETTERS ----
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+
+    public void setScore(Double score) {
+        this.score = score;
+    }
+
+    public Long getTotalUnits() {
+        return totalUnits;
+    }
+
+    public void setTotalUnits(Long totalUnits) {
+        this.totalUnits = totalUnits;
+    }
+
+    public String getHourlyCounts() {
+        return hourlyCounts;
+    }
+
+    public void setHourlyCounts(String hourlyCounts) {
+        this.hourlyCounts = hourlyCounts;
+    }
+
+    public Long getLastOrderId() {
+        return lastOrderId;
+    }
+
+    public void setLastOrderId(Long lastOrderId) {
+        this.lastOrderId = lastOrderId;
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    public void setTakenAt(LocalDateTime takenAt) {
+        this.takenAt = takenAt;
+    }
+}
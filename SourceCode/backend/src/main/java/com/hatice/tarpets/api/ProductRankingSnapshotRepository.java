@@ -0,0 +1,8 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+// Data Access Object (DAO) for ranking snapshots.
+// Read once at startup; snapshots are written in bulk by ProductRankingService.
+public interface ProductRankingSnapshotRepository extends JpaRepository<ProductRankingSnapshot, Long> {
+}
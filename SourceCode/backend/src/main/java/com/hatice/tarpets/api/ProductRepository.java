@@ -1,27 +1,34 @@
 package com.hatice.tarpets.api;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
 
 // Data Access Object (DAO) for Product entities.
 // Manages search, filtering, and listing operations on the 'products' table.
 // Spring Data JPA analyzes method names to automatically generate the required SQL queries.
+// The finders below are cached in the "product-queries" region (TieredCacheConfig); ProductCacheInvalidator
+// drops the region whenever products change.
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
     // 1. Filter by Main Category
     // Triggered when category buttons (e.g., Cat, Dog) are clicked in the Frontend.
+    @Cacheable(cacheNames = TieredCacheConfig.PRODUCT_QUERIES, key = "'category:' + #p0", sync = true)
     List<Product> findByCategory(String category);
 
     // 2. Filter by Subcategory
     // Retrieves specific groups like "Dry Food", "Toys", etc.
+    @Cacheable(cacheNames = TieredCacheConfig.PRODUCT_QUERIES, key = "'subcategory:' + #p0", sync = true)
     List<Product> findBySubcategory(String subcategory);
 
     // 3. Filter Hot Deals (Discounted Products)
     // Lists products where 'isDiscounted' is true. Used for the main page showcase.
+    @Cacheable(cacheNames = TieredCacheConfig.PRODUCT_QUERIES, key = "'discounted'", sync = true)
     List<Product> findByIsDiscountedTrue();
 
     // 4. Search Functionality
     // Finds products where the name contains the search keyword.
     // IgnoreCase: Case-insensitive matching (e.g., "Whiskas" matches "whiskas").
+    @Cacheable(cacheNames = TieredCacheConfig.PRODUCT_QUERIES, key = "'search:' + #p0", sync = true)
     List<Product> findByNameContainingIgnoreCase(String name);
 }
\ No newline at end of file
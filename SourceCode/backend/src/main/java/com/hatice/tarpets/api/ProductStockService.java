@@ -0,0 +1,99 @@
+package com.hatice.tarpets.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stock Adjustment Service.
+// Relative stock changes ("+5 received", "-2 damaged") commute, so instead of returning 409 like a full
+// update would, a version conflict is retried on the fresh row: read, apply the delta, write with the version
+// check, and on a conflict back off briefly and start over. No row lock is held between read and write.
+@Service
+public class ProductStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductStockService.class);
+
+    private final ProductRepository productRepository;
+    private final ProductWriteBuffer productWriteBuffer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+
+    // Attempts before giving up with 409 (only reached under extreme contention on one product)
+    private final int maxAttempts;
+
+    // Version conflicts that were retried (see ProductStockContentionTests)
+    private final AtomicLong conflicts = new AtomicLong();
+
+    public ProductStockService(ProductRepository productRepository, ProductWriteBuffer productWriteBuffer,
+                               ApplicationEventPublisher eventPublisher, EntityManagerFactory entityManagerFactory,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${products.stock.max-attempts:10}") int maxAttempts) {
+        this.productRepository = productRepository;
+        this.productWriteBuffer = productWriteBuffer;
+        this.eventPublisher = eventPublisher;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+    }
+
+    // Adds delta (may be negative) to the stock; the result must not drop below zero.
+    public Product adjustStock(Long productId, int delta) {
+        // A buffered PATCH of 'stock' would overwrite this adjustment when it is written later
+        productWriteBuffer.flush(productId);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Product saved = transactionTemplate.execute(status -> {
+                    Product product = productRepository.findById(productId).orElseThrow(() ->
+                            new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + productId));
+                    int stock = product.getStock() == null ? 0 : product.getStock();
+                    if ((long) stock + delta < 0) {
+                        throw new ResponseStatusException(HttpStatus.CONFLICT, "Only " + stock + " in stock for product " + productId);
+                    }
+                    product.setStock(stock + delta);
+                    return product;
+                });
+                eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+                return saved;
+            } catch (ObjectOptimisticLockingFailureException e) {
+                conflicts.incrementAndGet();
+                // The cached copy may be the outdated one
+                entityManagerFactory.getCache().evict(Product.class, productId);
+                if (attempt >= maxAttempts) {
+                    logger.warn("Stock adjustment of product {} still conflicting after {} attempts", productId, attempt);
+                    throw new ConcurrentEditException("Product " + productId + " is being modified too often, try again",
+                            productRepository.findById(productId).orElse(null));
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    long getConflicts() {
+        return conflicts.get();
+    }
+
+    // Randomized, growing pause so colliding writers do not collide again on the next attempt.
+    private static void backOff(int attempt) {
+        long maxMicros = 200L << Math.min(attempt, 6);
+        try {
+            TimeUnit.MICROSECONDS.sleep(ThreadLocalRandom.current().nextLong(maxMicros));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package com.hatice.tarpets.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Write-Behind Buffer for Partial Product Updates (PATCH /api/products/{id}).
+// The database write of a patch is buffered: successive patches of the same product are merged, and the flush job
+// writes only the changed columns, one JDBC batch per distinct column set, all in one transaction. A request
+// records its change and updates the in-memory catalog views right away (ProductPatchedEvent); the
+// ProductChangedEvent (caches, price history, change log) is published by the flush once the batch is committed.
+// Until then, reads that bypass the catalog see pending changes through overlay().
+// The version a client sends is checked against the database when the patch arrives (409 if it is stale), and
+// each buffered UPDATE is conditional on that version, so a full update (PUT) or a stock adjustment from another
+// instance that commits in between is never overwritten: the patch is dropped, logged and counted
+// ('tarpets.products.write-behind.conflicts'), and the catalog goes back to the written product.
+// Pending changes are written on a timer, when the buffer is full, and on shutdown (SmartLifecycle stop, before
+// the DataSource closes; retried until products.write-behind.shutdown-timeout-ms, then row by row).
+@Service
+public class ProductWriteBuffer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductWriteBuffer.class);
+
+    // Patchable fields: JSON name -> column, setter and value parsing
+    private static final Map<String, Field> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("name", new Field("name", true, Field::text255, (p, v) -> p.setName((String) v)));
+        FIELDS.put("description", new Field("description", false, v -> Field.text(v, 1000), (p, v) -> p.setDescription((String) v)));
+        FIELDS.put("price", new Field("price", true, Field::amount, (p, v) -> p.setPrice((Double) v)));
+        FIELDS.put("oldPrice", new Field("old_price", false, Field::amount, (p, v) -> p.setOldPrice((Double) v)));
+        FIELDS.put("isDiscounted", new Field("is_discounted", false, Field::flag, (p, v) -> p.setIsDiscounted((Boolean) v)));
+        FIELDS.put("category", new Field("category", false, Field::text255, (p, v) -> p.setCategory((String) v)));
+        FIELDS.put("subcategory", new Field("subcategory", false, Field::text255, (p, v) -> p.setSubcategory((String) v)));
+        FIELDS.put("imageUrl", new Field("image_url", false, v -> Field.text(v, 2000), (p, v) -> p.setImageUrl((String) v)));
+        FIELDS.put("stock", new Field("stock", true, Field::count, (p, v) -> p.setStock((Integer) v)));
+    }
+
+    // Pause between write attempts while shutting down
+    private static final long SHUTDOWN_RETRY_MS = 200L;
+
+    private static final String VERSION_SQL = "SELECT COALESCE(version, 0) FROM products WHERE id = ?";
+
+    private final CatalogIndex catalogIndex;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductCacheInvalidator cacheInvalidator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Buffered patches dropped because the product was changed by someone else before they were written
+    private final Counter conflictCounter;
+
+    // Pending products before a patch flushes synchronously (keeps the buffer and a flush small)
+    private final int maxPending;
+
+    // How long stop() keeps retrying a failing write before falling back to single-row writes
+    private final long shutdownTimeoutMs;
+
+    // Product id -> changes not written yet; guarded by 'this'
+    private Map<Long, Pending> pending = new LinkedHashMap<>();
+
+    // Changes being written by the running flush (still overlaid on reads until their events are published)
+    private Map<Long, Pending> flushing = Map.of();
+
+    // Serializes flushes, so two writes of the same product can never commit out of order
+    private final Object flushLock = new Object();
+
+    // Completed writes so far; a version read that overlapped one is read again (guarded by 'this')
+    private long writes;
+
+    private volatile boolean running;
+
+    public ProductWriteBuffer(CatalogIndex catalogIndex, ProductRepository productRepository,
+                              ApplicationEventPublisher eventPublisher, ProductCacheInvalidator cacheInvalidator,
+                              DataSource dataSource, PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${products.write-behind.max-pending:1000}") int maxPending,
+                              @Value("${products.write-behind.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        this.catalogIndex = catalogIndex;
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.cacheInvalidator = cacheInvalidator;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxPending = maxPending;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.conflictCounter = Counter.builder("tarpets.products.write-behind.conflicts")
+                .description("Buffered product updates dropped because the product was modified by someone else")
+                .register(meterRegistry);
+    }
+
+    // =====================================================================
+    // PATCH
+    // =====================================================================
+
+    // Validates and records the changes, and shows them in the catalog; returns the product as it will be once they
+    // are written (including the version it will have). With an expected version (If-Match, or "version" in the
+    // body) the patch is rejected with 409 when the product has changed since the client loaded it: compared with
+    // the pending changes, or else with the version in the database (the catalog may not have seen a change yet).
+    public Product patch(Long productId, Map<String, Object> changes, Long expectedVersion) {
+        if (changes == null || changes.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No fields to update");
+        }
+        Map<String, Object> parsed = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            Field field = FIELDS.get(change.getKey());
+            if (field == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Field cannot be updated: " + change.getKey() + " (allowed: " + FIELDS.keySet() + ")");
+            }
+            parsed.put(change.getKey(), field.parse(change.getKey(), change.getValue()));
+        }
+
+        boolean flushNow;
+        Product patched;
+        while (true) {
+            long writesBefore;
+            synchronized (this) {
+                writesBefore = writes;
+            }
+            // Outside the lock; only used when nothing of the product is buffered (then it is the written version)
+            long writtenVersion = readVersion(productId);
+            synchronized (this) {
+                boolean buffered = pending.containsKey(productId) || flushing.containsKey(productId);
+                if (!buffered && writes != writesBefore) {
+                    continue; // A write committed meanwhile, possibly of this product
+                }
+                // Read under the lock: a flush updates the catalog before it stops overlaying its changes
+                Product current = catalogIndex.getProduct(productId);
+                if (current == null || (!buffered && versionOf(current) != writtenVersion)) {
+                    current = productRepository.findById(productId).orElseThrow(() ->
+                            new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + productId));
+                }
+                // Copy: catalog readers may still hold the instance
+                patched = overlay(copy(current));
+                long version = buffered ? versionOf(patched) : writtenVersion;
+                patched.setVersion(version);
+                if (expectedVersion != null && expectedVersion != version) {
+                    throw new ConcurrentEditException("Product was modified by someone else", patched);
+                }
+                parsed.forEach((name, value) -> FIELDS.get(name).setter.accept(patched, value));
+
+                Pending entry = pending.get(productId);
+                if (entry == null) {
+                    // Based on the version the product has once everything before this patch is written
+                    entry = new Pending(version);
+                    pending.put(productId, entry);
+                }
+                entry.changes.putAll(parsed);
+                patched.setVersion(entry.baseVersion + 1);
+                flushNow = !running || pending.size() >= maxPending;
+
+                // In-memory views only (under the lock, so they apply patches in order); a copy, as the
+                // caller gets 'patched'
+                eventPublisher.publishEvent(new ProductPatchedEvent(copy(patched)));
+                break;
+            }
+        }
+        if (flushNow) {
+            flush();
+        }
+        return patched;
+    }
+
+    private long readVersion(Long productId) {
+        try {
+            return jdbcTemplate.queryForObject(VERSION_SQL, Long.class, productId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + productId);
+        }
+    }
+
+    // Pending changes of the product applied to the given (database or catalog) copy, for reads that must see
+    // them before they are written. The version is the one the product will have after the write.
+    public Product overlay(Product product) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        Long version = null;
+        synchronized (this) {
+            for (Map<Long, Pending> changeSet : List.of(flushing, pending)) {
+                Pending entry = changeSet.get(product.getId());
+                if (entry != null) {
+                    changes.putAll(entry.changes);
+                    version = entry.baseVersion + 1;
+                }
+            }
+        }
+        if (changes.isEmpty()) {
+            return product;
+        }
+        Product result = copy(product);
+        changes.forEach((name, value) -> FIELDS.get(name).setter.accept(result, value));
+        result.setVersion(version);
+        return result;
+    }
+
+    // Products with changes not yet committed to the database (pending or being written).
+    public synchronized Set<Long> getPendingIds() {
+        Set<Long> ids = new HashSet<>(flushing.keySet());
+        ids.addAll(pending.keySet());
+        return ids;
+    }
+
+    // Drops pending changes: a full update (PUT) or a delete supersedes them.
+    public synchronized void discard(Long productId) {
+        pending.remove(productId);
+    }
+
+    // =====================================================================
+    // FLUSH
+    // =====================================================================
+
+    @Scheduled(initialDelayString = "${products.write-behind.flush-ms:500}", fixedDelayString = "${products.write-behind.flush-ms:500}")
+    public void flush() {
+        synchronized (flushLock) {
+            flushPending();
+        }
+    }
+
+    // Writes the product's buffered changes now (together with everything else pending), so a versioned update
+    // that follows sees them and their version increment. Waits for a flush already writing them.
+    public void flush(Long productId) {
+        synchronized (flushLock) {
+            boolean buffered;
+            synchronized (this) {
+                buffered = pending.containsKey(productId);
+            }
+            if (buffered) {
+                flushPending();
+            }
+        }
+    }
+
+    // Writes everything pending in one transaction; false when the write failed (the changes are pending again).
+    private boolean flushPending() {
+        Map<Long, Pending> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return true;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            flushing = batch;
+        }
+
+        Set<Long> conflicts;
+        try {
+            conflicts = write(batch);
+        } catch (RuntimeException e) {
+            requeue(batch);
+            logger.warn("Writing {} product updates failed, retrying on the next flush: {}", batch.size(), e.getMessage());
+            return false;
+        }
+        written(batch, conflicts);
+        return true;
+    }
+
+    // Last resort at shutdown: each product in its own transaction, so one bad row does not keep the others
+    // from being written. Returns the ids that could not be written.
+    private Set<Long> flushEachRow() {
+        Map<Long, Pending> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            flushing = batch;
+        }
+        Set<Long> failed = new TreeSet<>();
+        for (Map.Entry<Long, Pending> entry : batch.entrySet()) {
+            Map<Long, Pending> row = Map.of(entry.getKey(), entry.getValue());
+            try {
+                written(row, write(row));
+            } catch (RuntimeException e) {
+                failed.add(entry.getKey());
+                logger.error("Writing the update of product {} failed: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        synchronized (this) {
+            flushing = Map.of();
+        }
+        return failed;
+    }
+
+    // Runs the conditional UPDATEs in one transaction; returns the products whose version no longer matched.
+    private Set<Long> write(Map<Long, Pending> batch) {
+        // Same set of columns -> same UPDATE statement -> one JDBC batch
+        Map<String, List<Object[]>> statements = new TreeMap<>();
+        Map<String, List<Long>> statementIds = new TreeMap<>();
+        for (Map.Entry<Long, Pending> entry : batch.entrySet()) {
+            Map<String, Object> changes = entry.getValue().changes;
+            List<String> names = new ArrayList<>(changes.keySet());
+            names.sort(null);
+            StringBuilder sql = new StringBuilder("UPDATE products SET ");
+            Object[] args = new Object[names.size() + 3];
+            for (int i = 0; i < names.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(FIELDS.get(names.get(i)).column).append(" = ?");
+                args[i] = changes.get(names.get(i));
+            }
+            sql.append(", version = ? WHERE id = ? AND COALESCE(version, 0) = ?");
+            args[names.size()] = entry.getValue().baseVersion + 1;
+            args[names.size() + 1] = entry.getKey();
+            args[names.size() + 2] = entry.getValue().baseVersion;
+            statements.computeIfAbsent(sql.toString(), s -> new ArrayList<>()).add(args);
+            statementIds.computeIfAbsent(sql.toString(), s -> new ArrayList<>()).add(entry.getKey());
+        }
+
+        Set<Long> conflicts = new TreeSet<>();
+        transactionTemplate.executeWithoutResult(status -> statements.forEach((sql, rows) -> {
+            List<Long> ids = statementIds.get(sql);
+            for (int from = 0; from < rows.size(); from += ProductBulkService.CHUNK_SIZE) {
+                int to = Math.min(rows.size(), from + ProductBulkService.CHUNK_SIZE);
+                int[] counts = jdbcTemplate.batchUpdate(sql, rows.subList(from, to));
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) { // SUCCESS_NO_INFO (-2) counts as written
+                        conflicts.add(ids.get(from + i));
+                    }
+                }
+            }
+        }));
+        return conflicts;
+    }
+
+    // Puts failed changes back without overwriting anything patched meanwhile (the older base version stays).
+    private synchronized void requeue(Map<Long, Pending> batch) {
+        flushing = Map.of();
+        batch.forEach((id, failed) -> pending.merge(id, failed, (newer, older) -> {
+            older.changes.putAll(newer.changes);
+            return older;
+        }));
+    }
+
+    // After the commit: evict Hibernate's stale copies and announce the products as written.
+    private void written(Map<Long, Pending> batch, Set<Long> conflicts) {
+        // Written with plain JDBC: Hibernate's cached copies are stale now (other instances evict on the event)
+        cacheInvalidator.evictWritten(batch.keySet());
+        for (Map.Entry<Long, Pending> entry : batch.entrySet()) {
+            Long id = entry.getKey();
+            if (conflicts.contains(id)) {
+                // Changed (or deleted) by someone else after the patch was accepted: theirs stands, and the
+                // catalog (which already shows the patch) goes back to it
+                conflictCounter.increment();
+                logger.warn("Buffered update of product {} dropped, the product was modified by someone else (expected version {}): {}",
+                        id, entry.getValue().baseVersion, entry.getValue().changes);
+                productRepository.findById(id).ifPresentOrElse(
+                        product -> eventPublisher.publishEvent(ProductChangedEvent.saved(product)),
+                        () -> eventPublisher.publishEvent(ProductChangedEvent.deleted(id)));
+                continue;
+            }
+            Product base = catalogIndex.getProduct(id);
+            if (base == null) {
+                base = productRepository.findById(id).orElse(null);
+                if (base == null) {
+                    continue;
+                }
+            }
+            Product product = copy(base);
+            entry.getValue().changes.forEach((name, value) -> FIELDS.get(name).setter.accept(product, value));
+            product.setVersion(entry.getValue().baseVersion + 1);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+        }
+        synchronized (this) {
+            if (flushing == batch) {
+                flushing = Map.of();
+            }
+            writes++;
+        }
+        logger.debug("Flushed {} product updates ({} conflicts)", batch.size(), conflicts.size());
+    }
+
+    // ---- SmartLifecycle: patches are buffered only while running; stop() writes everything out, and patches
+    // arriving after that (requests still draining) are written synchronously ----
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        synchronized (flushLock) {
+            long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+            while (!flushPending() && System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(SHUTDOWN_RETRY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            boolean left;
+            synchronized (this) {
+                left = !pending.isEmpty();
+            }
+            if (left) {
+                Set<Long> lost = flushEachRow();
+                if (!lost.isEmpty()) {
+                    logger.error("Shutting down with {} product updates not written, lost: products {}", lost.size(), lost);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static long versionOf(Product product) {
+        return product.getVersion() == null ? 0 : product.getVersion();
+    }
+
+    private static Product copy(Product source) {
+        Product product = new Product(source.getName(), source.getDescription(), source.getPrice(), source.getOldPrice(),
+                source.getIsDiscounted(), source.getCategory(), source.getSubcategory(), source.getImageUrl(), source.getStock());
+        product.setId(source.getId());
+        product.setVersion(source.getVersion());
+        return product;
+    }
+
+    // Merged changes of one product and the version they are based on.
+    private static final class Pending {
+
+        private final long baseVersion;
+        private final Map<String, Object> changes = new LinkedHashMap<>();
+
+        Pending(long baseVersion) {
+            this.baseVersion = baseVersion;
+        }
+    }
+
+    // One patchable field.
+    private static final class Field {
+
+        private final String column;
+        private final boolean required;
+        private final Function<Object, Object> parser;
+        private final BiConsumer<Product, Object> setter;
+
+        Field(String column, boolean required, Function<Object, Object> parser,
+              BiConsumer<Product, Object> setter) {
+            this.column = column;
+            this.required = required;
+            this.parser = parser;
+            this.setter = setter;
+        }
+
+        Object parse(String name, Object value) {
+            if (value == null) {
+                if (required) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, name + " cannot be null");
+                }
+                return null;
+            }
+            try {
+                return parser.apply(value);
+            } catch (IllegalArgumentException | ClassCastException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid value for " + name + ": " + value);
+            }
+        }
+
+        static Object text255(Object value) {
+            return text(value, 255);
+        }
+
+        static Object text(Object value, int maxLength) {
+            String text = (String) value;
+            if (text.length() > maxLength) {
+                throw new IllegalArgumentException("too long");
+            }
+            return text;
+        }
+
+        static Object amount(Object value) {
+            double amount = ((Number) value).doubleValue();
+            if (amount < 0 || Double.isNaN(amount) || Double.isInfinite(amount)) {
+                throw new IllegalArgumentException("negative");
+            }
+            return amount;
+        }
+
+        static Object count(Object value) {
+            Number number = (Number) value;
+            if (number.doubleValue() != number.intValue() || number.intValue() < 0) {
+                throw new IllegalArgumentException("not a count");
+            }
+            return number.intValue();
+        }
+
+        static Object flag(Object value) {
+            return (Boolean) value;
+        }
+    }
+}
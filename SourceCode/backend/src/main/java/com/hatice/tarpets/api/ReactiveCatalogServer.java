@@ -0,0 +1,379 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import org.springframework.web.reactive.handler.WebFluxResponseStatusExceptionHandler;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+// Reactive Catalog Read API ("catalog.reactive.enabled=true").
+// The product read endpoints of ProductController (listing, search, category, discounted, detail) under
+// /api/reactive/products, served by a separate Reactor Netty server on 'catalog.reactive.port'. A few event-loop
+// threads handle every connection: nothing here blocks, since all answers come from the in-memory catalog
+// (CatalogSnapshot when current, CatalogIndex otherwise) and never from JPA.
+// Responses are streamed with backpressure: listings are encoded in small chunks only as fast as the client
+// reads, so a slow client holds neither a thread nor its whole response. Send "Accept: application/x-ndjson" to
+// receive one product per line instead of a JSON array.
+// Read-only public data, like the GET endpoints of ProductController (no Spring Security chain on this port).
+// Compared with ProductController by ReactiveCatalogLoadBenchmark (src/test).
+@Component
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+public class ReactiveCatalogServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveCatalogServer.class);
+
+    static final String BASE_PATH = "/api/reactive/products";
+
+    // Target size of one written buffer. Reactor Netty keeps up to 128 written buffers in flight per connection
+    // (MonoSendMany), so this bounds what a stalled client holds on the server to about 128 KB.
+    private static final int CHUNK_BYTES = 1024;
+
+    private final CatalogIndex catalogIndex;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final FuzzySearchService fuzzySearchService;
+    private final ObjectMapper objectMapper;
+    private final int port;
+    private final int compressionMinSize;
+
+    private volatile DisposableServer server;
+
+    public ReactiveCatalogServer(CatalogIndex catalogIndex, CatalogSnapshotService catalogSnapshotService,
+                                 FuzzySearchService fuzzySearchService, ObjectMapper objectMapper,
+                                 @Value("${catalog.reactive.port:8081}") int port,
+                                 @Value("${compression.brotli.min-response-size:2048}") int compressionMinSize) {
+        this.catalogIndex = catalogIndex;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.fuzzySearchService = fuzzySearchService;
+        this.objectMapper = objectMapper;
+        this.port = port;
+        this.compressionMinSize = compressionMinSize;
+    }
+
+    // Once the in-memory catalog is loaded (the other ApplicationReadyEvent listeners run first).
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void start() {
+        // Same JSON as the MVC endpoints: Spring Boot's ObjectMapper (ProductJsonSerializer)
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.addAllowedOrigin("http://localhost:3000");
+        cors.addAllowedMethod("GET");
+        cors.addAllowedHeader("*");
+        UrlBasedCorsConfigurationSource corsSource = new UrlBasedCorsConfigurationSource();
+        corsSource.registerCorsConfiguration("/**", cors);
+
+        HttpHandler httpHandler = WebHttpHandlerBuilder.webHandler(RouterFunctions.toWebHandler(routes(), strategies))
+                .filter(new CorsWebFilter(corsSource))
+                .exceptionHandler(new WebFluxResponseStatusExceptionHandler())
+                .build();
+
+        server = HttpServer.create()
+                .port(port)
+                .compress(compressionMinSize)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        logger.info("Reactive catalog API listening on port {}", server.port());
+    }
+
+    @PreDestroy
+    public void stop() {
+        DisposableServer running = server;
+        if (running != null) {
+            running.disposeNow();
+        }
+    }
+
+    // Actual port (differs from the configured one when that is 0)
+    public int getPort() {
+        return server.port();
+    }
+
+    RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET(BASE_PATH, this::getAllProducts)
+                .GET(BASE_PATH + "/discounted", this::getDiscountedProducts)
+                .GET(BASE_PATH + "/category/{category}", this::getProductsByCategory)
+                .GET(BASE_PATH + "/{id}", this::getProductById)
+                .build();
+    }
+
+    // =====================================================================
+    // HANDLERS
+    // =====================================================================
+
+    // 1. Listing and search: ?category=, ?search= and ?search=&fuzzy=true as in ProductController.
+    Mono<ServerResponse> getAllProducts(ServerRequest request) {
+        String category = request.queryParam("category").orElse("");
+        String search = request.queryParam("search").orElse("");
+        boolean fuzzy = request.queryParam("fuzzy").map(Boolean::parseBoolean).orElse(false);
+
+        if (!search.isEmpty()) {
+            return respond(request, () -> fuzzy ? fuzzySearch(search) : nameSearch(search));
+        }
+        if (!category.isEmpty()) {
+            return respond(request, () -> byCategory(category));
+        }
+        return respond(request, () -> {
+            CatalogSnapshot snapshot = catalogSnapshotService.current();
+            return snapshot != null ? snapshot.all() : sortedById(catalogIndex.getProducts());
+        });
+    }
+
+    // 2. Products of one category.
+    Mono<ServerResponse> getProductsByCategory(ServerRequest request) {
+        String category = request.pathVariable("category");
+        return respond(request, () -> byCategory(category));
+    }
+
+    // 3. Discounted products.
+    Mono<ServerResponse> getDiscountedProducts(ServerRequest request) {
+        return respond(request, () -> {
+            CatalogSnapshot snapshot = catalogSnapshotService.current();
+            if (snapshot != null) {
+                return snapshot.discounted();
+            }
+            List<Product> products = new ArrayList<>();
+            for (Product product : sortedById(catalogIndex.getProducts())) {
+                if (Boolean.TRUE.equals(product.getIsDiscounted())) {
+                    products.add(product);
+                }
+            }
+            return products;
+        });
+    }
+
+    // 4. Single product.
+    Mono<ServerResponse> getProductById(ServerRequest request) {
+        long id;
+        try {
+            id = Long.parseLong(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid product id: " + request.pathVariable("id")));
+        }
+        return Mono.fromSupplier(() -> catalogIndex.getProduct(id))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found: " + id)))
+                .flatMap(product -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(product));
+    }
+
+    // JSON array, or NDJSON when the client asks for a stream. The listing is taken when the body is written.
+    private Mono<ServerResponse> respond(ServerRequest request, Supplier<List<Product>> listing) {
+        boolean ndjson = request.headers().accept().contains(MediaType.APPLICATION_NDJSON);
+        return ServerResponse.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body((message, context) -> message.writeWith(
+                        Flux.defer(() -> encode(listing.get(), message.bufferFactory(), ndjson))));
+    }
+
+    // =====================================================================
+    // STREAMING ENCODER
+    // =====================================================================
+
+    // Encodes the listing into buffers of about CHUNK_BYTES, each one only when the connection asks for more
+    // (Flux.generate), so a stalled client holds its position in the list and no encoded output beyond that.
+    private Flux<DataBuffer> encode(List<Product> products, DataBufferFactory bufferFactory, boolean ndjson) {
+        return Flux.<DataBuffer, ChunkEncoder>generate(
+                        () -> new ChunkEncoder(objectMapper, products, ndjson),
+                        (encoder, sink) -> {
+                            try {
+                                DataBuffer buffer = encoder.next(bufferFactory);
+                                if (buffer != null) {
+                                    sink.next(buffer);
+                                }
+                                if (encoder.isDone()) {
+                                    sink.complete();
+                                }
+                            } catch (IOException e) {
+                                sink.error(e);
+                            }
+                            return encoder;
+                        },
+                        ChunkEncoder::release)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    // One response's encoding state. A single JsonGenerator writes the whole response; only the buffer it
+    // writes into changes per chunk. Snapshot rows are written straight from the columns like
+    // CatalogSnapshotMessageConverter does, other lists through the ObjectMapper (ProductJsonSerializer):
+    // same bytes as the MVC endpoints.
+    private static final class ChunkEncoder extends OutputStream {
+
+        private final ObjectMapper objectMapper;
+        private final List<Product> products;
+        private final CatalogSnapshot.Rows rows;
+        private final boolean ndjson;
+        private JsonGenerator generator;
+        private DataBuffer target;
+        private byte[] textBuffer = new byte[256];
+        private int index;
+
+        ChunkEncoder(ObjectMapper objectMapper, List<Product> products, boolean ndjson) {
+            this.objectMapper = objectMapper;
+            this.products = products;
+            this.rows = products instanceof CatalogSnapshot.Rows snapshotRows ? snapshotRows : null;
+            this.ndjson = ndjson;
+        }
+
+        // The next chunk, or null if it came out empty (an empty NDJSON listing)
+        DataBuffer next(DataBufferFactory bufferFactory) throws IOException {
+            DataBuffer buffer = bufferFactory.allocateBuffer(CHUNK_BYTES);
+            target = buffer;
+            try {
+                if (generator == null) {
+                    generator = objectMapper.getFactory().createGenerator(this, JsonEncoding.UTF8);
+                    generator.setRootValueSeparator(null);
+                    if (!ndjson) {
+                        generator.writeRaw('[');
+                    }
+                }
+                int first = index;
+                while (index < products.size() && (index == first || generator.getOutputBuffered() + buffer.writePosition() < CHUNK_BYTES)) {
+                    if (!ndjson && index > 0) {
+                        generator.writeRaw(',');
+                    }
+                    if (rows != null) {
+                        textBuffer = ProductJsonSerializer.writeRow(rows.getSnapshot(), rows.row(index), generator, textBuffer);
+                    } else {
+                        objectMapper.writeValue(generator, products.get(index));
+                    }
+                    if (ndjson) {
+                        generator.writeRaw('\n');
+                    }
+                    index++;
+                }
+                if (!ndjson && isDone()) {
+                    generator.writeRaw(']');
+                }
+                generator.flush();
+            } catch (IOException | RuntimeException e) {
+                DataBufferUtils.release(buffer);
+                throw e;
+            } finally {
+                target = null;
+            }
+            if (buffer.readableByteCount() == 0) {
+                DataBufferUtils.release(buffer);
+                return null;
+            }
+            return buffer;
+        }
+
+        boolean isDone() {
+            return index == products.size();
+        }
+
+        // Completed or cancelled: hands the generator's buffers back to Jackson
+        void release() {
+            if (generator != null) {
+                try {
+                    generator.close();
+                } catch (IOException e) {
+                    // Nothing left to write to
+                }
+            }
+        }
+
+        // ---- OutputStream: the generator's output goes into the current chunk ----
+
+        @Override
+        public void write(int b) {
+            target.write((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            target.write(b, off, len);
+        }
+    }
+
+    // =====================================================================
+    // CATALOG READS (in memory)
+    // =====================================================================
+
+    private List<Product> byCategory(String category) {
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        if (snapshot != null) {
+            return snapshot.byCategory(category);
+        }
+        List<Product> products = new ArrayList<>();
+        for (Product product : sortedById(catalogIndex.getProducts())) {
+            if (product.getCategory() != null && product.getCategory().equalsIgnoreCase(category)) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    // Name contains the text, ignoring case (the MVC endpoint runs the same as a LIKE query)
+    private List<Product> nameSearch(String search) {
+        String text = search.toLowerCase(Locale.ROOT);
+        List<Product> products = new ArrayList<>();
+        for (Product product : sortedById(catalogIndex.getProducts())) {
+            if (product.getName() != null && product.getName().toLowerCase(Locale.ROOT).contains(text)) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    private List<Product> fuzzySearch(String search) {
+        List<Product> products = new ArrayList<>();
+        for (Long id : fuzzySearchService.search(search, FuzzySearchService.MAX_RESULTS)) {
+            Product product = catalogIndex.getProduct(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    private static List<Product> sortedById(List<Product> products) {
+        products.sort(Comparator.comparing(Product::getId));
+        return products;
+    }
+}
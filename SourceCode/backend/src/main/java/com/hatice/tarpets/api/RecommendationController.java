@@ -0,0 +1,37 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+// Recommendation Controller (REST API).
+// "Recommended for you" lists. Signed-in users get personalized results (purchase history + their pets);
+// anonymous visitors get the category best sellers for the pet types they pass (e.g. ?petType=cat).
+@RestController
+@RequestMapping("/api/recommendations")
+@CrossOrigin(origins = "http://localhost:3000")
+public class RecommendationController {
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    // 1. Get Recommendations.
+    // The user is taken from the Bearer token (if any), never from a request parameter.
+    @GetMapping
+    public List<Product> getRecommendations(@AuthenticationPrincipal Long userId,
+                                            @RequestParam(required = false) List<String> petType,
+                                            @RequestParam(defaultValue = "12") int limit) {
+        if (limit < 1 || limit > RecommendationService.MAX_RECOMMENDATIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + RecommendationService.MAX_RECOMMENDATIONS);
+        }
+        if (userId != null) {
+            return recommendationService.recommendForUser(userId, limit);
+        }
+        return recommendationService.recommendForPetTypes(petType, limit);
+    }
+}
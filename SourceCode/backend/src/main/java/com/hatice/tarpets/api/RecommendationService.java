@@ -0,0 +1,418 @@
+package com.hatice.tarpets.api;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Personalized Recommendation Service.
+// A background job reads new order lines (above a watermark, minus a look-back window for orders that commit
+// out of id order) and maintains item-to-item co-purchase counts.
+// From those it keeps, per product, the top neighbors by cosine similarity. A user's list is built from the
+// neighbors of what they bought, boosted for categories matching their pets (pet type "cat" -> category "cat"),
+// and topped up with the most popular products of those categories (cold start).
+// Requests only read in-memory state: per-user lists are cached (bounded) until the model changes.
+@Service
+public class RecommendationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationService.class);
+
+    // Length of the precomputed list per user (requests may ask for fewer).
+    static final int MAX_RECOMMENDATIONS = 50;
+
+    // Neighbors kept per product.
+    static final int NEIGHBORS_PER_PRODUCT = 20;
+
+    // Most recent distinct purchases used as seeds per user.
+    static final int HISTORY_PER_USER = 50;
+
+    // Orders with more distinct products only contribute their first N to pair counts (pairs grow quadratically).
+    static final int MAX_PAIR_ITEMS_PER_ORDER = 50;
+
+    // Score multiplier for products in a category matching one of the user's pets.
+    static final double PET_MATCH_BOOST = 2.0;
+
+    private static final String NEW_ORDER_LINES_SQL =
+            "SELECT o.id AS order_id, o.user_id, i.product_id, i.quantity "
+                    + "FROM orders o JOIN order_items i ON i.order_id = o.id "
+                    + "WHERE o.id > ? AND i.product_id IS NOT NULL ORDER BY o.id";
+
+    // The pets table is small (a few rows per user), so pet types are re-read on every run.
+    private static final String PET_TYPES_SQL = "SELECT user_id, type FROM pets WHERE user_id IS NOT NULL AND type IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogIndex catalogIndex;
+
+    // Order ids below the watermark that are read again on every run. Ids are assigned when an order is inserted
+    // but become visible when it commits, so a slow transaction can commit after a higher id was already read.
+    private final long lookbackOrders;
+
+    // ---- Co-purchase model (written by the refresh job only, guarded by 'this') ----
+    private long watermark;
+    // Orders already counted within the look-back window (older ids are pruned), so a re-read is not counted twice.
+    private final NavigableSet<Long> appliedOrders = new TreeSet<>();
+    private final Map<Long, Map<Long, Integer>> pairCounts = new HashMap<>();
+    private final Map<Long, Integer> orderCounts = new HashMap<>();
+    private final Map<Long, Long> unitsSold = new HashMap<>();
+
+    // ---- Published state (read lock-free by requests) ----
+    private final Map<Long, Neighbors> neighbors = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> purchaseHistory = new ConcurrentHashMap<>();
+    private volatile Map<Long, Set<String>> petTypes = Map.of();
+    private volatile Map<String, long[]> popularByCategory = Map.of();
+    private volatile long[] popularOverall = new long[0];
+
+    // Incremented whenever published state changes; cached user lists from older generations are rebuilt.
+    private volatile long generation;
+    // Bounded: one entry per signed-in user would otherwise pile up; users idle for the TTL are dropped.
+    private final Cache<Long, UserRecommendations> userCache;
+
+    public RecommendationService(DataSource dataSource, CatalogIndex catalogIndex,
+                                 @Value("${recommendations.lookback-orders:1000}") long lookbackOrders,
+                                 @Value("${recommendations.user-cache.max-entries:10000}") long userCacheMaxEntries,
+                                 @Value("${recommendations.user-cache.ttl-seconds:600}") long userCacheTtlSeconds) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.catalogIndex = catalogIndex;
+        this.lookbackOrders = lookbackOrders;
+        this.userCache = Caffeine.newBuilder()
+                .maximumSize(userCacheMaxEntries)
+                .expireAfterAccess(Duration.ofSeconds(userCacheTtlSeconds))
+                .build();
+    }
+
+    // =====================================================================
+    // BACKGROUND REFRESH
+    // =====================================================================
+
+    @Scheduled(initialDelayString = "${recommendations.initial-delay-ms:5000}",
+            fixedDelayString = "${recommendations.refresh-ms:60000}")
+    public synchronized void refresh() {
+        Set<Long> touched = new HashSet<>();
+        Map<Long, LinkedHashSet<Long>> newPurchases = new HashMap<>();
+
+        // Order lines arrive sorted by order id; one order is collected at a time. Orders counted by an
+        // earlier run (re-read because of the look-back window) are skipped.
+        long[] currentOrder = {-1L};
+        Long[] currentUser = {null};
+        boolean[] skipping = {false};
+        Map<Long, Integer> currentItems = new HashMap<>();
+        jdbcTemplate.query(NEW_ORDER_LINES_SQL, rs -> {
+            long orderId = rs.getLong("order_id");
+            if (orderId != currentOrder[0]) {
+                applyOrder(currentUser[0], currentItems, touched, newPurchases);
+                currentItems.clear();
+                currentOrder[0] = orderId;
+                skipping[0] = !appliedOrders.add(orderId);
+                long userId = rs.getLong("user_id");
+                currentUser[0] = rs.wasNull() ? null : userId;
+            }
+            if (!skipping[0]) {
+                currentItems.merge(rs.getLong("product_id"), Math.max(1, rs.getInt("quantity")), Integer::sum);
+            }
+        }, Math.max(0, watermark - lookbackOrders));
+        applyOrder(currentUser[0], currentItems, touched, newPurchases);
+        if (currentOrder[0] > watermark) {
+            watermark = currentOrder[0];
+        }
+        appliedOrders.headSet(watermark - lookbackOrders, true).clear();
+
+        for (Long productId : touched) {
+            neighbors.put(productId, computeNeighbors(productId));
+        }
+        for (Map.Entry<Long, LinkedHashSet<Long>> entry : newPurchases.entrySet()) {
+            purchaseHistory.put(entry.getKey(), mergeHistory(entry.getValue(), purchaseHistory.get(entry.getKey())));
+        }
+
+        Map<Long, Set<String>> loadedPetTypes = loadPetTypes();
+        boolean petsChanged = !loadedPetTypes.equals(petTypes);
+        petTypes = loadedPetTypes;
+        boolean popularityChanged = rebuildPopularity();
+        if (!touched.isEmpty() || petsChanged || popularityChanged) {
+            generation++;
+        }
+
+        if (!touched.isEmpty()) {
+            logger.info("Recommendations updated: {} products touched, watermark at order {}", touched.size(), watermark);
+        }
+    }
+
+    // Adds one order to the pair counts and the buyer's history.
+    private void applyOrder(Long userId, Map<Long, Integer> items, Set<Long> touched,
+                            Map<Long, LinkedHashSet<Long>> newPurchases) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<Long> products = new ArrayList<>(items.keySet());
+        if (products.size() > MAX_PAIR_ITEMS_PER_ORDER) {
+            products = products.subList(0, MAX_PAIR_ITEMS_PER_ORDER);
+        }
+        for (Map.Entry<Long, Integer> item : items.entrySet()) {
+            orderCounts.merge(item.getKey(), 1, Integer::sum);
+            unitsSold.merge(item.getKey(), (long) item.getValue(), Long::sum);
+        }
+        for (Long a : products) {
+            Map<Long, Integer> row = pairCounts.computeIfAbsent(a, k -> new HashMap<>());
+            for (Long b : products) {
+                if (!a.equals(b)) {
+                    row.merge(b, 1, Integer::sum);
+                }
+            }
+            touched.add(a);
+        }
+        if (userId != null) {
+            // Kept oldest -> newest; a re-bought product moves to the end.
+            LinkedHashSet<Long> purchases = newPurchases.computeIfAbsent(userId, k -> new LinkedHashSet<>());
+            for (Long productId : items.keySet()) {
+                purchases.remove(productId);
+                purchases.add(productId);
+            }
+        }
+    }
+
+    // Top neighbors of a product by cosine similarity: co(a,b) / sqrt(orders(a) * orders(b)).
+    private Neighbors computeNeighbors(Long productId) {
+        Map<Long, Integer> row = pairCounts.getOrDefault(productId, Map.of());
+        double ownCount = orderCounts.getOrDefault(productId, 1);
+
+        List<Map.Entry<Long, Double>> scored = new ArrayList<>(row.size());
+        for (Map.Entry<Long, Integer> entry : row.entrySet()) {
+            double otherCount = orderCounts.getOrDefault(entry.getKey(), 1);
+            scored.add(Map.entry(entry.getKey(), entry.getValue() / Math.sqrt(ownCount * otherCount)));
+        }
+        scored.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+
+        int size = Math.min(NEIGHBORS_PER_PRODUCT, scored.size());
+        long[] ids = new long[size];
+        double[] scores = new double[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = scored.get(i).getKey();
+            scores[i] = scored.get(i).getValue();
+        }
+        return new Neighbors(ids, scores);
+    }
+
+    // Newest purchases first, then the previous history, without duplicates and capped.
+    private static long[] mergeHistory(LinkedHashSet<Long> newest, long[] previous) {
+        List<Long> newestFirst = new ArrayList<>(newest);
+        Collections.reverse(newestFirst);
+        LinkedHashSet<Long> merged = new LinkedHashSet<>(newestFirst);
+        if (previous != null) {
+            for (long id : previous) {
+                merged.add(id);
+            }
+        }
+        return merged.stream().limit(HISTORY_PER_USER).mapToLong(Long::longValue).toArray();
+    }
+
+    private Map<Long, Set<String>> loadPetTypes() {
+        Map<Long, Set<String>> result = new HashMap<>();
+        jdbcTemplate.query(PET_TYPES_SQL, rs -> {
+            String type = CatalogIndex.key(rs.getString("type"));
+            if (!type.isEmpty()) {
+                result.computeIfAbsent(rs.getLong("user_id"), k -> new HashSet<>()).add(type);
+            }
+        });
+        return result;
+    }
+
+    // Ranks in-stock products by units sold, per category and overall (discounted products win ties).
+    // Returns true when any ranking differs from the previous run.
+    private boolean rebuildPopularity() {
+        Map<String, List<Product>> byCategory = new HashMap<>();
+        List<Product> all = new ArrayList<>();
+        for (Product product : catalogIndex.getProducts()) {
+            if (isAvailable(product)) {
+                byCategory.computeIfAbsent(CatalogIndex.key(product.getCategory()), k -> new ArrayList<>()).add(product);
+                all.add(product);
+            }
+        }
+
+        Map<String, long[]> categories = new HashMap<>();
+        for (Map.Entry<String, List<Product>> entry : byCategory.entrySet()) {
+            categories.put(entry.getKey(), topByPopularity(entry.getValue()));
+        }
+        long[] overall = topByPopularity(all);
+
+        boolean changed = !Arrays.equals(overall, popularOverall) || !categories.keySet().equals(popularByCategory.keySet());
+        for (Map.Entry<String, long[]> entry : categories.entrySet()) {
+            changed = changed || !Arrays.equals(entry.getValue(), popularByCategory.get(entry.getKey()));
+        }
+        popularByCategory = categories;
+        popularOverall = overall;
+        return changed;
+    }
+
+    private long[] topByPopularity(List<Product> products) {
+        products.sort((a, b) -> {
+            int bySales = Long.compare(unitsSold.getOrDefault(b.getId(), 0L), unitsSold.getOrDefault(a.getId(), 0L));
+            if (bySales != 0) {
+                return bySales;
+            }
+            int byDiscount = Boolean.compare(Boolean.TRUE.equals(b.getIsDiscounted()), Boolean.TRUE.equals(a.getIsDiscounted()));
+            return byDiscount != 0 ? byDiscount : Long.compare(a.getId(), b.getId());
+        });
+        return products.stream().limit(MAX_RECOMMENDATIONS).mapToLong(Product::getId).toArray();
+    }
+
+    // =====================================================================
+    // SERVING
+    // =====================================================================
+
+    // Top products for a signed-in user. Served from the per-user cache unless the model changed since.
+    public List<Product> recommendForUser(Long userId, int limit) {
+        long currentGeneration = generation;
+        UserRecommendations cached = userCache.getIfPresent(userId);
+        if (cached == null || cached.generation != currentGeneration) {
+            long[] ranked = rank(purchaseHistory.get(userId), petTypes.getOrDefault(userId, Set.of()));
+            cached = new UserRecommendations(currentGeneration, ranked);
+            userCache.put(userId, cached);
+        }
+        return resolve(cached.productIds, limit);
+    }
+
+    // Cold start (anonymous visitors or users without history): category popularity for the given pet types.
+    public List<Product> recommendForPetTypes(Collection<String> types, int limit) {
+        Set<String> keys = new HashSet<>();
+        if (types != null) {
+            for (String type : types) {
+                keys.add(CatalogIndex.key(type));
+            }
+        }
+        return resolve(rank(null, keys), limit);
+    }
+
+    private long[] rank(long[] history, Set<String> pets) {
+        Set<Long> owned = new HashSet<>();
+        Map<Long, Double> scores = new HashMap<>();
+        if (history != null) {
+            for (int i = 0; i < history.length; i++) {
+                owned.add(history[i]);
+                Neighbors nb = neighbors.get(history[i]);
+                if (nb == null) {
+                    continue;
+                }
+                double recency = 1.0 / (1.0 + 0.1 * i); // Recent purchases weigh more
+                for (int j = 0; j < nb.productIds.length; j++) {
+                    scores.merge(nb.productIds[j], nb.scores[j] * recency, Double::sum);
+                }
+            }
+        }
+
+        List<Map.Entry<Long, Double>> candidates = new ArrayList<>(scores.size());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            if (owned.contains(entry.getKey())) {
+                continue;
+            }
+            Product product = catalogIndex.getProduct(entry.getKey());
+            if (!isAvailable(product)) {
+                continue;
+            }
+            double score = entry.getValue();
+            if (pets.contains(CatalogIndex.key(product.getCategory()))) {
+                score *= PET_MATCH_BOOST;
+            }
+            candidates.add(Map.entry(entry.getKey(), score));
+        }
+        candidates.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+
+        LinkedHashSet<Long> result = new LinkedHashSet<>();
+        for (Map.Entry<Long, Double> candidate : candidates) {
+            if (result.size() == MAX_RECOMMENDATIONS) {
+                break;
+            }
+            result.add(candidate.getKey());
+        }
+
+        // Fill up: popular products of the pets' categories (round robin), then overall best sellers.
+        List<long[]> petLists = new ArrayList<>();
+        Map<String, long[]> popular = popularByCategory;
+        for (String pet : pets) {
+            long[] list = popular.get(pet);
+            if (list != null) {
+                petLists.add(list);
+            }
+        }
+        for (int position = 0; result.size() < MAX_RECOMMENDATIONS; position++) {
+            boolean any = false;
+            for (long[] list : petLists) {
+                if (position < list.length) {
+                    any = true;
+                    if (!owned.contains(list[position]) && result.size() < MAX_RECOMMENDATIONS) {
+                        result.add(list[position]);
+                    }
+                }
+            }
+            if (!any) {
+                break;
+            }
+        }
+        for (long productId : popularOverall) {
+            if (result.size() == MAX_RECOMMENDATIONS) {
+                break;
+            }
+            if (!owned.contains(productId)) {
+                result.add(productId);
+            }
+        }
+        return result.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // Maps ids to current products, skipping ones deleted or sold out since the list was built.
+    private List<Product> resolve(long[] productIds, int limit) {
+        List<Product> products = new ArrayList<>(Math.min(limit, productIds.length));
+        for (long productId : productIds) {
+            if (products.size() == limit) {
+                break;
+            }
+            Product product = catalogIndex.getProduct(productId);
+            if (isAvailable(product)) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    private static boolean isAvailable(Product product) {
+        return product != null && product.getStock() != null && product.getStock() > 0;
+    }
+
+    private static final class Neighbors {
+        final long[] productIds;
+        final double[] scores;
+
+        Neighbors(long[] productIds, double[] scores) {
+            this.productIds = productIds;
+            this.scores = scores;
+        }
+    }
+
+    private static final class UserRecommendations {
+        final long generation;
+        final long[] productIds;
+
+        UserRecommendations(long generation, long[] productIds) {
+            this.generation = generation;
+            this.productIds = productIds;
+        }
+    }
+}
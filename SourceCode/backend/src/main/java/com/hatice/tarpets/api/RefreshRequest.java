@@ -0,0 +1,21 @@
+package com.hatice.tarpets.api;
+
+import jakarta.validation.constraints.NotBlank;
+
+// Data Transfer Object (DTO) for Token Refresh and Logout Requests.
+public class RefreshRequest {
+
+    // Refresh token received from login, register or the previous refresh
+    @NotBlank
+    private String refreshToken;
+
+    // ---------- GETTERS & SETTERS ----------
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
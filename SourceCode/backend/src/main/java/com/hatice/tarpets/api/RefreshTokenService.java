@@ -0,0 +1,115 @@
+package com.hatice.tarpets.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+// Refresh Token Service.
+// Login/register hand out a short-lived access token and a refresh token. POST /api/refresh exchanges the
+// refresh token for a new pair (rotation): the old one is marked used, so a stolen copy works at most once,
+// and when it is presented again the whole family (every token rotated from the same login) is revoked.
+// New access tokens carry the role stored now, so role changes apply from the next refresh on.
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository repository;
+    private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+    private final long refreshExpirationMs;
+
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository repository, UserRepository userRepository, JwtUtil jwtUtil,
+                               @Value("${jwt.refreshExpirationMs:1209600000}") long refreshExpirationMs) {
+        this.repository = repository;
+        this.userRepository = userRepository;
+        this.jwtUtil = jwtUtil;
+        this.refreshExpirationMs = refreshExpirationMs;
+    }
+
+    // New refresh token (new family) for a login or registration.
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    // Exchanges a refresh token for a new access token and a new refresh token.
+    // One transaction: if issuing the new token fails, the old one is not left marked used. Refusals commit,
+    // so a detected reuse still revokes the family.
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public TokenResponse refresh(String refreshToken) {
+        RefreshToken stored = repository.findByTokenHash(hash(refreshToken))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token"));
+        LocalDateTime now = LocalDateTime.now();
+        if (stored.isRevoked() || !stored.getExpiresAt().isAfter(now)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token expired or revoked");
+        }
+        // Already used (or used concurrently right now): the token has been copied
+        if (stored.getUsedAt() != null || repository.markUsed(stored.getId(), now) == 0) {
+            repository.revokeFamily(stored.getFamilyId());
+            logger.warn("Refresh token reused for user {}, all tokens of that login revoked", stored.getUserId());
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token already used");
+        }
+
+        User user = userRepository.findById(stored.getUserId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User no longer exists"));
+        return new TokenResponse(jwtUtil.generateToken(user.getId(), user.getRole()),
+                issue(user.getId(), stored.getFamilyId()), jwtUtil.getExpirationMs() / 1000);
+    }
+
+    // Logout: ends the login the token belongs to (only if it is the given user's token).
+    public void revoke(String refreshToken, Long userId) {
+        repository.findByTokenHash(hash(refreshToken))
+                .filter(stored -> stored.getUserId().equals(userId))
+                .ifPresent(stored -> repository.revokeFamily(stored.getFamilyId()));
+    }
+
+    // Logout everywhere.
+    public void revokeAll(Long userId) {
+        repository.revokeAllOfUser(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.cleanup-ms:600000}", initialDelayString = "${jwt.cleanup-ms:600000}")
+    public void deleteExpired() {
+        try {
+            repository.deleteExpired(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            logger.warn("Deleting expired refresh tokens failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(refreshExpirationMs * 1_000_000);
+        repository.save(new RefreshToken(hash(token), userId, familyId, expiresAt));
+        return token;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+
+// Remote (Second) Cache Tier.
+// Optional shared store behind the in-process caches of TieredCacheManager, e.g. Redis or Memcached: a value
+// loaded by one instance is then found by the others without a database read. Used when a bean implementing
+// this interface exists, and only by the regions that opt in with "cache.regions.<name>.remote=true".
+// Values are the ones kept in the local tier (Spring's NullValue for a cached null); how they are serialized is
+// up to the implementation. Failures are logged and counted, and the caller falls back to the database.
+public interface RemoteCacheTier {
+
+    // Cached value, or null on a miss.
+    Cache.ValueWrapper get(String region, Object key);
+
+    // Stores the value, expiring after the region's TTL.
+    void put(String region, Object key, Object value, Duration ttl);
+
+    void evict(String region, Object key);
+
+    void clear(String region);
+}
@@ -0,0 +1,94 @@
+package com.hatice.tarpets.api;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Revoked Access Token.
+// Either one token (jti set: logout) or every token of a user issued up to 'revokedAt' (userId set, jti null:
+// role change, logout everywhere). Kept only until 'expiresAt', after which the tokens it covers have expired
+// anyway. Loaded into memory by TokenRevocationService; this table only survives restarts and tells the other
+// instances (rows are announced on the CacheInvalidationBus).
+@Entity
+@Table(name = "revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"))
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Token id (JWT "jti"), null for a user-wide revocation
+    @Column(length = 36)
+    private String jti;
+
+    private Long userId;
+
+    private LocalDateTime revokedAt;
+
+    private LocalDateTime expiresAt;
+
+    public RevokedToken() {}
+
+    public static RevokedToken token(String jti, Long userId, LocalDateTime expiresAt) {
+        RevokedToken revoked = new RevokedToken();
+        revoked.jti = jti;
+        revoked.userId = userId;
+        revoked.revokedAt = LocalDateTime.now();
+        revoked.expiresAt = expiresAt;
+        return revoked;
+    }
+
+    public static RevokedToken user(Long userId, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        RevokedToken revoked = new RevokedToken();
+        revoked.userId = userId;
+        revoked.revokedAt = revokedAt;
+        revoked.expiresAt = expiresAt;
+        return revoked;
+    }
+
+    public boolean isUserWide() {
+        return jti == null;
+    }
+
+    // ---- GETTERS & SETTERS ----
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public void setJti(String jti) {
+        this.jti = jti;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(LocalDateTime revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,21 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Data Access Object (DAO) for revoked access tokens (TokenRevocationService).
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    // Revocations that still cover unexpired tokens (loaded on startup)
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(LocalDateTime now);
+}
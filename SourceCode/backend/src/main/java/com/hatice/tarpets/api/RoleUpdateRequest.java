@@ -0,0 +1,22 @@
+package com.hatice.tarpets.api;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+// Data Transfer Object (DTO) for changing a user's role (Admin).
+public class RoleUpdateRequest {
+
+    @NotNull
+    @Pattern(regexp = "USER|ADMIN", message = "must be USER or ADMIN")
+    private String role;
+
+    // ---------- GETTERS & SETTERS ----------
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+}
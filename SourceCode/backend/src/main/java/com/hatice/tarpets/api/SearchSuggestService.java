@@ -0,0 +1,461 @@
+package com.hatice.tarpets.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Search Autocomplete (prefix trie).
+// Product names, categories and subcategories are inserted into a character trie. Names are also inserted
+// from every word start, so "kit" completes "Royal Canin Kitten". Each node stores its top-K entries
+// (by popularity), so a lookup is a walk down the prefix plus a copy of at most K entries: no database,
+// no subtree scan. Product writes update the affected paths; a periodic rebuild refreshes popularity.
+@Service
+public class SearchSuggestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchSuggestService.class);
+
+    // Completions kept per trie node (upper bound for the 'limit' of a request).
+    static final int TOP_K = 10;
+
+    // Only the first words of long names get their own entry point.
+    private static final int MAX_WORD_KEYS = 8;
+
+    // Longest indexed key; longer names are truncated (prefixes that long are not typed anyway).
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private static final Comparator<Entry> BY_RANK =
+            Comparator.comparingDouble((Entry e) -> e.score).reversed().thenComparing(e -> e.text);
+
+    private final CatalogIndex catalogIndex;
+    private final ProductRankingService productRankingService;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ---- Trie state (guarded by 'lock') ----
+    private Node root = new Node();
+    private final Map<Long, Entry> productEntries = new HashMap<>();
+    private final Map<String, Entry> facetEntries = new HashMap<>();
+
+    // Non-null while a rebuild runs: changes that arrive meanwhile are re-applied to the new trie.
+    private List<ProductChangedEvent> changesDuringRebuild;
+
+    public SearchSuggestService(CatalogIndex catalogIndex, ProductRankingService productRankingService) {
+        this.catalogIndex = catalogIndex;
+        this.productRankingService = productRankingService;
+    }
+
+    // =====================================================================
+    // LOOKUP
+    // =====================================================================
+
+    // Top completions for what the user typed so far (case- and accent-insensitive).
+    public List<SearchSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            int size = Math.min(limit, node.top.length);
+            List<SearchSuggestion> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Entry entry = node.top[i];
+                result.add(new SearchSuggestion(entry.text, entry.type, entry.productId));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // =====================================================================
+    // MAINTENANCE
+    // =====================================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @EventListener
+    public void onCatalogReload(CatalogReloadEvent event) {
+        rebuild();
+    }
+
+    // Popularity drifts with every order; rebuilding re-ranks all nodes and drops empty branches.
+    @Scheduled(initialDelayString = "${search.suggest.rebuild-ms:300000}", fixedDelayString = "${search.suggest.rebuild-ms:300000}")
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Product> products = catalogIndex.getProducts();
+        long started = System.nanoTime();
+
+        Node newRoot = new Node();
+        Map<Long, Entry> newProducts = new HashMap<>();
+        Map<String, Entry> newFacets = new HashMap<>();
+        Map<String, Integer> facetCounts = new HashMap<>();
+        Map<String, Double> facetScores = new HashMap<>();
+        Map<String, String> facetLabels = new HashMap<>();
+
+        for (Product product : products) {
+            Entry entry = productEntry(product);
+            if (entry != null) {
+                newProducts.put(product.getId(), entry);
+                for (String key : entry.keys) {
+                    insert(newRoot, key, entry, false);
+                }
+            }
+            countFacet(SearchSuggestion.TYPE_CATEGORY, product.getCategory(), entry, facetCounts, facetScores, facetLabels);
+            countFacet(SearchSuggestion.TYPE_SUBCATEGORY, product.getSubcategory(), entry, facetCounts, facetScores, facetLabels);
+        }
+        for (Map.Entry<String, Integer> facet : facetCounts.entrySet()) {
+            String id = facet.getKey();
+            Entry entry = facetEntry(id, facetLabels.get(id), facet.getValue(), facetScores.get(id));
+            newFacets.put(id, entry);
+            insert(newRoot, entry.keys[0], entry, false);
+        }
+        computeTop(newRoot);
+
+        lock.writeLock().lock();
+        try {
+            root = newRoot;
+            productEntries.clear();
+            productEntries.putAll(newProducts);
+            facetEntries.clear();
+            facetEntries.putAll(newFacets);
+            // Applying a change twice is harmless (the product's entry is replaced), so no ordering issues.
+            for (ProductChangedEvent event : changesDuringRebuild) {
+                apply(event, event.isDeleted() ? null : productEntry(event.getProduct()));
+            }
+            changesDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Search suggestions rebuilt: {} products, {} categories/subcategories in {} ms",
+                newProducts.size(), newFacets.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Incremental update: only the paths of the old and new keys are touched.
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        Entry added = event.isDeleted() ? null : productEntry(event.getProduct());
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(event);
+            }
+            apply(event, added);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Replaces (or removes) the entry of one product, including its category/subcategory counts.
+    private void apply(ProductChangedEvent event, Entry added) {
+        Entry removed = productEntries.remove(event.getProductId());
+        if (removed != null) {
+            for (String key : removed.keys) {
+                remove(root, key, removed);
+            }
+            adjustFacet(SearchSuggestion.TYPE_CATEGORY, removed.category, -1, -removed.score);
+            adjustFacet(SearchSuggestion.TYPE_SUBCATEGORY, removed.subcategory, -1, -removed.score);
+        }
+        if (added != null) {
+            productEntries.put(added.productId, added);
+            for (String key : added.keys) {
+                insert(root, key, added, true);
+            }
+            adjustFacet(SearchSuggestion.TYPE_CATEGORY, added.category, 1, added.score);
+            adjustFacet(SearchSuggestion.TYPE_SUBCATEGORY, added.subcategory, 1, added.score);
+        }
+    }
+
+    private Entry productEntry(Product product) {
+        String name = product.getName() == null ? "" : product.getName().trim();
+        if (name.isEmpty() || product.getId() == null) {
+            return null;
+        }
+        // +1 so products without sales still rank by name rather than all tying at zero.
+        double score = 1 + productRankingService.getScore(product.getId());
+        return new Entry(name, SearchSuggestion.TYPE_PRODUCT, product.getId(), score, wordKeys(name),
+                label(product.getCategory()), label(product.getSubcategory()), 0);
+    }
+
+    private static Entry facetEntry(String id, String label, int count, double productScores) {
+        String type = id.substring(0, id.indexOf(':'));
+        // Categories outrank single products with similar popularity: they lead to many results.
+        double score = count + productScores;
+        return new Entry(label, type, null, score, new String[]{truncate(normalize(label))}, null, null, count);
+    }
+
+    private static void countFacet(String type, String value, Entry product, Map<String, Integer> counts,
+                                   Map<String, Double> scores, Map<String, String> labels) {
+        String label = label(value);
+        if (label == null) {
+            return;
+        }
+        String id = facetId(type, label);
+        counts.merge(id, 1, Integer::sum);
+        scores.merge(id, product == null ? 0 : product.score, Double::sum);
+        labels.putIfAbsent(id, label);
+    }
+
+    // Replaces the entry of a category/subcategory with an updated product count (entries are immutable).
+    private void adjustFacet(String type, String label, int countDelta, double scoreDelta) {
+        if (label == null) {
+            return;
+        }
+        String id = facetId(type, label);
+        Entry old = facetEntries.remove(id);
+        int count = (old == null ? 0 : old.facetCount) + countDelta;
+        double productScores = (old == null ? 0 : old.score - old.facetCount) + scoreDelta;
+        if (old != null) {
+            remove(root, old.keys[0], old);
+        }
+        if (count > 0) {
+            Entry entry = facetEntry(id, old == null ? label : old.text, count, Math.max(0, productScores));
+            facetEntries.put(id, entry);
+            insert(root, entry.keys[0], entry, true);
+        }
+    }
+
+    private static String facetId(String type, String label) {
+        return type + ":" + normalize(label);
+    }
+
+    private static String label(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    // The full name plus the suffix starting at each following word.
+    private static String[] wordKeys(String name) {
+        String normalized = normalize(name);
+        List<String> keys = new ArrayList<>();
+        keys.add(truncate(normalized));
+        for (int i = 1; i < normalized.length() && keys.size() < MAX_WORD_KEYS; i++) {
+            if (normalized.charAt(i - 1) == ' ' && normalized.charAt(i) != ' ') {
+                keys.add(truncate(normalized.substring(i)));
+            }
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    // Case- and accent-insensitive ("kopek" completes "Köpek Maması"), same folding as FuzzySearchService
+    // but punctuation is kept ("hill's").
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        // Locale.ROOT turns 'İ' into "i" + combining dot (stripped below); dotless 'ı' has no decomposition.
+        String lower = text.toLowerCase(Locale.ROOT).replace('ı', 'i');
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(stripped.trim()).replaceAll(" ");
+    }
+
+    private static String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    // =====================================================================
+    // TRIE
+    // =====================================================================
+
+    // Adds an entry at 'key'. With updateTop the top-K lists along the path are refreshed right away
+    // (incremental updates); a full rebuild computes them once at the end instead.
+    private static void insert(Node root, String key, Entry entry, boolean updateTop) {
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            path[i + 1] = node;
+        }
+        node.terminals = append(node.terminals, entry);
+        if (updateTop) {
+            for (int i = path.length - 1; i >= 0; i--) {
+                path[i].top = merge(path[i]);
+            }
+        }
+    }
+
+    private static void remove(Node root, String key, Entry entry) {
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i));
+            if (node == null) {
+                return;
+            }
+            path[i + 1] = node;
+        }
+        node.terminals = without(node.terminals, entry);
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i].top = merge(path[i]);
+        }
+    }
+
+    // Post-order: children first, then this node from its terminals and the children's lists.
+    private static void computeTop(Node node) {
+        for (Node child : node.children) {
+            computeTop(child);
+        }
+        node.top = merge(node);
+    }
+
+    private static Entry[] merge(Node node) {
+        // Chains of single-child nodes (most of a trie) share the child's list instead of copying it.
+        if (node.terminals.length == 0 && node.children.length == 1) {
+            return node.children[0].top;
+        }
+
+        // K-way merge of already sorted lists: the node's own entries and each child's top-K.
+        Entry[][] lists = new Entry[node.children.length + 1][];
+        lists[0] = node.terminals;
+        if (node.terminals.length > 1) {
+            lists[0] = node.terminals.clone();
+            Arrays.sort(lists[0], BY_RANK);
+        }
+        for (int i = 0; i < node.children.length; i++) {
+            lists[i + 1] = node.children[i].top;
+        }
+
+        int[] positions = new int[lists.length];
+        Entry[] result = new Entry[TOP_K];
+        int size = 0;
+        while (size < TOP_K) {
+            int best = -1;
+            for (int i = 0; i < lists.length; i++) {
+                // The same product can be reached through several word keys below this node.
+                while (positions[i] < lists[i].length && contains(result, size, lists[i][positions[i]])) {
+                    positions[i]++;
+                }
+                if (positions[i] < lists[i].length
+                        && (best < 0 || BY_RANK.compare(lists[i][positions[i]], lists[best][positions[best]]) < 0)) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            result[size++] = lists[best][positions[best]++];
+        }
+        return size == TOP_K ? result : Arrays.copyOf(result, size);
+    }
+
+    private static boolean contains(Entry[] entries, int size, Entry entry) {
+        for (int i = 0; i < size; i++) {
+            if (entries[i] == entry) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        Entry[] result = Arrays.copyOf(entries, entries.length + 1);
+        result[entries.length] = entry;
+        return result;
+    }
+
+    private static Entry[] without(Entry[] entries, Entry entry) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == entry) {
+                Entry[] result = new Entry[entries.length - 1];
+                System.arraycopy(entries, 0, result, 0, i);
+                System.arraycopy(entries, i + 1, result, i, entries.length - i - 1);
+                return result;
+            }
+        }
+        return entries;
+    }
+
+    // Trie node with children in sorted parallel arrays (binary search), which is far smaller than a map.
+    private static final class Node {
+        char[] keys = NO_KEYS;
+        Node[] children = NO_NODES;
+        Entry[] terminals = NO_ENTRIES;
+        Entry[] top = NO_ENTRIES;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newKeys[at] = c;
+            newChildren[at] = new Node();
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[at];
+        }
+    }
+
+    // A completion with its precomputed score and the trie keys it was inserted under.
+    private static final class Entry {
+        final String text;
+        final String type;
+        final Long productId;
+        final double score;
+        final String[] keys;
+
+        // Products: labels of the facets they count towards. Facets: number of products.
+        final String category;
+        final String subcategory;
+        final int facetCount;
+
+        Entry(String text, String type, Long productId, double score, String[] keys, String category, String subcategory,
+              int facetCount) {
+            this.text = text;
+            this.type = type;
+            this.productId = productId;
+            this.score = score;
+            this.keys = keys;
+            this.category = category;
+            this.subcategory = subcategory;
+            this.facetCount = facetCount;
+        }
+    }
+}
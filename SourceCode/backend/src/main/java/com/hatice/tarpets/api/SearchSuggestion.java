@@ -0,0 +1,53 @@
+package com.hatice.tarpets.api;
+
+// Data Transfer Object (DTO) for Search Autocomplete.
+// One completion for the search box: a product name, a category or a subcategory.
+public class SearchSuggestion {
+
+    public static final String TYPE_PRODUCT = "product";
+    public static final String TYPE_CATEGORY = "category";
+    public static final String TYPE_SUBCATEGORY = "subcategory";
+
+    // Text to show and to search for (original capitalization)
+    private String text;
+
+    // "product", "category" or "subcategory"
+    private String type;
+
+    // Set for product suggestions, so the UI can link straight to the product page
+    private Long productId;
+
+    public SearchSuggestion() {}
+
+    public SearchSuggestion(String text, String type, Long productId) {
+        this.text = text;
+        this.type = type;
+        this.productId = productId;
+    }
+
+    // --- Getters and Setters ---
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+}
@@ -2,11 +2,17 @@ package com.hatice.tarpets.api;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
 @EnableMethodSecurity
@@ -20,28 +26,61 @@ public class SecurityConfig {
     }
 
     // Configures the security filter chain.
-    // For this project, we prioritize flexibility for the REST API and H2 Console access.
+    // The JWT is validated once by JwtAuthenticationFilter; role checks happen here, before controller dispatch.
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtUtil jwtUtil, TokenRevocationService revocationService)
+            throws Exception {
         http
                 // Disable CSRF (Cross-Site Request Forgery) as we are using stateless JWT authentication.
                 .csrf(csrf -> csrf.disable())
 
+                // Reuse the MVC CORS mappings (ApiApplication) so rejected requests still carry CORS headers.
+                .cors(Customizer.withDefaults())
+
+                // Stateless API: no HTTP session is created or consulted.
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+
                 // Allow frames to support the H2 Database Console interface.
                 .headers(headers -> headers.frameOptions(frame -> frame.disable()))
 
+                // Authenticate the Bearer token once per request.
+                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, revocationService), UsernamePasswordAuthenticationFilter.class)
+
+                // Missing, invalid, expired or revoked token on a protected route -> 401 (the frontend refreshes its
+                // tokens and retries); a valid token without the required role -> 403.
+                .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+
                 // Endpoint Authorization Configuration
                 .authorizeHttpRequests(authorize -> authorize
                         // Allow full access to H2 Console
                         .requestMatchers("/h2-console/**").permitAll()
 
                         // Public Endpoints (Auth, Payment, Home)
-                        .requestMatchers("/api/register", "/api/login", "/api/create-checkout-session", "/").permitAll()
+                        .requestMatchers("/api/register", "/api/login", "/api/refresh", "/api/create-checkout-session", "/").permitAll()
+                        .requestMatchers("/api/logout", "/api/logout-all").authenticated()
+
+                        // Health probes for the load balancer / orchestrator; other actuator endpoints (metrics) are admin-only
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
+                        // Admin Endpoints (Dashboard listings and catalog management)
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/orders").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/products", "/api/products/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.PUT, "/api/products/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.PATCH, "/api/products/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.DELETE, "/api/products/**").hasRole("ADMIN")
+
+                        // Signed-in users only (the cart and /api/me resources belong to the token's user)
+                        .requestMatchers("/api/cart", "/api/cart/**").authenticated()
+                        .requestMatchers("/api/me/**").authenticated()
+
+                        // Pets of all users (maintenance); users manage their own under /api/me/pets
+                        .requestMatchers("/pets", "/pets/**").hasRole("ADMIN")
 
-                        // For this demo/production build, we allow all other requests to pass through the filter.
-                        // Specific role checks (ADMIN vs USER) are handled within the Controllers using JWTUtil.
+                        // Everything else (catalog browsing, user orders) stays public as before.
                         .anyRequest().permitAll()
                 );
         return http.build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package com.hatice.tarpets.api;
+
+import jakarta.validation.constraints.NotNull;
+
+// Data Transfer Object (DTO) for Stock Adjustments (POST /api/products/{id}/stock-adjustments).
+// A relative change: positive for received goods, negative for sold/damaged ones.
+public class StockAdjustmentRequest {
+
+    @NotNull
+    private Integer delta;
+
+    public StockAdjustmentRequest() {}
+
+    public StockAdjustmentRequest(Integer delta) {
+        this.delta = delta;
+    }
+
+    // ---------- GETTERS & SETTERS ----------
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+}
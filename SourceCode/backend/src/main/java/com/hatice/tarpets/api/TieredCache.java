@@ -0,0 +1,243 @@
+package com.hatice.tarpets.api;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// One Region of the Application Cache (see TieredCacheManager).
+// First tier: an in-process Caffeine cache, bounded by entry count (W-TinyLFU: an entry only displaces another
+// once it has been asked for more often) and expiring a fixed time after each write. Second tier: the optional
+// RemoteCacheTier, asked on a local miss before the value is loaded.
+// Concurrent misses of one key are coalesced: @Cacheable(sync = true) reads go through get(key, loader), where
+// the first caller loads the value and the others wait for it, so an expired popular entry costs one query.
+// Evictions are sent to the other instances over the CacheInvalidationBus.
+public class TieredCache extends AbstractValueAdaptingCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredCache.class);
+
+    // Bus messages for a region carry this prefix and the region name as entity name
+    static final String MESSAGE_PREFIX = "cache:";
+
+    private final String name;
+    private final long maxEntries;
+    private final Duration ttl;
+    private final Cache<Object, Object> local;
+    private final RemoteCacheTier remote; // null: in-process tier only
+    private final CacheInvalidationBus bus;
+
+    // Incremented by every eviction. A value loaded while one happened may have been read before the change that
+    // caused it, so it is handed to the waiting callers but not kept.
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteErrors = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    public TieredCache(String name, long maxEntries, Duration ttl, RemoteCacheTier remote, CacheInvalidationBus bus) {
+        this(name, maxEntries, ttl, remote, bus, Ticker.systemTicker());
+    }
+
+    TieredCache(String name, long maxEntries, Duration ttl, RemoteCacheTier remote, CacheInvalidationBus bus, Ticker ticker) {
+        super(true);
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.remote = remote;
+        this.bus = bus;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    // The in-process tier (for the Micrometer cache metrics)
+    @Override
+    public Cache<Object, Object> getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value == null && remote != null) {
+            long loadGeneration = generation.get();
+            value = remoteGet(key);
+            if (value != null) {
+                local.asMap().putIfAbsent(key, value);
+                forgetIfEvicted(key, value, loadGeneration);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        long loadGeneration = generation.get();
+        Object value = local.get(key, k -> load(k, valueLoader));
+        forgetIfEvicted(key, value, loadGeneration);
+        return (T) fromStoreValue(value);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        local.put(key, storeValue);
+        remotePut(key, storeValue);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        Object existing = local.asMap().putIfAbsent(key, storeValue);
+        if (existing == null) {
+            remotePut(key, storeValue);
+        }
+        return toValueWrapper(existing);
+    }
+
+    // Here, in the remote tier and on the other instances. Only Long keys (entity ids) are sent as such;
+    // the other instances drop the whole region for any other key.
+    @Override
+    public void evict(Object key) {
+        evictLocal(key);
+        if (remote != null) {
+            try {
+                remote.evict(name, key);
+            } catch (RuntimeException e) {
+                remoteFailed("evict", e);
+            }
+        }
+        bus.publish(new CacheInvalidation(bus.getNodeId(), MESSAGE_PREFIX + name, key instanceof Long id ? id : null));
+    }
+
+    @Override
+    public void clear() {
+        clearLocal();
+        if (remote != null) {
+            try {
+                remote.clear(name);
+            } catch (RuntimeException e) {
+                remoteFailed("clear", e);
+            }
+        }
+        bus.publish(new CacheInvalidation(bus.getNodeId(), MESSAGE_PREFIX + name, null));
+    }
+
+    // In-process tier only: for eviction messages from other instances, which already updated the remote tier.
+    void evictLocal(Object key) {
+        generation.incrementAndGet();
+        local.invalidate(key);
+    }
+
+    void clearLocal() {
+        generation.incrementAndGet();
+        local.invalidateAll();
+    }
+
+    public CacheRegionStats stats() {
+        CacheStats localStats = local.stats();
+        CacheRegionStats stats = new CacheRegionStats();
+        stats.setName(name);
+        stats.setMaxEntries(maxEntries);
+        stats.setTtlSeconds(ttl.toSeconds());
+        stats.setRemote(remote != null);
+        stats.setSize(local.estimatedSize());
+        stats.setRequests(localStats.requestCount());
+        stats.setLocalHits(localStats.hitCount());
+        stats.setRemoteHits(remoteHits.sum());
+        stats.setMisses(Math.max(0, localStats.missCount() - remoteHits.sum()));
+        stats.setHitRate(localStats.requestCount() == 0 ? 0
+                : (double) (localStats.hitCount() + remoteHits.sum()) / localStats.requestCount());
+        stats.setLoads(loads.sum());
+        stats.setLoadFailures(loadFailures.sum());
+        stats.setAverageLoadMillis(loads.sum() == 0 ? 0 : loadNanos.sum() / 1e6 / loads.sum());
+        stats.setEvictions(localStats.evictionCount());
+        stats.setRemoteErrors(remoteErrors.sum());
+        return stats;
+    }
+
+    long getRemoteHits() {
+        return remoteHits.sum();
+    }
+
+    long getRemoteErrors() {
+        return remoteErrors.sum();
+    }
+
+    // Runs once per key at a time (Caffeine blocks the other callers of get(key, ...) meanwhile).
+    private Object load(Object key, Callable<?> valueLoader) {
+        if (remote != null) {
+            Object value = remoteGet(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = toStoreValue(valueLoader.call());
+        } catch (Exception e) {
+            loadFailures.increment();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loads.increment();
+            loadNanos.add(System.nanoTime() - start);
+        }
+        remotePut(key, value);
+        return value;
+    }
+
+    private void forgetIfEvicted(Object key, Object value, long loadGeneration) {
+        if (generation.get() != loadGeneration) {
+            local.asMap().remove(key, value);
+        }
+    }
+
+    private Object remoteGet(Object key) {
+        try {
+            ValueWrapper wrapper = remote.get(name, key);
+            if (wrapper != null) {
+                remoteHits.increment();
+                return wrapper.get();
+            }
+        } catch (RuntimeException e) {
+            remoteFailed("get", e);
+        }
+        return null;
+    }
+
+    private void remotePut(Object key, Object storeValue) {
+        if (remote == null) {
+            return;
+        }
+        try {
+            remote.put(name, key, storeValue, ttl);
+        } catch (RuntimeException e) {
+            remoteFailed("put", e);
+        }
+    }
+
+    private void remoteFailed(String operation, RuntimeException e) {
+        remoteErrors.increment();
+        logger.warn("Remote cache {} on region '{}' failed: {}", operation, name, e.getMessage());
+    }
+}
@@ -0,0 +1,59 @@
+package com.hatice.tarpets.api;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.List;
+
+// Application Cache Configuration (@Cacheable on repository and service reads, see TieredCacheManager).
+// Every region is declared here with its default limits; "cache.regions.<name>.max-entries", ".ttl-seconds" and
+// ".remote" override them. Hit rates: GET /api/admin/caches, and the standard "cache.*" meters (tag "cache").
+// Product entities themselves stay in Hibernate's second-level cache (HibernateCacheConfig).
+@Configuration
+@EnableCaching
+public class TieredCacheConfig {
+
+    // ProductRepository finder results (any product change drops the whole region, see ProductCacheInvalidator)
+    public static final String PRODUCT_QUERIES = "product-queries";
+
+    // OrderService order history per user id, without the password hash (evicted per user when they order or
+    // change, dropped on pet writes; the products in the line items may be older by up to the TTL).
+    // Users themselves are not cached: the login lookup needs the password hash.
+    public static final String ORDERS_BY_USER = "orders-by-user";
+
+    @Bean
+    public TieredCacheManager cacheManager(Environment environment, CacheInvalidationBus bus,
+                                           ObjectProvider<RemoteCacheTier> remoteCacheTier, MeterRegistry meterRegistry) {
+        RemoteCacheTier remote = remoteCacheTier.getIfAvailable();
+        List<TieredCache> regions = List.of(
+                region(environment, PRODUCT_QUERIES, 1000, 300, remote, bus),
+                region(environment, ORDERS_BY_USER, 10000, 120, remote, bus));
+
+        for (TieredCache region : regions) {
+            CaffeineCacheMetrics.monitor(meterRegistry, region.getNativeCache(), region.getName());
+            FunctionCounter.builder("tarpets.cache.remote", region, TieredCache::getRemoteHits)
+                    .tag("cache", region.getName()).tag("result", "hit")
+                    .description("Local misses answered by the remote cache tier").register(meterRegistry);
+            FunctionCounter.builder("tarpets.cache.remote", region, TieredCache::getRemoteErrors)
+                    .tag("cache", region.getName()).tag("result", "error")
+                    .description("Failed remote cache tier calls").register(meterRegistry);
+        }
+        return new TieredCacheManager(regions, bus);
+    }
+
+    private static TieredCache region(Environment environment, String name, long defaultMaxEntries, long defaultTtlSeconds,
+                                      RemoteCacheTier remote, CacheInvalidationBus bus) {
+        String prefix = "cache.regions." + name + ".";
+        long maxEntries = environment.getProperty(prefix + "max-entries", Long.class, defaultMaxEntries);
+        long ttlSeconds = environment.getProperty(prefix + "ttl-seconds", Long.class, defaultTtlSeconds);
+        boolean useRemote = environment.getProperty(prefix + "remote", Boolean.class, false);
+        return new TieredCache(name, maxEntries, Duration.ofSeconds(ttlSeconds), useRemote ? remote : null, bus);
+    }
+}
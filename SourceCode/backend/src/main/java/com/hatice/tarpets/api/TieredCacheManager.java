@@ -0,0 +1,58 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Application Cache Manager (Spring's cache abstraction: @Cacheable, @CacheEvict).
+// A fixed set of TieredCache regions, each with its own size limit and TTL (see TieredCacheConfig); asking for
+// any other region fails, as a misspelt cache name should. Evictions from other instances arrive over the
+// CacheInvalidationBus and are applied to the in-process tier here.
+public class TieredCacheManager extends AbstractCacheManager {
+
+    private final Map<String, TieredCache> regions;
+
+    public TieredCacheManager(Collection<TieredCache> regions, CacheInvalidationBus bus) {
+        this.regions = regions.stream().collect(Collectors.toMap(TieredCache::getName, Function.identity()));
+        bus.subscribe(this::onRemoteInvalidation);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return regions.values();
+    }
+
+    public TieredCache getRegion(String name) {
+        return regions.get(name);
+    }
+
+    // Every region, by name
+    public List<CacheRegionStats> stats() {
+        return regions.values().stream()
+                .map(TieredCache::stats)
+                .sorted(Comparator.comparing(CacheRegionStats::getName))
+                .toList();
+    }
+
+    private void onRemoteInvalidation(CacheInvalidation message) {
+        String entityName = message.getEntityName();
+        if (entityName == null || !entityName.startsWith(TieredCache.MESSAGE_PREFIX)) {
+            return;
+        }
+        TieredCache region = regions.get(entityName.substring(TieredCache.MESSAGE_PREFIX.length()));
+        if (region == null) {
+            return; // Region of a newer version of the application
+        }
+        if (message.isAllEntries()) {
+            region.clearLocal();
+        } else {
+            region.evictLocal(message.getEntityId());
+        }
+    }
+}
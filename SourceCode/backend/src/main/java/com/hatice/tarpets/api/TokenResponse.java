@@ -0,0 +1,46 @@
+package com.hatice.tarpets.api;
+
+// Data Transfer Object (DTO) for a Token Refresh (POST /api/refresh).
+// A new access token and the refresh token that replaces the one just sent.
+public class TokenResponse {
+
+    private String token;
+    private String refreshToken;
+
+    // Lifetime of the access token in seconds
+    private long expiresIn;
+
+    public TokenResponse() {}
+
+    public TokenResponse(String token, String refreshToken, long expiresIn) {
+        this.token = token;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
+
+    // ---------- GETTERS & SETTERS ----------
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+
+    public void setExpiresIn(long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+}
@@ -0,0 +1,184 @@
+package com.hatice.tarpets.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Access Token Revocation List.
+// JwtAuthenticationFilter asks isRevoked() on every authenticated request, so the check is in memory: a Bloom
+// filter over the revoked token ids and user ids answers "not revoked" for almost every token after a few bit
+// reads; only on a "maybe" is the exact map consulted. Writes (logout, role change) are rare and go to the
+// 'revoked_tokens' table as well, which survives restarts and reaches the other instances through the
+// CacheInvalidationBus. Entries are dropped once the tokens they cover have expired: access tokens are
+// short-lived (jwt.expirationMs), so the list stays small.
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final String ENTITY_NAME = RevokedToken.class.getName();
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    // Every token issued up to (and including) this millisecond is revoked; a token issued later in the same
+    // second (a refresh right after a role change) stays valid
+    private record UserRevocation(long revokedAtMillis, long expiresAtMillis) {}
+
+    private final RevokedTokenRepository repository;
+    private final CacheInvalidationBus bus;
+    private final long accessExpirationMs;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    // Revoked token id (jti) -> expiry of that token (epoch ms)
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<Long, UserRevocation> revokedUsers = new ConcurrentHashMap<>();
+
+    // Contains every key of the two maps; replaced (never cleared) when rebuilt
+    private volatile BloomFilter filter;
+
+    public TokenRevocationService(RevokedTokenRepository repository, CacheInvalidationBus bus,
+                                  @Value("${jwt.expirationMs}") long accessExpirationMs,
+                                  @Value("${jwt.revocation.expected-entries:100000}") int expectedEntries,
+                                  @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.repository = repository;
+        this.bus = bus;
+        this.accessExpirationMs = accessExpirationMs;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        bus.subscribe(this::onRemoteRevocation);
+    }
+
+    // Before the warm-up and readiness: no request is served with revocations from before the restart missing.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    // =====================================================================
+    // CHECK (every request)
+    // =====================================================================
+
+    // issuedAtMillis: JwtUtil.getIssuedAtMillis(); null counts as revoked by any revocation of the user.
+    public boolean isRevoked(String jti, long userId, Long issuedAtMillis) {
+        BloomFilter current = filter;
+        if (jti != null && current.mightContain(jti) && revokedTokens.containsKey(jti)) {
+            return true;
+        }
+        if (current.mightContain(userId)) {
+            UserRevocation revocation = revokedUsers.get(userId);
+            return revocation != null && (issuedAtMillis == null || issuedAtMillis <= revocation.revokedAtMillis());
+        }
+        return false;
+    }
+
+    // =====================================================================
+    // REVOKE
+    // =====================================================================
+
+    // One token (logout); kept until the token itself expires.
+    public void revokeToken(String jti, Long userId, Date expiresAt) {
+        if (jti == null || expiresAt == null || expiresAt.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        store(RevokedToken.token(jti, userId, LocalDateTime.ofInstant(expiresAt.toInstant(), ZONE)));
+    }
+
+    // Every access token of the user issued until now (role change, logout everywhere).
+    public void revokeUser(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        store(RevokedToken.user(userId, now, now.plusNanos(accessExpirationMs * 1_000_000)));
+    }
+
+    private void store(RevokedToken revoked) {
+        RevokedToken saved = repository.save(revoked);
+        apply(saved);
+        bus.publish(new CacheInvalidation(bus.getNodeId(), ENTITY_NAME, saved.getId()));
+    }
+
+    private void onRemoteRevocation(CacheInvalidation message) {
+        if (ENTITY_NAME.equals(message.getEntityName()) && message.getEntityId() != null) {
+            repository.findById(message.getEntityId()).ifPresent(this::apply);
+        }
+    }
+
+    // Map first, then filter: a reader that sees the filter bit always finds the map entry.
+    private synchronized void apply(RevokedToken revoked) {
+        put(revoked);
+        if (revoked.isUserWide()) {
+            filter.add(revoked.getUserId());
+        } else {
+            filter.add(revoked.getJti());
+        }
+        if (size() > filter.getExpectedEntries()) {
+            rebuildFilter();
+        }
+    }
+
+    private void put(RevokedToken revoked) {
+        long expiresAt = toMillis(revoked.getExpiresAt());
+        if (revoked.isUserWide()) {
+            // Several revocations of one user: the latest covers the earlier ones
+            revokedUsers.merge(revoked.getUserId(), new UserRevocation(toMillis(revoked.getRevokedAt()), expiresAt),
+                    (a, b) -> a.revokedAtMillis() >= b.revokedAtMillis() ? a : b);
+        } else {
+            revokedTokens.put(revoked.getJti(), expiresAt);
+        }
+    }
+
+    // =====================================================================
+    // CLEANUP
+    // =====================================================================
+
+    // Drops expired entries (memory and table) and re-reads the table, which also picks up any revocation
+    // whose bus message was missed.
+    @Scheduled(fixedDelayString = "${jwt.cleanup-ms:600000}", initialDelayString = "${jwt.cleanup-ms:600000}")
+    public void cleanup() {
+        try {
+            int deleted = repository.deleteExpired(LocalDateTime.now());
+            reload();
+            logger.debug("Token revocation cleanup: {} expired entries deleted, {} active", deleted, size());
+        } catch (RuntimeException e) {
+            logger.warn("Token revocation cleanup failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void reload() {
+        List<RevokedToken> active = repository.findByExpiresAtAfter(LocalDateTime.now());
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedUsers.values().removeIf(revocation -> revocation.expiresAtMillis() <= now);
+        active.forEach(this::put);
+        rebuildFilter();
+    }
+
+    // New filter with room for twice the current entries (at least the configured size), swapped in at once.
+    private void rebuildFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, size() * 2), falsePositiveRate);
+        revokedTokens.keySet().forEach(rebuilt::add);
+        revokedUsers.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+    }
+
+    int size() {
+        return revokedTokens.size() + revokedUsers.size();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+}
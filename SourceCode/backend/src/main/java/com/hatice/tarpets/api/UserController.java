@@ -1,9 +1,14 @@
 package com.hatice.tarpets.api;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.validation.Valid;
 
 import java.util.List;
 
@@ -18,16 +23,32 @@ public class UserController {
     private UserRepository userRepository;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private AdminExportService adminExportService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
     // 1. List All Users (Admin Dashboard).
     // Endpoint used by AdminPanel.js in the frontend to manage registered users.
+    // Admin role is enforced by SecurityConfig ("/api/admin/**") before this method is reached.
     @GetMapping("/admin/users")
-    public List<User> getAllUsers(@RequestHeader(value = "Authorization", required = false) String auth) {
-        validateAdminAccess(auth);
+    public List<User> getAllUsers() {
         return userRepository.findAll();
     }
 
+    // 1b. Export All Users as a Stream (Admin Dashboard).
+    // CSV or NDJSON written row by row while reading; constant memory regardless of the number of users.
+    @GetMapping("/admin/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        StreamingResponseBody body = output -> adminExportService.exportUsers(exportFormat, output);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
     // 2. Retrieve Single User Profile.
     // Used for the Profile Page to display user details.
     @GetMapping("/users/{id}")
@@ -36,16 +57,15 @@ public class UserController {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found: " + id));
     }
 
-    // Helper method to validate Admin Role from the JWT Token.
-    // Centralizes security logic for this controller.
-    private void validateAdminAccess(String authHeader) {
-        String token = null;
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-        }
-
-        if (token == null || !jwtUtil.validateToken(token) || !"ADMIN".equals(jwtUtil.getRoleFromToken(token))) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied: Admins only.");
-        }
+    // 3. Change User Role (Admin).
+    // The user's current access tokens still carry the old role, so they are revoked: the next refresh
+    // (or login) issues a token with the new one.
+    @PutMapping("/admin/users/{id}/role")
+    public User updateRole(@PathVariable Long id, @Valid @RequestBody RoleUpdateRequest request) {
+        User user = getUserById(id);
+        user.setRole(request.getRole());
+        User saved = userRepository.save(user);
+        tokenRevocationService.revokeUser(id);
+        return saved;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.hatice.tarpets.api;
 
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -20,6 +21,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     // Optimized Query: Fetches the User AND their Pets in a single SQL query.
     // 'LEFT JOIN FETCH' ensures pets are loaded eagerly, preventing LazyLoadingException in the Controller.
+    // Not cached: the user carries the password hash, which should not sit in (possibly shared) cache memory.
     @Query("select u from User u left join fetch u.pets where u.email = :email")
     Optional<User> findByEmailFetchPets(@Param("email") String email);
-}
\ No newline at end of file
+
+    // A user write drops the user's order history, which includes the user.
+    @Override
+    @CacheEvict(cacheNames = TieredCacheConfig.ORDERS_BY_USER, key = "#p0.id", condition = "#p0.id != null")
+    <S extends User> S save(S user);
+}
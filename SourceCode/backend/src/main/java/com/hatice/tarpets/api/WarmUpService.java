@@ -0,0 +1,244 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Startup Warm-Up.
+// Runs before the instance reports ready: Spring Boot switches the readiness state (/actuator/health/readiness)
+// to ACCEPTING_TRAFFIC only after all ApplicationReadyEvent listeners have returned, so the load balancer sends
+// no traffic while this runs. Steps: load the catalog, open the pool's connections, run the JPA queries once,
+// exercise JWT signing/parsing and Product/Order JSON serialization, then send read-only requests through the
+// whole HTTP stack. A failing step is logged and skipped; it never keeps the instance out of service.
+// Durations are recorded as the 'tarpets.warmup' timer (tag 'step', "total" for the whole warm-up).
+@Service
+public class WarmUpService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmUpService.class);
+
+    static final String TIMER_NAME = "tarpets.warmup";
+
+    // Sample size for the serialization and request steps
+    private static final int SAMPLE_PRODUCTS = 50;
+
+    private final CatalogIndex catalogIndex;
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final PetRepository petRepository;
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+    // Repetitions of the in-process steps (JWT, JSON) and number of synthetic HTTP requests
+    private final int iterations;
+    private final int requests;
+    // Time budget: the repeated steps stop early once it is used up, so readiness is never delayed for long
+    private final long maxDurationMs;
+
+    // System.nanoTime() at which the repeated steps stop (set when the warm-up starts)
+    private long deadline;
+
+    public WarmUpService(CatalogIndex catalogIndex, ProductRepository productRepository, OrderRepository orderRepository,
+                         UserRepository userRepository, PetRepository petRepository, JwtUtil jwtUtil,
+                         ObjectMapper objectMapper, DataSource dataSource, MeterRegistry meterRegistry,
+                         @Value("${warmup.enabled:true}") boolean enabled,
+                         @Value("${warmup.iterations:500}") int iterations,
+                         @Value("${warmup.requests:100}") int requests,
+                         @Value("${warmup.max-duration-ms:20000}") long maxDurationMs) {
+        this.catalogIndex = catalogIndex;
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.petRepository = petRepository;
+        this.jwtUtil = jwtUtil;
+        this.objectMapper = objectMapper;
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.requests = requests;
+        this.maxDurationMs = maxDurationMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Long> durations = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        deadline = start + TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+
+        step("catalog", durations, () -> catalogIndex.getProducts());
+        step("connection-pool", durations, this::fillConnectionPool);
+        step("queries", durations, this::runQueries);
+        step("jwt", durations, this::exerciseJwt);
+        step("json", durations, this::exerciseJson);
+        if (event.getApplicationContext() instanceof WebServerApplicationContext web && web.getWebServer() != null) {
+            step("http", durations, () -> sendRequests(web.getWebServer().getPort()));
+        }
+
+        long total = System.nanoTime() - start;
+        record("total", total);
+        logger.info("Warm-up finished in {} ms {}", TimeUnit.NANOSECONDS.toMillis(total), durations);
+    }
+
+    // =====================================================================
+    // STEPS
+    // =====================================================================
+
+    // Opens as many connections as the pool keeps idle at the same time, instead of the pool adding them
+    // one by one in the background while the first requests wait.
+    private void fillConnectionPool() throws Exception {
+        int size = dataSource instanceof HikariDataSource hikari ? hikari.getMinimumIdle() : 1;
+        List<Connection> connections = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                connection.isValid(1);
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    // First execution of each query builds Hibernate's query plan and SQL; the cacheable finders also warm the
+    // second-level cache for the first category.
+    private void runQueries() {
+        PageRequest first = PageRequest.of(0, 1);
+        productRepository.findAll(first);
+        orderRepository.findAll(first);
+        userRepository.findAll(first);
+        petRepository.findAll(first);
+        productRepository.findByIsDiscountedTrue();
+        List<Product> products = catalogIndex.getProducts();
+        if (!products.isEmpty()) {
+            Product product = products.get(0);
+            productRepository.findById(product.getId());
+            if (product.getCategory() != null) {
+                productRepository.findByCategory(product.getCategory());
+            }
+        }
+    }
+
+    private void exerciseJwt() {
+        for (int i = 0; i < iterations && !timeIsUp(); i++) {
+            jwtUtil.parseClaims(jwtUtil.generateToken((long) i, i % 2 == 0 ? "USER" : "ADMIN"));
+        }
+    }
+
+    // Product and Order (with items) serialization as written by the controllers, plus Product parsing.
+    private void exerciseJson() throws Exception {
+        List<Product> products = sampleProducts();
+        Order order = syntheticOrder(products);
+        for (int i = 0; i < iterations && !timeIsUp(); i++) {
+            objectMapper.writeValueAsBytes(products);
+            objectMapper.writeValueAsBytes(order);
+            if (!products.isEmpty()) {
+                objectMapper.readValue(objectMapper.writeValueAsBytes(products.get(i % products.size())), Product.class);
+            }
+        }
+    }
+
+    // Read-only requests through Tomcat, the security filters (with a JWT) and the controllers.
+    private void sendRequests(int port) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        String authorization = "Bearer " + jwtUtil.generateToken(0L, "USER");
+        List<String> paths = new ArrayList<>(List.of("/api/products/browse?size=24", "/api/products/discounted",
+                "/api/products/best-sellers"));
+        for (Product product : sampleProducts()) {
+            paths.add("/api/products/" + product.getId());
+        }
+        for (int i = 0; i < requests && !timeIsUp(); i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + paths.get(i % paths.size())))
+                    .header(HttpHeaders.AUTHORIZATION, authorization)
+                    .timeout(Duration.ofSeconds(10))
+                    .GET().build();
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    // =====================================================================
+    // HELPERS
+    // =====================================================================
+
+    private interface WarmUpStep {
+        void run() throws Exception;
+    }
+
+    private void step(String name, Map<String, Long> durations, WarmUpStep step) {
+        long start = System.nanoTime();
+        try {
+            step.run();
+        } catch (Exception e) {
+            logger.warn("Warm-up step '{}' failed, continuing: {}", name, e.toString());
+        }
+        long elapsed = System.nanoTime() - start;
+        record(name, elapsed);
+        durations.put(name, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    private boolean timeIsUp() {
+        return System.nanoTime() - deadline > 0;
+    }
+
+    private void record(String step, long nanos) {
+        Timer.builder(TIMER_NAME)
+                .description("Startup warm-up duration")
+                .tag("step", step)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private List<Product> sampleProducts() {
+        List<Product> products = catalogIndex.getProducts();
+        return products.subList(0, Math.min(SAMPLE_PRODUCTS, products.size()));
+    }
+
+    private static Order syntheticOrder(List<Product> products) {
+        Order order = new Order();
+        order.setCreatedAt(LocalDateTime.now());
+        double total = 0;
+        for (Product product : products.subList(0, Math.min(3, products.size()))) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setPrice(product.getPrice());
+            order.getItems().add(item);
+            total += product.getPrice() == null ? 0 : product.getPrice();
+        }
+        order.setTotalPrice(total);
+        return order;
+    }
+}
@@ -0,0 +1,92 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Checks that the admin order export streams: heap usage must stay flat while a million orders are written.
+class AdminExportServiceTests {
+
+    private static final int ORDER_COUNT = 1_000_000;
+
+    // Allowed heap growth between the first sample (after 100k orders, once buffers and caches are warm)
+    // and any later sample. Retaining a million orders would need several hundred MB, so this bound
+    // only holds if rows are written as they are read.
+    private static final long MAX_HEAP_GROWTH_BYTES = 32L * 1024 * 1024;
+
+    private static SingleConnectionDataSource dataSource;
+
+    @BeforeAll
+    static void createSyntheticOrders() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:export-test;DB_CLOSE_DELAY=-1", "sa", "", true);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, user_id BIGINT, total_price DOUBLE, created_at TIMESTAMP)");
+        jdbc.execute("CREATE TABLE order_items (id BIGINT PRIMARY KEY, order_id BIGINT, product_id BIGINT, quantity INT, price DOUBLE)");
+        jdbc.execute("CREATE INDEX idx_order_items_order ON order_items (order_id)");
+        jdbc.execute("INSERT INTO orders SELECT X, MOD(X, 5000), X * 0.5, TIMESTAMP '2025-01-01 10:00:00' FROM SYSTEM_RANGE(1, " + ORDER_COUNT + ")");
+        jdbc.execute("INSERT INTO order_items SELECT X, X, MOD(X, 300), 1, X * 0.5 FROM SYSTEM_RANGE(1, " + ORDER_COUNT + ")");
+    }
+
+    @AfterAll
+    static void dropDatabase() {
+        new JdbcTemplate(dataSource).execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+
+    @Test
+    void exportOrdersKeepsHeapFlat() throws Exception {
+        AdminExportService service = new AdminExportService(dataSource, new ObjectMapper());
+        HeapSamplingOutputStream output = new HeapSamplingOutputStream();
+
+        service.exportOrders(ExportFormat.NDJSON, output);
+
+        assertEquals(ORDER_COUNT, output.lines, "one NDJSON line per order");
+        assertTrue(output.maxGrowth < MAX_HEAP_GROWTH_BYTES,
+                "heap grew by " + output.maxGrowth / (1024 * 1024) + " MB while exporting");
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Discards the export but counts lines and samples the live heap every 100k orders.
+    private static class HeapSamplingOutputStream extends OutputStream {
+
+        private static final long SAMPLE_EVERY_LINES = 100_000;
+
+        private long lines;
+        private long firstSample = -1;
+        private long maxGrowth;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+                if (lines % SAMPLE_EVERY_LINES == 0) {
+                    long used = usedHeapAfterGc();
+                    if (firstSample < 0) {
+                        firstSample = used;
+                    }
+                    maxGrowth = Math.max(maxGrowth, used - firstSample);
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
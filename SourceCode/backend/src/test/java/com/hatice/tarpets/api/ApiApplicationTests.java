@@ -2,8 +2,10 @@ package com.hatice.tarpets.api;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
-@SpringBootTest
+@SpringBootTest(properties = "test.database=context")
+@ActiveProfiles("test")
 class ApiApplicationTests {
 
     @Test
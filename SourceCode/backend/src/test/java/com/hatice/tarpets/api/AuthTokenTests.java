@@ -0,0 +1,130 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Refresh token rotation and logout over HTTP: a rotated refresh token cannot be used again (and its reuse
+// ends the whole login), logout revokes the access token at once, and logout everywhere invalidates every
+// access and refresh token the user holds.
+class AuthTokenTests {
+
+    private static final String PASSWORD = "secret-password";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void startApplication() {
+        context = TestApplication.start();
+        objectMapper = context.getBean(ObjectMapper.class);
+        Map<String, Object> registered = post("/api/register", null,
+                Map.of("fullName", "Token User", "email", "tokens@example.com", "password", PASSWORD));
+        assertNotNull(registered.get("token"));
+    }
+
+    @AfterEach
+    void stopApplication() {
+        context.close();
+    }
+
+    @Test
+    void rotatedRefreshTokenIsRejectedOnReuse() {
+        Map<String, Object> login = login();
+        String first = (String) login.get("refreshToken");
+
+        Map<String, Object> rotated = post("/api/refresh", null, Map.of("refreshToken", first));
+        String second = (String) rotated.get("refreshToken");
+        assertNotEquals(first, second);
+        assertEquals(200, get("/api/me/pets", (String) rotated.get("token")));
+
+        // The old token was copied: its reuse is refused and revokes the tokens rotated from it
+        assertEquals(401, status("/api/refresh", null, Map.of("refreshToken", first)));
+        assertEquals(401, status("/api/refresh", null, Map.of("refreshToken", second)));
+
+        // Other logins of the same user are not affected
+        String otherDevice = (String) login().get("refreshToken");
+        assertEquals(200, status("/api/refresh", null, Map.of("refreshToken", otherDevice)));
+    }
+
+    @Test
+    void logoutRevokesTheAccessTokenAndTheLogin() {
+        Map<String, Object> login = login();
+        String token = (String) login.get("token");
+        Map<String, Object> otherDevice = login();
+
+        assertEquals(200, status("/api/logout", token, Map.of("refreshToken", login.get("refreshToken"))));
+
+        assertEquals(401, get("/api/me/pets", token));
+        assertEquals(401, status("/api/refresh", null, Map.of("refreshToken", login.get("refreshToken"))));
+        assertEquals(200, get("/api/me/pets", (String) otherDevice.get("token")));
+    }
+
+    @Test
+    void logoutEverywhereInvalidatesOutstandingTokens() {
+        Map<String, Object> phone = login();
+        Map<String, Object> laptop = login();
+        assertEquals(200, get("/api/me/pets", (String) laptop.get("token")));
+
+        assertEquals(200, status("/api/logout-all", (String) phone.get("token"), Map.of()));
+
+        for (Map<String, Object> device : List.of(phone, laptop)) {
+            assertEquals(401, get("/api/me/pets", (String) device.get("token")));
+            assertEquals(401, status("/api/refresh", null, Map.of("refreshToken", device.get("refreshToken"))));
+        }
+    }
+
+    private Map<String, Object> login() {
+        return post("/api/login", null, Map.of("email", "tokens@example.com", "password", PASSWORD));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> post(String path, String token, Map<String, ?> body) {
+        HttpResponse<String> response = send(path, token, body);
+        assertEquals(200, response.statusCode(), response.body());
+        try {
+            return objectMapper.readValue(response.body(), Map.class);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private int status(String path, String token, Map<String, ?> body) {
+        return send(path, token, body).statusCode();
+    }
+
+    private int get(String path, String token) {
+        return send(path, token, null).statusCode();
+    }
+
+    private HttpResponse<String> send(String path, String token, Map<String, ?> body) {
+        int port = Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .version(HttpClient.Version.HTTP_1_1);
+        if (token != null) {
+            request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        try {
+            if (body != null) {
+                request.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+            }
+            return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
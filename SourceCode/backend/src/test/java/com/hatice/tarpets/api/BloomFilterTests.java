@@ -0,0 +1,53 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bloom filter behind the token revocation list: no false negatives, false positives near the configured rate.
+class BloomFilterTests {
+
+    private static final int ENTRIES = 10_000;
+    private static final double RATE = 0.01;
+
+    @Test
+    void everyAddedKeyIsFound() {
+        BloomFilter filter = new BloomFilter(ENTRIES, RATE);
+        String[] tokens = new String[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            tokens[i] = UUID.randomUUID().toString();
+            filter.add(tokens[i]);
+            filter.add((long) i);
+        }
+        for (int i = 0; i < ENTRIES; i++) {
+            assertTrue(filter.mightContain(tokens[i]));
+            assertTrue(filter.mightContain((long) i));
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfiguredRate() {
+        BloomFilter filter = new BloomFilter(ENTRIES, RATE);
+        for (int i = 0; i < ENTRIES; i++) {
+            filter.add(UUID.randomUUID().toString());
+        }
+        int probes = 100_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < RATE * 2, "false positive rate " + rate);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(ENTRIES, RATE);
+        assertFalse(filter.mightContain("a8f5f167-f44f-4964-9b6e-2c1d3e4f5a6b"));
+        assertFalse(filter.mightContain(42L));
+    }
+}
@@ -0,0 +1,207 @@
+package com.hatice.tarpets.api;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.decoder.BrotliInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Brotli filter: Accept-Encoding negotiation, and responses that switch to non-blocking writes (async requests
+// with a WriteListener) before and after the compression decision.
+class BrotliCompressionFilterTests {
+
+    private static final int THRESHOLD = 2048;
+
+    private final BrotliCompressionFilter filter = new BrotliCompressionFilter(List.of("application/json"), THRESHOLD, 4);
+
+    @BeforeAll
+    static void loadNativeLibrary() {
+        Brotli4jLoader.ensureAvailability();
+    }
+
+    @Test
+    void qValuesAreComparedAsNumbers() {
+        assertTrue(BrotliCompressionFilter.acceptsBrotli("gzip, deflate, br"));
+        assertTrue(BrotliCompressionFilter.acceptsBrotli("BR"));
+        assertTrue(BrotliCompressionFilter.acceptsBrotli("gzip;q=1.0, br;q=0.5"));
+        assertTrue(BrotliCompressionFilter.acceptsBrotli("br ; q=0.001"));
+        assertTrue(BrotliCompressionFilter.acceptsBrotli("br;q=1"));
+
+        assertFalse(BrotliCompressionFilter.acceptsBrotli("br;q=0"));
+        assertFalse(BrotliCompressionFilter.acceptsBrotli("br;q=0.0"));
+        assertFalse(BrotliCompressionFilter.acceptsBrotli("br; q=0.000"));
+        assertFalse(BrotliCompressionFilter.acceptsBrotli("gzip, br;Q=0.00"));
+        assertFalse(BrotliCompressionFilter.acceptsBrotli("br;q="));
+        assertFalse(BrotliCompressionFilter.acceptsBrotli("br;q=high"));
+        assertFalse(BrotliCompressionFilter.acceptsBrotli("gzip, brotli"));
+        assertFalse(BrotliCompressionFilter.acceptsBrotli("gzip"));
+    }
+
+    @Test
+    void compressesLargeJson() throws Exception {
+        byte[] body = json(10 * 1024);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType("application/json");
+                resp.getOutputStream().write(body);
+            }
+        }));
+
+        assertEquals("br", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(response.getContentAsByteArray().length < body.length / 2);
+        assertArrayEquals(body, decode(response.getContentAsByteArray()));
+    }
+
+    @Test
+    void undecidedResponsePassesThroughWhenWritesTurnNonBlocking() throws Exception {
+        byte[] head = json(100);
+        byte[] tail = json(10 * 1024);
+        NonBlockingResponse response = new NonBlockingResponse();
+        MockHttpServletRequest request = request();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType("application/json");
+                ServletOutputStream out = resp.getOutputStream();
+                out.write(head);
+                req.startAsync();
+                out.setWriteListener(response.listener);
+                assertTrue(out.isReady());
+                out.write(tail);
+            }
+        }));
+
+        assertSame(response.listener, response.stream.listener);
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(concat(head, tail), response.stream.bytes.toByteArray());
+    }
+
+    @Test
+    void startedBrotliStreamCarriesOnWithOneWritePerApplicationWrite() throws Exception {
+        byte[] head = json(4 * 1024);
+        byte[] tail = json(50 * 1024);
+        NonBlockingResponse response = new NonBlockingResponse();
+        MockHttpServletRequest request = request();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType("application/json");
+                ServletOutputStream out = resp.getOutputStream();
+                out.write(head);
+                req.startAsync();
+                out.setWriteListener(response.listener);
+                for (int off = 0; off < tail.length; off += 1024) {
+                    int writes = response.stream.writes;
+                    out.write(tail, off, Math.min(1024, tail.length - off));
+                    assertTrue(response.stream.writes - writes <= 1);
+                }
+                out.close();
+            }
+        }));
+
+        assertSame(response.listener, response.stream.listener);
+        assertEquals("br", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(concat(head, tail), decode(response.stream.bytes.toByteArray()));
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, br");
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private static byte[] json(int size) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; json.length() < size - 1; i++) {
+            json.append("{\"id\":").append(i).append(",\"name\":\"Product ").append(i).append("\",\"category\":\"cat\"},");
+        }
+        json.setLength(size - 1);
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(a);
+        out.writeBytes(b);
+        return out.toByteArray();
+    }
+
+    private static byte[] decode(byte[] compressed) throws IOException {
+        try (BrotliInputStream in = new BrotliInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    // Response whose stream accepts a WriteListener, like the container's (the mock one does not)
+    private static class NonBlockingResponse extends HttpServletResponseWrapper {
+
+        private final RecordingStream stream = new RecordingStream();
+        private final WriteListener listener = new WriteListener() {
+            @Override
+            public void onWritePossible() {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+        };
+
+        NonBlockingResponse() {
+            super(new MockHttpServletResponse());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return stream;
+        }
+    }
+
+    private static class RecordingStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private WriteListener listener;
+        private int writes;
+
+        @Override
+        public void write(int b) {
+            writes++;
+            bytes.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            writes++;
+            bytes.write(b, off, len);
+        }
+
+        @Override
+        public boolean isReady() {
+            return listener != null;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            this.listener = writeListener;
+        }
+    }
+}
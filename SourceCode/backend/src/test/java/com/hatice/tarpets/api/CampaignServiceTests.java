@@ -0,0 +1,202 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Campaign transitions in a running application (H2): start and end reprice the target products with conditional
+// batched UPDATEs, the status compare-and-set applies each transition once, cancel restores an active campaign,
+// and with two instances on one database a transition made on one is followed by the other's catalog.
+// Transitions are called directly unless a test is about the timers (those campaigns start within milliseconds).
+class CampaignServiceTests {
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void startAndEndRepriceOnlyTheProductsTheyOwn() {
+        ConfigurableApplicationContext node = startNode(TestApplication.start("--campaigns.timer.tick-ms=20"));
+        CampaignService campaigns = node.getBean(CampaignService.class);
+        Product food = createProduct(node, "Cat Food", 100.0, false);
+        Product litter = createProduct(node, "Cat Litter", 40.0, false);
+        Product onSale = createProduct(node, "Cat Toy", 20.0, true);
+
+        Campaign campaign = campaigns.create(campaign("cat", LocalDateTime.now().plusHours(1)));
+        assertEquals(Campaign.STATUS_SCHEDULED, campaign.getStatus());
+
+        assertTrue(campaigns.start(campaign.getId()));
+        assertFalse(campaigns.start(campaign.getId()), "the status compare-and-set lets one call start it");
+        assertEquals(75.0, price(node, food));
+        assertEquals(30.0, price(node, litter));
+        assertEquals(20.0, price(node, onSale), "already discounted products are left alone");
+        assertEquals(75.0, node.getBean(CatalogIndex.class).getProduct(food.getId()).getPrice());
+        assertEquals(Campaign.STATUS_ACTIVE, status(node, campaign));
+        assertEquals(2, campaign(node, campaign).getAffectedProducts());
+
+        // An admin sets a new price during the campaign: the end does not overwrite it
+        node.getBean(ProductController.class).updateProduct(litter.getId(),
+                new Product("Cat Litter", null, 35.0, null, false, "cat", "Test", null, 10));
+
+        assertTrue(campaigns.end(campaign.getId(), Campaign.STATUS_ENDED));
+        assertFalse(campaigns.end(campaign.getId(), Campaign.STATUS_ENDED));
+        assertEquals(100.0, price(node, food));
+        assertEquals(35.0, price(node, litter));
+        assertEquals(100.0, node.getBean(CatalogIndex.class).getProduct(food.getId()).getPrice());
+        assertEquals(Campaign.STATUS_ENDED, status(node, campaign));
+    }
+
+    @Test
+    void timersStartAndEndTheCampaign() throws InterruptedException {
+        ConfigurableApplicationContext node = startNode(TestApplication.start("--campaigns.timer.tick-ms=20"));
+        Product food = createProduct(node, "Cat Food", 100.0, false);
+
+        Campaign request = campaign("cat", LocalDateTime.now().plusNanos(200_000_000));
+        request.setEndsAt(LocalDateTime.now().plusSeconds(2));
+        Campaign campaign = node.getBean(CampaignService.class).create(request);
+
+        await(() -> Campaign.STATUS_ACTIVE.equals(status(node, campaign)));
+        assertEquals(75.0, price(node, food));
+        await(() -> Campaign.STATUS_ENDED.equals(status(node, campaign)));
+        assertEquals(100.0, price(node, food));
+    }
+
+    @Test
+    void cancelRestoresAnActiveCampaignOnce() {
+        ConfigurableApplicationContext node = startNode(TestApplication.start("--campaigns.timer.tick-ms=20"));
+        CampaignService campaigns = node.getBean(CampaignService.class);
+        Product food = createProduct(node, "Cat Food", 100.0, false);
+
+        Campaign scheduled = campaigns.create(campaign("cat", LocalDateTime.now().plusHours(1)));
+        assertEquals(Campaign.STATUS_CANCELLED, campaigns.cancel(scheduled.getId()).getStatus());
+        assertFalse(campaigns.start(scheduled.getId()), "a cancelled campaign does not start");
+        assertEquals(100.0, price(node, food));
+
+        Campaign active = campaigns.create(campaign("cat", LocalDateTime.now().plusHours(1)));
+        campaigns.start(active.getId());
+        assertEquals(75.0, price(node, food));
+        assertEquals(Campaign.STATUS_CANCELLED, campaigns.cancel(active.getId()).getStatus());
+        assertEquals(100.0, price(node, food));
+        assertEquals(100.0, node.getBean(CatalogIndex.class).getProduct(food.getId()).getPrice());
+
+        ResponseStatusException again = assertThrows(ResponseStatusException.class, () -> campaigns.cancel(active.getId()));
+        assertEquals(HttpStatus.CONFLICT, again.getStatusCode());
+    }
+
+    @Test
+    void cancelRacingTheEndTimerRestoresPricesOnce() throws Exception {
+        ConfigurableApplicationContext node = startNode(TestApplication.start("--campaigns.timer.tick-ms=20"));
+        CampaignService campaigns = node.getBean(CampaignService.class);
+        Product food = createProduct(node, "Cat Food", 100.0, false);
+        Campaign campaign = campaigns.create(campaign("cat", LocalDateTime.now().plusHours(1)));
+        campaigns.start(campaign.getId());
+
+        // The end as the timer of another instance would run it, at the same time as the cancel here
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> ended = executor.submit(() -> campaigns.end(campaign.getId(), Campaign.STATUS_ENDED));
+            Future<Boolean> cancelled = executor.submit(() -> {
+                try {
+                    campaigns.cancel(campaign.getId());
+                    return true;
+                } catch (ResponseStatusException e) {
+                    assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+                    return false;
+                }
+            });
+            assertTrue(ended.get(10, TimeUnit.SECONDS) ^ cancelled.get(10, TimeUnit.SECONDS), "exactly one transition applies");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(100.0, price(node, food));
+        assertEquals(1, jdbc(node).queryForObject(
+                "SELECT COUNT(*) FROM price_history WHERE campaign_id = ? AND is_discounted = FALSE", Integer.class, campaign.getId()),
+                "one restore row per product");
+        assertTrue(List.of(Campaign.STATUS_ENDED, Campaign.STATUS_CANCELLED).contains(status(node, campaign)));
+    }
+
+    @Test
+    void anotherInstanceFollowsTransitionsItDidNotApply() throws InterruptedException {
+        String database = "campaigns" + UUID.randomUUID();
+        ConfigurableApplicationContext nodeA = startNode(TestApplication.startOnDatabase(database, "--campaigns.timer.tick-ms=20"));
+        ConfigurableApplicationContext nodeB = startNode(TestApplication.startOnDatabase(database, "--campaigns.timer.tick-ms=20"));
+        Product food = createProduct(nodeA, "Cat Food", 100.0, false);
+        nodeB.getBean(CatalogIndex.class).reload();
+        CatalogIndex indexB = nodeB.getBean(CatalogIndex.class);
+
+        Campaign campaign = nodeA.getBean(CampaignService.class).create(campaign("cat", LocalDateTime.now().plusHours(1)));
+        nodeA.getBean(CampaignService.class).start(campaign.getId());
+        await(() -> indexB.getProduct(food.getId()).getPrice() == 75.0);
+
+        nodeA.getBean(CampaignService.class).cancel(campaign.getId());
+        await(() -> indexB.getProduct(food.getId()).getPrice() == 100.0);
+
+        // B's own end timer finds the campaign cancelled and does nothing
+        assertFalse(nodeB.getBean(CampaignService.class).end(campaign.getId(), Campaign.STATUS_ENDED));
+        assertEquals(100.0, price(nodeB, food));
+    }
+
+    private ConfigurableApplicationContext startNode(ConfigurableApplicationContext node) {
+        nodes.add(node);
+        return node;
+    }
+
+    private static Campaign campaign(String category, LocalDateTime startsAt) {
+        Campaign campaign = new Campaign();
+        campaign.setName("Test campaign");
+        campaign.setDiscountPercent(25.0);
+        campaign.setCategory(category);
+        campaign.setStartsAt(startsAt);
+        campaign.setEndsAt(startsAt.plusHours(1));
+        return campaign;
+    }
+
+    private static Product createProduct(ConfigurableApplicationContext node, String name, double price, boolean discounted) {
+        return node.getBean(ProductController.class).createProduct(
+                new Product(name, null, price, discounted ? price * 2 : null, discounted, "cat", "Test", null, 10));
+    }
+
+    private static double price(ConfigurableApplicationContext node, Product product) {
+        return jdbc(node).queryForObject("SELECT price FROM products WHERE id = ?", Double.class, product.getId());
+    }
+
+    private static String status(ConfigurableApplicationContext node, Campaign campaign) {
+        return jdbc(node).queryForObject("SELECT status FROM campaigns WHERE id = ?", String.class, campaign.getId());
+    }
+
+    private static Campaign campaign(ConfigurableApplicationContext node, Campaign campaign) {
+        return node.getBean(CampaignRepository.class).findById(campaign.getId()).orElseThrow();
+    }
+
+    private static JdbcTemplate jdbc(ConfigurableApplicationContext node) {
+        return new JdbcTemplate(node.getBean(DataSource.class));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not reached in time");
+            Thread.sleep(20);
+        }
+    }
+}
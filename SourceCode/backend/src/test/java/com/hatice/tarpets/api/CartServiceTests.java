@@ -0,0 +1,266 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// Carts against a plain 'cart_items' table (H2) and a mocked catalog: validation and limits, the write-behind
+// flush, checkout, and two instances (two services on one database, joined by the in-JVM bus) seeing each
+// other's written carts and checking out the same cart.
+class CartServiceTests {
+
+    private static final long USER = 7L;
+
+    private final CatalogIndex catalogIndex = mock(CatalogIndex.class);
+    private final OrderService orderService = mock(OrderService.class);
+    private final List<LocalCacheInvalidationBus> buses = new ArrayList<>();
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private CartService cartService;
+
+    @BeforeEach
+    void createTable() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:cart" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE cart_items (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                + "product_id BIGINT NOT NULL, quantity INT, updated_at TIMESTAMP)");
+        // Checkout locks the user row
+        jdbc.execute("CREATE TABLE users (id BIGINT PRIMARY KEY)");
+        jdbc.update("INSERT INTO users (id) VALUES (?)", USER);
+        cartService = newInstance();
+
+        stock(1L, 10.0, 5);
+        stock(2L, 2.5, 100);
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        buses.forEach(LocalCacheInvalidationBus::leave);
+        jdbc.execute("SHUTDOWN");
+    }
+
+    @Test
+    void mutationsArePricedAndValidatedAgainstTheCatalog() {
+        cartService.addItem(USER, new CartItemRequest(1L, 2));
+        CartResponse cart = cartService.addItem(USER, new CartItemRequest(2L, 4));
+
+        assertEquals(2, cart.getLines().size());
+        assertEquals(30.0, cart.getTotalPrice());
+        assertEquals(6, cart.getItemCount());
+        assertTrue(cart.getValid());
+
+        assertStatus(HttpStatus.CONFLICT, () -> cartService.addItem(USER, new CartItemRequest(1L, 4)));
+        assertStatus(HttpStatus.NOT_FOUND, () -> cartService.addItem(USER, new CartItemRequest(3L, 1)));
+        assertStatus(HttpStatus.BAD_REQUEST, () -> cartService.addItem(USER, new CartItemRequest(1L, -1)));
+        // All or nothing: the valid first line is not applied either
+        assertStatus(HttpStatus.CONFLICT, () -> cartService.updateItems(USER,
+                List.of(new CartItemRequest(2L, 1), new CartItemRequest(1L, 6))));
+        assertEquals(4, quantity(cartService.getCart(USER), 2L));
+
+        // A product that ran out stays in the cart, flagged; lowering it is still allowed
+        stock(1L, 10.0, 1);
+        cart = cartService.getCart(USER);
+        assertFalse(cart.getValid());
+        assertEquals(CartService.PROBLEM_INSUFFICIENT_STOCK, cart.getLines().get(0).getProblem());
+        assertTrue(cartService.updateItems(USER, List.of(new CartItemRequest(1L, 1))).getValid());
+
+        when(catalogIndex.getProduct(1L)).thenReturn(null);
+        assertEquals(CartService.PROBLEM_UNAVAILABLE, cartService.getCart(USER).getLines().get(0).getProblem());
+        assertEquals(List.of(2L), productIds(cartService.removeItem(USER, 1L)));
+    }
+
+    @Test
+    void enforcesLimitsPerProductAndPerCart() {
+        stock(2L, 2.5, 1000);
+        assertStatus(HttpStatus.BAD_REQUEST,
+                () -> cartService.addItem(USER, new CartItemRequest(2L, CartService.MAX_QUANTITY + 1)));
+        cartService.addItem(USER, new CartItemRequest(2L, CartService.MAX_QUANTITY));
+
+        List<CartItemRequest> lines = new ArrayList<>();
+        for (long id = 100; id < 100 + CartService.MAX_LINES - 1; id++) {
+            stock(id, 1.0, 1);
+            lines.add(new CartItemRequest(id, 1));
+        }
+        assertEquals(CartService.MAX_LINES, cartService.updateItems(USER, lines).getLines().size());
+        stock(999L, 1.0, 1);
+        assertStatus(HttpStatus.BAD_REQUEST, () -> cartService.addItem(USER, new CartItemRequest(999L, 1)));
+        // Swapping one line for another in the same request stays within the limit
+        assertEquals(CartService.MAX_LINES, cartService.updateItems(USER,
+                List.of(new CartItemRequest(100L, 0), new CartItemRequest(999L, 1))).getLines().size());
+    }
+
+    @Test
+    void changesAreWrittenByTheFlushAndReadBackByANewInstance() {
+        cartService.addItem(USER, new CartItemRequest(1L, 2));
+        cartService.addItem(USER, new CartItemRequest(2L, 3));
+        assertEquals(0, rows(), "nothing is written before the flush");
+
+        cartService.flush();
+        assertEquals(2, rows());
+        cartService.updateItems(USER, List.of(new CartItemRequest(1L, 0), new CartItemRequest(2L, 5)));
+        cartService.flush();
+        assertEquals(1, rows(), "the flush replaces the rows of the cart");
+
+        CartResponse restored = newInstance().getCart(USER);
+        assertEquals(List.of(2L), productIds(restored));
+        assertEquals(5, quantity(restored, 2L));
+    }
+
+    @Test
+    void checkoutPlacesTheOrderAtCatalogPricesAndEmptiesTheCart() {
+        assertStatus(HttpStatus.BAD_REQUEST, () -> cartService.checkout(USER));
+        cartService.addItem(USER, new CartItemRequest(1L, 2));
+        cartService.addItem(USER, new CartItemRequest(2L, 4));
+        Order placed = new Order();
+        when(orderService.placeOrder(any())).thenReturn(placed);
+
+        assertSame(placed, cartService.checkout(USER));
+        assertEquals(0, rows(), "deleted with the order, not by the flush");
+
+        ArgumentCaptor<CreateOrderRequest> request = ArgumentCaptor.forClass(CreateOrderRequest.class);
+        verify(orderService).placeOrder(request.capture());
+        assertEquals(USER, request.getValue().getUserId());
+        assertEquals(30.0, request.getValue().getTotalPrice());
+        assertEquals(List.of(1L, 2L), request.getValue().getItems().stream().map(CreateOrderRequest.Item::getProductId).toList());
+        assertEquals(10.0, request.getValue().getItems().get(0).getPrice());
+        assertTrue(cartService.getCart(USER).getLines().isEmpty());
+
+        cartService.addItem(USER, new CartItemRequest(1L, 5));
+        stock(1L, 10.0, 4);
+        assertStatus(HttpStatus.CONFLICT, () -> cartService.checkout(USER));
+        verifyNoMoreInteractions(orderService);
+    }
+
+    @Test
+    void aCartWrittenOnOneInstanceIsSeenOnTheOther() {
+        CartService other = newInstance();
+        assertTrue(other.getCart(USER).getLines().isEmpty()); // Cached (empty) on the other instance
+
+        cartService.addItem(USER, new CartItemRequest(1L, 2));
+        cartService.flush();
+
+        assertEquals(2, quantity(other.getCart(USER), 1L));
+        other.addItem(USER, new CartItemRequest(1L, 1));
+        other.flush();
+        assertEquals(3, quantity(cartService.getCart(USER), 1L), "increments build on the written cart");
+
+        // Checkout reads the written cart even before a message arrives
+        jdbc.update("UPDATE cart_items SET quantity = 1 WHERE user_id = ?", USER);
+        when(orderService.placeOrder(any())).thenReturn(new Order());
+        cartService.checkout(USER);
+        ArgumentCaptor<CreateOrderRequest> request = ArgumentCaptor.forClass(CreateOrderRequest.class);
+        verify(orderService).placeOrder(request.capture());
+        assertEquals(1, request.getValue().getItems().get(0).getQuantity());
+    }
+
+    @Test
+    void aCartCheckedOutOnTwoInstancesAtOnceIsOrderedOnce() throws Exception {
+        CartService other = newInstance();
+        cartService.addItem(USER, new CartItemRequest(1L, 2));
+        cartService.flush();
+        assertEquals(2, quantity(other.getCart(USER), 1L));
+
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(orderService.placeOrder(any())).thenAnswer(invocation -> {
+            Thread.sleep(200); // Keep the first transaction open while the second checkout arrives
+            return new Order();
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Order>> checkouts = new ArrayList<>();
+            for (CartService instance : List.of(cartService, other)) {
+                checkouts.add(executor.submit(() -> {
+                    bothStarted.countDown();
+                    bothStarted.await();
+                    return instance.checkout(USER);
+                }));
+            }
+            int placed = 0;
+            for (Future<Order> checkout : checkouts) {
+                try {
+                    assertNotNull(checkout.get(10, TimeUnit.SECONDS));
+                    placed++;
+                } catch (ExecutionException e) {
+                    ResponseStatusException rejected = assertInstanceOf(ResponseStatusException.class, e.getCause());
+                    assertEquals(HttpStatus.BAD_REQUEST, rejected.getStatusCode(), "the cart is already empty");
+                }
+            }
+            assertEquals(1, placed);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(orderService, times(1)).placeOrder(any());
+        assertEquals(0, rows());
+        assertTrue(cartService.getCart(USER).getLines().isEmpty());
+        assertTrue(other.getCart(USER).getLines().isEmpty());
+    }
+
+    @Test
+    void unwrittenChangesSurviveAMessageFromAnotherInstance() {
+        CartService other = newInstance();
+        other.addItem(USER, new CartItemRequest(2L, 1));
+        cartService.addItem(USER, new CartItemRequest(1L, 2));
+
+        other.flush();
+
+        assertEquals(List.of(1L), productIds(cartService.getCart(USER)), "pending changes are kept");
+        cartService.flush();
+        assertEquals(List.of(1L), productIds(other.getCart(USER)), "and the later write wins");
+    }
+
+    private CartService newInstance() {
+        LocalCacheInvalidationBus bus = new LocalCacheInvalidationBus();
+        buses.add(bus);
+        return new CartService(catalogIndex, orderService, dataSource, new DataSourceTransactionManager(dataSource), bus, 30);
+    }
+
+    private void stock(long id, double price, int stock) {
+        Product product = new Product("Product " + id, "", price, null, false, "Cat", "Food", null, stock);
+        product.setId(id);
+        when(catalogIndex.getProduct(id)).thenReturn(product);
+    }
+
+    private int rows() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM cart_items WHERE user_id = ?", Integer.class, USER);
+    }
+
+    private static List<Long> productIds(CartResponse cart) {
+        return cart.getLines().stream().map(CartResponse.Line::getProductId).toList();
+    }
+
+    private static int quantity(CartResponse cart, long productId) {
+        return cart.getLines().stream()
+                .filter(line -> line.getProductId() == productId)
+                .mapToInt(CartResponse.Line::getQuantity)
+                .findFirst()
+                .orElse(0);
+    }
+
+    private static void assertStatus(HttpStatus status, Runnable action) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, action::run);
+        assertEquals(status, e.getStatusCode());
+    }
+}
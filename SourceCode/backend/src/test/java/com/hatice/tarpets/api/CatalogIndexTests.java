@@ -0,0 +1,125 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Faceted browse on the in-memory index: filter intersection, disjunctive facet counts, incremental updates
+// and reloads that neither block readers nor lose changes made while they read the database.
+class CatalogIndexTests {
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+    private final CatalogIndex index = new CatalogIndex(repository);
+
+    @Test
+    void filtersIntersectAcrossFacetsAndCountsIgnoreTheirOwnSelection() {
+        load(product(1, "Cat", "Food", 40.0, true, 5),
+                product(2, "Cat", "Toys", 120.0, false, 0),
+                product(3, "cat", "Food", 300.0, false, 2),
+                product(4, "Dog", "Food", 60.0, true, 1),
+                product(5, "Dog", "Beds", 900.0, false, 3));
+
+        BrowseResponse response = index.browse(List.of("cat", "DOG"), List.of("Food"), null, 250.0, null, true, null, 0, 24);
+
+        assertEquals(List.of(1L, 4L), ids(response));
+        assertEquals(2, response.getTotal());
+        Map<String, Map<String, Integer>> facets = response.getFacets();
+        // Category counts apply every filter but the category one (subcategory Food, up to 250, in stock)
+        assertEquals(Map.of("Cat", 1, "Dog", 1), facets.get("category"));
+        assertEquals(Map.of("Food", 2), facets.get("subcategory"));
+        assertEquals(1, facets.get("price").get("0-50"));
+        assertEquals(1, facets.get("price").get("50-100"));
+        assertEquals(1, facets.get("price").get("250-500"), "price counts ignore the price filter");
+        assertEquals(Map.of("true", 2, "false", 0), facets.get("discounted"));
+        assertEquals(Map.of("true", 2, "false", 0), facets.get("inStock"));
+    }
+
+    @Test
+    void sortsAndPages() {
+        load(product(1, "Cat", "Food", 40.0, false, 5),
+                product(2, "Cat", "Food", 10.0, false, 5),
+                product(3, "Cat", "Food", 25.0, false, 5));
+
+        assertEquals(List.of(2L, 3L), ids(index.browse(null, null, null, null, null, null, "price_asc", 0, 2)));
+        assertEquals(List.of(1L), ids(index.browse(null, null, null, null, null, null, "price_asc", 1, 2)));
+        assertEquals(List.of(1L, 3L, 2L), ids(index.browse(null, null, null, null, null, null, "price_desc", 0, 24)));
+    }
+
+    @Test
+    void categoryAndSubcategoryLabelsAreKeptApart() {
+        load(product(1, "Bird", "Cages", 50.0, false, 1),
+                product(2, "Small Pets", "BIRD", 20.0, false, 1));
+
+        Map<String, Map<String, Integer>> facets = index.browse(null, null, null, null, null, null, null, 0, 24).getFacets();
+
+        assertEquals(Map.of("Bird", 1, "Small Pets", 1), facets.get("category"));
+        assertEquals(Map.of("Cages", 1, "BIRD", 1), facets.get("subcategory"));
+    }
+
+    @Test
+    void incrementalUpdatesMoveProductsAndPruneEmptyValues() {
+        load(product(1, "Cat", "Food", 40.0, false, 5),
+                product(2, "Fish", "Aquarium", 80.0, false, 5));
+
+        index.onProductChanged(ProductChangedEvent.saved(product(2, "Cat", "Litter", 30.0, true, 0)));
+        index.onProductChanged(ProductChangedEvent.saved(product(3, "fish", "Food", 15.0, false, 2)));
+        index.onProductChanged(ProductChangedEvent.deleted(1L));
+
+        BrowseResponse all = index.browse(null, null, null, null, null, null, null, 0, 24);
+        assertEquals(List.of(2L, 3L), ids(all));
+        // "Fish" was pruned with its last product, so the new product's spelling is shown
+        assertEquals(Map.of("Cat", 1, "fish", 1), all.getFacets().get("category"));
+        assertEquals(Map.of("Litter", 1, "Food", 1), all.getFacets().get("subcategory"));
+        assertEquals(List.of(2L), ids(index.browse(List.of("cat"), null, null, null, true, false, null, 0, 24)));
+        assertEquals(30.0, index.getProduct(2L).getPrice());
+        assertNull(index.getProduct(1L));
+    }
+
+    @Test
+    void reloadDoesNotBlockReadersAndKeepsChangesMadeDuringIt() throws Exception {
+        Product stale = product(1, "Cat", "Food", 40.0, false, 5);
+        load(stale);
+
+        List<CompletableFuture<BrowseResponse>> readsDuringReload = new ArrayList<>();
+        when(repository.findAll()).thenAnswer(invocation -> {
+            // Browse traffic is served from the previous index while the database is read
+            CompletableFuture<BrowseResponse> read = CompletableFuture.supplyAsync(
+                    () -> index.browse(null, null, null, null, null, null, null, 0, 24));
+            readsDuringReload.add(read);
+            read.get(5, TimeUnit.SECONDS);
+            // A change committed after the read started; the result below no longer contains it
+            index.onProductChanged(ProductChangedEvent.saved(product(1, "Cat", "Food", 35.0, false, 5)));
+            index.onProductChanged(ProductChangedEvent.saved(product(2, "Dog", "Food", 60.0, false, 5)));
+            return List.of(stale);
+        });
+
+        index.reload();
+
+        assertEquals(List.of(1L), ids(readsDuringReload.get(0).get()));
+        assertEquals(35.0, index.getProduct(1L).getPrice());
+        assertEquals(List.of(1L, 2L), ids(index.browse(null, null, null, null, null, null, null, 0, 24)));
+    }
+
+    private void load(Product... products) {
+        when(repository.findAll()).thenReturn(List.of(products));
+        index.reload();
+    }
+
+    private static List<Long> ids(BrowseResponse response) {
+        return response.getProducts().stream().map(Product::getId).toList();
+    }
+
+    private static Product product(long id, String category, String subcategory, double price, boolean discounted, int stock) {
+        Product product = new Product("Product " + id, null, price, null, discounted, category, subcategory, null, stock);
+        product.setId(id);
+        return product;
+    }
+}
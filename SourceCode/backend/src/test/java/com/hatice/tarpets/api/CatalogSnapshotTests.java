@@ -0,0 +1,156 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Snapshot listings must hold exactly the products they were built from, and write the same JSON, also after
+// a round trip through the snapshot file and after merging changes.
+class CatalogSnapshotTests {
+
+    private final ObjectMapper reflective = JsonMapper.builder().build();
+
+    private static Product product(long id, String name, String description, Double price, Double oldPrice,
+                                   Boolean discounted, String category, String imageUrl, Integer stock) {
+        Product product = new Product(name, description, price, oldPrice, discounted, category, "Food", imageUrl, stock);
+        product.setId(id);
+        product.setVersion(id % 3 == 0 ? null : id);
+        return product;
+    }
+
+    private static List<Product> products() {
+        List<Product> products = new ArrayList<>();
+        products.add(product(1, "Royal Canin \"Sensible\" 2kg", "Line 1\nLine 2 – ünlü 🐾", 349.9, 420.0, true, "Cat",
+                "https://img.example.com/rc.jpg?w=400&h=400", 35));
+        products.add(product(4, "Catnip", null, null, null, null, null, null, null));
+        products.add(product(9, "Dog Leash", "x".repeat(1000), 89.5, null, false, "dog", null, 0));
+        products.add(product(12, "Scratching Post", "Sisal", 0.0, 10.0, true, "cat", "https://img.example.com/sp.jpg", 4));
+        return products;
+    }
+
+    private static CatalogSnapshot snapshot(List<Product> products) {
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+        products.forEach(builder::add);
+        return builder.build();
+    }
+
+    private static String writeRows(CatalogSnapshot.Rows rows) throws Exception {
+        // Byte output like CatalogSnapshotMessageConverter (UTF-8 path) and character output (String path)
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JsonMapper.builder().build().getFactory().createGenerator(bytes)) {
+            ProductJsonSerializer.writeRows(rows, generator);
+        }
+        StringWriter chars = new StringWriter();
+        try (JsonGenerator generator = JsonMapper.builder().build().getFactory().createGenerator(chars)) {
+            ProductJsonSerializer.writeRows(rows, generator);
+        }
+        assertEquals(bytes.toString(StandardCharsets.UTF_8), chars.toString());
+        return chars.toString();
+    }
+
+    @Test
+    void rowsWriteSameJsonAsEntities() throws Exception {
+        List<Product> products = products();
+        CatalogSnapshot snapshot = snapshot(products);
+
+        assertEquals(reflective.writeValueAsString(products), writeRows(snapshot.all()));
+        // Materialized rows carry the same values
+        assertEquals(reflective.writeValueAsString(products), reflective.writeValueAsString(new ArrayList<>(snapshot.all())));
+    }
+
+    @Test
+    void listingsFilterByCategoryAndDiscount() throws Exception {
+        List<Product> products = products();
+        CatalogSnapshot snapshot = snapshot(products);
+
+        // Case-insensitive like the database collation, ordered by id
+        assertEquals(List.of(1L, 12L), snapshot.byCategory("CAT").stream().map(Product::getId).toList());
+        assertEquals(List.of(9L), snapshot.byCategory("Dog").stream().map(Product::getId).toList());
+        assertTrue(snapshot.byCategory("bird").isEmpty());
+        assertEquals(List.of(1L, 12L), snapshot.discounted().stream().map(Product::getId).toList());
+        assertEquals(reflective.writeValueAsString(List.of(products.get(0), products.get(3))), writeRows(snapshot.discounted()));
+
+        assertEquals(2, snapshot.rowOf(9));
+        assertEquals(-1, snapshot.rowOf(5));
+        assertEquals(4, snapshot.size());
+        assertTrue(snapshot.getOffHeapBytes() > 1000);
+    }
+
+    @Test
+    void textBufferGrowsAndRowsMustBeOrdered() {
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+        String description = "d".repeat(1000);
+        for (long id = 1; id <= 3000; id++) {
+            builder.add(product(id, "Product " + id, description, 1.0 * id, null, false, "cat", null, 1));
+        }
+        CatalogSnapshot snapshot = builder.build();
+
+        assertEquals(3000, snapshot.size());
+        assertEquals("Product 2999", snapshot.all().get(2998).getName());
+        assertEquals(description, snapshot.all().get(2998).getDescription());
+        assertThrows(IllegalArgumentException.class, () -> builder.add(product(2, "Old", null, null, null, null, null, null, null)));
+    }
+
+    @Test
+    void fileRoundTripMapsSameRows(@TempDir Path directory) throws Exception {
+        List<Product> products = products();
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+        products.forEach(builder::add);
+        CatalogSnapshot snapshot = builder.build(42);
+
+        Path file = directory.resolve("catalog.snapshot");
+        snapshot.writeTo(file);
+        CatalogSnapshot mapped = CatalogSnapshot.map(file);
+
+        assertEquals(42, mapped.getVersion());
+        assertEquals(snapshot.getBuiltAt(), mapped.getBuiltAt());
+        assertEquals(writeRows(snapshot.all()), writeRows(mapped.all()));
+        assertEquals(List.of(1L, 12L), mapped.byCategory("cat").stream().map(Product::getId).toList());
+
+        // Not a snapshot file / cut off while copying
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> CatalogSnapshot.map(file));
+        snapshot.writeTo(file);
+        Files.write(file, Arrays.copyOf(Files.readAllBytes(file), (int) Files.size(file) - 10));
+        assertThrows(IOException.class, () -> CatalogSnapshot.map(file));
+    }
+
+    @Test
+    void withChangesReplacesAddsAndRemovesRows() throws Exception {
+        List<Product> products = products();
+        CatalogSnapshot snapshot = snapshot(products);
+
+        Product updated = product(9, "Dog Leash XL", "Nylon", 99.5, 120.0, true, "Dog", null, 3);
+        Product added = product(7, "Bird Seed", "Mix", 19.9, null, false, "bird", null, 10);
+        SortedMap<Long, Product> changes = new TreeMap<>();
+        changes.put(1L, null);
+        changes.put(7L, added);
+        changes.put(9L, updated);
+        changes.put(20L, null); // Deleted before it ever reached the snapshot
+        CatalogSnapshot changed = snapshot.withChanges(changes, 5);
+
+        assertEquals(5, changed.getVersion());
+        assertEquals(reflective.writeValueAsString(List.of(products.get(1), added, updated, products.get(3))),
+                writeRows(changed.all()));
+        assertEquals(List.of(9L, 12L), changed.discounted().stream().map(Product::getId).toList());
+        assertEquals(List.of(7L), changed.byCategory("Bird").stream().map(Product::getId).toList());
+        // The original is unchanged
+        assertEquals(reflective.writeValueAsString(products), writeRows(snapshot.all()));
+    }
+}
@@ -0,0 +1,167 @@
+package com.hatice.tarpets.api;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.decoder.BrotliInputStream;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Response compression (JMH): GET /api/products with a catalog of 1k, 10k and 100k products, fetched over
+// loopback HTTP/1.1 with "Accept-Encoding: identity", "gzip" (Tomcat) and "br" (BrotliCompressionFilter), with the
+// settings of application.properties (2 KB threshold, Brotli quality 4). Measured per encoding and catalog size:
+//   bytes   - response body on the wire
+//   latency - request until the client holds the decoded JSON (server encoding + transfer + client decoding)
+// Not part of the regular build (surefire only runs *Tests classes); run it with
+//   mvn test -Dtest=CompressionBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompressionBenchmark.class);
+
+    private static final int[] CATALOG_SIZES = {1_000, 10_000, 100_000};
+    private static final String[] ENCODINGS = {"identity", "gzip", "br"};
+
+    @Param({"1000", "10000", "100000"})
+    public int products;
+
+    @Param({"identity", "gzip", "br"})
+    public String encoding;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        context = startAndSeed(products);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = request(context, encoding);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] fetch() throws Exception {
+        return decode(client.send(request, HttpResponse.BodyHandlers.ofByteArray()));
+    }
+
+    @Test
+    void gzipAgainstBrotli() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(CompressionBenchmark.class.getName())
+                .build();
+        Map<String, Double> micros = new TreeMap<>();
+        for (RunResult result : new Runner(options).run()) {
+            micros.put(result.getParams().getParam("products") + "/" + result.getParams().getParam("encoding"),
+                    result.getPrimaryResult().getScore());
+        }
+
+        // Body sizes, from one request per combination against a separate instance with the same data
+        Map<String, Integer> bytes = new TreeMap<>();
+        Map<Integer, Integer> jsonBytes = new TreeMap<>();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        for (int size : CATALOG_SIZES) {
+            ConfigurableApplicationContext context = startAndSeed(size);
+            try {
+                for (String encoding : ENCODINGS) {
+                    HttpResponse<byte[]> response = client.send(request(context, encoding), HttpResponse.BodyHandlers.ofByteArray());
+                    assertEquals(200, response.statusCode());
+                    bytes.put(size + "/" + encoding, response.body().length);
+                    jsonBytes.put(size, decode(response).length);
+                }
+            } finally {
+                context.close();
+            }
+        }
+
+        StringBuilder table = new StringBuilder(String.format("%-10s %-10s %12s %10s %14s",
+                "products", "encoding", "bytes", "ratio", "latency (us)"));
+        for (int size : CATALOG_SIZES) {
+            for (String encoding : ENCODINGS) {
+                int body = bytes.get(size + "/" + encoding);
+                table.append(String.format("%n%-10d %-10s %12d %9.1f%% %14.1f", size, encoding, body,
+                        100.0 * body / jsonBytes.get(size), micros.get(size + "/" + encoding)));
+            }
+        }
+        logger.info("GET /api/products by catalog size and encoding:\n{}", table);
+
+        // Every listing is above the threshold: gzip is smaller than identity, Brotli smaller than gzip
+        for (int size : CATALOG_SIZES) {
+            assertTrue(bytes.get(size + "/gzip") < bytes.get(size + "/identity"), bytes.toString());
+            assertTrue(bytes.get(size + "/br") < bytes.get(size + "/gzip"), bytes.toString());
+        }
+    }
+
+    // A catalog of the given number of products, listed from the catalog snapshot
+    private static ConfigurableApplicationContext startAndSeed(int products) {
+        ConfigurableApplicationContext context = TestApplication.start();
+        List<Object[]> rows = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            rows.add(new Object[] {"Product " + i, "Grain-free formula with chicken and rice, " + (i % 7 + 1) + " kg bag.",
+                    10.0 + i % 90, i % 2 == 0 ? "cat" : "dog", "https://img.example.com/products/" + i + ".jpg", i % 40});
+        }
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (int from = 0; from < products; from += ProductBulkService.CHUNK_SIZE) {
+            jdbcTemplate.batchUpdate("INSERT INTO products (name, description, price, is_discounted, category, "
+                            + "subcategory, image_url, stock, version) VALUES (?, ?, ?, false, ?, 'Food', ?, ?, 0)",
+                    rows.subList(from, Math.min(products, from + ProductBulkService.CHUNK_SIZE)));
+        }
+        context.publishEvent(new CatalogReloadEvent("compression benchmark"));
+        context.getBean(CatalogSnapshotService.class).refresh();
+        return context;
+    }
+
+    private static HttpRequest request(ConfigurableApplicationContext context, String encoding) {
+        int port = Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products"))
+                .header(HttpHeaders.ACCEPT, "application/json")
+                .header(HttpHeaders.ACCEPT_ENCODING, encoding)
+                .build();
+    }
+
+    private static byte[] decode(HttpResponse<byte[]> response) throws IOException {
+        String contentEncoding = response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse("identity");
+        InputStream body = new ByteArrayInputStream(response.body());
+        if (contentEncoding.equals("gzip")) {
+            body = new GZIPInputStream(body);
+        } else if (contentEncoding.equals("br")) {
+            Brotli4jLoader.ensureAvailability();
+            body = new BrotliInputStream(body);
+        }
+        try (InputStream in = body) {
+            return in.readAllBytes();
+        }
+    }
+}
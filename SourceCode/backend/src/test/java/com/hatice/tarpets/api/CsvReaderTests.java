@@ -0,0 +1,51 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTests {
+
+    @Test
+    void readsQuotedFieldsWithSeparatorsQuotesAndLineBreaks() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(
+                "name,description\r\n"
+                        + "\"Bowl, large\",\"Says \"\"hi\"\"\"\n"
+                        + "Leash,\"two\nlines\"\n"
+                        + "Toy,\n"));
+
+        assertEquals(List.of("name", "description"), reader.readRecord());
+        assertEquals(List.of("Bowl, large", "Says \"hi\""), reader.readRecord());
+        assertEquals(2, reader.getRecordLine());
+        assertEquals(List.of("Leash", "two\nlines"), reader.readRecord());
+        assertEquals(3, reader.getRecordLine());
+        assertEquals(List.of("Toy", ""), reader.readRecord());
+        assertEquals(5, reader.getRecordLine(), "the quoted line break counts as a line");
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void unterminatedQuoteIsAnError() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("name\n\"Bowl\n"));
+        reader.readRecord();
+
+        IOException error = assertThrows(IOException.class, reader::readRecord);
+        assertTrue(error.getMessage().contains("line 2"), error.getMessage());
+    }
+
+    @Test
+    void escapedValuesReadBackUnchanged() throws IOException {
+        String[] values = {"plain", "a,b", "say \"x\"", "two\r\nlines", ""};
+        StringBuilder line = new StringBuilder();
+        for (String value : values) {
+            line.append(line.length() == 0 ? "" : ",").append(CsvReader.escape(value));
+        }
+
+        assertEquals(List.of(values), new CsvReader(new StringReader(line.toString())).readRecord());
+        assertEquals("", CsvReader.escape(null));
+    }
+}
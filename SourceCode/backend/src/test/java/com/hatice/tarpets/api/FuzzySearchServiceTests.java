@@ -0,0 +1,133 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Typo-tolerant search: matching rules plus a latency benchmark over a large synthetic catalog.
+class FuzzySearchServiceTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(FuzzySearchServiceTests.class);
+
+    private static final int CATALOG_SIZE = 100_000;
+    private static final int BENCHMARK_QUERIES = 2_000;
+
+    // Generous regression guard; typical p99 is a few milliseconds.
+    private static final long MAX_P99_MICROS = 250_000;
+
+    private static final String[] BRANDS = {"Royal Canin", "Pro Plan", "Whiskas", "Felix", "Hill's", "Acana", "Orijen", "Reflex"};
+    private static final String[] ANIMALS = {"Kedi", "Köpek", "Kuş", "Balık", "Cat", "Dog", "Kitten", "Puppy"};
+    private static final String[] ITEMS = {"Maması", "Ödül", "Oyuncak", "Food", "Treats", "Litter", "Shampoo", "Kumu"};
+
+    private static final Map<Long, String> NAMES = new HashMap<>();
+
+    private static FuzzySearchService service;
+
+    @BeforeAll
+    static void buildSyntheticCatalog() {
+        service = new FuzzySearchService(null, 2);
+        Random random = new Random(42);
+        for (long id = 1; id <= CATALOG_SIZE; id++) {
+            // A synthetic model word gives the vocabulary a realistic size (tens of thousands of terms).
+            String name = BRANDS[random.nextInt(BRANDS.length)] + " " + ANIMALS[random.nextInt(ANIMALS.length)] + " "
+                    + ITEMS[random.nextInt(ITEMS.length)] + " " + syntheticWord(random) + " " + (1 + random.nextInt(20)) + "kg";
+            service.add(product(id, name));
+        }
+        service.add(product(CATALOG_SIZE + 1L, "ProPlan Sterilised Somonlu"));
+    }
+
+    @Test
+    void foldsTurkishLettersAndAccents() {
+        assertEquals("kedi mamasi icin ozel", FuzzySearchService.fold("Kedi Maması İÇİN Özel!"));
+        assertEquals("cafe creme", FuzzySearchService.fold("Café Crème"));
+    }
+
+    @Test
+    void boundedDistanceCountsTranspositionsAsOneEdit() {
+        assertEquals(1, FuzzySearchService.boundedDistance("kanin", "canin", 2));
+        assertEquals(1, FuzzySearchService.boundedDistance("paln", "plan", 2));
+        assertEquals(3, FuzzySearchService.boundedDistance("abcdef", "uvwxyz", 2)); // Gave up after max + 1
+    }
+
+    @Test
+    void findsMisspelledAndSplitOrJoinedBrandNames() {
+        assertNamesContain(service.search("royal kanin", 50), "royal canin");
+        assertNamesContain(service.search("whiskaz kedi", 50), "whiskas kedi");
+        assertNamesContain(service.search("proplan", 50), "pro plan");
+        assertNamesContain(service.search("pro plan sterilised", 50), "proplan sterilised");
+        assertNamesContain(service.search("kopek mamasi", 50), "kopek mamasi");
+        assertTrue(service.search("zzzzzz qqqqqq", 50).isEmpty());
+    }
+
+    @Test
+    void findsWordsWithSwappedLetters() {
+        // A transposition changes three bigrams; "paln" shares only two of its five with "plan"
+        assertNamesContain(service.search("pro paln", 50), "pro plan");
+        assertNamesContain(service.search("kdei", 50), "kedi");
+        assertNamesContain(service.search("whsikas", 50), "whiskas");
+    }
+
+    @Test
+    void searchLatencyOnLargeCatalog() {
+        Random random = new Random(7);
+        String[] queries = {"royal kanin", "whiskaz", "proplan kitten", "kopek mamsi", "felix ödül", "acanna puppy food",
+                "orjien", "hills cat litter", "refelx kumu", "balik oyunck"};
+
+        for (int i = 0; i < 200; i++) {
+            service.search(queries[i % queries.length], FuzzySearchService.MAX_RESULTS); // Warm-up
+        }
+        long[] micros = new long[BENCHMARK_QUERIES];
+        for (int i = 0; i < BENCHMARK_QUERIES; i++) {
+            String query = queries[random.nextInt(queries.length)];
+            long started = System.nanoTime();
+            service.search(query, FuzzySearchService.MAX_RESULTS);
+            micros[i] = (System.nanoTime() - started) / 1_000;
+        }
+        Arrays.sort(micros);
+        long p50 = micros[BENCHMARK_QUERIES / 2];
+        long p99 = micros[BENCHMARK_QUERIES * 99 / 100];
+        logger.info("Fuzzy search over {} products: p50={} us, p99={} us, max={} us",
+                CATALOG_SIZE, p50, p99, micros[BENCHMARK_QUERIES - 1]);
+        assertTrue(p99 < MAX_P99_MICROS, "p99 latency " + p99 + " us");
+    }
+
+    private static void assertNamesContain(List<Long> ids, String expected) {
+        assertFalse(ids.isEmpty(), "no results for " + expected);
+        List<String> names = new ArrayList<>();
+        for (Long id : ids) {
+            names.add(NAMES.get(id));
+        }
+        assertTrue(names.stream().anyMatch(name -> FuzzySearchService.fold(name).contains(expected)),
+                "expected a result containing '" + expected + "' but got " + names.subList(0, Math.min(5, names.size())));
+    }
+
+    private static Product product(long id, String name) {
+        Product product = new Product(name, null, 100.0, null, false, "cat", "Food", null, 10);
+        product.setId(id);
+        NAMES.put(id, name);
+        return product;
+    }
+
+    private static String syntheticWord(Random random) {
+        String consonants = "bcdfgklmnprstvz";
+        String vowels = "aeiou";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            sb.append(consonants.charAt(random.nextInt(consonants.length())));
+            sb.append(vowels.charAt(random.nextInt(vowels.length())));
+        }
+        return sb.toString();
+    }
+}
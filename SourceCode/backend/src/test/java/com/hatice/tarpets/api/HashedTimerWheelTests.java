@@ -0,0 +1,72 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Timer wheel used for campaign start/end transitions (small ticks so the test runs quickly).
+class HashedTimerWheelTests {
+
+    private static final long TICK_MS = 10;
+
+    // 8 buckets = 80 ms per rotation, so the later deadlines need several rotations
+    private final HashedTimerWheel wheel = new HashedTimerWheel("test-timer", TICK_MS, 8, Runnable::run);
+
+    @AfterEach
+    void closeWheel() {
+        wheel.close();
+    }
+
+    @Test
+    void firesInDeadlineOrderAcrossRotations() throws InterruptedException {
+        List<Integer> fired = new CopyOnWriteArrayList<>();
+        List<Long> lateness = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        long now = System.currentTimeMillis();
+        long[] delays = {250, 30, 400, 120};
+        for (int i = 0; i < delays.length; i++) {
+            int index = i;
+            long deadline = now + delays[i];
+            wheel.schedule(() -> {
+                fired.add(index);
+                lateness.add(System.currentTimeMillis() - deadline);
+                done.countDown();
+            }, deadline);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 3, 0, 2), fired);
+        for (long late : lateness) {
+            assertTrue(late >= 0, "fired " + -late + " ms early");
+        }
+    }
+
+    @Test
+    void cancelledTimeoutDoesNotFire() throws InterruptedException {
+        List<String> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        long now = System.currentTimeMillis();
+        HashedTimerWheel.Timeout cancelled = wheel.schedule(() -> fired.add("cancelled"), now + 50);
+        wheel.schedule(() -> {
+            fired.add("kept");
+            done.countDown();
+        }, now + 150);
+        cancelled.cancel();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("kept"), fired);
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        wheel.schedule(done::countDown, System.currentTimeMillis() - 60_000);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,216 @@
+package com.hatice.tarpets.api;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Tests the image proxy cache against a local stand-in image server (no external network).
+class ImageCacheServiceTests {
+
+    private static final int MAX_SOURCE_BYTES = 4 * 1024 * 1024;
+    private static final long MAX_SOURCE_PIXELS = 4_000_000;
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private String baseUrl;
+
+    @BeforeEach
+    void startImageServer() throws IOException {
+        byte[] png = samplePng(1200, 800);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/redirect/", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().add("Location", exchange.getRequestURI().getQuery());
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.createContext("/huge/", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(new byte[MAX_SOURCE_BYTES + 1]);
+            } catch (IOException e) {
+                // The client stops reading at the limit
+            }
+        });
+        server.createContext("/img/", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, png.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(png);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/img/";
+    }
+
+    @AfterEach
+    void stopImageServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetchesSourceOnceAndResizesAllVariants() throws IOException {
+        ImageCacheService service = service(cacheDir, 100L * 1024 * 1024);
+        String key = service.register(baseUrl + "cat.png");
+
+        Path card = service.getVariant(key, ImageVariant.CARD);
+        Path thumbnail = service.getVariant(key, ImageVariant.THUMBNAIL);
+        Path detail = service.getVariant(key, ImageVariant.DETAIL);
+
+        assertEquals(1, requests.get(), "source must be downloaded only once");
+        assertDimensions(card, 400, 267);
+        assertDimensions(thumbnail, 160, 107);
+        assertDimensions(detail, 1000, 667);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedFilesWhenOverBudget() throws IOException {
+        // Budget fits roughly one product's variants
+        ImageCacheService probe = service(cacheDir.resolve("probe"), Long.MAX_VALUE);
+        probe.getVariant(probe.register(baseUrl + "probe.png"), ImageVariant.CARD);
+        long onePerProduct = probe.getTotalBytes();
+
+        ImageCacheService service = service(cacheDir.resolve("bounded"), onePerProduct + onePerProduct / 2);
+        String first = service.register(baseUrl + "first.png");
+        Path firstDetail = service.getVariant(first, ImageVariant.DETAIL);
+        String second = service.register(baseUrl + "second.png");
+        service.getVariant(second, ImageVariant.DETAIL);
+
+        assertTrue(service.getTotalBytes() <= onePerProduct + onePerProduct / 2);
+        assertFalse(Files.exists(firstDetail), "oldest variant should have been evicted");
+
+        // Evicted variants are regenerated from the remembered source URL
+        assertNotNull(service.getVariant(first, ImageVariant.DETAIL));
+    }
+
+    @Test
+    void unknownKeyReturnsNull() throws IOException {
+        ImageCacheService service = service(cacheDir, 1024 * 1024);
+        assertNull(service.getVariant(ImageCacheService.keyFor("http://example.invalid/x.png"), ImageVariant.CARD));
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    void refusesHostsOutsideTheAllowList() throws IOException {
+        ImageCacheService service = service(cacheDir, 1024 * 1024);
+
+        for (String url : new String[] {"http://169.254.169.254/latest/meta-data/", "http://localhost:8080/actuator",
+                "http://127.0.0.1@internal.local/x.png", "file:///etc/passwd"}) {
+            assertThrows(IllegalArgumentException.class, () -> service.register(url), url);
+        }
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    void followsRedirectsOnlyWithinTheAllowList() throws IOException {
+        ImageCacheService service = service(cacheDir, 100L * 1024 * 1024);
+        String redirect = "http://127.0.0.1:" + server.getAddress().getPort() + "/redirect/?";
+
+        String allowed = service.register(redirect + baseUrl + "cat.png");
+        assertNotNull(service.getVariant(allowed, ImageVariant.CARD));
+        assertEquals(2, requests.get(), "redirect plus image");
+
+        String internal = service.register(redirect + "http://localhost:" + server.getAddress().getPort() + "/img/cat.png");
+        IOException refused = assertThrows(IOException.class, () -> service.getVariant(internal, ImageVariant.CARD));
+        assertTrue(refused.getMessage().contains("not allowed"), refused.getMessage());
+        assertEquals(3, requests.get(), "the redirect target is never requested");
+    }
+
+    @Test
+    void refusesOversizedSources() throws IOException {
+        ImageCacheService service = service(cacheDir, 100L * 1024 * 1024);
+        String key = service.register("http://127.0.0.1:" + server.getAddress().getPort() + "/huge/x.png");
+
+        IOException error = assertThrows(IOException.class, () -> service.getVariant(key, ImageVariant.CARD));
+        assertTrue(error.getMessage().contains("exceeds"), error.getMessage());
+    }
+
+    @Test
+    void refusesSourcesAboveThePixelLimitBeforeDecoding() throws IOException {
+        // The samples are 1200x800: a small file, but more pixels than this service accepts
+        ImageCacheService service = new ImageCacheService(cacheDir.toString(), 1024 * 1024, 100, 0, 5000,
+                MAX_SOURCE_BYTES, 500_000, List.of("127.0.0.1"));
+        String key = service.register(baseUrl + "x.png");
+
+        IOException error = assertThrows(IOException.class, () -> service.getVariant(key, ImageVariant.CARD));
+        assertTrue(error.getMessage().contains("1200x800"), error.getMessage());
+    }
+
+    @Test
+    void evictedFilesOutliveTheirGracePeriod() throws IOException {
+        ImageCacheService service = new ImageCacheService(cacheDir.toString(), 1, 100, 60_000, 5000,
+                MAX_SOURCE_BYTES, MAX_SOURCE_PIXELS, List.of("127.0.0.1"));
+        Path first = service.getVariant(service.register(baseUrl + "first.png"), ImageVariant.CARD);
+        service.getVariant(service.register(baseUrl + "second.png"), ImageVariant.CARD);
+
+        // No longer counted, but a response may still be about to send it
+        assertTrue(Files.exists(first), "evicted file must not be deleted before the grace period");
+        assertTrue(service.getTotalBytes() < 2 * Files.size(first));
+    }
+
+    @Test
+    void registeredSourcesAreBounded() throws IOException {
+        ImageCacheService service = new ImageCacheService(cacheDir.toString(), 1024 * 1024, 3, 0, 5000,
+                MAX_SOURCE_BYTES, MAX_SOURCE_PIXELS, List.of("127.0.0.1"));
+        for (int i = 0; i < 10; i++) {
+            service.register(baseUrl + i + ".png");
+        }
+        String newest = service.register(baseUrl + "newest.png");
+
+        assertEquals(3, service.getSourceCount());
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertEquals(3, files.filter(file -> file.toString().endsWith(".url")).count());
+        }
+        assertNull(service.getVariant(ImageCacheService.keyFor(baseUrl + "0.png"), ImageVariant.CARD));
+        assertNotNull(service.getVariant(newest, ImageVariant.CARD));
+
+        // Rebuilt from the remaining .url files after a restart
+        assertEquals(3, service(cacheDir, 1024 * 1024).getSourceCount());
+    }
+
+    // Only the stand-in server's address is an allowed image host ("localhost" is not)
+    private static ImageCacheService service(Path dir, long maxBytes) throws IOException {
+        return new ImageCacheService(dir.toString(), maxBytes, 100_000, 0, 5000, MAX_SOURCE_BYTES, MAX_SOURCE_PIXELS, List.of("127.0.0.1"));
+    }
+
+    private static void assertDimensions(Path file, int width, int height) throws IOException {
+        assertNotNull(file);
+        BufferedImage image = ImageIO.read(file.toFile());
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+    }
+
+    private static byte[] samplePng(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillOval(0, 0, width, height);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
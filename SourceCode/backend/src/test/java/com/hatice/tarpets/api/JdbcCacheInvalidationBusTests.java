@@ -0,0 +1,88 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+// Polling of the database-backed bus against a mocked message table: a message that commits after a higher id
+// was already read is still handled, no message is handled twice, and a failing receiver sees it again.
+class JdbcCacheInvalidationBusTests {
+
+    private final CacheInvalidationRepository repository = mock(CacheInvalidationRepository.class);
+    private final List<CacheInvalidation> table = new ArrayList<>();
+    private final List<Long> received = new ArrayList<>();
+
+    @Test
+    void messagesCommittedOutOfIdOrderAreHandledOnce() {
+        table.add(message(5, "other"));
+        JdbcCacheInvalidationBus bus = start();
+        bus.subscribe(message -> received.add(message.getEntityId()));
+
+        // 7 commits first; 6 (inserted earlier, in a slower transaction) only afterwards
+        table.add(message(7, "other"));
+        bus.poll();
+        table.add(0, message(6, "other"));
+        bus.poll();
+        bus.poll();
+        table.add(message(8, bus.getNodeId()));
+        bus.poll();
+
+        assertEquals(List.of(7L, 6L), received, "5 is older than the instance, 8 was sent by it");
+    }
+
+    @Test
+    void aMessageIsHandledAgainIfAReceiverFailed() {
+        JdbcCacheInvalidationBus bus = start();
+        boolean[] failing = {true};
+        bus.subscribe(message -> {
+            if (failing[0]) {
+                throw new IllegalStateException("receiver unavailable");
+            }
+            received.add(message.getEntityId());
+        });
+
+        table.add(message(1, "other"));
+        bus.poll();
+        failing[0] = false;
+        bus.poll();
+        bus.poll();
+
+        assertEquals(List.of(1L), received);
+    }
+
+    @Test
+    void idsBelowTheLookBackWindowAreNotReadAgain() {
+        JdbcCacheInvalidationBus bus = start();
+        for (long id = 1; id <= 20; id++) {
+            table.add(message(id, "other"));
+        }
+        bus.poll();
+
+        verify(repository, times(2)).findByIdGreaterThanOrderByIdAsc(0L); // On start and on the first poll
+        bus.poll();
+        verify(repository).findByIdGreaterThanOrderByIdAsc(10L);
+    }
+
+    private JdbcCacheInvalidationBus start() {
+        when(repository.findMaxId()).thenAnswer(invocation -> table.stream().mapToLong(CacheInvalidation::getId).max().orElse(0));
+        when(repository.findByIdGreaterThanOrderByIdAsc(anyLong())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            return table.stream().filter(message -> message.getId() > after)
+                    .sorted((a, b) -> Long.compare(a.getId(), b.getId())).toList();
+        });
+        JdbcCacheInvalidationBus bus = new JdbcCacheInvalidationBus(repository, 60, 10);
+        bus.start();
+        return bus;
+    }
+
+    private static CacheInvalidation message(long id, String nodeId) {
+        CacheInvalidation message = new CacheInvalidation(nodeId, Product.class.getName(), id);
+        message.setId(id);
+        return message;
+    }
+}
@@ -0,0 +1,148 @@
+package com.hatice.tarpets.api;
+
+import io.jsonwebtoken.Claims;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// Bad tokens are turned away by JwtAuthenticationFilter and the URL rules alone: no repository, no SQL,
+// no controller. Signature, expiry and the in-memory revocation check are all it costs. Revoked tokens (one
+// jti at logout, all of a user's tokens at logout everywhere) are turned away the same way.
+class JwtAuthenticationFilterTests {
+
+    private static final String SECRET = "ThisIsATestSecretKeyForTheFilterTests12345";
+
+    private LocalCacheInvalidationBus bus;
+    private ConfigurableApplicationContext context;
+
+    @AfterEach
+    void stop() {
+        SecurityContextHolder.clearContext();
+        if (bus != null) {
+            bus.leave();
+        }
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void rejectsBadTokensWithoutTouchingTheDatabase() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000);
+        RevokedTokenRepository revokedTokens = mock(RevokedTokenRepository.class);
+        bus = new LocalCacheInvalidationBus();
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil,
+                new TokenRevocationService(revokedTokens, bus, 60_000, 1000, 0.01));
+
+        String forged = new JwtUtil("AnotherSecretKeyThatTheServerDoesNotKnow1234", 60_000).generateToken(1L, "ADMIN");
+        String expired = new JwtUtil(SECRET, -60_000).generateToken(1L, "ADMIN");
+        for (String token : new String[] {forged, expired, "not-a-jwt", ""}) {
+            assertNull(authenticate(filter, token), token);
+        }
+        verifyNoInteractions(revokedTokens);
+
+        Authentication valid = authenticate(filter, jwtUtil.generateToken(7L, "ADMIN"));
+        assertEquals(7L, valid.getPrincipal());
+        assertEquals("ROLE_ADMIN", valid.getAuthorities().iterator().next().getAuthority());
+        verifyNoInteractions(revokedTokens);
+    }
+
+    @Test
+    void rejectsRevokedTokens() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000);
+        RevokedTokenRepository revokedTokens = mock(RevokedTokenRepository.class);
+        AtomicLong ids = new AtomicLong();
+        when(revokedTokens.save(any())).thenAnswer(invocation -> {
+            RevokedToken revoked = invocation.getArgument(0);
+            revoked.setId(ids.incrementAndGet());
+            return revoked;
+        });
+        bus = new LocalCacheInvalidationBus();
+        TokenRevocationService revocation = new TokenRevocationService(revokedTokens, bus, 60_000, 1000, 0.01);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil, revocation);
+
+        String loggedOut = jwtUtil.generateToken(7L, "USER");
+        String otherDevice = jwtUtil.generateToken(7L, "USER");
+        Claims claims = jwtUtil.parseClaims(loggedOut);
+        revocation.revokeToken(claims.getId(), 7L, claims.getExpiration());
+
+        assertNull(authenticate(filter, loggedOut), "the revoked jti");
+        assertEquals(7L, authenticate(filter, otherDevice).getPrincipal(), "other tokens of the user stay valid");
+        assertEquals(8L, authenticate(filter, jwtUtil.generateToken(8L, "USER")).getPrincipal());
+
+        // Logout everywhere: every token issued until now
+        revocation.revokeUser(7L);
+        assertNull(authenticate(filter, otherDevice));
+        assertEquals(8L, authenticate(filter, jwtUtil.generateToken(8L, "USER")).getPrincipal());
+
+        // A token issued after the revocation, usually within the same second (e.g. a refresh), is valid
+        Thread.sleep(2);
+        assertEquals(7L, authenticate(filter, jwtUtil.generateToken(7L, "USER")).getPrincipal());
+    }
+
+    @Test
+    void rejectedAdminRequestNeverLoadsUsers() throws Exception {
+        context = TestApplication.start("--spring.jpa.properties.hibernate.generate_statistics=true");
+        User user = new User();
+        user.setFullName("Admin");
+        user.setEmail("admin@example.com");
+        user.setRole("ADMIN");
+        context.getBean(UserRepository.class).save(user);
+
+        Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+        String forged = new JwtUtil("AnotherSecretKeyThatTheServerDoesNotKnow1234", 60_000).generateToken(user.getId(), "ADMIN");
+        String expired = new JwtUtil(context.getEnvironment().getRequiredProperty("jwt.secret"), -60_000)
+                .generateToken(user.getId(), "ADMIN");
+
+        statistics.clear();
+        for (String token : new String[] {forged, expired, "not-a-jwt"}) {
+            assertEquals(401, getAdminUsers(token));
+        }
+        assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+
+        // The same request with a valid token reaches the controller and the database
+        assertEquals(200, getAdminUsers(jwtUtil.generateToken(user.getId(), "ADMIN")));
+        assertEquals(1, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+    }
+
+    private static Authentication authenticate(JwtAuthenticationFilter filter, String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/admin/users");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest(), "the filter must always continue the chain");
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private int getAdminUsers(String token) throws Exception {
+        int port = Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/admin/users"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,214 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Cost of turning away a bad token (JMH): GET /api/admin/users through the real security filter chain and
+// DispatcherServlet (MockMvc, so no socket I/O), with a forged, an expired and a malformed token, against the
+// same request with a valid admin token. Rejections stop in JwtAuthenticationFilter + the URL rules (401): one
+// signature check, no repository, no controller, no body binding. "accepted" reads the users table and writes
+// the JSON listing, for scale.
+// The "baseline*" cases run the same requests against a copy of the controller check this replaced: the
+// endpoint was permitAll, UserController bound the Authorization header and, per request, built a new JWT
+// parser to validate the token and another to read its role, rejecting with 403. That copy runs on a
+// standalone MockMvc without any security filters (the old chain only had permitAll rules), which makes the
+// baseline slightly cheaper than it really was; the ratios logged are a lower bound of the difference.
+// Not part of the regular build (surefire only runs *Tests classes); run it with
+//   mvn test -Dtest=JwtRejectionBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class JwtRejectionBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtRejectionBenchmark.class);
+
+    private static final String PATH = "/api/admin/users";
+    private static final int USERS = 50;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private MockMvc baselineMockMvc;
+    private String forged;
+    private String expired;
+    private String valid;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = TestApplication.start();
+        UserRepository users = context.getBean(UserRepository.class);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setFullName("User " + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setRole(i == 0 ? "ADMIN" : "USER");
+            users.save(user);
+        }
+
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+                .build();
+        String secret = context.getEnvironment().getRequiredProperty("jwt.secret");
+        baselineMockMvc = MockMvcBuilders.standaloneSetup(new BaselineUserController(users, secret))
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(context.getBean(ObjectMapper.class)))
+                .build();
+        forged = new JwtUtil("AnotherSecretKeyThatTheServerDoesNotKnow1234", 60_000).generateToken(1L, "ADMIN");
+        expired = new JwtUtil(secret, -60_000).generateToken(1L, "ADMIN");
+        valid = context.getBean(JwtUtil.class).generateToken(1L, "ADMIN");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public int rejectForged() throws Exception {
+        return request(forged);
+    }
+
+    @Benchmark
+    public int rejectExpired() throws Exception {
+        return request(expired);
+    }
+
+    @Benchmark
+    public int rejectMalformed() throws Exception {
+        return request("not-a-jwt");
+    }
+
+    @Benchmark
+    public int accepted() throws Exception {
+        return request(valid);
+    }
+
+    @Benchmark
+    public int baselineRejectForged() throws Exception {
+        return baselineRequest(forged);
+    }
+
+    @Benchmark
+    public int baselineRejectExpired() throws Exception {
+        return baselineRequest(expired);
+    }
+
+    @Benchmark
+    public int baselineRejectMalformed() throws Exception {
+        return baselineRequest("not-a-jwt");
+    }
+
+    @Benchmark
+    public int baselineAccepted() throws Exception {
+        return baselineRequest(valid);
+    }
+
+    private int request(String token) throws Exception {
+        return mockMvc.perform(get(PATH).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private int baselineRequest(String token) throws Exception {
+        return baselineMockMvc.perform(get(PATH).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andReturn().getResponse().getStatus();
+    }
+
+    // GET /api/admin/users as UserController and JwtUtil implemented it before JwtAuthenticationFilter.
+    @RestController
+    static class BaselineUserController {
+
+        private final UserRepository userRepository;
+        private final SecretKey key;
+
+        BaselineUserController(UserRepository userRepository, String secret) {
+            this.userRepository = userRepository;
+            this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @GetMapping(PATH)
+        public List<User> getAllUsers(@RequestHeader(value = "Authorization", required = false) String auth) {
+            String token = auth != null && auth.startsWith("Bearer ") ? auth.substring(7) : null;
+            if (token == null || !validateToken(token) || !"ADMIN".equals(getRoleFromToken(token))) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied: Admins only.");
+            }
+            return userRepository.findAll();
+        }
+
+        private boolean validateToken(String token) {
+            try {
+                Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+                return true;
+            } catch (JwtException | IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        private String getRoleFromToken(String token) {
+            Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+            return claims.get("role", String.class);
+        }
+    }
+
+    @Test
+    void rejectionCost() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(JwtRejectionBenchmark.class.getName())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        Map<String, Double> micros = new TreeMap<>();
+        for (RunResult result : results) {
+            micros.put(result.getParams().getBenchmark().substring(getClass().getName().length() + 1),
+                    result.getPrimaryResult().getScore());
+        }
+        StringBuilder table = new StringBuilder(String.format("GET %s%n%-18s %12s %12s %10s", PATH, "benchmark",
+                "us/request", "baseline us", "speedup"));
+        for (String name : new String[] {"rejectForged", "rejectExpired", "rejectMalformed", "accepted"}) {
+            double baseline = micros.get("baseline" + Character.toUpperCase(name.charAt(0)) + name.substring(1));
+            table.append(String.format("%n%-18s %12.1f %12.1f %9.1fx", name, micros.get(name), baseline,
+                    baseline / micros.get(name)));
+        }
+        logger.info("Token rejection cost (baseline: check in the controller):\n{}", table);
+
+        assertEquals(8, micros.size());
+        for (String rejected : new String[] {"rejectForged", "rejectExpired", "rejectMalformed"}) {
+            assertTrue(micros.get(rejected) < micros.get("accepted"), rejected + " costs as much as an accepted request: " + micros);
+        }
+    }
+}
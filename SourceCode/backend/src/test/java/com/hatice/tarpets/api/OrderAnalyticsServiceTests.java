@@ -0,0 +1,171 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The chunked fork-join aggregation must give the same totals as the equivalent SQL GROUP BY queries, and
+// closed days must be answered from the cache while today is read again.
+class OrderAnalyticsServiceTests {
+
+    // Two lines per order: many chunks (OrderAnalyticsService.CHUNK_ROWS) spread over about ten days
+    private static final int ORDER_COUNT = 60_000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 3, 1);
+    private static final LocalDate LAST_DAY = LocalDate.of(2025, 3, 10);
+
+    private static SingleConnectionDataSource dataSource;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void createSyntheticOrders() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:analytics-test;DB_CLOSE_DELAY=-1", "sa", "", true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, user_id BIGINT, total_price DOUBLE, created_at TIMESTAMP)");
+        jdbc.execute("CREATE TABLE order_items (id BIGINT PRIMARY KEY, order_id BIGINT, product_id BIGINT, quantity INT, price DOUBLE)");
+        jdbc.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, category VARCHAR(255), subcategory VARCHAR(255))");
+        jdbc.execute("CREATE TABLE pets (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT, type VARCHAR(255))");
+        jdbc.execute("CREATE INDEX idx_order_items_order ON order_items (order_id)");
+
+        // Orders every 14 seconds from FIRST_DAY on, by 500 customers
+        jdbc.execute("INSERT INTO orders SELECT X, MOD(X, 500) + 1, 0, "
+                + "DATEADD('SECOND', X * 14, TIMESTAMP '2025-03-01 00:00:00') FROM SYSTEM_RANGE(1, " + ORDER_COUNT + ")");
+        jdbc.execute("INSERT INTO order_items SELECT 2 * X - 1, X, MOD(X, 40) + 1, MOD(X, 3) + 1, MOD(X, 97) + 0.5 "
+                + "FROM SYSTEM_RANGE(1, " + ORDER_COUNT + ")");
+        // Product 41 does not exist (deleted): "unknown" category
+        jdbc.execute("INSERT INTO order_items SELECT 2 * X, X, MOD(X * 7, 41) + 1, 1, 10 FROM SYSTEM_RANGE(1, " + ORDER_COUNT + ")");
+        jdbc.execute("INSERT INTO products SELECT X, CASEWHEN(MOD(X, 3) = 0, 'Cat', CASEWHEN(MOD(X, 3) = 1, 'Dog', 'Bird')), "
+                + "CASEWHEN(MOD(X, 2) = 0, 'Food', 'Toys') FROM SYSTEM_RANGE(1, 40)");
+
+        // Cats for customers 1-200, dogs too for 100-150, a bird for 300, no pets for the others
+        jdbc.execute("INSERT INTO pets (user_id, type) SELECT X, 'Cat' FROM SYSTEM_RANGE(1, 200)");
+        jdbc.execute("INSERT INTO pets (user_id, type) SELECT X, 'Dog' FROM SYSTEM_RANGE(100, 150)");
+        jdbc.execute("INSERT INTO pets (user_id, type) VALUES (300, 'Bird'), (300, 'Bird')");
+    }
+
+    @AfterAll
+    static void dropDatabase() {
+        jdbc.execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+
+    @Test
+    void reportMatchesSqlAggregates() {
+        OrderAnalyticsService service = new OrderAnalyticsService(dataSource, 4, 10, 1100);
+        try {
+            AnalyticsReport report = service.report(FIRST_DAY, LAST_DAY);
+
+            String lines = "FROM orders o JOIN order_items i ON i.order_id = o.id LEFT JOIN products p ON p.id = i.product_id ";
+            assertEquals(jdbc.queryForObject("SELECT SUM(i.quantity * i.price) " + lines, Double.class), report.getRevenue(), 0.011);
+            assertEquals(ORDER_COUNT, report.getOrders());
+            assertEquals(jdbc.queryForObject("SELECT SUM(i.quantity) " + lines, Long.class), report.getUnits());
+            assertEquals(report.getUnits() / (double) ORDER_COUNT, report.getAverageBasketUnits(), 0.006);
+            assertEquals(report.getRevenue() / ORDER_COUNT, report.getAverageBasketValue(), 0.006);
+
+            assertTotals(sqlTotals("COALESCE(p.category, 'unknown')", lines), report.getRevenueByCategory());
+            assertTotals(sqlTotals("COALESCE(p.subcategory, 'unknown')", lines), report.getRevenueBySubcategory());
+            assertTotals(sqlTotals("CAST(o.created_at AS DATE)", lines), stringKeys(report.getRevenueByDay()));
+            assertEquals(10, report.getRevenueByDay().size());
+
+            // Spend split evenly over each customer's pet types
+            Map<Long, TreeSet<String>> petTypes = new HashMap<>();
+            jdbc.query("SELECT user_id, type FROM pets", rs -> {
+                petTypes.computeIfAbsent(rs.getLong(1), id -> new TreeSet<>()).add(rs.getString(2));
+            });
+            Map<String, Double> expected = new HashMap<>();
+            jdbc.query("SELECT o.user_id, SUM(i.quantity * i.price) " + lines + "GROUP BY o.user_id", rs -> {
+                TreeSet<String> types = petTypes.getOrDefault(rs.getLong(1), new TreeSet<>(List.of("none")));
+                for (String type : types) {
+                    expected.merge(type, rs.getDouble(2) / types.size(), Double::sum);
+                }
+            });
+            assertTotals(expected, report.getSpendByPetType());
+            // Highest first
+            List<Double> spend = List.copyOf(report.getSpendByPetType().values());
+            for (int i = 1; i < spend.size(); i++) {
+                assertTrue(spend.get(i - 1) >= spend.get(i));
+            }
+
+            assertEquals(0, report.getCachedDays());
+            assertEquals(10, report.getScannedDays());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void closedDaysComeFromCacheAndTodayIsReadAgain() {
+        OrderAnalyticsService service = new OrderAnalyticsService(dataSource, 2, 10, 1100);
+        LocalDate today = LocalDateTime.now().minusMinutes(10).toLocalDate();
+        try {
+            AnalyticsReport first = service.report(FIRST_DAY, LAST_DAY);
+            AnalyticsReport second = service.report(FIRST_DAY.plusDays(2), LAST_DAY);
+            assertEquals(8, second.getCachedDays());
+            assertEquals(0, second.getScannedDays());
+            assertEquals(first.getRevenueByDay().get(LAST_DAY), second.getRevenueByDay().get(LAST_DAY));
+
+            // Today is open: new orders show up in the next report
+            addOrder(ORDER_COUNT + 1, today, 3, 20.0);
+            AnalyticsReport before = service.report(today.minusDays(1), today);
+            addOrder(ORDER_COUNT + 2, today, 1, 5.0);
+            AnalyticsReport after = service.report(today.minusDays(1), today);
+            assertEquals(1, after.getCachedDays());
+            assertEquals(1, after.getScannedDays());
+            assertEquals(before.getRevenue() + 5.0, after.getRevenue(), 0.001);
+            assertEquals(before.getOrders() + 1, after.getOrders());
+        } finally {
+            jdbc.update("DELETE FROM order_items WHERE order_id > ?", ORDER_COUNT);
+            jdbc.update("DELETE FROM orders WHERE id > ?", ORDER_COUNT);
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsInvalidRanges() {
+        OrderAnalyticsService service = new OrderAnalyticsService(dataSource, 1, 10, 31);
+        try {
+            assertThrows(ResponseStatusException.class, () -> service.report(LAST_DAY, FIRST_DAY));
+            assertThrows(ResponseStatusException.class, () -> service.report(FIRST_DAY, FIRST_DAY.plusDays(31)));
+            assertEquals(31, service.report(FIRST_DAY, FIRST_DAY.plusDays(30)).getRevenueByDay().size());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static void addOrder(long id, LocalDate day, int quantity, double price) {
+        jdbc.update("INSERT INTO orders VALUES (?, 1, ?, ?)", id, quantity * price, Timestamp.valueOf(day.atTime(0, 30)));
+        jdbc.update("INSERT INTO order_items VALUES (?, ?, 1, ?, ?)", 2 * id, id, quantity, price);
+    }
+
+    // Revenue grouped by the expression
+    private static Map<String, Double> sqlTotals(String group, String lines) {
+        Map<String, Double> totals = new HashMap<>();
+        jdbc.query("SELECT " + group + ", SUM(i.quantity * i.price) " + lines + "GROUP BY " + group, rs -> {
+            totals.put(rs.getString(1), rs.getDouble(2));
+        });
+        return totals;
+    }
+
+    private static Map<String, Double> stringKeys(Map<LocalDate, Double> totals) {
+        Map<String, Double> result = new HashMap<>();
+        totals.forEach((day, value) -> result.put(day.toString(), value));
+        return result;
+    }
+
+    private static void assertTotals(Map<String, Double> expected, Map<String, Double> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((key, value) -> assertEquals(value, actual.get(key), 0.011, key));
+    }
+}
@@ -0,0 +1,137 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The signed-in user's pets (/api/me/pets) in a running application: one user can neither read nor change
+// another user's pets, bulk updates are all or nothing, and the per-type counts from the database match the
+// grouping AuthController used to do in Java (null and blank types are "Unknown").
+class PetServiceTests {
+
+    private ConfigurableApplicationContext context;
+    private MyPetController controller;
+    private JdbcTemplate jdbcTemplate;
+    private Long alice;
+    private Long bob;
+
+    @BeforeEach
+    void startApplication() {
+        context = TestApplication.start();
+        controller = context.getBean(MyPetController.class);
+        jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        alice = createUser("alice");
+        bob = createUser("bob");
+    }
+
+    @AfterEach
+    void stopApplication() {
+        context.close();
+    }
+
+    @Test
+    void usersOnlySeeAndChangeTheirOwnPets() {
+        List<Pet> created = controller.createPets(alice, List.of(new Pet(" Tom ", "Cat", null), new Pet("Rex", "Dog", null)));
+        Pet tom = created.get(0);
+        assertEquals("Tom", tom.getName());
+        controller.createPets(bob, List.of(new Pet("Kiwi", "Bird", null)));
+
+        assertEquals(List.of("Tom", "Rex"), controller.getPets(alice, 0, 20).stream().map(Pet::getName).toList());
+        assertEquals(List.of("Kiwi"), controller.getPets(bob, 0, 20).stream().map(Pet::getName).toList());
+
+        assertStatus(HttpStatus.NOT_FOUND, () -> controller.getPet(bob, tom.getId()));
+        assertStatus(HttpStatus.NOT_FOUND, () -> controller.deletePet(bob, tom.getId()));
+        Pet takeover = new Pet("Mine now", "Cat", null);
+        takeover.setId(tom.getId());
+        takeover.setVersion(tom.getVersion());
+        assertStatus(HttpStatus.NOT_FOUND, () -> controller.updatePets(bob, List.of(takeover)));
+
+        Pet stored = controller.getPet(alice, tom.getId());
+        assertEquals("Tom", stored.getName());
+        assertEquals(0L, stored.getVersion());
+        assertEquals(alice, jdbcTemplate.queryForObject("SELECT user_id FROM pets WHERE id = ?", Long.class, tom.getId()));
+        assertEquals(Map.of("Bird", 1), controller.getStats(bob).getPetTypeCounts());
+    }
+
+    @Test
+    void bulkUpdateIsAllOrNothing() {
+        List<Pet> created = controller.createPets(alice, List.of(new Pet("Tom", "Cat", null), new Pet("Rex", "Dog", null)));
+        Pet tom = edit(created.get(0), "Tommy");
+        Pet rex = edit(created.get(1), "Rexy");
+        List<Pet> updated = controller.updatePets(alice, List.of(tom, rex));
+        assertEquals(List.of(1L, 1L), updated.stream().map(Pet::getVersion).toList());
+
+        // Rex still at version 0: nothing is written, the current pets come back with 409
+        ConcurrentEditException conflict = assertThrows(ConcurrentEditException.class,
+                () -> controller.updatePets(alice, List.of(edit(updated.get(0), "Thomas"), edit(created.get(1), "Max"))));
+        assertEquals("Rexy", ((List<?>) conflict.getCurrent()).stream().map(pet -> ((Pet) pet).getName()).findFirst().orElseThrow());
+        assertEquals("Tommy", controller.getPet(alice, tom.getId()).getName());
+
+        assertStatus(HttpStatus.BAD_REQUEST, () -> controller.updatePets(alice, List.of(edit(updated.get(0), " "))));
+        assertStatus(HttpStatus.BAD_REQUEST, () -> controller.createPets(alice, List.of()));
+    }
+
+    @Test
+    void countsPerTypeMatchTheGroupingDoneInJava() {
+        controller.createPets(alice, List.of(new Pet("Tom", "Cat", null), new Pet("Luna", "Cat", null),
+                new Pet("Rex", "Dog", null)));
+        // Written by older versions of the application, which did not require a type or trim it
+        for (String type : new String[]{null, "", "   ", " Cat ", "Dog\t", "cat"}) {
+            jdbcTemplate.update("INSERT INTO pets (name, type, user_id, version) VALUES (?, ?, ?, 0)", "Legacy", type, alice);
+        }
+        controller.createPets(bob, List.of(new Pet("Kiwi", "Cat", null)));
+
+        PetStats stats = controller.getStats(alice);
+
+        Map<String, Integer> expected = legacyCounts(alice);
+        assertEquals(Map.of("Cat", 3, "cat", 1, "Dog", 2, "Unknown", 3), expected);
+        assertEquals(expected, stats.getPetTypeCounts());
+        assertEquals(9, stats.getPetCount());
+        assertTrue(controller.getStats(createUser("carol")).getPetTypeCounts().isEmpty());
+    }
+
+    // The loop AuthController.buildAuthResponse ran over the user's pets before the counts moved to the database.
+    private Map<String, Integer> legacyCounts(Long userId) {
+        Map<String, Integer> petTypeCounts = new HashMap<>();
+        for (String value : jdbcTemplate.queryForList("SELECT type FROM pets WHERE user_id = ?", String.class, userId)) {
+            String type = value == null ? "Unknown" : value;
+            type = type.trim();
+            if (type.isEmpty()) type = "Unknown";
+            petTypeCounts.put(type, petTypeCounts.getOrDefault(type, 0) + 1);
+        }
+        return petTypeCounts;
+    }
+
+    private Long createUser(String name) {
+        User user = new User();
+        user.setFullName(name);
+        user.setEmail(name + UUID.randomUUID() + "@example.com");
+        user.setPassword("secret");
+        user.setRole("USER");
+        return context.getBean(UserRepository.class).save(user).getId();
+    }
+
+    private static Pet edit(Pet pet, String name) {
+        Pet edited = new Pet(name, pet.getType(), null);
+        edited.setId(pet.getId());
+        edited.setVersion(pet.getVersion());
+        return edited;
+    }
+
+    private static void assertStatus(HttpStatus status, Runnable action) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, action::run);
+        assertEquals(status, e.getStatusCode());
+    }
+}
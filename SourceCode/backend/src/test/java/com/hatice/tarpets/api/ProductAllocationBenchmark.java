@@ -0,0 +1,158 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Allocation profile of the busiest catalog endpoints (JMH with the GC profiler).
+// One operation = one request's work: the controller call plus writing the JSON body, once with
+// ProductJsonSerializer ("custom") and once with Jackson's reflective mapping ("reflective").
+// serializeProducts writes an already loaded listing only, which separates the JSON cost from the query;
+// serializeSnapshot writes the same listing from a CatalogSnapshot (column writer vs materialized rows).
+// The endpoints run with the snapshot disabled, so they keep measuring the database path.
+// Not part of the regular build (surefire only runs *Tests classes); run it with
+//   mvn test -Dtest=ProductAllocationBenchmark
+// The table logged at the end lists gc.alloc.rate.norm, the bytes allocated per request.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ProductAllocationBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductAllocationBenchmark.class);
+
+    private static final int PRODUCTS = 500;
+
+    @Param({"custom", "reflective"})
+    public String serializer;
+
+    private ConfigurableApplicationContext context;
+    private ProductController controller;
+    private ObjectMapper mapper;
+    private Long productId;
+    private List<Product> listing;
+    private CatalogSnapshot.Rows snapshotRows;
+
+    // Response bodies are written here and dropped, so only the serialization itself allocates
+    private final OutputStream sink = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = TestApplication.start("--catalog.snapshot.enabled=false");
+
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            boolean discounted = i % 5 == 0;
+            products.add(new Product("Product " + i, "Description of product " + i, 100.0 + i,
+                    discounted ? 150.0 + i : null, discounted, i % 2 == 0 ? "cat" : "dog", "Food",
+                    "https://img.example.com/products/" + i + ".jpg", i % 40));
+        }
+        productId = context.getBean(ProductRepository.class).saveAll(products).get(PRODUCTS / 2).getId();
+
+        controller = context.getBean(ProductController.class);
+        listing = controller.getAllProducts(null, null, false);
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+        listing.forEach(builder::add);
+        snapshotRows = builder.build().all();
+        mapper = "custom".equals(serializer) ? context.getBean(ObjectMapper.class) : JsonMapper.builder().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public void getAllProducts() throws IOException {
+        mapper.writeValue(sink, controller.getAllProducts(null, null, false));
+    }
+
+    @Benchmark
+    public void getProductById() throws IOException {
+        mapper.writeValue(sink, controller.getProductById(productId));
+    }
+
+    @Benchmark
+    public void getDiscountedProducts() throws IOException {
+        mapper.writeValue(sink, controller.getDiscountedProducts());
+    }
+
+    @Benchmark
+    public void serializeProducts() throws IOException {
+        mapper.writeValue(sink, listing);
+    }
+
+    // As CatalogSnapshotMessageConverter writes it ("custom"), or through the default converter ("reflective")
+    @Benchmark
+    public void serializeSnapshot() throws IOException {
+        if ("custom".equals(serializer)) {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(sink)) {
+                ProductJsonSerializer.writeRows(snapshotRows, generator);
+            }
+        } else {
+            mapper.writeValue(sink, snapshotRows);
+        }
+    }
+
+    @Test
+    void allocationPerRequest() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ProductAllocationBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        // endpoint -> serializer -> bytes per request / microseconds per request
+        Map<String, Map<String, Double>> allocations = new TreeMap<>();
+        Map<String, Map<String, Double>> times = new TreeMap<>();
+        for (RunResult result : results) {
+            String endpoint = result.getParams().getBenchmark().substring(getClass().getName().length() + 1);
+            String serializer = result.getParams().getParam("serializer");
+            Result<?> allocated = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            allocations.computeIfAbsent(endpoint, key -> new TreeMap<>()).put(serializer, allocated.getScore());
+            times.computeIfAbsent(endpoint, key -> new TreeMap<>()).put(serializer, result.getPrimaryResult().getScore());
+        }
+
+        StringBuilder table = new StringBuilder(String.format("%-22s %16s %16s %12s %12s", "Per request", "bytes custom",
+                "bytes reflective", "us custom", "us reflective"));
+        allocations.forEach((endpoint, bytes) -> table.append(String.format("%n%-22s %16.0f %16.0f %12.1f %12.1f", endpoint,
+                bytes.get("custom"), bytes.get("reflective"), times.get(endpoint).get("custom"), times.get(endpoint).get("reflective"))));
+        logger.info("Allocation per request by serializer:\n{}", table);
+
+        assertEquals(5, allocations.size());
+        allocations.forEach((endpoint, bytes) -> assertTrue(bytes.get("custom") <= bytes.get("reflective") * 1.05,
+                endpoint + " allocates more with the custom serializer: " + bytes));
+    }
+}
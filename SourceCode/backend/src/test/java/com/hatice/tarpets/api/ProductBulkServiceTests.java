@@ -0,0 +1,147 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bulk import against a plain 'products' table (H2): row validation and the report, partial updates that leave
+// the columns missing from the upload alone, and the CSV export read back by the importer.
+class ProductBulkServiceTests {
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private ProductBulkService service;
+    private final List<Object> events = new ArrayList<>();
+
+    @BeforeEach
+    void createTable() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:bulk" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "sa", "", true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE products (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), description VARCHAR(1000), "
+                + "price DOUBLE, old_price DOUBLE, is_discounted BOOLEAN, category VARCHAR(255), subcategory VARCHAR(255), "
+                + "image_url VARCHAR(2000), stock INT, version BIGINT DEFAULT 0)");
+        service = new ProductBulkService(dataSource, new DataSourceTransactionManager(dataSource), new ObjectMapper(), events::add);
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        jdbc.execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+
+    @Test
+    void csvImportInsertsValidRowsAndReportsBadOnes() throws IOException {
+        ImportReport report = service.importCsv(upload(
+                "\uFEFFname,price,category,stock,description\n"
+                        + "\"Cat Bowl, steel\",40.5,cat,3,\"Dishwasher safe, \"\"non-slip\"\"\"\n"
+                        + "\n"
+                        + "No Price,,cat,1,\n"
+                        + "Bad Price,abc,cat,1,\n"
+                        + "Negative Stock,10,dog,-2,\n"
+                        + "Too Few,10,dog\n"
+                        + "Leash,25,dog,,\n"));
+
+        assertEquals(6, report.getTotalRows());
+        assertEquals(2, report.getInserted());
+        assertEquals(0, report.getUpdated());
+        assertEquals(4, report.getFailed());
+        assertEquals(List.of(4L, 5L, 6L, 7L), report.getErrors().stream().map(ImportReport.RowError::getLine).toList());
+        assertEquals("'price' is required", report.getErrors().get(0).getMessage());
+        assertEquals("Row has 3 fields but header has 5", report.getErrors().get(3).getMessage());
+
+        Map<String, Object> bowl = jdbc.queryForMap("SELECT * FROM products WHERE name = 'Cat Bowl, steel'");
+        assertEquals("Dishwasher safe, \"non-slip\"", bowl.get("description"));
+        assertEquals(3, bowl.get("stock"));
+        assertEquals(0, jdbc.queryForObject("SELECT stock FROM products WHERE name = 'Leash'", Integer.class),
+                "an inserted row without stock starts at 0");
+        assertEquals(1, events.size(), "one catalog reload per import");
+    }
+
+    @Test
+    void partialCsvUpdateOnlyWritesTheHeaderColumns() throws IOException {
+        long id = insertProduct();
+
+        ImportReport report = service.importCsv(upload("id,price\n" + id + ",35.0\n"));
+
+        assertEquals(1, report.getUpdated());
+        assertEquals(0, report.getFailed());
+        Map<String, Object> row = jdbc.queryForMap("SELECT * FROM products WHERE id = ?", id);
+        assertEquals(35.0, row.get("price"));
+        assertEquals("Cat Tree", row.get("name"));
+        assertEquals(50.0, row.get("old_price"));
+        assertEquals(true, row.get("is_discounted"));
+        assertEquals("https://img.example.com/tree.jpg", row.get("image_url"));
+        assertEquals(7, row.get("stock"));
+        assertEquals(1L, row.get("version"));
+    }
+
+    @Test
+    void partialNdjsonUpdateClearsOnlyExplicitNulls() throws IOException {
+        long id = insertProduct();
+
+        ImportReport report = service.importNdjson(upload(
+                "{\"id\": " + id + ", \"imageUrl\": null, \"stock\": 12}\n"
+                        + "{\"id\": " + id + ", \"name\": \"\"}\n"
+                        + "{\"id\": " + id + "}\n"
+                        + "{\"id\": 999, \"stock\": 1}\n"
+                        + "not json\n"));
+
+        assertEquals(5, report.getTotalRows());
+        assertEquals(1, report.getUpdated());
+        assertEquals(4, report.getFailed());
+        List<String> messages = report.getErrors().stream().map(ImportReport.RowError::getMessage).toList();
+        assertEquals("'name' is required", messages.get(0));
+        assertEquals("No columns to update for id " + id, messages.get(1));
+        assertTrue(messages.get(2).startsWith("Invalid JSON"), messages.get(2));
+        assertEquals("Product not found: 999", messages.get(3));
+
+        Map<String, Object> row = jdbc.queryForMap("SELECT * FROM products WHERE id = ?", id);
+        assertNull(row.get("image_url"));
+        assertEquals(12, row.get("stock"));
+        assertEquals(40.0, row.get("price"));
+        assertEquals("Cat Tree", row.get("name"));
+    }
+
+    @Test
+    void exportedCsvImportsBackAsUpdates() throws IOException {
+        long id = insertProduct();
+        jdbc.update("UPDATE products SET description = ? WHERE id = ?", "Sisal posts,\n\"sturdy\"", id);
+        ByteArrayOutputStream export = new ByteArrayOutputStream();
+        service.exportProducts(ExportFormat.CSV, export);
+
+        ImportReport report = service.importCsv(new ByteArrayInputStream(export.toByteArray()));
+
+        assertEquals(1, report.getUpdated());
+        assertEquals(0, report.getFailed());
+        Map<String, Object> row = jdbc.queryForMap("SELECT * FROM products WHERE id = ?", id);
+        assertEquals("Sisal posts,\n\"sturdy\"", row.get("description"));
+        assertEquals(7, row.get("stock"));
+        assertEquals(1L, jdbc.queryForObject("SELECT COUNT(*) FROM products", Long.class));
+    }
+
+    private long insertProduct() {
+        jdbc.update("INSERT INTO products (name, price, old_price, is_discounted, category, subcategory, image_url, stock) "
+                + "VALUES ('Cat Tree', 40.0, 50.0, true, 'cat', 'Furniture', 'https://img.example.com/tree.jpg', 7)");
+        return jdbc.queryForObject("SELECT MAX(id) FROM products", Long.class);
+    }
+
+    private static ByteArrayInputStream upload(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
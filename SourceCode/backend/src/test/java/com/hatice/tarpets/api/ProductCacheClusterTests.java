@@ -0,0 +1,92 @@
+package com.hatice.tarpets.api;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Second-level cache across instances: two application contexts in one JVM act as two nodes sharing one
+// (in-memory H2) database, once with the in-JVM bus and once with the database-polling bus.
+class ProductCacheClusterTests {
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void writeOnOneNodeEvictsOtherNodeWithLocalBus() {
+        String database = "cluster" + UUID.randomUUID();
+        ConfigurableApplicationContext nodeA = startNode(database, "local");
+        ConfigurableApplicationContext nodeB = startNode(database, "local");
+
+        Product product = createOnNode(nodeA);
+        warmCaches(nodeB, product.getId());
+
+        updateName(nodeA, product, "Royal Canin Kitten 4kg");
+
+        assertFalse(isCached(nodeB, product.getId()), "node B should have evicted the product");
+        assertEquals("Royal Canin Kitten 4kg", nodeB.getBean(ProductRepository.class).findById(product.getId()).orElseThrow().getName());
+        assertEquals("Royal Canin Kitten 4kg", nodeB.getBean(ProductRepository.class).findByCategory("cluster-cat").get(0).getName());
+    }
+
+    @Test
+    void writeOnOneNodeEvictsOtherNodeWithJdbcBus() throws InterruptedException {
+        String database = "cluster" + UUID.randomUUID();
+        ConfigurableApplicationContext nodeA = startNode(database, "jdbc");
+        ConfigurableApplicationContext nodeB = startNode(database, "jdbc");
+
+        Product product = createOnNode(nodeA);
+        warmCaches(nodeB, product.getId());
+
+        updateName(nodeA, product, "Royal Canin Kitten 4kg");
+
+        // Delivered on node B's next poll (poll-ms=50 below)
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (isCached(nodeB, product.getId()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(isCached(nodeB, product.getId()), "node B should have evicted the product");
+        assertEquals("Royal Canin Kitten 4kg", nodeB.getBean(ProductRepository.class).findByCategory("cluster-cat").get(0).getName());
+    }
+
+    private ConfigurableApplicationContext startNode(String database, String invalidationMode) {
+        // Command-line arguments, so they override application.properties
+        ConfigurableApplicationContext node = TestApplication.startOnDatabase(database,
+                "--cache.invalidation.mode=" + invalidationMode,
+                "--cache.invalidation.poll-ms=50");
+        nodes.add(node);
+        return node;
+    }
+
+    private static Product createOnNode(ConfigurableApplicationContext node) {
+        Product product = new Product("Royal Canin Kitten 2kg", null, 40.0, null, false, "cluster-cat", "Kitten Food", null, 3);
+        return node.getBean(ProductController.class).createProduct(product);
+    }
+
+    // Loads the product by id and through a cacheable finder, so both the entity and the query cache hold it.
+    private static void warmCaches(ConfigurableApplicationContext node, Long productId) {
+        ProductRepository repository = node.getBean(ProductRepository.class);
+        repository.findById(productId).orElseThrow();
+        assertEquals(1, repository.findByCategory("cluster-cat").size());
+        assertTrue(isCached(node, productId));
+    }
+
+    private static void updateName(ConfigurableApplicationContext node, Product product, String name) {
+        Product update = new Product(name, null, product.getPrice(), null, false, product.getCategory(),
+                product.getSubcategory(), null, product.getStock());
+        node.getBean(ProductController.class).updateProduct(product.getId(), update);
+    }
+
+    private static boolean isCached(ConfigurableApplicationContext node, Long productId) {
+        return node.getBean(EntityManagerFactory.class).getCache().contains(Product.class, productId);
+    }
+}
@@ -0,0 +1,46 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The hand-written Product serializer must produce exactly what Jackson's reflective mapping produced before.
+class ProductJsonSerializerTests {
+
+    private final ObjectMapper reflective = JsonMapper.builder().build();
+    private final ObjectMapper custom = JsonMapper.builder()
+            .addModule(new SimpleModule().addSerializer(Product.class, new ProductJsonSerializer()))
+            .build();
+
+    @Test
+    void writesSameJsonAsReflectiveMapping() throws Exception {
+        Product full = new Product("Royal Canin \"Sensible\" 2kg", "Line 1\nLine 2 – ünlü", 349.9, 420.0, true,
+                "cat", "Adult Cat Food", "https://img.example.com/rc.jpg?w=400&h=400", 35);
+        full.setId(7L);
+        full.setVersion(3L);
+        Product sparse = new Product("Catnip", null, null, null, null, null, null, null, null);
+
+        List<Product> products = List.of(full, sparse);
+        assertEquals(reflective.writeValueAsString(products), custom.writeValueAsString(products));
+    }
+
+    @Test
+    void outputReadsBackIntoProduct() throws Exception {
+        Product product = new Product("Dog Leash", "Nylon", 89.5, null, false, "dog", "Accessories", null, 0);
+        product.setId(12L);
+        product.setVersion(0L);
+
+        Product read = custom.readValue(custom.writeValueAsBytes(product), Product.class);
+        assertEquals(12L, read.getId());
+        assertEquals("Dog Leash", read.getName());
+        assertEquals(89.5, read.getPrice());
+        assertNull(read.getOldPrice());
+        assertFalse(read.getIsDiscounted());
+        assertEquals(0, read.getStock());
+    }
+}
@@ -0,0 +1,101 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Rankings across instances: two application contexts sharing one (in-memory H2) database. Each node counts
+// the orders placed through the other one, so both rank the same way, and a node started from the snapshot
+// of either continues with the same counters.
+class ProductRankingClusterTests {
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void nodesCountEachOthersOrdersAndShareSnapshots() throws InterruptedException {
+        String database = "rankings" + UUID.randomUUID();
+        ConfigurableApplicationContext nodeA = startNode(database);
+        ConfigurableApplicationContext nodeB = startNode(database);
+
+        User user = new User();
+        user.setFullName("Ayse");
+        user.setEmail("ayse@example.com");
+        Long userId = nodeA.getBean(UserRepository.class).save(user).getId();
+        Long litter = createProduct(nodeA, "Cat Litter 10L");
+        Long food = createProduct(nodeA, "Kitten Food 2kg");
+        nodeB.getBean(CatalogIndex.class).reload(); // Catalog sync between nodes is not under test here
+
+        // Litter sells 3 units through node A, food 5 through node B
+        for (int i = 0; i < 3; i++) {
+            placeOrder(nodeA, userId, litter, 1);
+        }
+        placeOrder(nodeB, userId, food, 5);
+        for (ConfigurableApplicationContext node : List.of(nodeA, nodeB)) {
+            node.getBean(ProductRankingService.class).poll();
+            node.getBean(ProductRankingService.class).poll(); // Re-reads the look-back window, counts nothing twice
+        }
+
+        for (ConfigurableApplicationContext node : List.of(nodeA, nodeB)) {
+            assertEquals(List.of(food, litter), bestSellerIds(node), "on each node");
+        }
+        double litterScore = nodeA.getBean(ProductRankingService.class).getScore(litter);
+        assertEquals(litterScore, nodeB.getBean(ProductRankingService.class).getScore(litter), litterScore * 1e-6);
+
+        // Both nodes snapshot (B last), then node A is replaced by a new node that also replays a later order
+        nodeA.getBean(ProductRankingService.class).snapshot();
+        nodeB.getBean(ProductRankingService.class).snapshot();
+        placeOrder(nodeB, userId, litter, 3);
+        nodes.remove(nodeA);
+        nodeA.close();
+
+        ConfigurableApplicationContext nodeC = startNode(database);
+        nodeB.getBean(ProductRankingService.class).poll();
+        assertEquals(List.of(litter, food), bestSellerIds(nodeC));
+        assertEquals(List.of(litter, food), bestSellerIds(nodeB));
+        double restoredScore = nodeC.getBean(ProductRankingService.class).getScore(litter);
+        assertEquals(nodeB.getBean(ProductRankingService.class).getScore(litter), restoredScore, restoredScore * 1e-6);
+    }
+
+    private ConfigurableApplicationContext startNode(String database) {
+        ConfigurableApplicationContext node = TestApplication.startOnDatabase(database,
+                "--rankings.poll-ms=3600000",
+                "--rankings.snapshot-ms=3600000");
+        nodes.add(node);
+        return node;
+    }
+
+    private static Long createProduct(ConfigurableApplicationContext node, String name) {
+        Product product = new Product(name, null, 10.0, null, false, "ranking-cat", "Food", null, 100);
+        return node.getBean(ProductController.class).createProduct(product).getId();
+    }
+
+    private static void placeOrder(ConfigurableApplicationContext node, Long userId, Long productId, int quantity) {
+        CreateOrderRequest.Item item = new CreateOrderRequest.Item();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        item.setPrice(10.0);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(userId);
+        request.setTotalPrice(10.0 * quantity);
+        request.setItems(List.of(item));
+        node.getBean(OrderService.class).placeOrder(request);
+    }
+
+    private static List<Long> bestSellerIds(ConfigurableApplicationContext node) throws InterruptedException {
+        Thread.sleep(1_100); // Materialized lists are rebuilt at most once a second
+        return node.getBean(ProductRankingService.class).getBestSellers("ranking-cat", 10).stream()
+                .map(Product::getId)
+                .toList();
+    }
+}
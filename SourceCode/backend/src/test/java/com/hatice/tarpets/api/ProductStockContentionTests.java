@@ -0,0 +1,135 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Optimistic locking on products: stale full updates are rejected with the current state, while concurrent
+// stock adjustments on one product are retried and none is lost (contention benchmark, printed to the log).
+class ProductStockContentionTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductStockContentionTests.class);
+
+    private static final int THREADS = 8;
+    private static final int ADJUSTMENTS_PER_THREAD = 100;
+
+    private ConfigurableApplicationContext context;
+
+    @BeforeEach
+    void startApplication() {
+        // Command-line arguments, so they override application.properties
+        context = TestApplication.start(
+                "--products.stock.max-attempts=1000");
+    }
+
+    @AfterEach
+    void stopApplication() {
+        context.close();
+    }
+
+    @Test
+    void staleUpdateIsRejectedWithCurrentProduct() {
+        ProductController controller = context.getBean(ProductController.class);
+        Product created = controller.createProduct(new Product("Cat Tree", null, 120.0, null, false, "cat", "Furniture", null, 4));
+        Long loadedVersion = created.getVersion();
+
+        Product first = update(created, "Cat Tree XL", loadedVersion);
+        assertEquals(loadedVersion + 1, controller.updateProduct(created.getId(), first).getVersion());
+
+        // Second editor still holds the version loaded before the first edit
+        ConcurrentEditException conflict = assertThrows(ConcurrentEditException.class,
+                () -> controller.updateProduct(created.getId(), update(created, "Cat Tree Deluxe", loadedVersion)));
+        assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+        Product current = (Product) conflict.getCurrent();
+        assertEquals("Cat Tree XL", current.getName());
+        assertEquals(loadedVersion + 1, current.getVersion());
+    }
+
+    @Test
+    void adjustmentBelowZeroIsRejected() {
+        Product product = context.getBean(ProductController.class)
+                .createProduct(new Product("Catnip", null, 15.0, null, false, "cat", "Toys", null, 2));
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> context.getBean(ProductStockService.class).adjustStock(product.getId(), -3));
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        assertEquals(2, context.getBean(ProductRepository.class).findById(product.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void orderLinesReferenceVersionedProducts() {
+        Product product = context.getBean(ProductController.class)
+                .createProduct(new Product("Cat Bowl", null, 40.0, null, false, "cat", "Accessories", null, 5));
+        User user = new User();
+        user.setEmail("bowl@example.com");
+        CreateOrderRequest.Item item = new CreateOrderRequest.Item();
+        item.setProductId(product.getId());
+        item.setQuantity(2);
+        item.setPrice(40.0);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setUserId(context.getBean(UserRepository.class).save(user).getId());
+        request.setTotalPrice(80.0);
+        request.setItems(List.of(item));
+
+        Order order = context.getBean(OrderService.class).placeOrder(request);
+
+        assertNotNull(order.getId());
+        assertEquals(product.getId(), order.getItems().get(0).getProduct().getId());
+        assertEquals(product.getVersion(),
+                context.getBean(ProductRepository.class).findById(product.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void concurrentAdjustmentsOfOneProductAreAllApplied() throws Exception {
+        Product product = context.getBean(ProductController.class)
+                .createProduct(new Product("Dog Food 15kg", null, 900.0, null, false, "dog", "Dog Food", null, 1_000));
+        ProductStockService stockService = context.getBean(ProductStockService.class);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                // Half the threads add, half remove: the result must be the starting stock
+                int delta = t % 2 == 0 ? 1 : -1;
+                workers.add(pool.submit(() -> {
+                    for (int i = 0; i < ADJUSTMENTS_PER_THREAD; i++) {
+                        stockService.adjustStock(product.getId(), delta);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        Product stored = context.getBean(ProductRepository.class).findById(product.getId()).orElseThrow();
+        int adjustments = THREADS * ADJUSTMENTS_PER_THREAD;
+        assertEquals(1_000, stored.getStock());
+        assertEquals(product.getVersion() + adjustments, stored.getVersion());
+        logger.info("Stock contention: {} adjustments by {} threads in {} ms ({}/s), {} version conflicts retried",
+                adjustments, THREADS, elapsedMs, Math.round(adjustments * 1000.0 / Math.max(1, elapsedMs)), stockService.getConflicts());
+    }
+
+    private static Product update(Product source, String name, Long version) {
+        Product update = new Product(name, null, source.getPrice(), null, false, source.getCategory(),
+                source.getSubcategory(), null, source.getStock());
+        update.setVersion(version);
+        return update;
+    }
+}
@@ -0,0 +1,173 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Write-behind PATCH buffer: patches of one product are merged into one UPDATE, a failed write is retried
+// without losing later patches, versions are checked, and stop() writes everything out.
+class ProductWriteBufferTests {
+
+    private ConfigurableApplicationContext context;
+    private ProductWriteBuffer buffer;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void startApplication() {
+        context = TestApplication.start(
+                "--products.write-behind.flush-ms=3600000",
+                "--products.write-behind.shutdown-timeout-ms=500");
+        buffer = context.getBean(ProductWriteBuffer.class);
+        jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+    }
+
+    @AfterEach
+    void stopApplication() {
+        context.close();
+    }
+
+    @Test
+    void patchesOfOneProductAreWrittenAsOneUpdate() {
+        Product product = createProduct("Cat Bowl", 40.0);
+        long version = product.getVersion();
+
+        buffer.patch(product.getId(), Map.of("price", 35.0), null);
+        buffer.patch(product.getId(), Map.of("stock", 7), null);
+        Product last = buffer.patch(product.getId(), Map.of("price", 32.5), version + 1);
+        assertEquals(version + 1, last.getVersion());
+
+        // Nothing written yet, but reads through the buffer see the patches
+        assertEquals(40.0, column(product.getId(), "price", Double.class));
+        assertEquals(32.5, buffer.overlay(context.getBean(ProductRepository.class).findById(product.getId()).orElseThrow()).getPrice());
+
+        buffer.flush();
+        assertEquals(32.5, column(product.getId(), "price", Double.class));
+        assertEquals(7, column(product.getId(), "stock", Integer.class));
+        // Each UPDATE increments the version: one increment means one statement
+        assertEquals(version + 1, column(product.getId(), "version", Long.class));
+        assertEquals(32.5, context.getBean(CatalogIndex.class).getProduct(product.getId()).getPrice());
+        assertTrue(buffer.getPendingIds().isEmpty());
+    }
+
+    @Test
+    void catalogViewsShowAPatchBeforeItIsWritten() {
+        Product product = createProduct("Bird Cage", 300.0);
+        CatalogSnapshotService snapshots = context.getBean(CatalogSnapshotService.class);
+        snapshots.refresh();
+        PriceHistoryService priceHistory = context.getBean(PriceHistoryService.class);
+        int recorded = priceHistory.getHistory(product.getId()).size();
+
+        Product patched = buffer.patch(product.getId(), Map.of("price", 270.0, "isDiscounted", true), null);
+
+        assertEquals(300.0, column(product.getId(), "price", Double.class));
+        Product indexed = context.getBean(CatalogIndex.class).getProduct(product.getId());
+        assertEquals(270.0, indexed.getPrice());
+        assertEquals(patched.getVersion(), indexed.getVersion());
+        CatalogSnapshot snapshot = snapshots.current();
+        assertNotNull(snapshot, "the snapshot stays current");
+        assertEquals(270.0, snapshot.all().get(snapshot.rowOf(product.getId())).getPrice());
+        assertTrue(snapshot.discounted().stream().anyMatch(p -> p.getId().equals(product.getId())));
+        assertEquals(recorded, priceHistory.getHistory(product.getId()).size(), "listeners of written changes wait for the write");
+    }
+
+    @Test
+    void staleVersionsAreRejected() {
+        Product product = createProduct("Cat Tree", 120.0);
+        long version = product.getVersion();
+
+        buffer.patch(product.getId(), Map.of("price", 110.0), version);
+        // A second editor still holding the original version
+        ConcurrentEditException conflict = assertThrows(ConcurrentEditException.class,
+                () -> buffer.patch(product.getId(), Map.of("price", 99.0), version));
+        assertEquals(110.0, ((Product) conflict.getCurrent()).getPrice());
+        buffer.flush();
+
+        // Written by another instance, not seen by this catalog yet: checked against the database
+        jdbcTemplate.update("UPDATE products SET stock = 3, version = version + 1 WHERE id = ?", product.getId());
+        assertThrows(ConcurrentEditException.class,
+                () -> buffer.patch(product.getId(), Map.of("price", 99.0), version + 1));
+        assertEquals(version + 3, buffer.patch(product.getId(), Map.of("price", 105.0), version + 2).getVersion());
+        buffer.flush();
+        assertEquals(105.0, column(product.getId(), "price", Double.class));
+
+        // A write that bypassed the buffer after the patch was accepted wins over it, observably
+        Counter conflicts = context.getBean(MeterRegistry.class).get("tarpets.products.write-behind.conflicts").counter();
+        double before = conflicts.count();
+        buffer.patch(product.getId(), Map.of("name", "Cat Tree XL"), null);
+        assertEquals("Cat Tree XL", context.getBean(CatalogIndex.class).getProduct(product.getId()).getName());
+        jdbcTemplate.update("UPDATE products SET name = 'Cat Tree Deluxe', version = version + 1 WHERE id = ?", product.getId());
+        buffer.flush();
+        assertEquals("Cat Tree Deluxe", column(product.getId(), "name", String.class));
+        assertEquals(105.0, column(product.getId(), "price", Double.class));
+        assertEquals("Cat Tree Deluxe", context.getBean(CatalogIndex.class).getProduct(product.getId()).getName());
+        assertEquals(before + 1, conflicts.count());
+    }
+
+    @Test
+    void failedWriteIsRetriedWithoutOverwritingNewerPatches() throws Exception {
+        Product product = createProduct("Dog Bed", 250.0);
+        buffer.patch(product.getId(), Map.of("price", 225.0, "name", "Dog Bed M"), null);
+
+        Thread flusher;
+        try (Connection connection = context.getBean(DataSource.class).getConnection()) {
+            // Another transaction holds the row until the flush times out waiting for it
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("UPDATE products SET stock = stock WHERE id = " + product.getId());
+            }
+            flusher = new Thread(buffer::flush);
+            flusher.start();
+            Thread.sleep(500);
+            // Arrives while the failing batch is being written
+            buffer.patch(product.getId(), Map.of("name", "Dog Bed L"), null);
+            flusher.join();
+            connection.rollback();
+        }
+        assertEquals(250.0, column(product.getId(), "price", Double.class));
+        assertEquals(Double.valueOf(225.0), buffer.overlay(product).getPrice());
+        assertEquals("Dog Bed L", buffer.overlay(product).getName());
+
+        buffer.flush();
+        assertEquals(225.0, column(product.getId(), "price", Double.class));
+        assertEquals("Dog Bed L", column(product.getId(), "name", String.class));
+        assertEquals(product.getVersion() + 1, column(product.getId(), "version", Long.class));
+    }
+
+    @Test
+    void stopWritesEverythingPending() {
+        Product first = createProduct("Catnip", 15.0);
+        Product second = createProduct("Cat Brush", 60.0);
+        buffer.patch(first.getId(), Map.of("stock", 3), null);
+        buffer.patch(second.getId(), Map.of("price", 55.0), null);
+
+        buffer.stop();
+
+        assertEquals(3, column(first.getId(), "stock", Integer.class));
+        assertEquals(55.0, column(second.getId(), "price", Double.class));
+        assertTrue(buffer.getPendingIds().isEmpty());
+
+        // After stop() patches are written right away
+        buffer.patch(first.getId(), Map.of("stock", 4), null);
+        assertEquals(4, column(first.getId(), "stock", Integer.class));
+    }
+
+    private Product createProduct(String name, double price) {
+        return context.getBean(ProductController.class)
+                .createProduct(new Product(name, null, price, null, false, "cat", "Accessories", null, 10));
+    }
+
+    private <T> T column(Long productId, String column, Class<T> type) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM products WHERE id = ?", type, productId);
+    }
+}
@@ -0,0 +1,181 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Concurrency limit and memory per connection of the full product listing: ProductController (Tomcat, one
+// thread per request) against ReactiveCatalogServer (Netty event loop), both answering from the same snapshot.
+// Opens CONNECTIONS slow clients at once: each sends the request and then does not read the response, like a
+// client on a bad mobile network. Counted per stack:
+//   served  - connections that received a response within WAIT_MS (and after how long the last one did)
+//   threads - server threads added while they are open
+//   heap/RSS per connection - growth of the used heap (after GC) and of the process memory while they are
+//                             open, divided by the connections served
+// On loopback the kernel accepts about a megabyte per connection before a writer stalls, which the event loops
+// have to encode before they get to the next clients; hence the generous WAIT_MS.
+// Not part of the regular build (surefire only runs *Tests classes); run it with
+//   mvn test -Dtest=ReactiveCatalogLoadBenchmark
+public class ReactiveCatalogLoadBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveCatalogLoadBenchmark.class);
+
+    private static final int PRODUCTS = 5000;
+    private static final int CONNECTIONS = 400;
+    private static final long WAIT_MS = 20000;
+
+    @Test
+    void compareMvcAndReactiveListing() throws Exception {
+        ConfigurableApplicationContext context = TestApplication.start(
+                "--catalog.reactive.enabled=true",
+                "--catalog.reactive.port=0");
+        try {
+            // About 6 MB of JSON, more than the socket buffers hold, so a client that stops reading stalls the writer
+            List<Object[]> rows = new ArrayList<>(PRODUCTS);
+            String description = "Grain-free formula with chicken and rice. ".repeat(22);
+            for (int i = 0; i < PRODUCTS; i++) {
+                rows.add(new Object[] {"Product " + i, description, 100.0 + i, i % 2 == 0 ? "cat" : "dog",
+                        "https://img.example.com/products/" + i + ".jpg", i % 40});
+            }
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            for (int from = 0; from < PRODUCTS; from += ProductBulkService.CHUNK_SIZE) {
+                jdbcTemplate.batchUpdate("INSERT INTO products (name, description, price, is_discounted, category, "
+                                + "subcategory, image_url, stock, version) VALUES (?, ?, ?, false, ?, 'Food', ?, ?, 0)",
+                        rows.subList(from, Math.min(PRODUCTS, from + ProductBulkService.CHUNK_SIZE)));
+            }
+            context.publishEvent(new CatalogReloadEvent("load benchmark"));
+            context.getBean(CatalogSnapshotService.class).refresh();
+            assertNotNull(context.getBean(CatalogSnapshotService.class).current());
+
+            int mvcPort = Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+            int reactivePort = context.getBean(ReactiveCatalogServer.class).getPort();
+
+            // Warm up both paths with complete reads
+            for (int i = 0; i < 5; i++) {
+                readFully(mvcPort, "/api/products");
+                readFully(reactivePort, ReactiveCatalogServer.BASE_PATH);
+            }
+
+            Result mvc = measure("MVC (ProductController)", mvcPort, "/api/products");
+            Result reactive = measure("Reactive (ReactiveCatalogServer)", reactivePort, ReactiveCatalogServer.BASE_PATH);
+
+            StringBuilder table = new StringBuilder(String.format("%-34s %8s %10s %8s %16s %16s",
+                    "GET listing, " + CONNECTIONS + " slow clients", "served", "after (ms)", "threads", "heap/conn (KB)", "RSS/conn (KB)"));
+            for (Result result : List.of(mvc, reactive)) {
+                table.append(String.format("%n%-34s %8d %10d %8d %16.1f %16s", result.name, result.served, result.lastServedMs, result.threads,
+                        result.heapBytes / 1024.0 / result.served,
+                        result.rssBytes < 0 ? "n/a" : String.format("%.1f", result.rssBytes / 1024.0 / result.served)));
+            }
+            logger.info("MVC and reactive listing under slow clients:\n{}", table);
+
+            // Every slow client is being served by the reactive server, without a thread each
+            assertEquals(CONNECTIONS, reactive.served);
+            assertTrue(reactive.served > mvc.served, "MVC should be capped by the Tomcat thread pool");
+            assertTrue(reactive.threads < mvc.threads);
+        } finally {
+            context.close();
+        }
+    }
+
+    private Result measure(String name, int port, String path) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        long rssBefore = rss();
+
+        List<Socket> sockets = new ArrayList<>(CONNECTIONS);
+        try {
+            for (int i = 0; i < CONNECTIONS; i++) {
+                Socket socket = new Socket();
+                socket.setReceiveBufferSize(4096); // Before connect, so the window stays small
+                socket.connect(new InetSocketAddress("localhost", port));
+                socket.getOutputStream().write(request(path));
+                socket.getOutputStream().flush();
+                sockets.add(socket);
+            }
+
+            // A connection counts as served once its response has started arriving
+            long start = System.currentTimeMillis();
+            boolean[] started = new boolean[CONNECTIONS];
+            int served = 0;
+            long lastServedMs = 0;
+            while (served < CONNECTIONS && System.currentTimeMillis() - start < WAIT_MS) {
+                for (int i = 0; i < CONNECTIONS; i++) {
+                    if (!started[i] && sockets.get(i).getInputStream().available() > 0) {
+                        started[i] = true;
+                        served++;
+                        lastServedMs = System.currentTimeMillis() - start;
+                    }
+                }
+                Thread.sleep(50);
+            }
+
+            int threads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+            System.gc();
+            long heap = memory.getHeapMemoryUsage().getUsed() - heapBefore;
+            long rss = rssBefore < 0 ? -1 : Math.max(0, rss() - rssBefore);
+            return new Result(name, served, lastServedMs, threads, Math.max(0, heap), rss);
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+            // Let the server notice the closed connections before the next run
+            Thread.sleep(2000);
+        }
+    }
+
+    private static byte[] request(String path) {
+        return ("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nAccept: application/json\r\nConnection: close\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void readFully(int port, String path) throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(request(path));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[65536];
+            long total = 0;
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                total += read;
+            }
+            assertTrue(total > 1_000_000, "Listing too small to stall the writer: " + total);
+        }
+    }
+
+    // Resident set size of this process in bytes, -1 where /proc is not available
+    private static long rss() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux
+        }
+        return -1;
+    }
+
+    private record Result(String name, int served, long lastServedMs, int threads, long heapBytes, long rssBytes) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Incremental co-purchase model: an order that commits after a higher order id was already read is still
+// counted (look-back window), and counted once however often the window is re-read.
+class RecommendationServiceTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private RecommendationService service;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:recommendations" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, user_id BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE order_items (id BIGINT AUTO_INCREMENT PRIMARY KEY, order_id BIGINT, product_id BIGINT, quantity INT)");
+        jdbcTemplate.execute("CREATE TABLE pets (user_id BIGINT, type VARCHAR(50))");
+
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            Product product = new Product("Product " + id, null, 10.0, null, false, "cat", "Food", null, 10);
+            product.setId(id);
+            products.add(product);
+        }
+        CatalogIndex catalogIndex = mock(CatalogIndex.class);
+        when(catalogIndex.getProducts()).thenAnswer(invocation -> new ArrayList<>(products));
+        when(catalogIndex.getProduct(anyLong())).thenAnswer(invocation -> products.stream()
+                .filter(p -> p.getId().equals(invocation.getArgument(0))).findFirst().orElse(null));
+        service = new RecommendationService(dataSource, catalogIndex, 1000, 100, 600);
+    }
+
+    @Test
+    void ordersCommittedOutOfIdOrderAreCountedOnce() {
+        order(1, 1, 1, 1);
+        order(3, 3, 3, 3);
+        service.refresh();
+
+        // Order 2 (products 1 and 2) commits after order 3 was read
+        order(2, 2, 1, 1);
+        order(2, 2, 2, 1);
+        service.refresh();
+        service.refresh();
+        service.refresh();
+
+        // Product 2 is now a neighbor of what user 1 bought
+        assertEquals(2L, service.recommendForUser(1L, 1).get(0).getId());
+
+        // Units sold: 3 of product 3, 2 of product 1 (not 4: order 2 was re-read three times), 1 of product 2
+        assertEquals(List.of(3L, 1L, 2L), service.recommendForPetTypes(Set.of(), 3).stream().map(Product::getId).toList());
+    }
+
+    private void order(long orderId, long userId, long productId, int quantity) {
+        jdbcTemplate.update("MERGE INTO orders (id, user_id) KEY (id) VALUES (?, ?)", orderId, userId);
+        jdbcTemplate.update("INSERT INTO order_items (order_id, product_id, quantity) VALUES (?, ?, ?)", orderId, productId, quantity);
+    }
+}
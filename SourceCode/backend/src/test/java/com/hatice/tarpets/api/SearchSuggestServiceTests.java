@@ -0,0 +1,157 @@
+package com.hatice.tarpets.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Autocomplete trie: ranking of the top-K lists, normalization of keys and queries, and incremental updates
+// (new, renamed and deleted products) against a catalog held in memory.
+class SearchSuggestServiceTests {
+
+    private final List<Product> catalog = new ArrayList<>();
+    private final Map<Long, Double> scores = new HashMap<>();
+    private SearchSuggestService service;
+
+    @BeforeEach
+    void setUp() {
+        CatalogIndex catalogIndex = mock(CatalogIndex.class);
+        when(catalogIndex.getProducts()).thenAnswer(invocation -> List.copyOf(catalog));
+        ProductRankingService rankingService = mock(ProductRankingService.class);
+        when(rankingService.getScore(anyLong())).thenAnswer(invocation -> scores.getOrDefault(invocation.<Long>getArgument(0), 0.0));
+        service = new SearchSuggestService(catalogIndex, rankingService);
+    }
+
+    @Test
+    void prefixReturnsTheTopKByPopularityThenName() {
+        for (long id = 1; id <= 25; id++) {
+            add(id, "Royal Canin " + (char) ('A' + id - 1), "Cat", "Food", id);
+        }
+        service.rebuild();
+
+        List<SearchSuggestion> top = service.suggest("royal c", 50);
+        assertEquals(SearchSuggestService.TOP_K, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(25L - i, top.get(i).getProductId());
+        }
+        assertEquals(3, service.suggest("royal c", 3).size());
+
+        // Equal popularity: alphabetical
+        catalog.clear();
+        add(26, "Royal Canin Zeta", "Cat", "Food", 0);
+        add(27, "Royal Canin Alpha", "Cat", "Food", 0);
+        service.rebuild();
+        assertEquals(List.of("Royal Canin Alpha", "Royal Canin Zeta"), productTexts(service.suggest("royal", 5)));
+
+        // Categories rank by the number and popularity of their products
+        List<SearchSuggestion> categories = service.suggest("ca", 5);
+        assertEquals(SearchSuggestion.TYPE_CATEGORY, categories.get(0).getType());
+        assertEquals("Cat", categories.get(0).getText());
+    }
+
+    @Test
+    void matchesRegardlessOfCaseAndAccents() {
+        add(1, "Köpek Maması Kuzu Etli", "Köpek", "Mama", 5);
+        add(2, "İÇİN Özel Ödül", "Kedi", "Ödül", 1);
+        service.rebuild();
+
+        for (String prefix : new String[] {"köpek", "KOPEK", "Köp", "kopek mamasi", "  KÖPEK   MAMASI ", "kuzu"}) {
+            assertEquals(List.of("Köpek Maması Kuzu Etli"), productTexts(service.suggest(prefix, 10)), prefix);
+        }
+        assertEquals(List.of("İÇİN Özel Ödül"), productTexts(service.suggest("icin ozel", 10)));
+        assertEquals(List.of("İÇİN Özel Ödül"), productTexts(service.suggest("için", 10)));
+        assertEquals(List.of("İÇİN Özel Ödül"), productTexts(service.suggest("odul", 10)));
+
+        // Suggestions keep the original spelling
+        assertTrue(service.suggest("odu", 10).stream()
+                .anyMatch(s -> s.getType().equals(SearchSuggestion.TYPE_SUBCATEGORY) && s.getText().equals("Ödül")));
+    }
+
+    @Test
+    void newProductsAreSuggestedWithoutARebuild() {
+        add(1, "Whiskas Tuna", "Cat", "Food", 3);
+        service.rebuild();
+        assertTrue(service.suggest("felix", 10).isEmpty());
+
+        Product felix = product(2, "Felix Salmon Jelly", "Cat", "Treats");
+        service.onProductChanged(ProductChangedEvent.saved(felix));
+
+        assertEquals(List.of("Felix Salmon Jelly"), productTexts(service.suggest("fel", 10)));
+        assertEquals(List.of("Felix Salmon Jelly"), productTexts(service.suggest("salm", 10)));
+        assertTrue(texts(service.suggest("t", 10)).containsAll(List.of("Treats", "Whiskas Tuna")));
+        // Both products now count towards "Cat", which outranks either of them
+        assertEquals("Cat", service.suggest("c", 10).get(0).getText());
+    }
+
+    @Test
+    void renamedAndDeletedProductsLeaveTheirOldPrefixes() {
+        add(1, "Whiskas Tuna", "Cat", "Food", 3);
+        add(2, "Acana Puppy", "Dog", "Food", 1);
+        service.rebuild();
+
+        Product renamed = product(1, "Sheba Chicken", "Cat", "Food");
+        service.onProductChanged(ProductChangedEvent.saved(renamed));
+        assertTrue(service.suggest("whis", 10).isEmpty());
+        assertTrue(service.suggest("tuna", 10).isEmpty());
+        assertEquals(List.of("Sheba Chicken"), productTexts(service.suggest("she", 10)));
+        assertEquals(List.of("Sheba Chicken"), productTexts(service.suggest("chick", 10)));
+
+        // Moving the last product out of a category removes the category suggestion
+        Product moved = product(2, "Acana Puppy", "Cat", "Food");
+        service.onProductChanged(ProductChangedEvent.saved(moved));
+        assertTrue(service.suggest("dog", 10).isEmpty());
+
+        service.onProductChanged(ProductChangedEvent.deleted(2L));
+        assertTrue(service.suggest("aca", 10).isEmpty());
+        assertTrue(service.suggest("pup", 10).isEmpty());
+        service.onProductChanged(ProductChangedEvent.deleted(1L));
+        assertTrue(service.suggest("c", 10).isEmpty());
+        assertTrue(service.suggest("f", 10).isEmpty());
+    }
+
+    @Test
+    void emptyAndSingleCharacterPrefixes() {
+        add(1, "Royal Canin Kitten", "Cat", "Food", 2);
+        add(2, "Reflex Kitten", "Cat", "Food", 1);
+        service.rebuild();
+
+        assertTrue(service.suggest("", 10).isEmpty());
+        assertTrue(service.suggest("   ", 10).isEmpty());
+        assertTrue(service.suggest(null, 10).isEmpty());
+        assertTrue(service.suggest("x", 10).isEmpty());
+
+        assertEquals(List.of("Royal Canin Kitten", "Reflex Kitten"), productTexts(service.suggest("r", 10)));
+        assertEquals(List.of("Royal Canin Kitten", "Reflex Kitten"), productTexts(service.suggest("K", 10)));
+        assertEquals(1, service.suggest("r", 1).size());
+    }
+
+    private void add(long id, String name, String category, String subcategory, double score) {
+        catalog.add(product(id, name, category, subcategory));
+        scores.put(id, score);
+    }
+
+    private static Product product(long id, String name, String category, String subcategory) {
+        Product product = new Product(name, null, 10.0, null, false, category, subcategory, null, 10);
+        product.setId(id);
+        return product;
+    }
+
+    private static List<String> texts(List<SearchSuggestion> suggestions) {
+        return suggestions.stream().map(SearchSuggestion::getText).toList();
+    }
+
+    private static List<String> productTexts(List<SearchSuggestion> suggestions) {
+        return suggestions.stream()
+                .filter(s -> s.getType().equals(SearchSuggestion.TYPE_PRODUCT))
+                .map(SearchSuggestion::getText)
+                .toList();
+    }
+}
@@ -0,0 +1,29 @@
+package com.hatice.tarpets.api;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+// Starts the whole application with the 'test' profile (application-test.properties: in-memory H2, random port,
+// no warm-up). Extra arguments are command-line properties, so they override both property files.
+final class TestApplication {
+
+    private TestApplication() {
+    }
+
+    // On a database of its own
+    static ConfigurableApplicationContext start(String... args) {
+        return startOnDatabase("test" + UUID.randomUUID(), args);
+    }
+
+    // On the named in-memory database: contexts started with the same name act as nodes sharing one database
+    static ConfigurableApplicationContext startOnDatabase(String database, String... args) {
+        String[] arguments = Arrays.copyOf(args, args.length + 1);
+        arguments[args.length] = "--test.database=" + database;
+        return new SpringApplicationBuilder(ApiApplication.class)
+                .profiles("test")
+                .run(arguments);
+    }
+}
@@ -0,0 +1,325 @@
+package com.hatice.tarpets.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Application cache: eviction policy, coalesced loads, the remote tier and eviction across instances (two
+// cache managers on the in-JVM bus act as two nodes), then the cached reads in a running application and the
+// write paths that clear them.
+class TieredCacheTests {
+
+    private final List<LocalCacheInvalidationBus> buses = new ArrayList<>();
+    private ConfigurableApplicationContext context;
+
+    @AfterEach
+    void stop() {
+        buses.forEach(LocalCacheInvalidationBus::leave);
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void evictsBySizeAndTtl() {
+        AtomicLong nanos = new AtomicLong();
+        Ticker ticker = nanos::get;
+        TieredCache cache = new TieredCache("test", 100, Duration.ofSeconds(60), null, newBus(), ticker);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "value " + i);
+        }
+        cache.getNativeCache().cleanUp();
+        assertTrue(cache.getNativeCache().estimatedSize() <= 100);
+        assertTrue(cache.stats().getEvictions() >= 900);
+
+        cache.put("fresh", "value");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertEquals("value", cache.get("fresh", String.class));
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertNull(cache.get("fresh"));
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        TieredCache cache = new TieredCache("test", 100, Duration.ofMinutes(1), null, newBus());
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get("popular", () -> {
+                    loads.incrementAndGet();
+                    release.await();
+                    return "loaded";
+                })));
+            }
+            // Give every caller time to arrive while the first one is still loading
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().getLoads());
+    }
+
+    @Test
+    void valueLoadedAcrossAnEvictionIsNotKept() throws Exception {
+        TieredCache cache = new TieredCache("test", 100, Duration.ofMinutes(1), null, newBus());
+        // The row changes (and the region is cleared) while the old value is being read
+        Thread writer = new Thread(cache::clear);
+        assertEquals("old", cache.get("key", () -> {
+            writer.start();
+            Thread.sleep(200);
+            return "old";
+        }));
+        writer.join();
+        assertNull(cache.get("key"));
+        assertEquals("new", cache.get("key", () -> "new"));
+        assertEquals("new", cache.get("key", () -> "other"));
+    }
+
+    @Test
+    void secondInstanceIsAnsweredByTheRemoteTier() {
+        MapRemoteTier remote = new MapRemoteTier();
+        TieredCacheManager nodeA = newManager(remote);
+        TieredCacheManager nodeB = newManager(remote);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("value1", nodeA.getCache("test").get(1L, () -> "value" + loads.incrementAndGet()));
+        assertEquals("value1", nodeB.getCache("test").get(1L, () -> "value" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+        assertEquals(1, nodeB.getRegion("test").stats().getRemoteHits());
+        assertEquals(1.0, nodeB.getRegion("test").stats().getHitRate());
+
+        // Evicted from both tiers: the next read loads again
+        nodeA.getCache("test").evict(1L);
+        assertNull(nodeB.getCache("test").get(1L));
+        assertEquals("value2", nodeB.getCache("test").get(1L, () -> "value" + loads.incrementAndGet()));
+
+        // A failing remote tier only costs the database read
+        remote.failing = true;
+        assertEquals("value3", nodeA.getCache("test").get(2L, () -> "value" + loads.incrementAndGet()));
+        assertTrue(nodeA.getRegion("test").stats().getRemoteErrors() > 0);
+    }
+
+    @Test
+    void evictionsReachTheOtherInstances() {
+        TieredCacheManager nodeA = newManager(null);
+        TieredCacheManager nodeB = newManager(null);
+        for (TieredCacheManager node : List.of(nodeA, nodeB)) {
+            node.getCache("test").put(1L, "one");
+            node.getCache("test").put(2L, "two");
+            node.getCache("test").put("three", "three");
+        }
+
+        nodeA.getCache("test").evict(1L);
+        assertNull(nodeB.getCache("test").get(1L));
+        assertEquals("two", nodeB.getCache("test").get(2L, String.class));
+
+        // Keys other than entity ids clear the whole region elsewhere
+        nodeA.getCache("test").evict("three");
+        assertNull(nodeB.getCache("test").get(2L));
+
+        nodeA.getCache("test").put(4L, "four");
+        nodeB.getCache("test").put(4L, "four");
+        nodeB.getCache("test").clear();
+        assertNull(nodeA.getCache("test").get(4L));
+        assertNull(nodeA.getCache("unknown"));
+    }
+
+    @Test
+    void repositoryReadsAreCachedAndEvictedOnWrites() throws Exception {
+        context = TestApplication.start();
+        UserRepository users = context.getBean(UserRepository.class);
+        OrderRepository orders = context.getBean(OrderRepository.class);
+        OrderService orderService = context.getBean(OrderService.class);
+        PetRepository pets = context.getBean(PetRepository.class);
+        ProductRepository products = context.getBean(ProductRepository.class);
+        TieredCacheManager cacheManager = context.getBean(TieredCacheManager.class);
+
+        User user = new User();
+        user.setFullName("Ayse");
+        user.setEmail("ayse@example.com");
+        user.setPassword("secret");
+        user = users.save(user);
+        pets.save(new Pet("Tekir", "Cat", user));
+        Product product = products.save(new Product("Cat Litter 10L", null, 12.5, null, false, "cat", "Litter", null, 50));
+
+        // Login lookup: not cached, it carries the password hash
+        assertNotSame(users.findByEmailFetchPets("ayse@example.com").orElseThrow(),
+                users.findByEmailFetchPets("ayse@example.com").orElseThrow());
+        assertNull(cacheManager.getCache("users-by-email"));
+
+        // Order history: cached without the password, and serializable without a session
+        orders.save(newOrder(user, product));
+        List<Order> history = orderService.history(user.getId());
+        assertSame(history, orderService.history(user.getId()));
+        assertNull(history.get(0).getUser().getPassword());
+        assertEquals("secret", users.findById(user.getId()).orElseThrow().getPassword());
+        String json = context.getBean(ObjectMapper.class).writeValueAsString(history);
+        assertTrue(json.contains("Tekir"), json);
+        assertTrue(json.contains("Cat Litter 10L"), json);
+
+        // A new order or a new pet evicts the history
+        orders.save(newOrder(user, product));
+        assertEquals(2, orderService.history(user.getId()).size());
+        pets.save(new Pet("Karabas", "Dog", user));
+        assertEquals(2, orderService.history(user.getId()).get(0).getUser().getPets().size());
+        assertTrue(orderService.history(-1L).isEmpty());
+
+        // Product finders: cached until a product changes
+        assertSame(products.findByCategory("cat"), products.findByCategory("cat"));
+        context.getBean(ProductController.class).updateProduct(product.getId(),
+                new Product("Cat Litter 20L", null, 20.0, null, false, "cat", "Litter", null, 50));
+        assertEquals("Cat Litter 20L", products.findByCategory("cat").get(0).getName());
+
+        Map<String, CacheRegionStats> stats = new ConcurrentHashMap<>();
+        context.getBean(CacheAdminController.class).getCaches().forEach(region -> stats.put(region.getName(), region));
+        assertEquals(2, stats.size());
+        assertTrue(stats.get(TieredCacheConfig.PRODUCT_QUERIES).getHitRate() > 0);
+        assertTrue(stats.get(TieredCacheConfig.ORDERS_BY_USER).getLocalHits() > 0);
+    }
+
+    @Test
+    void productQueriesAreClearedOnEveryProductWritePath() throws Exception {
+        context = TestApplication.start("--products.write-behind.flush-ms=3600000");
+        ProductRepository products = context.getBean(ProductRepository.class);
+        Product product = context.getBean(ProductController.class).createProduct(
+                new Product("Cat Litter 10L", null, 12.5, null, false, "cat", "Litter", null, 50));
+        Long id = product.getId();
+
+        // Write-behind PATCH: cleared once the buffered write reaches the database
+        assertCleared(products, () -> {
+            context.getBean(ProductWriteBuffer.class).patch(id, Map.of("price", 11.0), null);
+            context.getBean(ProductWriteBuffer.class).flush();
+        }, 11.0);
+        assertCleared(products, () -> context.getBean(ProductStockService.class).adjustStock(id, -1), 11.0);
+
+        CampaignService campaigns = context.getBean(CampaignService.class);
+        Campaign campaign = new Campaign();
+        campaign.setName("Litter week");
+        campaign.setDiscountPercent(50.0);
+        campaign.setProductIds(List.of(id));
+        campaign.setStartsAt(LocalDateTime.now().plusHours(1));
+        campaign.setEndsAt(LocalDateTime.now().plusHours(2));
+        Long campaignId = campaigns.create(campaign).getId();
+        assertCleared(products, () -> campaigns.start(campaignId), 5.5);
+        assertCleared(products, () -> campaigns.end(campaignId, Campaign.STATUS_ENDED), 11.0);
+
+        assertCleared(products, () -> {
+            try {
+                context.getBean(ProductBulkService.class).importCsv(
+                        new ByteArrayInputStream(("id,price\n" + id + ",9.0\n").getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, 9.0);
+    }
+
+    private static void assertCleared(ProductRepository products, Runnable write, double price) {
+        List<Product> cached = products.findByCategory("cat");
+        assertSame(cached, products.findByCategory("cat"));
+        write.run();
+        List<Product> fresh = products.findByCategory("cat");
+        assertNotSame(cached, fresh);
+        assertEquals(price, fresh.get(0).getPrice());
+    }
+
+    private LocalCacheInvalidationBus newBus() {
+        LocalCacheInvalidationBus bus = new LocalCacheInvalidationBus();
+        buses.add(bus);
+        return bus;
+    }
+
+    private TieredCacheManager newManager(RemoteCacheTier remote) {
+        LocalCacheInvalidationBus bus = newBus();
+        TieredCacheManager manager = new TieredCacheManager(
+                List.of(new TieredCache("test", 100, Duration.ofMinutes(1), remote, bus)), bus);
+        manager.afterPropertiesSet();
+        return manager;
+    }
+
+    private static Order newOrder(User user, Product product) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setTotalPrice(product.getPrice());
+        order.setCreatedAt(LocalDateTime.now());
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(1);
+        item.setPrice(product.getPrice());
+        order.getItems().add(item);
+        return order;
+    }
+
+    // Shared store of two "instances"
+    private static class MapRemoteTier implements RemoteCacheTier {
+
+        private final Map<String, Object> values = new ConcurrentHashMap<>();
+        private volatile boolean failing;
+
+        @Override
+        public Cache.ValueWrapper get(String region, Object key) {
+            check();
+            Object value = values.get(region + ":" + key);
+            return value == null ? null : new SimpleValueWrapper(value);
+        }
+
+        @Override
+        public void put(String region, Object key, Object value, Duration ttl) {
+            check();
+            values.put(region + ":" + key, value);
+        }
+
+        @Override
+        public void evict(String region, Object key) {
+            check();
+            values.remove(region + ":" + key);
+        }
+
+        @Override
+        public void clear(String region) {
+            check();
+            values.keySet().removeIf(key -> key.startsWith(region + ":"));
+        }
+
+        private void check() {
+            if (failing) {
+                throw new IllegalStateException("remote tier unavailable");
+            }
+        }
+    }
+}
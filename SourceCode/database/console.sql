@@ -25,7 +25,8 @@ CREATE TABLE products
     category      VARCHAR(50)  NOT NULL,
     subcategory   VARCHAR(50),
     image_url     VARCHAR(2000),
-    stock         INT     DEFAULT 0
+    stock         INT     DEFAULT 0,
+    version       BIGINT  DEFAULT 0
 );
 
 -- 3. ORDERS TABLE
@@ -35,9 +36,12 @@ CREATE TABLE orders
     user_id     BIGINT,
     total_price DOUBLE,
     created_at  DATETIME,
+    version     BIGINT DEFAULT 0,
     FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
 );
 
+CREATE INDEX idx_orders_created_at ON orders (created_at);
+
 -- 4. ORDER ITEMS TABLE
 CREATE TABLE order_items
 (
@@ -57,9 +61,116 @@ CREATE TABLE pets
     name    VARCHAR(255),
     type    VARCHAR(255),
     user_id BIGINT,
+    version BIGINT DEFAULT 0,
     FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
 );
 
+-- 6. CART ITEMS TABLE
+CREATE TABLE cart_items
+(
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id    BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity   INT,
+    updated_at DATETIME(6)
+);
+
+CREATE INDEX idx_cart_items_user ON cart_items (user_id);
+
+-- 7. CAMPAIGNS TABLES
+CREATE TABLE campaigns
+(
+    id                BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name              VARCHAR(255),
+    category          VARCHAR(255),
+    discount_percent  DOUBLE,
+    starts_at         DATETIME(6),
+    ends_at           DATETIME(6),
+    created_at        DATETIME(6),
+    status            VARCHAR(16),
+    affected_products INT
+);
+
+CREATE TABLE campaign_products
+(
+    campaign_id BIGINT NOT NULL,
+    product_id  BIGINT,
+    FOREIGN KEY (campaign_id) REFERENCES campaigns (id) ON DELETE CASCADE
+);
+
+-- 8. PRICE HISTORY TABLE
+CREATE TABLE price_history
+(
+    id            BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id    BIGINT NOT NULL,
+    price         DOUBLE,
+    old_price     DOUBLE,
+    is_discounted BOOLEAN,
+    campaign_id   BIGINT,
+    changed_at    DATETIME(6)
+);
+
+CREATE INDEX idx_price_history_product ON price_history (product_id);
+
+-- 9. CACHE INVALIDATIONS TABLE
+CREATE TABLE cache_invalidations
+(
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity_name VARCHAR(255),
+    entity_id   BIGINT,
+    node_id     VARCHAR(64),
+    created_at  DATETIME(6)
+);
+
+-- 10. PRODUCT RANKING SNAPSHOTS TABLE
+CREATE TABLE product_ranking_snapshots
+(
+    product_id    BIGINT PRIMARY KEY,
+    score         DOUBLE,
+    total_units   BIGINT,
+    hourly_counts VARCHAR(4000),
+    last_order_id BIGINT,
+    taken_at      DATETIME(6)
+);
+
+-- 11. REFRESH TOKENS TABLE
+CREATE TABLE refresh_tokens
+(
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    token_hash VARCHAR(64) NOT NULL,
+    family_id  VARCHAR(36),
+    user_id    BIGINT,
+    expires_at DATETIME(6),
+    used_at    DATETIME(6),
+    revoked    BOOLEAN     NOT NULL DEFAULT false,
+    CONSTRAINT idx_refresh_tokens_hash UNIQUE (token_hash)
+);
+
+CREATE INDEX idx_refresh_tokens_family ON refresh_tokens (family_id);
+CREATE INDEX idx_refresh_tokens_expires_at ON refresh_tokens (expires_at);
+
+-- 12. REVOKED TOKENS TABLE
+CREATE TABLE revoked_tokens
+(
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    jti        VARCHAR(36),
+    user_id    BIGINT,
+    revoked_at DATETIME(6),
+    expires_at DATETIME(6)
+);
+
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
+
+-- 13. CATALOG CHANGES TABLE
+CREATE TABLE catalog_changes
+(
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT,
+    changed_at DATETIME(6)
+);
+
+CREATE INDEX idx_catalog_changes_changed_at ON catalog_changes (changed_at);
+
 -- ==========================================
 -- 📦 LOADING PRODUCTS (SHOWCASE SET)
 -- ==========================================
@@ -25,4 +25,55 @@ api.interceptors.request.use(
     (error) => Promise.reject(error)
 );
 
+// Response Interceptor:
+// Access tokens are short-lived. When a request is rejected with 401 (missing, expired or revoked token;
+// 403 means the user lacks the role, which a refresh does not change) and a refresh token is stored,
+// a new token pair is requested once (shared by all requests failing at the same time) and the
+// request is repeated. If the refresh fails too, the stored session is cleared.
+let refreshing = null;
+
+const refreshTokens = () => {
+    if (!refreshing) {
+        const refreshToken = localStorage.getItem("refreshToken");
+        refreshing = axios
+            .post(`${API_BASE_URL}/api/refresh`, { refreshToken })
+            .then(({ data }) => {
+                localStorage.setItem("token", data.token);
+                localStorage.setItem("refreshToken", data.refreshToken);
+                return data.token;
+            })
+            .catch((error) => {
+                localStorage.removeItem("token");
+                localStorage.removeItem("refreshToken");
+                localStorage.removeItem("user");
+                throw error;
+            })
+            .finally(() => {
+                refreshing = null;
+            });
+    }
+    return refreshing;
+};
+
+api.interceptors.response.use(
+    (response) => response,
+    async (error) => {
+        const original = error.config;
+        const status = error.response && error.response.status;
+        if (status === 401 && original && !original._retried
+            && localStorage.getItem("refreshToken")
+            && !original.url.includes("/api/refresh") && !original.url.includes("/api/login")) {
+            original._retried = true;
+            try {
+                const token = await refreshTokens();
+                original.headers.Authorization = `Bearer ${token}`;
+                return api(original);
+            } catch (refreshError) {
+                return Promise.reject(error);
+            }
+        }
+        return Promise.reject(error);
+    }
+);
+
 export default api;
\ No newline at end of file
@@ -1,4 +1,5 @@
 import React, { createContext, useEffect, useState } from "react";
+import api from "../api/axios";
 
 export const AuthContext = createContext();
 
@@ -26,16 +27,26 @@ export function AuthProvider({ children }) {
       if (userObj && userObj.token) {
         localStorage.setItem("token", userObj.token);
       }
+      if (userObj && userObj.refreshToken) {
+        localStorage.setItem("refreshToken", userObj.refreshToken);
+      }
     } catch (e) {
       console.error("Failed to store user:", e);
     }
   };
 
-  // Logout process: Clears user data from state and storage
+  // Logout process: Revokes the tokens on the server (best effort) and clears user data from state and storage
   const logout = () => {
+    const token = localStorage.getItem("token");
+    const refreshToken = localStorage.getItem("refreshToken");
+    if (token) {
+      // Header passed explicitly: storage is cleared below before the request interceptor runs
+      api.post("/api/logout", { refreshToken }, { headers: { Authorization: `Bearer ${token}` } }).catch(() => {});
+    }
     setUser(null);
     localStorage.removeItem("user");
     localStorage.removeItem("token");
+    localStorage.removeItem("refreshToken");
   };
 
   return (
@@ -80,8 +80,10 @@ function AdminPanel() {
 
     } catch (err) {
       console.error("Admin panel fetch error:", err);
-      if (err.response?.status === 403) {
-        setError("Access denied. Session expired.");
+      if (err.response?.status === 401) {
+        setError("Session expired. Please sign in again.");
+      } else if (err.response?.status === 403) {
+        setError("Access denied.");
       } else {
         setError("An error occurred while fetching admin data.");
       }